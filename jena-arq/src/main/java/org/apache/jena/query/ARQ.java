@@ -152,6 +152,14 @@ public class ARQ
     public static final Symbol enableExecutionTimeLogging =
         SystemARQ.allocSymbol("enableExecutionTimeLogging") ;
 
+    /**
+     * Collect per-operator execution statistics: rows, time and number of
+     * substituted sub-executions for each operator of the algebra expression.
+     * @see org.apache.jena.sparql.mgt.ExecStats
+     */
+    public static final Symbol collectExecStats =
+        SystemARQ.allocSymbol("collectExecStats") ;
+
     /** If true, XML result sets written will contain the graph bNode label
      *  See also inputGraphBNodeLabels
      */
@@ -286,6 +294,23 @@ public class ARQ
     // Hash table: GROUP BY, MINUS, SERVICE, VALUES, and hash joins <br>
     public static final Symbol spillToDiskThreshold = SystemARQ.allocSymbol("spillToDiskThreshold") ;
     
+    /**
+     * Context key for caching the optimized algebra of queries so that repeated
+     * executions of the same query do not regenerate and reoptimize the algebra.
+     * Set to {@code true} for the system-wide cache or to a specific
+     * {@link org.apache.jena.sparql.engine.QueryPlanCache}.
+     * <p>By default, plans are not cached.
+     */
+    public static final Symbol queryPlanCache = SystemARQ.allocSymbol("queryPlanCache") ;
+
+    /**
+     * Context key controlling whether the reachable nodes for the closure paths
+     * {@code :p*} and {@code :p+} are remembered and reused during a query execution.
+     * <p>Default is "true".
+     * @see org.apache.jena.sparql.path.eval.PathReachability
+     */
+    public static final Symbol pathReachabilityCache = SystemARQ.allocSymbol("pathReachabilityCache") ;
+
     // Optimizer controls.
     
     /** 
@@ -475,6 +500,15 @@ public class ARQ
     // However, StageGeneratorGeneric does reorder based on partial results. 
     public static final Symbol optReorderBGP = SystemARQ.allocSymbol("optReorderBGP");
 
+    /**
+     * Context key controlling whether the standard optimizer plans joins
+     * involving SERVICE using statistics about the remote endpoints (see
+     * {@link org.apache.jena.sparql.engine.http.ServiceStats}). Gathering
+     * statistics sends queries to the endpoints.
+     * <p>By default, this transformation is NOT applied.
+     */
+    public static final Symbol optServiceFederation = SystemARQ.allocSymbol("optServiceFederation");
+
     /** 
      *  Context key controlling whether the main query engine processes property functions.
      *  <p>By default, this is applied.
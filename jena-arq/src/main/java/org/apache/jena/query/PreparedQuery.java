@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.query;
+
+import java.util.Objects ;
+
+import org.apache.jena.sparql.core.ResultBinding ;
+import org.apache.jena.sparql.engine.QueryPlanCache ;
+import org.apache.jena.sparql.engine.binding.Binding ;
+import org.apache.jena.sparql.util.Context ;
+
+/**
+ * A query that is parsed and optimized once and then executed many times with
+ * different values for its parameters, in the style of a JDBC prepared statement.
+ * <p>
+ * Parameters are variables of the query. Each execution supplies a
+ * {@link QuerySolution} or {@link Binding} giving values for some or all of the
+ * parameters; the values are substituted into the optimized algebra of the query
+ * (see {@link org.apache.jena.sparql.core.Substitute}) and, as for
+ * {@link QueryExecution#setInitialBinding}, are included in the results.
+ * <p>
+ * The optimized algebra is calculated on the first execution and kept in a
+ * {@link QueryPlanCache} private to this {@code PreparedQuery}. A
+ * {@code PreparedQuery} can be executed concurrently from several threads.
+ *
+ * <pre>
+ *    PreparedQuery pq = PreparedQuery.prepare("SELECT * { ?s :name ?name }", dataset);
+ *    QuerySolutionMap params = new QuerySolutionMap();
+ *    params.add("s", resource);
+ *    try ( QueryExecution qExec = pq.execute(params) ) {
+ *        ResultSetFormatter.out(qExec.execSelect());
+ *    }
+ * </pre>
+ */
+public class PreparedQuery {
+    // A plan for each combination of context settings used.
+    private static final int PlanCacheSize = 10 ;
+
+    private final Query query ;
+    private final Dataset dataset ;
+    private final QueryPlanCache planCache = new QueryPlanCache(PlanCacheSize) ;
+
+    /** Prepare a query for execution on a dataset. */
+    public static PreparedQuery prepare(String queryString, Dataset dataset) {
+        return prepare(QueryFactory.create(queryString), dataset) ;
+    }
+
+    /**
+     * Prepare a query for execution on a dataset.
+     * The query must not be modified after it has been prepared.
+     */
+    public static PreparedQuery prepare(Query query, Dataset dataset) {
+        return new PreparedQuery(query, dataset) ;
+    }
+
+    private PreparedQuery(Query query, Dataset dataset) {
+        this.query = Objects.requireNonNull(query, "Query is null") ;
+        this.dataset = Objects.requireNonNull(dataset, "Dataset is null") ;
+        // Do once, before any concurrent use.
+        query.setResultVars() ;
+    }
+
+    public Query getQuery() {
+        return query ;
+    }
+
+    /** Create a {@link QueryExecution} for the query with no parameters set. */
+    public QueryExecution execute() {
+        return execute((QuerySolution)null) ;
+    }
+
+    /** Create a {@link QueryExecution} with parameters from a {@link Binding}. */
+    public QueryExecution execute(Binding parameters) {
+        QuerySolution qSolution = (parameters == null) ? null : new ResultBinding(null, parameters) ;
+        return execute(qSolution) ;
+    }
+
+    /** Create a {@link QueryExecution} with parameters from a {@link QuerySolution}. */
+    public QueryExecution execute(QuerySolution parameters) {
+        QueryExecution qExec = QueryExecutionFactory.create(query, dataset) ;
+        Context cxt = qExec.getContext() ;
+        cxt.set(ARQ.queryPlanCache, planCache) ;
+        if ( parameters != null )
+            qExec.setInitialBinding(parameters) ;
+        return qExec ;
+    }
+}
@@ -132,6 +132,34 @@ public class QueryExecutionFactory
         return make(makeQuery(queryStr, syntax), dataset) ;
     }
 
+    /**
+     * Prepare a query for repeated execution over the Dataset with different
+     * parameter values. The query is optimized once.
+     * 
+     * @param query Query
+     * @param dataset Target of the query
+     * @return PreparedQuery
+     * @see PreparedQuery
+     */
+    static public PreparedQuery prepare(Query query, Dataset dataset) {
+        checkArg(query) ;
+        return PreparedQuery.prepare(query, dataset) ;
+    }
+
+    /**
+     * Prepare a query for repeated execution over the Dataset with different
+     * parameter values. The query is parsed and optimized once.
+     * 
+     * @param queryStr Query string
+     * @param dataset Target of the query
+     * @return PreparedQuery
+     * @see PreparedQuery
+     */
+    static public PreparedQuery prepare(String queryStr, Dataset dataset) {
+        checkArg(queryStr) ;
+        return PreparedQuery.prepare(makeQuery(queryStr), dataset) ;
+    }
+
     // ---------------- Query + Model
     
     /** Create a QueryExecution to execute over the Model.
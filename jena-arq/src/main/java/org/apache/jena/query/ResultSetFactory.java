@@ -18,6 +18,7 @@
 
 package org.apache.jena.query;
 
+import java.io.IOException ;
 import java.io.InputStream ;
 import java.util.List ;
 
@@ -67,8 +68,12 @@ public class ResultSetFactory {
     public static ResultSet load(String filenameOrURI, ResultsFormat format) {
         if (format == null)
             format = ResultsFormat.guessSyntax(filenameOrURI);
-        InputStream in = IO.openFile(filenameOrURI) ;
-        return load(in, format) ;
+        try ( InputStream in = IO.openFile(filenameOrURI) ) {
+            return load(in, format) ;
+        } catch (IOException ex) {
+            IO.exception(ex) ;
+            return null ;
+        }
     }
 
     /**
@@ -88,7 +93,8 @@ public class ResultSetFactory {
         // Old World - new world
         Lang lang = ResultsFormat.convert(format) ;
         if ( lang != null )
-            return ResultSetMgr.read(input, lang) ;
+            // Readers may stream; read all the results now.
+            return copyResults(ResultSetMgr.read(input, lang)) ;
 
         if (format.equals(ResultsFormat.FMT_TEXT)) {
             Log.warn(ResultSet.class, "Can't read a text result set");
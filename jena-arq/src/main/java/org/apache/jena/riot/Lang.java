@@ -80,6 +80,9 @@ public class Lang
 
     //** The RDF syntax "RDF Thrift" : see http://jena.apache.org/documentation/io */ 
     public static Lang RDFTHRIFT ;
+
+    /** The RDF syntax "RDF Dict" : binary, with a dictionary of recent terms */
+    public static Lang RDFDICT ;
     
     /** "CSV" - Used in various ways. */
     public static Lang CSV ;
@@ -1294,7 +1294,7 @@ public class RDFDataMgr
         if ( RDFLanguages.sameLang(RDFLanguages.NTRIPLES, lang) )
             return new IteratorResourceClosing<>(RiotParsers.createIteratorNTriples(input, null), input);
         // Otherwise, we have to spin up a thread to deal with it
-        PipedRDFIterator<Triple> it = new PipedRDFIterator<>();
+        PipedRDFIterator<Triple> it = createPipedIterator();
         PipedTriplesStream out = new PipedTriplesStream(it);
         Thread t = new Thread(()->parseFromInputStream(out, input, baseIRI, lang, null)) ;
         t.start();
@@ -1316,11 +1316,18 @@ public class RDFDataMgr
                 input);
         }
         // Otherwise, we have to spin up a thread to deal with it
-        final PipedRDFIterator<Quad> it = new PipedRDFIterator<>();
+        final PipedRDFIterator<Quad> it = createPipedIterator();
         final PipedQuadsStream out = new PipedQuadsStream(it);
 
         Thread t = new Thread(()->parseFromInputStream(out, input, baseIRI, lang, null)) ;
         t.start();
         return it;
     }
+
+    // Parsing in a background thread : hand over triples and quads in batches.
+    private static <T> PipedRDFIterator<T> createPipedIterator() {
+        return new PipedRDFIterator<>(PipedRDFIterator.DEFAULT_BUFFER_SIZE, false,
+                                      PipedRDFIterator.DEFAULT_POLL_TIMEOUT, PipedRDFIterator.DEFAULT_MAX_POLLS,
+                                      PipedRDFIterator.DEFAULT_BATCH_SIZE);
+    }
 }
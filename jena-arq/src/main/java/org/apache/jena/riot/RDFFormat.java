@@ -18,6 +18,7 @@
 
 package org.apache.jena.riot ;
 
+import static org.apache.jena.riot.RDFLanguages.RDFDICT ;
 import static org.apache.jena.riot.RDFLanguages.THRIFT ;
 
 import java.util.Objects;
@@ -31,6 +32,13 @@ public class RDFFormat {
      * incoming triple/quad stream
      */
     public static final RDFFormatVariant BLOCKS         = new RDFFormatVariant("blocks") ;
+    /**
+     * Print in blocks, as {@link #BLOCKS}, with blank nodes used once written
+     * nested when seen within a window of the incoming triple/quad stream.
+     * The graph or dataset being written is asked how blank nodes are used, so
+     * there is no writer for a stream alone in {@link org.apache.jena.riot.system.StreamRDFWriter}.
+     */
+    public static final RDFFormatVariant BLOCKS_NESTED  = new RDFFormatVariant("blocks nested") ;
     /** Print out one per line */
     public static final RDFFormatVariant FLAT           = new RDFFormatVariant("flat") ;
 
@@ -49,6 +57,8 @@ public class RDFFormat {
     public static final RDFFormat        TTL            = TURTLE_PRETTY ;
     /** Turtle - write in blocks of triples, with same subject, no nested object or RDF lists */ 
     public static final RDFFormat        TURTLE_BLOCKS  = new RDFFormat(Lang.TURTLE, BLOCKS) ;
+    /** Turtle - write in blocks of triples, with same subject, and nested blank nodes, no RDF lists */ 
+    public static final RDFFormat        TURTLE_BLOCKS_NESTED = new RDFFormat(Lang.TURTLE, BLOCKS_NESTED) ;
     /** Turtle - one line per triple  */ 
     public static final RDFFormat        TURTLE_FLAT    = new RDFFormat(Lang.TURTLE, FLAT) ;
 
@@ -76,6 +86,8 @@ public class RDFFormat {
     public static final RDFFormat        TRIG           = TRIG_PRETTY ;
     /** TriG - write in blocks of triples, with same subject, no nested object or RDF lists */ 
     public static final RDFFormat        TRIG_BLOCKS    = new RDFFormat(Lang.TRIG, BLOCKS) ;
+    /** TriG - write in blocks of triples, with same subject, and nested blank nodes, no RDF lists */ 
+    public static final RDFFormat        TRIG_BLOCKS_NESTED = new RDFFormat(Lang.TRIG, BLOCKS_NESTED) ;
     /** TriG - one line per triple  */ 
     public static final RDFFormat        TRIG_FLAT      = new RDFFormat(Lang.TRIG, FLAT) ;
 
@@ -140,6 +152,14 @@ public class RDFFormat {
     public static final RDFFormat        JSONLD         = JSONLD_COMPACT_PRETTY ;
     public static final RDFFormat        JSONLD_FLAT    = JSONLD_COMPACT_FLAT ;
 
+    /** Variant for JSON-LD written as the data arrives (expanded form, one node object per line) */
+    public static final RDFFormatVariant STREAM         = new RDFFormatVariant("stream") ;
+    /**
+     * JSON-LD in expanded form, written by streaming (see {@link org.apache.jena.riot.writer.StreamWriterJSONLD}).
+     * Memory use does not depend on the size of the data.
+     */
+    public static final RDFFormat        JSONLD_STREAM  = new RDFFormat(Lang.JSONLD, STREAM) ;
+
     /** RDF/XML ABBREV variant */
     public static final RDFFormatVariant ABBREV         = new RDFFormatVariant("pretty") ;
     /** Basic RDF/XML variant */
@@ -175,6 +195,25 @@ public class RDFFormat {
      */
     public static final RDFFormat RDF_THRIFT_VALUES     = new RDFFormat(THRIFT, ValueEncoding) ;
 
+    /** Variant for RDF Dict : deflate compression of blocks */
+    public static final RDFFormatVariant DEFLATE        = new RDFFormatVariant("deflate") ;
+    /** Variant for RDF Dict : blocks are not compressed */
+    public static final RDFFormatVariant UNCOMPRESSED   = new RDFFormatVariant("uncompressed") ;
+
+    /**
+     * RDF Dict output. A binary format where a term is sent once and then
+     * referred to by number while it is one of the recent terms, and blocks
+     * are compressed with LZ4. It is faithful representation of RDF written
+     * and it is suitable for database dumps and for transfer between systems.
+     *
+     * @see org.apache.jena.riot.dict.RDFDict
+     */
+    public static final RDFFormat RDF_DICT              = new RDFFormat(RDFDICT) ;
+    /** RDF Dict, with blocks compressed with deflate : smaller, slower than {@link #RDF_DICT}. */
+    public static final RDFFormat RDF_DICT_DEFLATE      = new RDFFormat(RDFDICT, DEFLATE) ;
+    /** RDF Dict, with blocks not compressed. */
+    public static final RDFFormat RDF_DICT_UNCOMPRESSED = new RDFFormat(RDFDICT, UNCOMPRESSED) ;
+
     /**
      * The "null" output format (a sink that prints nothing, usually quite
      * efficiently)
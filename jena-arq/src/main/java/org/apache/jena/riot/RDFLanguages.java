@@ -28,6 +28,7 @@ import static org.apache.jena.riot.WebContent.contentTypeNQuadsAlt1;
 import static org.apache.jena.riot.WebContent.contentTypeNQuadsAlt2;
 import static org.apache.jena.riot.WebContent.contentTypeNTriples;
 import static org.apache.jena.riot.WebContent.contentTypeNTriplesAlt;
+import static org.apache.jena.riot.WebContent.contentTypeRDFDict;
 import static org.apache.jena.riot.WebContent.contentTypeRDFJSON;
 import static org.apache.jena.riot.WebContent.contentTypeRDFThrift;
 import static org.apache.jena.riot.WebContent.contentTypeRDFXML;
@@ -70,6 +71,7 @@ public class RDFLanguages
     public static final String strLangTSV        = "TSV";
     public static final String strLangTriX       = "TriX";
     public static final String strLangRDFTHRIFT  = "RDF-THRIFT";
+    public static final String strLangRDFDICT    = "RDF-DICT";
     
     /*
      * ".owl" is not a formally registered file extension for OWL 
@@ -146,6 +148,12 @@ public class RDFLanguages
                                                      .addFileExtensions("rt", "trdf")
                                                      .build() ;
     
+    /** The RDF syntax "RDF Dict" : binary, with a dictionary of recent terms : see {@link org.apache.jena.riot.dict.RDFDict} */
+    public static final Lang RDFDICT    = LangBuilder.create(strLangRDFDICT, contentTypeRDFDict)
+                                                     .addAltNames("RDF_DICT", "RDFDICT", "RDF/DICT")
+                                                     .addFileExtensions("rdfd")
+                                                     .build() ;
+    
     /** Text */
     public static final Lang TEXT       = LangBuilder.create("text", contentTypeTextPlain)
                                                      .addAltNames("TEXT")   
@@ -198,6 +206,7 @@ public class RDFLanguages
         Lang.NQ         = RDFLanguages.NQ ;
         Lang.TRIG       = RDFLanguages.TRIG ;
         Lang.RDFTHRIFT  = RDFLanguages.THRIFT ;
+        Lang.RDFDICT    = RDFLanguages.RDFDICT ;
         Lang.TRIX       = RDFLanguages.TRIX ;
         Lang.RDFNULL    = RDFLanguages.RDFNULL ;
         
@@ -228,6 +237,7 @@ public class RDFLanguages
         register(TRIG) ;
         register(NQUADS) ;
         register(THRIFT) ;
+        register(RDFDICT) ;
         register(TRIX) ;
         register(RDFNULL) ;
         
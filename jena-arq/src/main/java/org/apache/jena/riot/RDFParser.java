@@ -38,6 +38,7 @@ import org.apache.jena.atlas.web.TypedInputStream;
 import org.apache.jena.graph.Graph;
 import org.apache.jena.query.Dataset;
 import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.lang.ParallelParserNTuples;
 import org.apache.jena.riot.process.normalize.StreamCanonicalLangTag;
 import org.apache.jena.riot.process.normalize.StreamCanonicalLiterals;
 import org.apache.jena.riot.system.*;
@@ -95,6 +96,8 @@ public class RDFParser {
     private final FactoryRDF        factory;
     private final ErrorHandler      errorHandler;
     private final Context           context;
+    private final int               parallel;
+    private final boolean           preserveOrder;
 
     private boolean                 canUse = true;
 
@@ -157,6 +160,7 @@ public class RDFParser {
      * Create an {@link RDFParserBuilder} and set the source to {@link InputStream}.
      *  The {@link InputStream} will be closed when the 
      *  parser is called and the parser can not be reused. 
+     *  When parsing in parallel, the {@link InputStream} is not closed.
      *  The syntax must be set with {@code .lang(...)}.
      *  <p>
      *  This is a shortcut for {@code RDFParser.create().source(input)}.
@@ -171,7 +175,8 @@ public class RDFParser {
                             HttpClient httpClient, Lang hintLang, Lang forceLang, String baseUri, boolean strict, Optional<Boolean> checking, 
                             boolean canonicalLexicalValues, LangTagForm langTagForm,  
                             boolean resolveURIs, IRIResolver resolver, FactoryRDF factory,
-                            ErrorHandler errorHandler, Context context) {
+                            ErrorHandler errorHandler, Context context,
+                            int parallel, boolean preserveOrder) {
         int x = countNonNull(uri, path, content, inputStream, javaReader);
         if ( x >= 2 )
             throw new IllegalArgumentException("Only one source allowed: one of uri, path, content, inputStream and javaReader must be set");
@@ -200,6 +205,8 @@ public class RDFParser {
         this.factory = factory;
         this.errorHandler = errorHandler;
         this.context = context;
+        this.parallel = parallel;
+        this.preserveOrder = preserveOrder;
     }
 
     /** Count the nulls */
@@ -299,21 +306,34 @@ public class RDFParser {
     private void parseURI(StreamRDF destination) {
         // Source by uri or path.
         try (TypedInputStream input = openTypedInputStream(uri, path)) {
-            ReaderRIOT reader;
             ContentType ct;
+            Lang lang;
             if ( forceLang != null ) {
-                @SuppressWarnings("deprecation")
-                ReaderRIOTFactory r = RDFParserRegistry.getFactory(forceLang);
-                if ( r == null )
-                    throw new RiotException("No parser registered for language: " + forceLang);
                 ct = forceLang.getContentType();
-                reader = createReader(r, forceLang);
+                lang = forceLang;
             } else {
                 // No forced language.
                 // Conneg and hint, ignoring text/plain.
                 ct = WebContent.determineCT(input.getContentType(), hintLang, baseUri);
                 if ( ct == null )
                     throw new RiotException("Failed to determine the content type: (URI=" + baseUri + " : stream=" + input.getContentType()+")");
+                lang = RDFLanguages.contentTypeToLang(ct);
+            }
+            if ( isParallel(lang) ) {
+                if ( path != null && ! isCompressed(path) )
+                    createParallelParser(lang).parse(path, destination);
+                else
+                    createParallelParser(lang).parse(input, destination);
+                return;
+            }
+            ReaderRIOT reader;
+            if ( forceLang != null ) {
+                @SuppressWarnings("deprecation")
+                ReaderRIOTFactory r = RDFParserRegistry.getFactory(forceLang);
+                if ( r == null )
+                    throw new RiotException("No parser registered for language: " + forceLang);
+                reader = createReader(r, forceLang);
+            } else {
                 reader = createReader(ct);
                 if ( reader == null )
                     throw new RiotException("No parser registered for content type: " + ct.getContentType());
@@ -332,6 +352,15 @@ public class RDFParser {
         if ( ct == null )
             throw new RiotException("Failed to determine the RDF syntax (.lang or .base required)");
     
+        if ( inputStream != null && isParallel(RDFLanguages.contentTypeToLang(ct)) ) {
+            // Close the InputStream, as the readers do when parsing with one thread.
+            try {
+                createParallelParser(RDFLanguages.contentTypeToLang(ct)).parse(inputStream, destination);
+            } finally {
+                IO.close(inputStream);
+            }
+            return;
+        }
         ReaderRIOT readerRiot = createReader(ct);
         if ( readerRiot == null )
             throw new RiotException("No parser registered for content type: " + ct.getContentType());
@@ -364,7 +393,8 @@ public class RDFParser {
         // If path, use that.
         if ( path != null ) {
             try {
-                InputStream in = Files.newInputStream(path);
+                // Compressed files are decompressed on other threads.
+                InputStream in = isCompressed(path) ? IO.openFileExAsync(path.toString()) : Files.newInputStream(path);
                 ContentType ct = RDFLanguages.guessContentType(urlStr) ;
                 return new TypedInputStream(in, ct);
             }
@@ -411,12 +441,28 @@ public class RDFParser {
     }
 
     private ReaderRIOT createReader(ReaderRIOTFactory r, Lang lang) {
-        ParserProfile profile = makeParserProfile(lang);
+        ParserProfile profile = makeParserProfile(lang, factory, errorHandler);
         ReaderRIOT reader = r.create(lang, profile);
         return reader ;
     }
 
-    private ParserProfile makeParserProfile(Lang lang) {
+    private static boolean isCompressed(Path path) {
+        String fn = path.toString();
+        return ! IO.filenameNoCompression(fn).equals(fn);
+    }
+
+    private boolean isParallel(Lang lang) {
+        return parallel > 1 && lang != null && ParallelParserNTuples.canParse(lang);
+    }
+
+    private ParallelParserNTuples createParallelParser(Lang lang) {
+        // One factory, for blank node labels across all the chunks.
+        FactoryRDF factory$ = ParallelParserNTuples.threadSafe(factory);
+        return new ParallelParserNTuples(lang, eh -> makeParserProfile(lang, factory$, eh), errorHandler,
+                                         parallel, preserveOrder);
+    }
+
+    private ParserProfile makeParserProfile(Lang lang, FactoryRDF factory, ErrorHandler errorHandler) {
         boolean resolve = resolveURIs;
         boolean checking$ = strict;
         
@@ -99,9 +99,14 @@ public class RDFParserBuilder {
     // Construction for the StreamRDF 
     private FactoryRDF factory = null;
     private LabelToNode labelToNode = null;
+    private boolean cacheLiterals = false;
     
     // Bad news.
     private ErrorHandler errorHandler = null;
+
+    // Parallel parsing of N-Triples and N-Quads.
+    private int parallel = 1;
+    private boolean preserveOrder = true;
     
     // Parsing process
     private Context context = null;
@@ -468,7 +473,50 @@ public class RDFParserBuilder {
         this.labelToNode = labelToNode;
         return this;
     }
+
+    /**
+     * Use a larger term cache that also reuses literals and language tags, so
+     * repeated literals in the data are one {@code Node} object. This reduces
+     * memory use when the parser output is kept, such as loading into a graph.
+     * The default is to cache IRIs only.
+     * <br/>
+     * Only applies when the {@link FactoryRDF} is not set in the
+     * {@code RDFParserBuilder}.
+     * @see RiotLib#factoryRDFCacheLiterals
+     * @param cacheLiterals
+     * @return this
+     */
+    public RDFParserBuilder cacheLiterals(boolean cacheLiterals) {
+        this.cacheLiterals = cacheLiterals;
+        return this;
+    }
     
+    /**
+     * Parse N-Triples and N-Quads with this number of threads. The input is
+     * split into chunks at line ends; files are memory-mapped. Other languages,
+     * and input from a {@code Reader} or string, are parsed with one thread. The
+     * default is 1.
+     * @see #preserveOrder
+     * @param threads
+     * @return this
+     */
+    public RDFParserBuilder parallel(int threads) {
+        this.parallel = Math.max(1, threads);
+        return this;
+    }
+
+    /**
+     * When parsing with several threads (see {@link #parallel}), whether the
+     * output is in the order of the input. If false, triples and quads are
+     * output a chunk at a time as chunks are parsed. The default is true.
+     * @param flag
+     * @return this
+     */
+    public RDFParserBuilder preserveOrder(boolean flag) {
+        this.preserveOrder = flag;
+        return this;
+    }
+
     // There are no strict/unstrict differences.
     // Strict is passed through to the RIOT reader.
 //    /**
@@ -585,13 +633,16 @@ public class RDFParserBuilder {
                              client, hintLang, forceLang,
                              baseUri, strict, checking, 
                              canonicalValues, langTagForm,
-                             resolveURIs, resolver, factory$, errorHandler$, context);
+                             resolveURIs, resolver, factory$, errorHandler$, context,
+                             parallel, preserveOrder);
     }
 
     private FactoryRDF buildFactoryRDF() {
         FactoryRDF factory$ = factory;
         if ( factory$ == null ) { 
-            if ( labelToNode != null )
+            if ( cacheLiterals )
+                factory$ = RiotLib.factoryRDFCacheLiterals(labelToNode != null ? labelToNode : SyntaxLabels.createLabelToNode());
+            else if ( labelToNode != null )
                 factory$ = RiotLib.factoryRDF(labelToNode);
             else
                 factory$ = RiotLib.factoryRDF();
@@ -646,8 +697,11 @@ public class RDFParserBuilder {
         builder.resolver =          this.resolver;
         builder.factory =           this.factory;
         builder.labelToNode =       this.labelToNode;
+        builder.cacheLiterals =     this.cacheLiterals;
         builder.errorHandler =      this.errorHandler;
         builder.context =           this.context;
+        builder.parallel =          this.parallel;
+        builder.preserveOrder =     this.preserveOrder;
         return builder;
     }
 }
@@ -22,6 +22,7 @@ import static org.apache.jena.riot.RDFLanguages.JSONLD;
 import static org.apache.jena.riot.RDFLanguages.N3;
 import static org.apache.jena.riot.RDFLanguages.NQUADS;
 import static org.apache.jena.riot.RDFLanguages.NTRIPLES;
+import static org.apache.jena.riot.RDFLanguages.RDFDICT;
 import static org.apache.jena.riot.RDFLanguages.RDFJSON;
 import static org.apache.jena.riot.RDFLanguages.RDFNULL;
 import static org.apache.jena.riot.RDFLanguages.RDFXML;
@@ -39,6 +40,7 @@ import java.util.Set ;
 
 import org.apache.jena.atlas.lib.InternalErrorException ;
 import org.apache.jena.atlas.web.ContentType ;
+import org.apache.jena.riot.dict.RDFDict ;
 import org.apache.jena.riot.lang.* ;
 import org.apache.jena.riot.system.ParserProfile;
 import org.apache.jena.riot.system.StreamRDF;
@@ -73,6 +75,7 @@ public class RDFParserRegistry
     private static ReaderRIOTFactory parserFactoryRDFXML    = new ReaderRIOTRDFXML.Factory(); 
     private static ReaderRIOTFactory parserFactoryJsonLD    = new ReaderRIOTFactoryJSONLD() ;
     private static ReaderRIOTFactory parserFactoryThrift    = new ReaderRIOTFactoryThrift() ;
+    private static ReaderRIOTFactory parserFactoryDict      = new ReaderRIOTFactoryDict() ;
     private static ReaderRIOTFactory parserFactoryTriX      = new ReaderTriX.ReaderRIOTFactoryTriX() ;
     private static ReaderRIOTFactory parserFactoryRDFNULL   = new ReaderRDFNULL.Factory() ;
         
@@ -97,6 +100,7 @@ public class RDFParserRegistry
         registerLangTriples(RDFXML,     parserFactoryRDFXML) ;
         registerLangTriples(JSONLD,     parserFactoryJsonLD) ;
         registerLangTriples(THRIFT,     parserFactoryThrift) ;
+        registerLangTriples(RDFDICT,    parserFactoryDict) ;
         registerLangTriples(TRIX,       parserFactoryTriX) ;
         registerLangTriples(RDFNULL,    parserFactoryRDFNULL) ;
         
@@ -104,6 +108,7 @@ public class RDFParserRegistry
         registerLangQuads(NQUADS,       parserFactory) ;
         registerLangQuads(TRIG,         parserFactory) ;
         registerLangQuads(THRIFT,       parserFactoryThrift) ;
+        registerLangQuads(RDFDICT,      parserFactoryDict) ;
         registerLangQuads(TRIX,         parserFactoryTriX) ;
         registerLangQuads(RDFNULL,      parserFactoryRDFNULL) ;
     }
@@ -230,5 +235,23 @@ public class RDFParserRegistry
             throw new RiotException("RDF Thrift : Reading binary data from a java.io.reader is not supported. Please use an InputStream") ;
         }
     }
-}
 
+    private static class ReaderRIOTFactoryDict implements ReaderRIOTFactory {
+        @Override
+        public ReaderRIOT create(Lang language, ParserProfile profile) {
+            return new ReaderRDFDict() ;
+        }
+    }
+
+    private static class ReaderRDFDict implements ReaderRIOT {
+        @Override
+        public void read(InputStream in, String baseURI, ContentType ct, StreamRDF output, Context context) {
+            RDFDict.inputStreamToStream(in, output) ;
+        }
+
+        @Override
+        public void read(Reader reader, String baseURI, ContentType ct, StreamRDF output, Context context) {
+            throw new RiotException("RDF Dict : Reading binary data from a java.io.reader is not supported. Please use an InputStream") ;
+        }
+    }
+}
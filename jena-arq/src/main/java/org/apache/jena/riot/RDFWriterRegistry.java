@@ -21,6 +21,8 @@ package org.apache.jena.riot;
 import java.util.* ;
 
 import org.apache.jena.atlas.lib.CharSpace ;
+import org.apache.jena.riot.dict.WriterDatasetDict ;
+import org.apache.jena.riot.dict.WriterGraphDict ;
 import org.apache.jena.riot.system.RiotLib ;
 import org.apache.jena.riot.thrift.WriterDatasetThrift ;
 import org.apache.jena.riot.thrift.WriterGraphThrift ;
@@ -52,6 +54,8 @@ public class RDFWriterRegistry
                 return new TurtleWriter() ;
             if ( Objects.equals(RDFFormat.TURTLE_BLOCKS, serialization) )
                 return new TurtleWriterBlocks() ;
+            if ( Objects.equals(RDFFormat.TURTLE_BLOCKS_NESTED, serialization) )
+                return new TurtleWriterBlocksNested() ;
             if ( Objects.equals(RDFFormat.TURTLE_FLAT, serialization) )
                 return new TurtleWriterFlat() ;
             
@@ -82,6 +86,8 @@ public class RDFWriterRegistry
                 return new TriGWriter() ;
             if ( Objects.equals(RDFFormat.TRIG_BLOCKS, serialization) )
                 return new TriGWriterBlocks() ;
+            if ( Objects.equals(RDFFormat.TRIG_BLOCKS_NESTED, serialization) )
+                return new TriGWriterBlocksNested() ;
             if ( Objects.equals(RDFFormat.TRIG_FLAT, serialization) )
                 return new TriGWriterFlat() ;
             if ( Objects.equals(RDFFormat.NQUADS_UTF8, serialization) )
@@ -109,6 +115,20 @@ public class RDFWriterRegistry
         }
     } ;
     
+    static WriterGraphRIOTFactory wgJsonldStreamFactory = new WriterGraphRIOTFactory() {
+        @Override
+        public WriterGraphRIOT create(RDFFormat syntaxForm) {
+            return new WriterJSONLDStream() ;
+        }
+    } ;
+
+    static WriterDatasetRIOTFactory wdsJsonldStreamFactory = new WriterDatasetRIOTFactory() {
+        @Override
+        public WriterDatasetRIOT create(RDFFormat syntaxForm) {
+            return new WriterJSONLDStream() ;
+        }
+    } ;
+
     static WriterGraphRIOTFactory wgThriftFactory = new WriterGraphRIOTFactory(){
         @Override
         public WriterGraphRIOT create(RDFFormat syntaxForm) {
@@ -123,6 +143,20 @@ public class RDFWriterRegistry
         }
     } ;
     
+    static WriterGraphRIOTFactory wgDictFactory = new WriterGraphRIOTFactory(){
+        @Override
+        public WriterGraphRIOT create(RDFFormat syntaxForm) {
+            return new WriterGraphDict(syntaxForm) ;
+        }
+    } ;
+
+    static WriterDatasetRIOTFactory wdsDictFactory = new WriterDatasetRIOTFactory(){
+        @Override
+        public WriterDatasetRIOT create(RDFFormat syntaxForm) {
+            return new WriterDatasetDict(syntaxForm) ;
+        }
+    } ;
+    
     static WriterGraphRIOTFactory wgTriXFactory = new WriterGraphRIOTFactory() {
 
         @Override
@@ -156,11 +190,13 @@ public class RDFWriterRegistry
          register(Lang.NQUADS,      RDFFormat.NQUADS) ;
          register(Lang.RDFNULL,     RDFFormat.RDFNULL) ;
          register(Lang.RDFTHRIFT,   RDFFormat.RDF_THRIFT) ;
+         register(Lang.RDFDICT,     RDFFormat.RDF_DICT) ;
          register(Lang.TRIX,        RDFFormat.TRIX) ;
 
          // Writer factories.
          register(RDFFormat.TURTLE_PRETTY,  wgfactory) ;
          register(RDFFormat.TURTLE_BLOCKS,  wgfactory) ;
+         register(RDFFormat.TURTLE_BLOCKS_NESTED, wgfactory) ;
          register(RDFFormat.TURTLE_FLAT,    wgfactory) ;
 
          register(RDFFormat.NTRIPLES,       wgfactory) ;
@@ -177,6 +213,7 @@ public class RDFWriterRegistry
          register(RDFFormat.JSONLD_FLATTEN_FLAT,         wgJsonldfactory) ;
          register(RDFFormat.JSONLD_EXPAND_FLAT,          wgJsonldfactory) ;
          register(RDFFormat.JSONLD_FRAME_FLAT,           wgJsonldfactory) ;
+         register(RDFFormat.JSONLD_STREAM,               wgJsonldStreamFactory) ;
         
          register(RDFFormat.RDFJSON,        wgfactory) ;
 
@@ -186,6 +223,7 @@ public class RDFWriterRegistry
          // Graphs in a quad format.
          register(RDFFormat.TRIG_PRETTY,    wgfactory) ;
          register(RDFFormat.TRIG_BLOCKS,    wgfactory) ;
+         register(RDFFormat.TRIG_BLOCKS_NESTED, wgfactory) ;
          register(RDFFormat.TRIG_FLAT,      wgfactory) ;
 
          register(RDFFormat.NQUADS,         wgfactory) ;
@@ -195,11 +233,16 @@ public class RDFWriterRegistry
          register(RDFFormat.RDF_THRIFT,     wgThriftFactory) ;
          register(RDFFormat.RDF_THRIFT_VALUES, wgThriftFactory) ;
 
+         register(RDFFormat.RDF_DICT,              wgDictFactory) ;
+         register(RDFFormat.RDF_DICT_DEFLATE,      wgDictFactory) ;
+         register(RDFFormat.RDF_DICT_UNCOMPRESSED, wgDictFactory) ;
+
          register(RDFFormat.TRIX, wgTriXFactory) ;
 
          // Datasets
          register(RDFFormat.TRIG_PRETTY,    wdsfactory) ;
          register(RDFFormat.TRIG_BLOCKS,    wdsfactory) ;
+         register(RDFFormat.TRIG_BLOCKS_NESTED, wdsfactory) ;
          register(RDFFormat.TRIG_FLAT,      wdsfactory) ;
 
          register(RDFFormat.NQUADS,         wdsfactory) ;
@@ -217,9 +260,14 @@ public class RDFWriterRegistry
          register(RDFFormat.JSONLD_FLATTEN_FLAT,         wdsJsonldfactory) ;
          register(RDFFormat.JSONLD_EXPAND_FLAT,          wdsJsonldfactory) ;
          register(RDFFormat.JSONLD_FRAME_FLAT,           wdsJsonldfactory) ;
+         register(RDFFormat.JSONLD_STREAM,               wdsJsonldStreamFactory) ;
 
          register(RDFFormat.RDF_THRIFT,     wdsThriftFactory) ;
          register(RDFFormat.RDF_THRIFT_VALUES, wdsThriftFactory) ;
+
+         register(RDFFormat.RDF_DICT,              wdsDictFactory) ;
+         register(RDFFormat.RDF_DICT_DEFLATE,      wdsDictFactory) ;
+         register(RDFFormat.RDF_DICT_UNCOMPRESSED, wdsDictFactory) ;
          
          register(RDFFormat.TRIX, wdsTriXFactory) ;
      }
@@ -114,4 +114,12 @@ public class RIOT {
      * as expected by the JSONLD-java API (a Map) */
     public static final Symbol JSONLD_CONTEXT = Symbol.create("http://jena.apache.org/riot/jsonld#JSONLD_CONTEXT");
 
+    /**
+     * Symbol to use to ask (in a Context object) for jsonld to be read as it is parsed,
+     * without first building the whole JSON document in memory.
+     * Expected value: true or "true".
+     * @see org.apache.jena.riot.lang.JsonLDStreamReader
+     */
+    public static final Symbol JSONLD_STREAMING = Symbol.create("http://jena.apache.org/riot/jsonld#JSONLD_STREAMING");
+
 }
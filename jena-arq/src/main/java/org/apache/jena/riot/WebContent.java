@@ -83,6 +83,10 @@ public class WebContent
     public static final String      contentTypeRDFThrift         = "application/rdf+thrift" ;
     public static final ContentType ctRDFTHRIFT                  = ContentType.create(contentTypeRDFThrift) ;
 
+    // Unofficial
+    public static final String      contentTypeRDFDict           = "application/rdf+dict" ;
+    public static final ContentType ctRDFDICT                    = ContentType.create(contentTypeRDFDict) ;
+
     public static final String      contentTypeNQuadsAlt1        = "text/n-quads" ;
     public static final ContentType ctNQuadsAlt1                 = ContentType.create(contentTypeNQuadsAlt1) ;
 
@@ -126,6 +130,9 @@ public class WebContent
     // Unofficial
     public static final String      contentTypeResultsThrift     = "application/sparql-results+thrift" ;
     public static final ContentType ctResultsThrift              = ContentType.create(contentTypeResultsThrift) ;
+    /** Media type parameter: RDF Thrift result rows may use REPEAT for a term the same as in the previous row. */
+    public static final String      paramRepeatTerms             = "repeat" ;
+    public static final String      contentTypeResultsThriftRepeat = contentTypeResultsThrift+";"+paramRepeatTerms+"=true" ;
     
     public static final String      contentTypeSPARQLQuery       = "application/sparql-query" ;
     public static final ContentType ctSPARQLQuery                = ContentType.create(contentTypeSPARQLQuery) ;
@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.dict;
+
+import static org.apache.jena.riot.dict.RDFDict.* ;
+
+import java.io.IOException ;
+import java.io.InputStream ;
+import java.nio.charset.StandardCharsets ;
+import java.util.zip.DataFormatException ;
+import java.util.zip.Inflater ;
+
+import org.apache.jena.atlas.io.IO ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.NodeFactory ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.dict.RDFDict.Compression ;
+import org.apache.jena.riot.system.StreamRDF ;
+import org.apache.jena.sparql.core.Quad ;
+
+/** RDF Dict to a {@link StreamRDF}.
+ *  Usually used via {@link RDFDict} functions.
+ *
+ * @see StreamRDF2Dict for the reverse process.
+ */
+public class Dict2StreamRDF
+{
+    private final InputStream in ;
+    private final StreamRDF dest ;
+
+    private Node[] terms ;
+    private int nextTerm = 0 ;
+    private String[] namespaces ;
+    private int nextNamespace = 0 ;
+
+    // Current block.
+    private byte[] block = new byte[0] ;
+    private int length = 0 ;
+    private int idx = 0 ;
+    private byte[] stored = new byte[0] ;
+    private Inflater inflater = null ;
+
+    public Dict2StreamRDF(InputStream in, StreamRDF dest) {
+        this.in = in ;
+        this.dest = dest ;
+    }
+
+    /** Read the input and send the triples, quads, prefixes and base to the {@link StreamRDF}.
+     * This does not call {@link StreamRDF#start()} or {@link StreamRDF#finish()}.
+     */
+    public void parse() {
+        try {
+            header() ;
+            while ( readBlock() ) {
+                while ( idx < length )
+                    row() ;
+            }
+        } catch (IOException ex) { IO.exception(ex) ; }
+        finally {
+            if ( inflater != null )
+                inflater.end() ;
+        }
+    }
+
+    private void header() throws IOException {
+        byte[] magic = new byte[MAGIC.length] ;
+        if ( readFully(in, magic, magic.length) != magic.length )
+            throw new RiotException("RDF Dict: No header") ;
+        for ( int i = 0 ; i < MAGIC.length ; i++ ) {
+            if ( magic[i] != MAGIC[i] )
+                throw new RiotException("RDF Dict: Not RDF Dict data") ;
+        }
+        int version = in.read() ;
+        if ( version != VERSION )
+            throw new RiotException("RDF Dict: Unsupported version: "+version) ;
+        int termTableSize = RDFDict.readVarInt(in) ;
+        int nsTableSize = RDFDict.readVarInt(in) ;
+        if ( termTableSize <= 0 || termTableSize > MAX_TERMS )
+            throw new RiotException("RDF Dict: Bad term table size: "+termTableSize) ;
+        if ( nsTableSize <= 0 || nsTableSize > MAX_NAMESPACES )
+            throw new RiotException("RDF Dict: Bad namespace table size: "+nsTableSize) ;
+        terms = new Node[termTableSize] ;
+        namespaces = new String[nsTableSize] ;
+    }
+
+    /** Read and uncompress the next block; return false at the end of the data. */
+    private boolean readBlock() throws IOException {
+        int rawLength = RDFDict.readVarInt(in) ;
+        if ( rawLength == 0 )
+            return false ;
+        if ( rawLength < 0 || rawLength > MAX_BLOCK_SIZE )
+            throw new RiotException("RDF Dict: Bad block length: "+rawLength) ;
+        Compression c = Compression.fromCode(in.read()) ;
+        int storedLength = RDFDict.readVarInt(in) ;
+        // Compressed data that does not compress is a little larger than the raw data.
+        if ( storedLength < 0 || storedLength > rawLength + rawLength/8 + 64 )
+            throw new RiotException("RDF Dict: Bad block stored length: "+storedLength) ;
+        if ( block.length < rawLength )
+            block = new byte[rawLength] ;
+        switch (c) {
+            case NONE :
+                if ( storedLength != rawLength )
+                    throw new RiotException("RDF Dict: Bad block") ;
+                readFully(block, storedLength) ;
+                break ;
+            case LZ4 : {
+                readStored(storedLength) ;
+                LZ4Block.decompress(stored, storedLength, block, rawLength) ;
+                break ;
+            }
+            case DEFLATE : {
+                readStored(storedLength) ;
+                if ( inflater == null )
+                    inflater = new Inflater() ;
+                inflater.reset() ;
+                inflater.setInput(stored, 0, storedLength) ;
+                try {
+                    int n = 0 ;
+                    while ( n < rawLength && ! inflater.finished() ) {
+                        int k = inflater.inflate(block, n, rawLength-n) ;
+                        if ( k == 0 && ( inflater.needsInput() || inflater.needsDictionary() ) )
+                            break ;
+                        n += k ;
+                    }
+                    if ( n != rawLength )
+                        throw new RiotException("RDF Dict: Bad deflate block") ;
+                } catch (DataFormatException ex) {
+                    throw new RiotException("RDF Dict: Bad deflate block", ex) ;
+                }
+                break ;
+            }
+        }
+        length = rawLength ;
+        idx = 0 ;
+        return true ;
+    }
+
+    private void readStored(int storedLength) throws IOException {
+        if ( stored.length < storedLength )
+            stored = new byte[storedLength] ;
+        readFully(stored, storedLength) ;
+    }
+
+    private void readFully(byte[] bytes, int len) throws IOException {
+        if ( readFully(in, bytes, len) != len )
+            throw new RiotException("RDF Dict: Unexpected end of input") ;
+    }
+
+    private static int readFully(InputStream in, byte[] bytes, int len) throws IOException {
+        int n = 0 ;
+        while ( n < len ) {
+            int x = in.read(bytes, n, len-n) ;
+            if ( x < 0 )
+                break ;
+            n += x ;
+        }
+        return n ;
+    }
+
+    private void row() {
+        int tag = readByte() ;
+        switch (tag) {
+            case ROW_TRIPLE : {
+                Node s = readTerm() ;
+                Node p = readTerm() ;
+                Node o = readTerm() ;
+                dest.triple(Triple.create(s, p, o)) ;
+                return ;
+            }
+            case ROW_QUAD : {
+                Node g = readTerm() ;
+                Node s = readTerm() ;
+                Node p = readTerm() ;
+                Node o = readTerm() ;
+                dest.quad(Quad.create(g, s, p, o)) ;
+                return ;
+            }
+            case ROW_PREFIX : {
+                String prefix = readString() ;
+                String iri = readString() ;
+                dest.prefix(prefix, iri) ;
+                return ;
+            }
+            case ROW_BASE :
+                dest.base(readString()) ;
+                return ;
+            default :
+                throw new RiotException("RDF Dict: Bad row: "+tag) ;
+        }
+    }
+
+    private Node readTerm() {
+        int tag = readByte() ;
+        Node n ;
+        switch (tag) {
+            case TERM_REF : {
+                int x = readVarInt() ;
+                if ( x < 0 || x >= terms.length || terms[x] == null )
+                    throw new RiotException("RDF Dict: Bad term reference: "+x) ;
+                return terms[x] ;
+            }
+            case TERM_IRI : {
+                int x = readVarInt() ;
+                String ns ;
+                if ( x == 0 ) {
+                    ns = readString() ;
+                    namespaces[nextNamespace] = ns ;
+                    nextNamespace = ( nextNamespace+1 == namespaces.length ) ? 0 : nextNamespace+1 ;
+                } else {
+                    if ( x < 0 || x > namespaces.length || namespaces[x-1] == null )
+                        throw new RiotException("RDF Dict: Bad namespace reference: "+x) ;
+                    ns = namespaces[x-1] ;
+                }
+                n = NodeFactory.createURI(ns.concat(readString())) ;
+                break ;
+            }
+            case TERM_BNODE :
+                n = NodeFactory.createBlankNode(readString()) ;
+                break ;
+            case TERM_STRING :
+                n = NodeFactory.createLiteral(readString()) ;
+                break ;
+            case TERM_LANG : {
+                String lex = readString() ;
+                String lang = readString() ;
+                n = NodeFactory.createLiteral(lex, lang) ;
+                break ;
+            }
+            case TERM_DATATYPE : {
+                String lex = readString() ;
+                Node dt = readTerm() ;
+                if ( ! dt.isURI() )
+                    throw new RiotException("RDF Dict: Datatype is not an IRI: "+dt) ;
+                n = NodeFactory.createLiteral(lex, NodeFactory.getType(dt.getURI())) ;
+                break ;
+            }
+            default :
+                throw new RiotException("RDF Dict: Bad term: "+tag) ;
+        }
+        terms[nextTerm] = n ;
+        nextTerm = ( nextTerm+1 == terms.length ) ? 0 : nextTerm+1 ;
+        return n ;
+    }
+
+    private int readByte() {
+        if ( idx >= length )
+            throw new RiotException("RDF Dict: Row goes beyond the block") ;
+        return block[idx++] & 0xFF ;
+    }
+
+    private int readVarInt() {
+        int x = 0 ;
+        for ( int shift = 0 ; shift < 32 ; shift += 7 ) {
+            int b = readByte() ;
+            x |= ( b & 0x7F ) << shift ;
+            if ( ( b & 0x80 ) == 0 )
+                return x ;
+        }
+        throw new RiotException("RDF Dict: Bad number") ;
+    }
+
+    private String readString() {
+        int len = readVarInt() ;
+        if ( len < 0 || idx+len > length )
+            throw new RiotException("RDF Dict: String goes beyond the block") ;
+        String s = new String(block, idx, len, StandardCharsets.UTF_8) ;
+        idx += len ;
+        return s ;
+    }
+}
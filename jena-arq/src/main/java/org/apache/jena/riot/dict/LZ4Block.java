@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.dict;
+
+import org.apache.jena.riot.RiotException ;
+
+/** The LZ4 block format: a single pass, greedy compressor with a hash table of
+ * recent positions, and the decompressor. The whole block is in memory so there
+ * is no framing; the caller records the lengths.
+ */
+class LZ4Block {
+    private static final int MIN_MATCH     = 4 ;
+    private static final int LAST_LITERALS = 5 ;
+    // A match must start at least this far from the end.
+    private static final int MF_LIMIT      = 12 ;
+    private static final int MAX_OFFSET    = 0xFFFF ;
+    private static final int HASH_LOG      = 14 ;
+
+    /** Space needed to compress {@code len} bytes, for data that does not compress. */
+    static int maxCompressedLength(int len) {
+        return len + len/255 + 16 ;
+    }
+
+    /** Compress; return the length of the output in {@code dst},
+     * which must be at least {@link #maxCompressedLength}.
+     */
+    static int compress(byte[] src, int srcLen, byte[] dst) {
+        // Position+1 ; 0 is unused.
+        int[] table = new int[1<<HASH_LOG] ;
+        int ip = 0 ;
+        int anchor = 0 ;
+        int op = 0 ;
+        int limit = srcLen - MF_LIMIT ;
+        int matchLimit = srcLen - LAST_LITERALS ;
+        while ( ip < limit ) {
+            int seq = readInt(src, ip) ;
+            int h = hash(seq) ;
+            int ref = table[h]-1 ;
+            table[h] = ip+1 ;
+            if ( ref < 0 || ip-ref > MAX_OFFSET || readInt(src, ref) != seq ) {
+                // Step faster through data that is not matching.
+                ip += 1 + ((ip-anchor) >>> 6) ;
+                continue ;
+            }
+            while ( ip > anchor && ref > 0 && src[ip-1] == src[ref-1] ) {
+                ip-- ;
+                ref-- ;
+            }
+            int matchLen = MIN_MATCH ;
+            while ( ip+matchLen < matchLimit && src[ip+matchLen] == src[ref+matchLen] )
+                matchLen++ ;
+            op = writeLiterals(src, anchor, ip-anchor, matchLen-MIN_MATCH, dst, op) ;
+            int offset = ip-ref ;
+            dst[op++] = (byte)offset ;
+            dst[op++] = (byte)(offset>>>8) ;
+            if ( matchLen-MIN_MATCH >= 15 )
+                op = writeLength(matchLen-MIN_MATCH-15, dst, op) ;
+            ip += matchLen ;
+            anchor = ip ;
+        }
+        return writeLiterals(src, anchor, srcLen-anchor, 0, dst, op) ;
+    }
+
+    /** Decompress the {@code srcLen} bytes, which must give exactly {@code dstLen} bytes. */
+    static void decompress(byte[] src, int srcLen, byte[] dst, int dstLen) {
+        int ip = 0 ;
+        int op = 0 ;
+        for (;;) {
+            if ( ip >= srcLen )
+                throw bad() ;
+            int token = src[ip++] & 0xFF ;
+            int lit = token >>> 4 ;
+            if ( lit == 15 ) {
+                int b ;
+                do {
+                    if ( ip >= srcLen )
+                        throw bad() ;
+                    b = src[ip++] & 0xFF ;
+                    lit += b ;
+                } while ( b == 255 ) ;
+            }
+            if ( ip+lit > srcLen || op+lit > dstLen )
+                throw bad() ;
+            System.arraycopy(src, ip, dst, op, lit) ;
+            ip += lit ;
+            op += lit ;
+            if ( ip == srcLen )
+                break ;
+            if ( ip+2 > srcLen )
+                throw bad() ;
+            int offset = (src[ip] & 0xFF) | ((src[ip+1] & 0xFF) << 8) ;
+            ip += 2 ;
+            if ( offset == 0 || offset > op )
+                throw bad() ;
+            int matchLen = token & 0x0F ;
+            if ( matchLen == 15 ) {
+                int b ;
+                do {
+                    if ( ip >= srcLen )
+                        throw bad() ;
+                    b = src[ip++] & 0xFF ;
+                    matchLen += b ;
+                } while ( b == 255 ) ;
+            }
+            matchLen += MIN_MATCH ;
+            if ( op+matchLen > dstLen )
+                throw bad() ;
+            int ref = op-offset ;
+            if ( offset >= matchLen ) {
+                System.arraycopy(dst, ref, dst, op, matchLen) ;
+                op += matchLen ;
+            } else {
+                // Overlapping copy.
+                for ( int i = 0 ; i < matchLen ; i++ )
+                    dst[op++] = dst[ref++] ;
+            }
+        }
+        if ( op != dstLen )
+            throw bad() ;
+    }
+
+    /** Write a token and the literals. */
+    private static int writeLiterals(byte[] src, int start, int len, int matchCode, byte[] dst, int op) {
+        int token = ( Math.min(matchCode, 15) ) ;
+        if ( len >= 15 ) {
+            dst[op++] = (byte)(0xF0 | token) ;
+            op = writeLength(len-15, dst, op) ;
+        } else
+            dst[op++] = (byte)((len << 4) | token) ;
+        System.arraycopy(src, start, dst, op, len) ;
+        return op+len ;
+    }
+
+    private static int writeLength(int x, byte[] dst, int op) {
+        while ( x >= 255 ) {
+            dst[op++] = (byte)255 ;
+            x -= 255 ;
+        }
+        dst[op++] = (byte)x ;
+        return op ;
+    }
+
+    private static int readInt(byte[] b, int i) {
+        return (b[i] & 0xFF) | ((b[i+1] & 0xFF) << 8) | ((b[i+2] & 0xFF) << 16) | ((b[i+3] & 0xFF) << 24) ;
+    }
+
+    private static int hash(int seq) {
+        return (seq * -1640531535) >>> (32-HASH_LOG) ;
+    }
+
+    private static RiotException bad() {
+        return new RiotException("RDF Dict: Bad LZ4 block") ;
+    }
+}
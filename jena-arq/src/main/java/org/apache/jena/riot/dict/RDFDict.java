@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.dict;
+
+import java.io.IOException ;
+import java.io.InputStream ;
+import java.io.OutputStream ;
+
+import org.apache.jena.atlas.io.IO ;
+import org.apache.jena.riot.RDFFormat ;
+import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.system.StreamRDF ;
+
+/** Operations on "RDF Dict", a binary encoding of a stream of triples and quads
+ * where terms are sent once and then referred to by number.
+ * <p>
+ * The format is:
+ * <ul>
+ * <li>A header: the bytes {@code RDFD}, a version byte, then the size of the term table
+ * and the size of the namespace table.
+ * <li>Blocks: the length of the block data, a byte for how the block is compressed,
+ * the length of the block as stored, and then the stored bytes.
+ * A block of length zero is the end of the stream.
+ * </ul>
+ * Block data is a sequence of rows: a triple, quad, prefix or base; each starts with a tag byte.
+ * A term is one of:
+ * <ul>
+ * <li>A reference to the term table, which holds the most recent new terms.
+ * <li>An IRI: a namespace, the IRI up to the last '/' or '#', and the local part.
+ * The namespace is a reference to the namespace table, or is written in full and added to it.
+ * <li>A blank node label.
+ * <li>A literal: lexical form, and language tag or datatype. A datatype is a term.
+ * </ul>
+ * A new term is added to the term table; the tables are used in rotation, the oldest entry
+ * being replaced when the table is full. Numbers are unsigned variable length integers,
+ * strings are UTF-8 with the byte length first.
+ *
+ * @see StreamRDF2Dict
+ * @see Dict2StreamRDF
+ */
+public class RDFDict {
+
+    /** Compression applied to each block. */
+    public enum Compression {
+        NONE(0), LZ4(1), DEFLATE(2) ;
+
+        final int code ;
+        private Compression(int code) { this.code = code ; }
+
+        static Compression fromCode(int code) {
+            for ( Compression c : values() ) {
+                if ( c.code == code )
+                    return c ;
+            }
+            throw new RiotException("RDF Dict: Unknown block compression: "+code) ;
+        }
+    }
+
+    /** Default size of the term table */
+    public static final int DFT_TERMS       = 64*1024 ;
+    /** Default size of the namespace table */
+    public static final int DFT_NAMESPACES  = 4*1024 ;
+    /** Default size of uncompressed data in a block */
+    public static final int DFT_BLOCK_SIZE  = 64*1024 ;
+
+    /** Largest term table : larger sizes in the data are rejected by the reader */
+    public static final int MAX_TERMS       = 16*1024*1024 ;
+    /** Largest namespace table : larger sizes in the data are rejected by the reader */
+    public static final int MAX_NAMESPACES  = 1024*1024 ;
+    /** Largest block, uncompressed, which is the block size and at most one row more.
+     * Larger blocks are rejected by the reader and the writer. */
+    public static final int MAX_BLOCK_SIZE  = 256*1024*1024 ;
+
+    static final byte[] MAGIC      = { 'R', 'D', 'F', 'D' } ;
+    static final int VERSION       = 1 ;
+
+    // Rows
+    static final int ROW_TRIPLE    = 1 ;
+    static final int ROW_QUAD      = 2 ;
+    static final int ROW_PREFIX    = 3 ;
+    static final int ROW_BASE      = 4 ;
+
+    // Terms
+    static final int TERM_REF      = 1 ;
+    static final int TERM_IRI      = 2 ;
+    static final int TERM_BNODE    = 3 ;
+    static final int TERM_STRING   = 4 ;
+    static final int TERM_LANG     = 5 ;
+    static final int TERM_DATATYPE = 6 ;
+
+    /** The block compression for an {@link RDFFormat}. */
+    public static Compression compression(RDFFormat format) {
+        if ( RDFFormat.RDF_DICT_DEFLATE.equals(format) )
+            return Compression.DEFLATE ;
+        if ( RDFFormat.RDF_DICT_UNCOMPRESSED.equals(format) )
+            return Compression.NONE ;
+        return Compression.LZ4 ;
+    }
+
+    /**
+     * Create an {@link StreamRDF} for output, with LZ4 block compression.
+     * The {@code OutputStream} is flushed, not closed, when {@link StreamRDF#finish()} is called.
+     * @param out OutputStream
+     * @return StreamRDF A stream to send to.
+     */
+    public static StreamRDF streamToOutputStream(OutputStream out) {
+        return streamToOutputStream(out, Compression.LZ4) ;
+    }
+
+    /**
+     * Create an {@link StreamRDF} for output.
+     * The {@code OutputStream} is flushed, not closed, when {@link StreamRDF#finish()} is called.
+     * @param out OutputStream
+     * @param compression Block compression
+     * @return StreamRDF A stream to send to.
+     */
+    public static StreamRDF streamToOutputStream(OutputStream out, Compression compression) {
+        return new StreamRDF2Dict(out, compression) ;
+    }
+
+    /**
+     * Create an {@link StreamRDF} for output to a file.
+     * A filename of "-" is {@code System.out}.
+     * The file is closed when {@link StreamRDF#finish()} is called unless it is {@code System.out}.
+     * @param filename The file
+     * @param compression Block compression
+     * @return StreamRDF A stream to send to.
+     */
+    public static StreamRDF streamToFile(String filename, Compression compression) {
+        OutputStream out = IO.openOutputFile(filename) ;
+        return new StreamRDF2Dict(out, compression) {
+            @Override
+            public void finish() {
+                super.finish() ;
+                if ( out != System.out )
+                    IO.close(out) ;
+            }
+        } ;
+    }
+
+    /**
+     * Decode the contents of the input stream and send to the {@link StreamRDF}.
+     * @param in InputStream
+     * @param dest StreamRDF
+     */
+    public static void inputStreamToStream(InputStream in, StreamRDF dest) {
+        dest.start() ;
+        new Dict2StreamRDF(in, dest).parse() ;
+        dest.finish() ;
+    }
+
+    /**
+     * Decode the contents of the file and send to the {@link StreamRDF}.
+     * A filename of "-" is {@code System.in}.
+     * @param filename The file.
+     * @param dest Sink
+     */
+    public static void fileToStream(String filename, StreamRDF dest) {
+        InputStream in = IO.openFile(filename) ;
+        try {
+            inputStreamToStream(in, dest) ;
+        } finally {
+            if ( in != System.in )
+                IO.close(in) ;
+        }
+    }
+
+    static void writeVarInt(OutputStream out, int x) throws IOException {
+        while ( ( x & ~0x7F ) != 0 ) {
+            out.write(( x & 0x7F ) | 0x80) ;
+            x >>>= 7 ;
+        }
+        out.write(x) ;
+    }
+
+    static int readVarInt(InputStream in) throws IOException {
+        int x = 0 ;
+        for ( int shift = 0 ; shift < 32 ; shift += 7 ) {
+            int b = in.read() ;
+            if ( b < 0 )
+                throw new RiotException("RDF Dict: Unexpected end of input") ;
+            x |= ( b & 0x7F ) << shift ;
+            if ( ( b & 0x80 ) == 0 )
+                return x ;
+        }
+        throw new RiotException("RDF Dict: Bad number") ;
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.dict;
+
+import static org.apache.jena.riot.dict.RDFDict.* ;
+
+import java.io.IOException ;
+import java.io.OutputStream ;
+import java.nio.charset.StandardCharsets ;
+import java.util.Arrays ;
+import java.util.HashMap ;
+import java.util.Map ;
+import java.util.zip.Deflater ;
+
+import org.apache.jena.atlas.io.IO ;
+import org.apache.jena.datatypes.xsd.XSDDatatype ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.NodeFactory ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.dict.RDFDict.Compression ;
+import org.apache.jena.riot.system.StreamRDF ;
+import org.apache.jena.sparql.core.Quad ;
+
+/** Encode StreamRDF as RDF Dict.
+ *  Usually used via {@link RDFDict} functions.
+ *
+ * @see Dict2StreamRDF for the reverse process.
+ */
+public class StreamRDF2Dict implements StreamRDF, AutoCloseable
+{
+    private static final String xsdString = XSDDatatype.XSDstring.getURI() ;
+
+    private final OutputStream out ;
+    private final Compression compression ;
+    private final int blockSize ;
+    private boolean headerWritten = false ;
+    private boolean finished = false ;
+
+    // Block being built.
+    private byte[] buffer ;
+    private int length = 0 ;
+    private byte[] compressed = new byte[0] ;
+    private Deflater deflater = null ;
+
+    private final Table<Node> terms ;
+    private final Table<String> namespaces ;
+
+    public StreamRDF2Dict(OutputStream out, Compression compression) {
+        this(out, compression, DFT_TERMS, DFT_NAMESPACES, DFT_BLOCK_SIZE) ;
+    }
+
+    /**
+     * @param out           Output
+     * @param compression   Block compression
+     * @param termTableSize Number of recent terms that can be referred to
+     * @param nsTableSize   Number of recent namespaces that can be referred to
+     * @param blockSize     Data, before compression, in a block
+     */
+    public StreamRDF2Dict(OutputStream out, Compression compression, int termTableSize, int nsTableSize, int blockSize) {
+        if ( termTableSize <= 0 || nsTableSize <= 0 || blockSize <= 0 )
+            throw new IllegalArgumentException("Table and block sizes must be positive") ;
+        if ( termTableSize > MAX_TERMS || nsTableSize > MAX_NAMESPACES || blockSize > MAX_BLOCK_SIZE )
+            throw new IllegalArgumentException("Table or block size too large") ;
+        this.out = out ;
+        this.compression = compression ;
+        this.blockSize = blockSize ;
+        this.buffer = new byte[blockSize+1024] ;
+        this.terms = new Table<>(termTableSize) ;
+        this.namespaces = new Table<>(nsTableSize) ;
+    }
+
+    /** Recent items and their slots, replaced oldest first : the same as the reader's tables. */
+    private static class Table<X> {
+        private final Object[] slots ;
+        private final Map<X, Integer> index ;
+        private int next = 0 ;
+
+        Table(int size) {
+            slots = new Object[size] ;
+            index = new HashMap<>(Math.min(size, 1024)) ;
+        }
+
+        int find(X item) {
+            Integer x = index.get(item) ;
+            return x == null ? -1 : x ;
+        }
+
+        void add(X item) {
+            @SuppressWarnings("unchecked")
+            X old = (X)slots[next] ;
+            if ( old != null )
+                index.remove(old) ;
+            slots[next] = item ;
+            index.put(item, next) ;
+            next = ( next+1 == slots.length ) ? 0 : next+1 ;
+        }
+    }
+
+    @Override
+    public void start() {
+        header() ;
+    }
+
+    @Override
+    public void triple(Triple triple) {
+        startRow(ROW_TRIPLE) ;
+        writeTerm(triple.getSubject()) ;
+        writeTerm(triple.getPredicate()) ;
+        writeTerm(triple.getObject()) ;
+        endRow() ;
+    }
+
+    @Override
+    public void quad(Quad quad) {
+        if ( quad.getGraph() == null || quad.isDefaultGraph() ) {
+            triple(quad.asTriple()) ;
+            return ;
+        }
+        startRow(ROW_QUAD) ;
+        writeTerm(quad.getGraph()) ;
+        writeTerm(quad.getSubject()) ;
+        writeTerm(quad.getPredicate()) ;
+        writeTerm(quad.getObject()) ;
+        endRow() ;
+    }
+
+    @Override
+    public void base(String base) {
+        startRow(ROW_BASE) ;
+        writeString(base) ;
+        endRow() ;
+    }
+
+    @Override
+    public void prefix(String prefix, String iri) {
+        startRow(ROW_PREFIX) ;
+        writeString(prefix) ;
+        writeString(iri) ;
+        endRow() ;
+    }
+
+    @Override
+    public void close() {
+        finish() ;
+    }
+
+    @Override
+    public void finish() {
+        if ( finished )
+            return ;
+        header() ;
+        writeBlock() ;
+        try { RDFDict.writeVarInt(out, 0) ; }
+        catch (IOException ex) { IO.exception(ex) ; }
+        IO.flush(out) ;
+        if ( deflater != null )
+            deflater.end() ;
+        finished = true ;
+    }
+
+    private void header() {
+        if ( headerWritten )
+            return ;
+        headerWritten = true ;
+        try {
+            out.write(MAGIC) ;
+            out.write(VERSION) ;
+            RDFDict.writeVarInt(out, terms.slots.length) ;
+            RDFDict.writeVarInt(out, namespaces.slots.length) ;
+        } catch (IOException ex) { IO.exception(ex) ; }
+    }
+
+    private void startRow(int tag) {
+        if ( finished )
+            throw new RiotException("RDF Dict: Output after finish()") ;
+        header() ;
+        writeByte(tag) ;
+    }
+
+    private void endRow() {
+        if ( length >= blockSize )
+            writeBlock() ;
+    }
+
+    private void writeTerm(Node n) {
+        int idx = terms.find(n) ;
+        if ( idx >= 0 ) {
+            writeByte(TERM_REF) ;
+            writeVarInt(idx) ;
+            return ;
+        }
+        if ( n.isURI() ) {
+            String iri = n.getURI() ;
+            int split = Math.max(iri.lastIndexOf('/'), iri.lastIndexOf('#'))+1 ;
+            String ns = iri.substring(0, split) ;
+            writeByte(TERM_IRI) ;
+            int nsIdx = namespaces.find(ns) ;
+            if ( nsIdx >= 0 )
+                writeVarInt(nsIdx+1) ;
+            else {
+                writeVarInt(0) ;
+                writeString(ns) ;
+                namespaces.add(ns) ;
+            }
+            writeString(iri.substring(split)) ;
+        } else if ( n.isBlank() ) {
+            writeByte(TERM_BNODE) ;
+            writeString(n.getBlankNodeLabel()) ;
+        } else if ( n.isLiteral() ) {
+            String lang = n.getLiteralLanguage() ;
+            String dt = n.getLiteralDatatypeURI() ;
+            if ( lang != null && ! lang.isEmpty() ) {
+                writeByte(TERM_LANG) ;
+                writeString(n.getLiteralLexicalForm()) ;
+                writeString(lang) ;
+            } else if ( dt == null || dt.equals(xsdString) ) {
+                writeByte(TERM_STRING) ;
+                writeString(n.getLiteralLexicalForm()) ;
+            } else {
+                writeByte(TERM_DATATYPE) ;
+                writeString(n.getLiteralLexicalForm()) ;
+                // The datatype is entered in the term table before the literal.
+                writeTerm(NodeFactory.createURI(dt)) ;
+            }
+        } else
+            throw new RiotException("RDF Dict: Can't encode node: "+n) ;
+        terms.add(n) ;
+    }
+
+    private void ensure(int n) {
+        if ( length+n > buffer.length )
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length*2, length+n)) ;
+    }
+
+    private void writeByte(int b) {
+        ensure(1) ;
+        buffer[length++] = (byte)b ;
+    }
+
+    private void writeVarInt(int x) {
+        ensure(5) ;
+        while ( ( x & ~0x7F ) != 0 ) {
+            buffer[length++] = (byte)(( x & 0x7F ) | 0x80) ;
+            x >>>= 7 ;
+        }
+        buffer[length++] = (byte)x ;
+    }
+
+    private void writeString(String s) {
+        int len = s.length() ;
+        boolean ascii = true ;
+        for ( int i = 0 ; i < len ; i++ ) {
+            if ( s.charAt(i) >= 0x80 ) {
+                ascii = false ;
+                break ;
+            }
+        }
+        if ( ascii ) {
+            writeVarInt(len) ;
+            ensure(len) ;
+            for ( int i = 0 ; i < len ; i++ )
+                buffer[length++] = (byte)s.charAt(i) ;
+            return ;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8) ;
+        writeVarInt(b.length) ;
+        ensure(b.length) ;
+        System.arraycopy(b, 0, buffer, length, b.length) ;
+        length += b.length ;
+    }
+
+    /** Compress and write the current block, if any. */
+    private void writeBlock() {
+        if ( length == 0 )
+            return ;
+        if ( length > MAX_BLOCK_SIZE )
+            throw new RiotException("RDF Dict: Row too large") ;
+        try {
+            byte[] stored = buffer ;
+            int storedLength = length ;
+            Compression c = compression ;
+            switch (compression) {
+                case NONE :
+                    break ;
+                case LZ4 : {
+                    int max = LZ4Block.maxCompressedLength(length) ;
+                    if ( compressed.length < max )
+                        compressed = new byte[max] ;
+                    int n = LZ4Block.compress(buffer, length, compressed) ;
+                    if ( n < length ) {
+                        stored = compressed ;
+                        storedLength = n ;
+                    } else
+                        c = Compression.NONE ;
+                    break ;
+                }
+                case DEFLATE : {
+                    if ( deflater == null )
+                        deflater = new Deflater(Deflater.BEST_SPEED) ;
+                    deflater.reset() ;
+                    deflater.setInput(buffer, 0, length) ;
+                    deflater.finish() ;
+                    if ( compressed.length < length )
+                        compressed = new byte[length] ;
+                    int n = 0 ;
+                    while ( ! deflater.finished() && n < length )
+                        n += deflater.deflate(compressed, n, length-n) ;
+                    if ( deflater.finished() && n < length ) {
+                        stored = compressed ;
+                        storedLength = n ;
+                    } else
+                        c = Compression.NONE ;
+                    break ;
+                }
+            }
+            RDFDict.writeVarInt(out, length) ;
+            out.write(c.code) ;
+            RDFDict.writeVarInt(out, storedLength) ;
+            out.write(stored, 0, storedLength) ;
+        } catch (IOException ex) { IO.exception(ex) ; }
+        length = 0 ;
+    }
+}
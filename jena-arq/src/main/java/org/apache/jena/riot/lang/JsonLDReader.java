@@ -52,19 +52,28 @@ import com.github.jsonldjava.utils.JsonUtils ;
  * Note: it is possible to override jsonld's "@context" value by providing one,
  * using a {@link org.apache.jena.sparql.util.Context}, and setting the {@link RIOT#JSONLD_CONTEXT} Symbol's value
  * to the data expected by JSON-LD java API (a {@link Map}).
+ * <p>
+ * Setting {@link RIOT#JSONLD_STREAMING} in the context reads the input as it is parsed;
+ * see {@link JsonLDStreamReader}.
  */
 public class JsonLDReader implements ReaderRIOT
 {
     private /*final*/ ErrorHandler errorHandler = ErrorHandlerFactory.getDefaultErrorHandler() ;
     private /*final*/ ParserProfile profile;
+    private final Lang lang ;
     
     public JsonLDReader(Lang lang, ParserProfile profile, ErrorHandler errorHandler) {
+        this.lang = lang ;
         this.profile = profile;
         this.errorHandler = errorHandler;
     }
     
     @Override
     public void read(Reader reader, String baseURI, ContentType ct, StreamRDF output, Context context) {
+        if ( context != null && context.isTrue(RIOT.JSONLD_STREAMING) ) {
+            new JsonLDStreamReader(lang, profile, errorHandler).read(reader, baseURI, ct, output, context) ;
+            return ;
+        }
         try {
             Object jsonObject = JsonUtils.fromReader(reader) ;
             read$(jsonObject, baseURI, ct, output, context) ;
@@ -85,6 +94,10 @@ public class JsonLDReader implements ReaderRIOT
     @SuppressWarnings({ "rawtypes", "unchecked" })
     @Override
     public void read(InputStream in, String baseURI, ContentType ct, StreamRDF output, Context context) {
+        if ( context != null && context.isTrue(RIOT.JSONLD_STREAMING) ) {
+            new JsonLDStreamReader(lang, profile, errorHandler).read(in, baseURI, ct, output, context) ;
+            return ;
+        }
         try {
             Object jsonObject = JsonUtils.fromInputStream(in) ;
             
@@ -115,6 +128,12 @@ public class JsonLDReader implements ReaderRIOT
     
     private void read$(Object jsonObject, String baseURI, ContentType ct, final StreamRDF output, Context context) {
         output.start() ;
+        toRDF(jsonObject, baseURI, output) ;
+        output.finish() ;
+    }
+
+    /** Send the triples and quads of a JSON-LD document, as parsed JSON, to the output. */
+    /*package*/ void toRDF(Object jsonObject, String baseURI, final StreamRDF output) {
         try {       	
             JsonLdTripleCallback callback = new JsonLdTripleCallback() {
                 @Override
@@ -162,7 +181,6 @@ public class JsonLDReader implements ReaderRIOT
             errorHandler.error(e.getMessage(), -1, -1); 
             throw new RiotException(e) ;
         }
-        output.finish() ;
     }
 
     public static String LITERAL    = "literal" ;
@@ -0,0 +1,647 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.lang ;
+
+import java.io.IOException ;
+import java.io.InputStream ;
+import java.io.Reader ;
+import java.math.BigDecimal ;
+import java.text.DecimalFormat ;
+import java.text.DecimalFormatSymbols ;
+import java.util.* ;
+
+import org.apache.jena.atlas.io.IO ;
+import org.apache.jena.atlas.web.ContentType ;
+import org.apache.jena.datatypes.xsd.XSDDatatype ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.NodeFactory ;
+import org.apache.jena.riot.Lang ;
+import org.apache.jena.riot.RIOT ;
+import org.apache.jena.riot.ReaderRIOT ;
+import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.system.ErrorHandler ;
+import org.apache.jena.riot.system.IRIResolver ;
+import org.apache.jena.riot.system.ParserProfile ;
+import org.apache.jena.riot.system.StreamRDF ;
+import org.apache.jena.riot.writer.StreamWriterJSONLD ;
+import org.apache.jena.sparql.util.Context ;
+import org.apache.jena.vocabulary.RDF ;
+
+import com.fasterxml.jackson.core.JsonLocation ;
+import com.fasterxml.jackson.core.JsonParser ;
+import com.fasterxml.jackson.core.JsonProcessingException ;
+import com.fasterxml.jackson.core.JsonToken ;
+import com.fasterxml.jackson.databind.ObjectMapper ;
+
+/**
+ * Read JSON-LD as the JSON is parsed, without building the whole document in memory.
+ * <p>
+ * Node objects are turned into triples one at a time. The members of a "@graph"
+ * array, at the top level or in a node object, are read one by one, as are the
+ * members of a top-level array. Apart from its "@graph", a node object is held in
+ * memory while it is converted. This covers JSON-LD in expanded form, including
+ * the output of {@link StreamWriterJSONLD}, and flattened or compacted JSON-LD
+ * that uses a simple "@context": term definitions that are a string, or an object
+ * with "@id" and "@type", "@vocab", "@base" and "@language".
+ * <p>
+ * The "@context" of a top-level object must come before its "@graph" for the
+ * "@graph" to be streamed. Otherwise the rest of the document is read into memory,
+ * and if it has a "@context", processed by {@link JsonLDReader}, as is a top-level
+ * "@context" that is not simple, such as a remote context.
+ * Other "@context" that can not be handled by streaming are errors, as are an "@id",
+ * or other properties, after the "@graph" they apply to.
+ * <p>
+ * Used by {@link JsonLDReader} when {@link RIOT#JSONLD_STREAMING} is set.
+ */
+public class JsonLDStreamReader implements ReaderRIOT
+{
+    private static final ObjectMapper mapper = new ObjectMapper() ;
+
+    private static final String xsdString  = XSDDatatype.XSDstring.getURI() ;
+    private static final String xsdInteger = XSDDatatype.XSDinteger.getURI() ;
+    private static final String xsdDouble  = XSDDatatype.XSDdouble.getURI() ;
+    private static final String xsdBoolean = XSDDatatype.XSDboolean.getURI() ;
+
+    private final Lang lang ;
+    private final ParserProfile profile ;
+    private final ErrorHandler errorHandler ;
+    // As used by jsonld-java for the lexical form of doubles.
+    private final DecimalFormat doubleFormat = new DecimalFormat("0.0###############E0", new DecimalFormatSymbols(Locale.US)) ;
+
+    private JsonParser parser = null ;
+    private StreamRDF output = null ;
+    private String baseURI = null ;
+    private boolean contextOverride = false ;
+
+    public JsonLDStreamReader(Lang lang, ParserProfile profile, ErrorHandler errorHandler) {
+        this.lang = lang ;
+        this.profile = profile ;
+        this.errorHandler = errorHandler ;
+    }
+
+    @Override
+    public void read(InputStream in, String baseURI, ContentType ct, StreamRDF output, Context context) {
+        try {
+            read(mapper.getFactory().createParser(in), baseURI, output, context) ;
+        }
+        catch (IOException ex) {
+            exception(ex) ;
+        }
+    }
+
+    @Override
+    public void read(Reader reader, String baseURI, ContentType ct, StreamRDF output, Context context) {
+        try {
+            read(mapper.getFactory().createParser(reader), baseURI, output, context) ;
+        }
+        catch (IOException ex) {
+            exception(ex) ;
+        }
+    }
+
+    private void exception(IOException ex) {
+        if ( ex instanceof JsonProcessingException ) {
+            // The Jackson JSON parser, or addition JSON-level check, throws up something.
+            JsonProcessingException jex = (JsonProcessingException)ex ;
+            JsonLocation loc = jex.getLocation() ;
+            errorHandler.error(jex.getOriginalMessage(), loc.getLineNr(), loc.getColumnNr()) ;
+            throw new RiotException(jex.getOriginalMessage()) ;
+        }
+        errorHandler.error(ex.getMessage(), -1, -1) ;
+        IO.exception(ex) ;
+    }
+
+    private void read(JsonParser parser, String baseURI, StreamRDF output, Context context) throws IOException {
+        this.parser = parser ;
+        this.output = output ;
+        this.baseURI = baseURI ;
+        output.start() ;
+        try {
+            read(context) ;
+            if ( parser.nextToken() != null )
+                error("JSON-LD: Content after the end of the document") ;
+        } finally { output.finish() ; }
+    }
+
+    private void read(Context context) throws IOException {
+        JsonLDContext cxt = new JsonLDContext() ;
+        Object override = ( context == null ) ? null : context.get(RIOT.JSONLD_CONTEXT) ;
+        if ( override != null ) {
+            cxt = cxt.with(override) ;
+            if ( cxt == null ) {
+                // Not streamable: process all of it, as JsonLDReader would.
+                Object document = ( parser.nextToken() == null ) ? null : readValue() ;
+                if ( document instanceof Map ) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> map = (Map<String, Object>)document ;
+                    map.put("@context", override) ;
+                } else
+                    errorHandler.warning("Unexpected: not a Map; unable to set JsonLD's @context",-1,-1) ;
+                jsonld(document) ;
+                return ;
+            }
+            contextOverride = true ;
+        }
+
+        JsonToken t = parser.nextToken() ;
+        if ( t == JsonToken.START_OBJECT )
+            readNode(null, cxt, nextField(), true) ;
+        else if ( t == JsonToken.START_ARRAY )
+            readGraph(null, cxt) ;
+        else
+            error("JSON-LD: Expected a JSON object or array") ;
+    }
+
+    /** Process a JSON-LD document, or the rest of one, in memory. */
+    private void jsonld(Object document) {
+        new JsonLDReader(lang, profile, errorHandler).toRDF(document, baseURI, output) ;
+    }
+
+    /** The next field name of the object being read, or null at the end of the object. */
+    private String nextField() throws IOException {
+        JsonToken t = parser.nextToken() ;
+        if ( t == JsonToken.FIELD_NAME )
+            return parser.getCurrentName() ;
+        if ( t == JsonToken.END_OBJECT )
+            return null ;
+        error("JSON-LD: Unexpected: "+t) ;
+        return null ;
+    }
+
+    /** Read the JSON value starting at the current token. */
+    private Object readValue() throws IOException {
+        return mapper.readValue(parser, Object.class) ;
+    }
+
+    /**
+     * Read the node objects of a "@graph", or a top-level array,
+     * starting at the current token.
+     */
+    private void readGraph(Node graph, JsonLDContext cxt) throws IOException {
+        JsonToken t = parser.currentToken() ;
+        if ( t == JsonToken.START_OBJECT ) {
+            readNode(graph, cxt, nextField(), false) ;
+            return ;
+        }
+        if ( t != JsonToken.START_ARRAY )
+            error("JSON-LD: Expected an array of node objects") ;
+        for ( t = parser.nextToken() ; t != JsonToken.END_ARRAY ; t = parser.nextToken() ) {
+            if ( t != JsonToken.START_OBJECT )
+                error("JSON-LD: Expected a node object") ;
+            readNode(graph, cxt, nextField(), false) ;
+        }
+    }
+
+    /**
+     * Read a node object, as far as its end, starting with {@code field}.
+     * "@graph" is read by streaming; the rest of the node object is read and then converted.
+     */
+    private void readNode(Node graph, JsonLDContext cxt, String field, boolean top) throws IOException {
+        Map<String, Object> node = new LinkedHashMap<>() ;
+        Node subject = null ;
+        boolean contextSeen = contextOverride ;
+        boolean graphSeen = false ;
+        // A top-level object of only "@context" and "@graph" is the default graph.
+        boolean defaultGraph = false ;
+        for ( ; field != null ; field = nextField() ) {
+            parser.nextToken() ;
+            if ( field.equals("@context") ) {
+                if ( top && contextOverride ) {
+                    parser.skipChildren() ;
+                    continue ;
+                }
+                if ( graphSeen )
+                    error("JSON-LD: @context after @graph") ;
+                Object cxtValue = readValue() ;
+                JsonLDContext cxt2 = cxt.with(cxtValue) ;
+                if ( cxt2 == null ) {
+                    if ( ! top )
+                        error("JSON-LD: @context not supported when streaming") ;
+                    // Not streamable: read the rest of the document.
+                    node.put(field, cxtValue) ;
+                    readRest(node) ;
+                    jsonld(node) ;
+                    return ;
+                }
+                cxt = cxt2 ;
+                contextSeen = true ;
+                continue ;
+            }
+            if ( field.equals("@graph") ) {
+                if ( graphSeen )
+                    error("JSON-LD: Repeated @graph") ;
+                graphSeen = true ;
+                if ( top && ! contextSeen ) {
+                    // A "@context" may follow (it is often written last).
+                    // Read the rest of the document.
+                    node.put(field, readValue()) ;
+                    readRest(node) ;
+                    if ( node.containsKey("@context") )
+                        jsonld(node) ;
+                    else if ( node.size() == 1 )
+                        node(node.get("@graph"), cxt) ;
+                    else
+                        node(node, null, null, cxt) ;
+                    return ;
+                }
+                if ( top && node.isEmpty() ) {
+                    defaultGraph = true ;
+                    readGraph(graph, cxt) ;
+                } else {
+                    subject = subject(node.get("@id"), cxt) ;
+                    readGraph(subject, cxt) ;
+                }
+                continue ;
+            }
+            if ( graphSeen && ( defaultGraph || field.equals("@id") ) )
+                error("JSON-LD: "+field+" after @graph") ;
+            node.put(field, readValue()) ;
+        }
+        if ( ! node.isEmpty() )
+            node(node, subject, graph, cxt) ;
+    }
+
+    /** Read the remaining members of the current object into a map. */
+    private void readRest(Map<String, Object> node) throws IOException {
+        for ( String field = nextField() ; field != null ; field = nextField() ) {
+            parser.nextToken() ;
+            node.put(field, readValue()) ;
+        }
+    }
+
+    /** The node objects of a default graph "@graph". */
+    private void node(Object nodes, JsonLDContext cxt) {
+        for ( Object v : asList(nodes) ) {
+            if ( ! ( v instanceof Map ) )
+                error("JSON-LD: Expected a node object") ;
+            node((Map<?, ?>)v, null, null, cxt) ;
+        }
+    }
+
+    // ---- Conversion of JSON values.
+
+    /** Output the triples of a node object; return the subject. */
+    private Node node(Map<?, ?> node, Node subject, Node graph, JsonLDContext cxt) {
+        if ( node.containsKey("@context") ) {
+            cxt = cxt.with(node.get("@context")) ;
+            if ( cxt == null )
+                error("JSON-LD: @context not supported when streaming") ;
+        }
+        if ( subject == null )
+            subject = subject(node.get("@id"), cxt) ;
+        for ( Map.Entry<?, ?> e : node.entrySet() ) {
+            String key = (String)e.getKey() ;
+            Object value = e.getValue() ;
+            switch (key) {
+                case "@type" :
+                    for ( Object t : asList(value) ) {
+                        if ( ! ( t instanceof String ) )
+                            error("JSON-LD: Bad @type: "+t) ;
+                        Node type = node(expand((String)t, cxt, true, true)) ;
+                        if ( type != null )
+                            emit(graph, subject, RDF.Nodes.type, type) ;
+                    }
+                    break ;
+                case "@reverse" :
+                    if ( ! ( value instanceof Map ) )
+                        error("JSON-LD: Bad @reverse") ;
+                    for ( Map.Entry<?, ?> r : ((Map<?, ?>)value).entrySet() ) {
+                        Node p = node(expand((String)r.getKey(), cxt, true, false)) ;
+                        if ( p == null )
+                            continue ;
+                        for ( Object v : asList(r.getValue()) ) {
+                            Node o = value(v, null, graph, cxt) ;
+                            if ( o != null && ! o.isLiteral() )
+                                emit(graph, o, p, subject) ;
+                        }
+                    }
+                    break ;
+                case "@graph" :
+                    for ( Object v : asList(value) ) {
+                        if ( ! ( v instanceof Map ) )
+                            error("JSON-LD: Expected a node object") ;
+                        node((Map<?, ?>)v, null, subject, cxt) ;
+                    }
+                    break ;
+                default :
+                    // Includes @id, @context, @index.
+                    if ( key.startsWith("@") )
+                        break ;
+                    Node p = node(expand(key, cxt, true, false)) ;
+                    if ( p == null )
+                        // Dropped, as in JSON-LD to RDF.
+                        break ;
+                    TermDef term = cxt.terms.get(key) ;
+                    values(subject, p, value, term, graph, cxt) ;
+                    break ;
+            }
+        }
+        return subject ;
+    }
+
+    private void values(Node subject, Node p, Object value, TermDef term, Node graph, JsonLDContext cxt) {
+        if ( value instanceof List ) {
+            for ( Object v : (List<?>)value )
+                values(subject, p, v, term, graph, cxt) ;
+            return ;
+        }
+        if ( value instanceof Map && ((Map<?, ?>)value).containsKey("@set") ) {
+            values(subject, p, ((Map<?, ?>)value).get("@set"), term, graph, cxt) ;
+            return ;
+        }
+        Node o = value(value, term, graph, cxt) ;
+        if ( o != null )
+            emit(graph, subject, p, o) ;
+    }
+
+    /** Convert a JSON value that is not an array; return null for no value. */
+    private Node value(Object value, TermDef term, Node graph, JsonLDContext cxt) {
+        String termType = ( term == null ) ? null : term.type ;
+        if ( value == null )
+            return null ;
+        if ( value instanceof String ) {
+            String str = (String)value ;
+            if ( termType == null ) {
+                if ( cxt.language != null )
+                    return profile.createLangLiteral(str, cxt.language, -1, -1) ;
+                return profile.createStringLiteral(str, -1, -1) ;
+            }
+            if ( termType.equals("@id") )
+                return node(expand(str, cxt, false, true)) ;
+            if ( termType.equals("@vocab") )
+                return node(expand(str, cxt, true, true)) ;
+            return literal(str, expand(termType, cxt, true, true)) ;
+        }
+        if ( value instanceof Number || value instanceof Boolean )
+            return literal(value, ( termType == null || termType.startsWith("@") ) ? null : expand(termType, cxt, true, true)) ;
+        if ( value instanceof List )
+            error("JSON-LD: Array not allowed here") ;
+        Map<?, ?> map = (Map<?, ?>)value ;
+        if ( map.containsKey("@value") ) {
+            Object v = map.get("@value") ;
+            if ( v == null )
+                return null ;
+            Object lang = map.get("@language") ;
+            Object type = map.get("@type") ;
+            if ( lang != null ) {
+                if ( ! ( v instanceof String ) || ! ( lang instanceof String ) )
+                    error("JSON-LD: Bad language-tagged value") ;
+                return profile.createLangLiteral((String)v, (String)lang, -1, -1) ;
+            }
+            if ( type != null && ! ( type instanceof String ) )
+                error("JSON-LD: Bad @type: "+type) ;
+            return literal(v, ( type == null ) ? null : expand((String)type, cxt, true, true)) ;
+        }
+        if ( map.containsKey("@list") )
+            return list(asList(map.get("@list")), term, graph, cxt) ;
+        // Embedded node object.
+        return node(map, null, graph, cxt) ;
+    }
+
+    private Node list(List<?> items, TermDef term, Node graph, JsonLDContext cxt) {
+        Node head = RDF.Nodes.nil ;
+        Node last = null ;
+        for ( Object item : items ) {
+            if ( item instanceof List )
+                error("JSON-LD: List of lists") ;
+            Node o = value(item, term, graph, cxt) ;
+            if ( o == null )
+                continue ;
+            Node cell = profile.createBlankNode(null, -1, -1) ;
+            if ( last == null )
+                head = cell ;
+            else
+                emit(graph, last, RDF.Nodes.rest, cell) ;
+            emit(graph, cell, RDF.Nodes.first, o) ;
+            last = cell ;
+        }
+        if ( last != null )
+            emit(graph, last, RDF.Nodes.rest, RDF.Nodes.nil) ;
+        return head ;
+    }
+
+    /** A literal for a JSON string, number or boolean, with an optional datatype. */
+    private Node literal(Object value, String datatype) {
+        String lex ;
+        if ( value instanceof String )
+            lex = (String)value ;
+        else if ( value instanceof Boolean ) {
+            lex = value.toString() ;
+            if ( datatype == null )
+                datatype = xsdBoolean ;
+        } else if ( value instanceof Double || value instanceof Float || value instanceof BigDecimal || xsdDouble.equals(datatype) ) {
+            lex = doubleFormat.format(value) ;
+            if ( datatype == null )
+                datatype = xsdDouble ;
+        } else if ( value instanceof Number ) {
+            lex = value.toString() ;
+            if ( datatype == null )
+                datatype = xsdInteger ;
+        } else {
+            error("JSON-LD: Bad @value: "+value) ;
+            return null ;
+        }
+        if ( datatype == null || datatype.equals(xsdString) )
+            return profile.createStringLiteral(lex, -1, -1) ;
+        if ( datatype.startsWith("_:") )
+            error("JSON-LD: Datatype is a blank node: "+datatype) ;
+        return profile.createTypedLiteral(lex, NodeFactory.getType(datatype), -1, -1) ;
+    }
+
+    private Node subject(Object id, JsonLDContext cxt) {
+        if ( id == null )
+            return profile.createBlankNode(null, -1, -1) ;
+        if ( ! ( id instanceof String ) )
+            error("JSON-LD: Bad @id: "+id) ;
+        Node n = node(expand((String)id, cxt, false, true)) ;
+        return ( n != null ) ? n : profile.createBlankNode(null, -1, -1) ;
+    }
+
+    private void emit(Node graph, Node s, Node p, Node o) {
+        if ( graph == null )
+            output.triple(profile.createTriple(s, p, o, -1, -1)) ;
+        else
+            output.quad(profile.createQuad(graph, s, p, o, -1, -1)) ;
+    }
+
+    private static List<?> asList(Object value) {
+        if ( value == null )
+            return Collections.emptyList() ;
+        if ( value instanceof List )
+            return (List<?>)value ;
+        return Collections.singletonList(value) ;
+    }
+
+    /** An IRI, or a blank node for "_:" */
+    private Node node(String str) {
+        if ( str == null )
+            return null ;
+        if ( str.startsWith("_:") )
+            return profile.createBlankNode(null, str.substring(2), -1, -1) ;
+        return profile.createURI(str, -1, -1) ;
+    }
+
+    // ---- IRI expansion.
+
+    /**
+     * Expand a string as an IRI, or blank node label, using the context.
+     * {@code vocab} is for vocabulary positions (terms and "@vocab" apply) and
+     * {@code document} is for document-relative IRIs.
+     * Returns null if the string does not become an IRI.
+     */
+    private String expand(String value, JsonLDContext cxt, boolean vocab, boolean document) {
+        return expand(value, cxt, vocab, document, 0) ;
+    }
+
+    private String expand(String value, JsonLDContext cxt, boolean vocab, boolean document, int depth) {
+        if ( depth > 10 )
+            error("JSON-LD: Cyclic term definition: "+value) ;
+        if ( value.startsWith("@") )
+            return null ;
+        if ( vocab && cxt.terms.containsKey(value) ) {
+            TermDef term = cxt.terms.get(value) ;
+            if ( term == null )
+                // Term defined as null.
+                return null ;
+            if ( ! term.id.equals(value) )
+                return expand(term.id, cxt, true, false, depth+1) ;
+        }
+        int idx = value.indexOf(':') ;
+        if ( idx >= 0 ) {
+            String prefix = value.substring(0, idx) ;
+            String suffix = value.substring(idx+1) ;
+            if ( prefix.equals("_") || suffix.startsWith("//") )
+                return value ;
+            TermDef term = cxt.terms.get(prefix) ;
+            if ( term != null && ! term.id.equals(value) ) {
+                String x = expand(term.id, cxt, true, false, depth+1) ;
+                if ( x != null )
+                    return x + suffix ;
+            }
+            return value ;
+        }
+        if ( vocab && cxt.vocab != null )
+            return cxt.vocab + value ;
+        if ( document ) {
+            if ( cxt.base != null )
+                return IRIResolver.resolveString(value, cxt.base) ;
+            return profile.resolveIRI(value, -1, -1) ;
+        }
+        return null ;
+    }
+
+    private void error(String message) {
+        JsonLocation loc = parser.getCurrentLocation() ;
+        errorHandler.error(message, loc.getLineNr(), loc.getColumnNr()) ;
+        throw new RiotException(message) ;
+    }
+
+    /** A term definition: an IRI, and, optionally, a type. */
+    private static class TermDef {
+        final String id ;
+        final String type ;
+        TermDef(String id, String type) { this.id = id ; this.type = type ; }
+    }
+
+    /** The "@context" as far as it is supported when streaming. */
+    private class JsonLDContext {
+        final Map<String, TermDef> terms ;
+        String vocab = null ;
+        String base = null ;
+        String language = null ;
+
+        JsonLDContext() {
+            terms = new HashMap<>() ;
+        }
+
+        JsonLDContext(JsonLDContext other) {
+            terms = new HashMap<>(other.terms) ;
+            vocab = other.vocab ;
+            base = other.base ;
+            language = other.language ;
+        }
+
+        /** This context with the "@context" value added, or null if it is not supported when streaming. */
+        JsonLDContext with(Object definition) {
+            if ( definition == null )
+                return new JsonLDContext() ;
+            if ( definition instanceof List ) {
+                JsonLDContext cxt = this ;
+                for ( Object x : (List<?>)definition ) {
+                    cxt = cxt.with(x) ;
+                    if ( cxt == null )
+                        return null ;
+                }
+                return cxt ;
+            }
+            // Includes remote contexts.
+            if ( ! ( definition instanceof Map ) )
+                return null ;
+            JsonLDContext cxt = new JsonLDContext(this) ;
+            for ( Map.Entry<?, ?> e : ((Map<?, ?>)definition).entrySet() ) {
+                String key = (String)e.getKey() ;
+                Object value = e.getValue() ;
+                if ( value != null && ! ( value instanceof String ) && ( key.startsWith("@") || ! ( value instanceof Map ) ) )
+                    return null ;
+                switch (key) {
+                    case "@vocab" :
+                        cxt.vocab = (String)value ;
+                        continue ;
+                    case "@base" :
+                        cxt.base = ( value == null ) ? null : resolve((String)value) ;
+                        continue ;
+                    case "@language" :
+                        cxt.language = (String)value ;
+                        continue ;
+                    case "@version" :
+                        continue ;
+                }
+                if ( key.startsWith("@") )
+                    return null ;
+                if ( value == null ) {
+                    cxt.terms.put(key, null) ;
+                    continue ;
+                }
+                if ( value instanceof String ) {
+                    if ( ((String)value).startsWith("@") )
+                        // Keyword alias.
+                        return null ;
+                    cxt.terms.put(key, new TermDef((String)value, null)) ;
+                    continue ;
+                }
+                Map<?, ?> def = (Map<?, ?>)value ;
+                Object id = def.get("@id") ;
+                Object type = def.get("@type") ;
+                int size = ( type == null ) ? 1 : 2 ;
+                if ( def.size() != size || ! ( id instanceof String ) || ((String)id).startsWith("@") )
+                    return null ;
+                if ( type != null && ! ( type instanceof String ) )
+                    return null ;
+                cxt.terms.put(key, new TermDef((String)id, (String)type)) ;
+            }
+            return cxt ;
+        }
+
+        private String resolve(String iri) {
+            if ( base != null )
+                return IRIResolver.resolveString(iri, base) ;
+            return profile.resolveIRI(iri, -1, -1) ;
+        }
+    }
+}
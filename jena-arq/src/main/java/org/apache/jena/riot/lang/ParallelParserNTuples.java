@@ -0,0 +1,497 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.lang;
+
+import static org.apache.jena.riot.RDFLanguages.NQUADS;
+import static org.apache.jena.riot.RDFLanguages.NTRIPLES;
+import static org.apache.jena.riot.RDFLanguages.sameLang;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+import org.apache.jena.atlas.io.IO;
+import org.apache.jena.datatypes.RDFDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.RiotParseException;
+import org.apache.jena.riot.system.ErrorHandler;
+import org.apache.jena.riot.system.FactoryRDF;
+import org.apache.jena.riot.system.ParserProfile;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.tokens.Tokenizer;
+import org.apache.jena.riot.tokens.TokenizerFactory;
+import org.apache.jena.sparql.core.Quad;
+
+/**
+ * Parse N-Triples or N-Quads using several threads.
+ * <p>
+ * These formats have one triple or quad per line, so the input can be split
+ * into chunks at line ends and the chunks parsed independently. Files are
+ * memory-mapped; other input is read into byte arrays. Each chunk is parsed
+ * by {@link LangNTriples} or {@link LangNQuads} on a worker thread, with its
+ * own {@link ParserProfile}, and the results are sent to the
+ * {@link StreamRDF} from the calling thread, either in the original order or
+ * in the order chunks finish.
+ * <p>
+ * The profiles must share one {@link FactoryRDF}, made safe for use by several
+ * threads with {@link #threadSafe(FactoryRDF)}, so that a blank node label
+ * maps to the same node in every chunk ({@link LabelToNode}). Errors are
+ * reported with line numbers in the whole input. An error stops parsing; when
+ * the order is preserved, everything before the error has been sent to the
+ * {@code StreamRDF}, as with the single-threaded parser.
+ */
+public class ParallelParserNTuples {
+    /** Default size of a chunk, in bytes. */
+    public static final int DftChunkSize = 4 * 1024 * 1024;
+
+    private final Lang lang;
+    private final Function<ErrorHandler, ParserProfile> profileMaker;
+    private final ErrorHandler errorHandler;
+    private final int threads;
+    private final int chunkSize;
+    private final boolean preserveOrder;
+
+    /**
+     * A parallel parser for N-Triples or N-Quads.
+     *
+     * @param lang N-Triples or N-Quads
+     * @param profileMaker Create the profile for a chunk, given the error
+     *     handler to use for it.
+     * @param errorHandler Error handler for the whole input.
+     * @param threads Number of worker threads.
+     * @param preserveOrder Whether to output in the order of the input.
+     */
+    public ParallelParserNTuples(Lang lang, Function<ErrorHandler, ParserProfile> profileMaker, ErrorHandler errorHandler,
+                                 int threads, boolean preserveOrder) {
+        this(lang, profileMaker, errorHandler, threads, preserveOrder, DftChunkSize);
+    }
+
+    public ParallelParserNTuples(Lang lang, Function<ErrorHandler, ParserProfile> profileMaker, ErrorHandler errorHandler,
+                                 int threads, boolean preserveOrder, int chunkSize) {
+        if ( ! sameLang(NTRIPLES, lang) && ! sameLang(NQUADS, lang) )
+            throw new RiotException("Not N-Triples or N-Quads: "+lang);
+        this.lang = lang;
+        this.profileMaker = profileMaker;
+        this.errorHandler = errorHandler;
+        this.threads = Math.max(1, threads);
+        this.preserveOrder = preserveOrder;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /** Whether a language can be parsed by this class. */
+    public static boolean canParse(Lang lang) {
+        return sameLang(NTRIPLES, lang) || sameLang(NQUADS, lang);
+    }
+
+    /** Parse an {@code InputStream}. */
+    public void parse(InputStream input, StreamRDF dest) {
+        run(new StreamChunks(input, chunkSize), dest);
+    }
+
+    /** Parse a file, which is memory-mapped. */
+    public void parse(Path path, StreamRDF dest) {
+        try ( FileChannel channel = FileChannel.open(path, StandardOpenOption.READ) ) {
+            run(new MappedChunks(channel, chunkSize), dest);
+        } catch (IOException ex) { IO.exception(ex); }
+    }
+
+    // ---- Chunks
+
+    private static class Chunk {
+        final ByteBuffer bytes;
+        final long startLine;
+        Chunk(ByteBuffer bytes, long startLine) {
+            this.bytes = bytes;
+            this.startLine = startLine;
+        }
+    }
+
+    private static long countLines(ByteBuffer bytes) {
+        long n = 0;
+        for ( int i = bytes.position() ; i < bytes.limit() ; i++ ) {
+            if ( bytes.get(i) == '\n' )
+                n++;
+        }
+        return n;
+    }
+
+    // Index, relative to the position, of the last newline, or -1.
+    private static int lastNewline(ByteBuffer bytes) {
+        for ( int i = bytes.limit() - 1 ; i >= bytes.position() ; i-- ) {
+            if ( bytes.get(i) == '\n' )
+                return i - bytes.position();
+        }
+        return -1;
+    }
+
+    /** Read an {@code InputStream} into chunks ending at a newline. */
+    private static class StreamChunks implements Iterator<Chunk> {
+        private final InputStream input;
+        private final int chunkSize;
+        private byte[] leftover = new byte[0];
+        private int leftoverLen = 0;
+        private long line = 1;
+        private boolean eof = false;
+        private Chunk slot = null;
+
+        StreamChunks(InputStream input, int chunkSize) {
+            this.input = input;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if ( slot == null && ! eof )
+                slot = readChunk();
+            return slot != null;
+        }
+
+        @Override
+        public Chunk next() {
+            if ( ! hasNext() )
+                throw new NoSuchElementException();
+            Chunk chunk = slot;
+            slot = null;
+            return chunk;
+        }
+
+        private Chunk readChunk() {
+            byte[] buffer = new byte[Math.max(chunkSize, leftoverLen)];
+            System.arraycopy(leftover, 0, buffer, 0, leftoverLen);
+            int len = leftoverLen;
+            // The leftover has no newline.
+            int searchFrom = leftoverLen;
+            try {
+                for ( ;; ) {
+                    while ( len < buffer.length ) {
+                        int n = input.read(buffer, len, buffer.length - len);
+                        if ( n < 0 ) {
+                            eof = true;
+                            break;
+                        }
+                        len += n;
+                    }
+                    if ( eof ) {
+                        leftoverLen = 0;
+                        return len == 0 ? null : chunk(buffer, len);
+                    }
+                    int idx = lastNewline(ByteBuffer.wrap(buffer, searchFrom, len - searchFrom));
+                    if ( idx >= 0 ) {
+                        int end = searchFrom + idx + 1;
+                        leftoverLen = len - end;
+                        leftover = new byte[leftoverLen];
+                        System.arraycopy(buffer, end, leftover, 0, leftoverLen);
+                        return chunk(buffer, end);
+                    }
+                    // A line longer than the buffer.
+                    searchFrom = len;
+                    byte[] buffer2 = new byte[2 * buffer.length];
+                    System.arraycopy(buffer, 0, buffer2, 0, len);
+                    buffer = buffer2;
+                }
+            } catch (IOException ex) {
+                IO.exception(ex);
+                return null;
+            }
+        }
+
+        private Chunk chunk(byte[] buffer, int len) {
+            ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, len);
+            Chunk chunk = new Chunk(bytes, line);
+            line += countLines(bytes);
+            return chunk;
+        }
+    }
+
+    /** Memory-map a file in chunks ending at a newline. */
+    private static class MappedChunks implements Iterator<Chunk> {
+        private final FileChannel channel;
+        private final int chunkSize;
+        private final long size;
+        private long position = 0;
+        private long line = 1;
+
+        MappedChunks(FileChannel channel, int chunkSize) throws IOException {
+            this.channel = channel;
+            this.chunkSize = chunkSize;
+            this.size = channel.size();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < size;
+        }
+
+        @Override
+        public Chunk next() {
+            if ( ! hasNext() )
+                throw new NoSuchElementException();
+            try {
+                long window = Math.min(chunkSize, size - position);
+                for ( ;; ) {
+                    ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, position, window);
+                    if ( position + window < size ) {
+                        int idx = lastNewline(bytes);
+                        if ( idx < 0 ) {
+                            // A line longer than the window.
+                            if ( window >= Integer.MAX_VALUE )
+                                throw new RiotException("Line too long at line "+line);
+                            window = Math.min(Math.min(2 * window, size - position), Integer.MAX_VALUE);
+                            continue;
+                        }
+                        bytes.limit(idx + 1);
+                    }
+                    Chunk chunk = new Chunk(bytes, line);
+                    position += bytes.limit();
+                    line += countLines(bytes);
+                    return chunk;
+                }
+            } catch (IOException ex) {
+                IO.exception(ex);
+                return null;
+            }
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer bytes;
+
+        ByteBufferInputStream(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() {
+            return bytes.hasRemaining() ? bytes.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if ( len == 0 )
+                return 0;
+            if ( ! bytes.hasRemaining() )
+                return -1;
+            int n = Math.min(len, bytes.remaining());
+            bytes.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return bytes.remaining();
+        }
+    }
+
+    // ---- Parsing
+
+    /** The output of parsing one chunk, and the error that stopped it, if any. */
+    private static class Result {
+        final CollectorStreamRDF output;
+        final RuntimeException error;
+        Result(CollectorStreamRDF output, RuntimeException error) {
+            this.output = output;
+            this.error = error;
+        }
+    }
+
+    private Result parseChunk(Chunk chunk) {
+        CollectorStreamRDF output = new CollectorStreamRDF();
+        ParserProfile profile = profileMaker.apply(new ErrorHandlerChunk(errorHandler, chunk.startLine - 1));
+        Tokenizer tokenizer = TokenizerFactory.makeTokenizerUTF8(new ByteBufferInputStream(chunk.bytes));
+        LangRIOT parser = sameLang(NQUADS, lang)
+            ? RiotParsers.createParserNQuads(tokenizer, output, profile)
+            : RiotParsers.createParserNTriples(tokenizer, output, profile);
+        try {
+            parser.parse();
+            return new Result(output, null);
+        } catch (RuntimeException ex) {
+            return new Result(output, ex);
+        }
+    }
+
+    private void run(Iterator<Chunk> chunks, StreamRDF dest) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "RIOT-NTuples");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Only used when the order is not preserved.
+        CompletionService<Result> completion = new ExecutorCompletionService<>(executor);
+        Deque<Future<Result>> pending = new ArrayDeque<>();
+        // Limit the chunks in memory.
+        int maxPending = 2 * threads;
+        dest.start();
+        try {
+            while ( chunks.hasNext() ) {
+                Chunk chunk = chunks.next();
+                Callable<Result> task = () -> parseChunk(chunk);
+                pending.add(preserveOrder ? executor.submit(task) : completion.submit(task));
+                if ( pending.size() >= maxPending )
+                    output(next(pending, completion), dest);
+            }
+            while ( ! pending.isEmpty() )
+                output(next(pending, completion), dest);
+        } finally {
+            executor.shutdownNow();
+            dest.finish();
+        }
+    }
+
+    private Result next(Deque<Future<Result>> pending, CompletionService<Result> completion) {
+        try {
+            Future<Result> future;
+            if ( preserveOrder )
+                future = pending.removeFirst();
+            else {
+                future = completion.take();
+                pending.remove(future);
+            }
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RiotException("Interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if ( cause instanceof RuntimeException )
+                throw (RuntimeException)cause;
+            throw new RiotException(cause);
+        }
+    }
+
+    private static void output(Result result, StreamRDF dest) {
+        result.output.getTriples().forEach(dest::triple);
+        result.output.getQuads().forEach(dest::quad);
+        if ( result.error != null )
+            throw result.error;
+    }
+
+    /** Report errors with line numbers in the whole input, one at a time. */
+    private static class ErrorHandlerChunk implements ErrorHandler {
+        private final ErrorHandler other;
+        private final long lineOffset;
+
+        ErrorHandlerChunk(ErrorHandler other, long lineOffset) {
+            this.other = other;
+            this.lineOffset = lineOffset;
+        }
+
+        private long line(long line) {
+            return line > 0 ? line + lineOffset : line;
+        }
+
+        @Override
+        public void warning(String message, long line, long col) {
+            synchronized (other) { other.warning(message, line(line), col); }
+        }
+
+        @Override
+        public void error(String message, long line, long col) {
+            synchronized (other) { other.error(message, line(line), col); }
+        }
+
+        @Override
+        public void fatal(String message, long line, long col) {
+            synchronized (other) { other.fatal(message, line(line), col); }
+            // In case the error handler returns.
+            throw new RiotParseException(message, line(line), col);
+        }
+    }
+
+    // ---- Shared FactoryRDF
+
+    /**
+     * Return a {@link FactoryRDF} for the chunk profiles. Blank node allocation,
+     * which uses the {@link LabelToNode} of the factory, is synchronized; other
+     * operations are passed through and must be safe for use by several
+     * threads, which is the case for the RIOT factories.
+     */
+    public static FactoryRDF threadSafe(FactoryRDF factory) {
+        return new FactoryRDFSync(factory);
+    }
+
+    private static class FactoryRDFSync implements FactoryRDF {
+        private final FactoryRDF other;
+
+        FactoryRDFSync(FactoryRDF other) {
+            this.other = other;
+        }
+
+        @Override
+        public Triple createTriple(Node subject, Node predicate, Node object) {
+            return other.createTriple(subject, predicate, object);
+        }
+
+        @Override
+        public Quad createQuad(Node graph, Node subject, Node predicate, Node object) {
+            return other.createQuad(graph, subject, predicate, object);
+        }
+
+        @Override
+        public Node createURI(String uriStr) {
+            return other.createURI(uriStr);
+        }
+
+        @Override
+        public Node createTypedLiteral(String lexical, RDFDatatype datatype) {
+            return other.createTypedLiteral(lexical, datatype);
+        }
+
+        @Override
+        public Node createLangLiteral(String lexical, String langTag) {
+            return other.createLangLiteral(lexical, langTag);
+        }
+
+        @Override
+        public Node createStringLiteral(String lexical) {
+            return other.createStringLiteral(lexical);
+        }
+
+        @Override
+        public synchronized Node createBlankNode() {
+            return other.createBlankNode();
+        }
+
+        @Override
+        public synchronized Node createBlankNode(String label) {
+            return other.createBlankNode(label);
+        }
+
+        @Override
+        public synchronized Node createBlankNode(long mostSigBits, long leastSigBits) {
+            return other.createBlankNode(mostSigBits, leastSigBits);
+        }
+
+        @Override
+        public synchronized void reset() {
+            other.reset();
+        }
+    }
+}
@@ -18,12 +18,14 @@
 
 package org.apache.jena.riot.lang;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.jena.atlas.lib.Closeable;
 import org.apache.jena.riot.RiotException;
@@ -45,6 +47,13 @@ import org.apache.jena.riot.system.PrefixMapFactory;
  * write operations, within limits.
  * </p>
  * <p>
+ * Items can be handed from the producer to the consumer in batches (see
+ * {@link #PipedRDFIterator(int, boolean, int, int, int)}) so that the cost of
+ * the buffer's locking is paid once per batch, not once per item. A partly
+ * filled batch is passed on when the consumer is waiting for data, so batching
+ * does not hold back the items of a slow producer.
+ * </p>
+ * <p>
  * Inspired by Java's {@link java.io.PipedInputStream} and
  * {@link java.io.PipedOutputStream}
  * </p>
@@ -73,11 +82,27 @@ public class PipedRDFIterator<T> implements Iterator<T>, Closeable {
      * be declared as dead
      */
     public static final int DEFAULT_MAX_POLLS = 10;
+    /**
+     * Constant for the batch size used for background parsing, see
+     * {@link org.apache.jena.riot.RDFDataMgr#createIteratorTriples}
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    // How long the consumer waits for a full batch before taking whatever the
+    // producer has so far.
+    private static final long IDLE_WAIT_MICROS = 1000;
+
+    private final BlockingQueue<Object[]> queue;
 
-    private final BlockingQueue<T> queue;
+    private static final Object[] endMarker = new Object[0];
 
-    @SuppressWarnings("unchecked")
-    private final T endMarker = (T) new Object();
+    // Producer side : the batch being filled. Guarded by batchLock, which the
+    // consumer only tries for when it has run out of data.
+    private final ReentrantLock batchLock = new ReentrantLock();
+    private final int batchSize;
+    private Object[] batch;
+    private int batchCount = 0;
+    private volatile boolean consumerWaiting = false;
 
     private volatile boolean closedByConsumer = false;
     private volatile boolean closedByProducer = false;
@@ -90,7 +115,9 @@ public class PipedRDFIterator<T> implements Iterator<T>, Closeable {
     private int pollTimeout = DEFAULT_POLL_TIMEOUT;
     private int maxPolls = DEFAULT_MAX_POLLS;
 
-    private T slot;
+    // Consumer side : the batch being read.
+    private Object[] slot;
+    private int slotIdx = 0;
 
     private final Object lock = new Object(); // protects baseIri and prefixes
     private String baseIri;
@@ -199,13 +226,52 @@ public class PipedRDFIterator<T> implements Iterator<T>, Closeable {
      *            Max poll attempts
      */
     public PipedRDFIterator(int bufferSize, boolean fair, int pollTimeout, int maxPolls) {
+        this(bufferSize, fair, pollTimeout, maxPolls, 1);
+    }
+
+    /**
+     * Creates a new piped RDF iterator that passes items from the producer to
+     * the consumer in batches.
+     * <p>
+     * See {@link #PipedRDFIterator(int, boolean, int, int)} for the other
+     * parameters; the buffer holds {@code bufferSize / batchSize} batches, and
+     * at least one.
+     * </p>
+     * <p>
+     * The {@code batchSize} parameter controls how many items the producer
+     * collects before handing them over to the consumer as one operation on
+     * the buffer. When the consumer has no more data, it takes a partly filled
+     * batch and the producer hands over items as soon as they are produced
+     * until the consumer catches up again. A batch size of 1 passes each item
+     * on as it is produced. {@link #DEFAULT_BATCH_SIZE} is suitable for
+     * parsing in a background thread.
+     * </p>
+     * 
+     * @param bufferSize
+     *            Buffer size
+     * @param fair
+     *            Whether the buffer should use a fair locking policy
+     * @param pollTimeout
+     *            Poll timeout in milliseconds
+     * @param maxPolls
+     *            Max poll attempts
+     * @param batchSize
+     *            Number of items passed on by one buffer operation
+     */
+    public PipedRDFIterator(int bufferSize, boolean fair, int pollTimeout, int maxPolls, int batchSize) {
+        if (bufferSize <= 0)
+            throw new IllegalArgumentException("Buffer size must be > 0");
         if (pollTimeout <= 0)
             throw new IllegalArgumentException("Poll Timeout must be > 0");
         if (maxPolls <= 0)
             throw new IllegalArgumentException("Max Poll attempts must be > 0");
-        this.queue = new ArrayBlockingQueue<>(bufferSize, fair);
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("Batch size must be > 0");
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, bufferSize / batchSize), fair);
         this.pollTimeout = pollTimeout;
         this.maxPolls = maxPolls;
+        this.batchSize = batchSize;
+        this.batch = new Object[batchSize];
     }
 
     @Override
@@ -238,7 +304,7 @@ public class PipedRDFIterator<T> implements Iterator<T>, Closeable {
         while (true) {
             attempts++;
             try {
-                slot = queue.poll(this.pollTimeout, TimeUnit.MILLISECONDS);
+                slot = take();
             } catch (InterruptedException e) {
                 throw new CancellationException();
             }
@@ -251,6 +317,10 @@ public class PipedRDFIterator<T> implements Iterator<T>, Closeable {
             // Since check is after the break, we will drain as much as possible
             // out of the queue before throwing this exception
             if (threadReused || (producerThread != null && !producerThread.isAlive() && !closedByProducer)) {
+                // Items the producer collected before it died.
+                slot = steal();
+                if (null != slot)
+                    break;
                 closedByConsumer = true;
                 throw new RiotException("Producer dead");
             }
@@ -280,15 +350,62 @@ public class PipedRDFIterator<T> implements Iterator<T>, Closeable {
             slot = null;
             return false;
         }
+        slotIdx = 0;
         return true;
     }
 
+    // Get the next batch, waiting at most the poll timeout.
+    private Object[] take() throws InterruptedException {
+        Object[] b = queue.poll();
+        if (b != null)
+            return b;
+        // While the producer is busy, a full batch may be close.
+        if (batchSize > 1) {
+            b = queue.poll(IDLE_WAIT_MICROS, TimeUnit.MICROSECONDS);
+            if (b != null)
+                return b;
+        }
+        // Idle : take any partial batch and have the producer pass on items
+        // immediately until the consumer has data again. consumerWaiting is
+        // set before looking so that an item added after the look is flushed
+        // by the producer.
+        consumerWaiting = true;
+        try {
+            b = steal();
+            if (b != null)
+                return b;
+            return queue.poll(this.pollTimeout, TimeUnit.MILLISECONDS);
+        } finally {
+            consumerWaiting = false;
+        }
+    }
+
+    // Take the producer's partial batch, if it is the next data in order.
+    // Does not wait for the producer, which may be blocked on a full buffer.
+    private Object[] steal() {
+        if (!batchLock.tryLock())
+            return null;
+        try {
+            if (batchCount == 0 || !queue.isEmpty())
+                return null;
+            Object[] b = Arrays.copyOf(batch, batchCount);
+            Arrays.fill(batch, 0, batchCount, null);
+            batchCount = 0;
+            return b;
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
     @Override
     public T next() {
         if (!hasNext())
             throw new NoSuchElementException();
-        T item = slot;
-        slot = null;
+        @SuppressWarnings("unchecked")
+        T item = (T)slot[slotIdx];
+        slot[slotIdx++] = null;
+        if (slotIdx == slot.length)
+            slot = null;
         return item;
     }
 
@@ -310,11 +427,44 @@ public class PipedRDFIterator<T> implements Iterator<T>, Closeable {
     }
 
     protected void receive(T t) {
+        if (closedByProducer || closedByConsumer)
+            throw new RiotException("Pipe closed");
+        Thread current = Thread.currentThread();
+        if (producerThread != current)
+            producerThread = current;
+
+        batchLock.lock();
+        try {
+            batch[batchCount++] = t;
+            if (batchCount == batchSize || consumerWaiting)
+                flush();
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    // Pass on the current batch. Called with batchLock held so that batches
+    // enter the queue in order with respect to the consumer taking a partial
+    // batch.
+    private void flush() {
+        if (batchCount == 0)
+            return;
         checkStateForReceive();
-        producerThread = Thread.currentThread();
+        Object[] b;
+        if (batchCount == batchSize) {
+            b = batch;
+            batch = new Object[batchSize];
+        } else {
+            b = Arrays.copyOf(batch, batchCount);
+            Arrays.fill(batch, 0, batchCount, null);
+        }
+        batchCount = 0;
+        put(b);
+    }
 
+    private void put(Object[] b) {
         try {
-            queue.put(t);
+            queue.put(b);
         } catch (InterruptedException e) {
             throw new CancellationException();
         }
@@ -376,7 +526,15 @@ public class PipedRDFIterator<T> implements Iterator<T>, Closeable {
     protected void finish() {
         if ( closedByProducer )
             return ;
-        receive(endMarker);
+        checkStateForReceive();
+        producerThread = Thread.currentThread();
+        batchLock.lock();
+        try {
+            flush();
+            put(endMarker);
+        } finally {
+            batchLock.unlock();
+        }
         closedByProducer = true;
     }
 
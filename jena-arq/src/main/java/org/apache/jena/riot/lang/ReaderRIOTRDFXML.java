@@ -23,6 +23,11 @@ import java.io.InputStream ;
 import java.io.Reader ;
 import java.util.Map;
 
+import javax.xml.stream.Location ;
+import javax.xml.stream.XMLInputFactory ;
+import javax.xml.stream.XMLStreamException ;
+import javax.xml.stream.XMLStreamReader ;
+
 import org.apache.jena.JenaRuntime;
 import org.apache.jena.atlas.lib.Pair ;
 import org.apache.jena.atlas.logging.Log;
@@ -116,8 +121,36 @@ public class ReaderRIOTRDFXML implements ReaderRIOT
     // It's a pragmatic compromise.
     private static boolean errorForSpaceInURI = true;
     
+    /**
+     * Reader property (in {@link SysRIOT#sysRdfReaderProperties}) to parse with StAX
+     * ({@link XMLInputFactory}) rather than SAX. The value is a {@code Boolean} or a string.
+     */
+    public static final String propStAX = "stax" ;
+
+    /**
+     * Reader property (in {@link SysRIOT#sysRdfReaderProperties}) for the expected number of rdf:IDs in
+     * a large file, to carry on checking for reuse of rdf:ID with a Bloom filter
+     * (see {@link ARPOptions#setIDBloomFilter}). The value is a {@code Number} or a string.
+     */
+    public static final String propIDBloomFilter = "id-bloom-filter" ;
+
+    private boolean useStAX = false ;
+
     // Extracted from org.apache.jena.rdfxml.xmlinput.JenaReader
     private void oneProperty(ARPOptions options, String pName, Object value) {
+        if ( propStAX.equalsIgnoreCase(pName) ) {
+            useStAX = ( value instanceof Boolean ) ? (Boolean)value : Boolean.parseBoolean(value.toString()) ;
+            return ;
+        }
+        if ( propIDBloomFilter.equalsIgnoreCase(pName) ) {
+            try {
+                long n = ( value instanceof Number ) ? ((Number)value).longValue() : Long.parseLong(value.toString()) ;
+                options.setIDBloomFilter(n) ;
+            } catch (NumberFormatException ex) {
+                throw new RiotException("Illegal value for RDF/XML reader property: '"+pName+"' = '"+value+"'" ) ;
+            }
+            return ;
+        }
         if (! pName.startsWith("ERR_") && ! pName.startsWith("IGN_") && ! pName.startsWith("WARN_"))
             return ;
         int cond = ParseException.errorCode(pName);
@@ -182,11 +215,20 @@ public class ReaderRIOTRDFXML implements ReaderRIOT
         arp.setOptionsWith(arpOptions) ;
         
         try {
-            if ( reader != null )
+            if ( useStAX )
+                parseStAX(rslt, arpOptions) ;
+            else if ( reader != null )
                 arp.load(reader, xmlBase) ;
             else
                 arp.load(input, xmlBase) ;
         }
+        catch (XMLStreamException e) {
+            Location loc = e.getLocation() ;
+            if ( loc != null )
+                errorHandler.fatal(filename + ": " + e.getMessage(), loc.getLineNumber(), loc.getColumnNumber()) ;
+            else
+                errorHandler.fatal(filename + ": " + e.getMessage(), -1, -1) ;
+        }
         catch (IOException e) {
             errorHandler.error(filename + ": " + ParseException.formatMessage(e), -1, -1) ;
         }
@@ -199,6 +241,22 @@ public class ReaderRIOTRDFXML implements ReaderRIOT
         sink.finish() ;
     }
     
+    /** Parse with StAX, passing the events to ARP. */
+    private void parseStAX(HandlerSink handler, ARPOptions arpOptions) throws SAXException, XMLStreamException {
+        XMLInputFactory xf = XMLInputFactory.newInstance() ;
+        XMLStreamReader xReader = ( reader != null ) ? xf.createXMLStreamReader(reader) : xf.createXMLStreamReader(input) ;
+        SAX2RDF sax2rdf = SAX2RDF.create(xmlBase) ;
+        sax2rdf.getHandlers().setStatementHandler(handler) ;
+        sax2rdf.getHandlers().setErrorHandler(handler) ;
+        sax2rdf.getHandlers().setNamespaceHandler(handler) ;
+        sax2rdf.setOptionsWith(arpOptions) ;
+        try {
+            new StAX2SAX(sax2rdf).parse(xReader) ;
+        } finally {
+            xReader.close() ;
+        }
+    }
+
     /** Sort out the base URI for RDF/XML parsing. */
     private static String baseURI_RDFXML(String baseIRI) {
         if ( baseIRI == null )
@@ -18,6 +18,8 @@
 
 package org.apache.jena.riot.resultset.rw;
 
+import static org.apache.jena.riot.resultset.rw.JSONResultsKW.*;
+
 import java.io.InputStream;
 import java.util.*;
 
@@ -26,43 +28,48 @@ import org.apache.jena.atlas.io.IO;
 import org.apache.jena.atlas.io.IndentedWriter;
 import org.apache.jena.atlas.io.PeekReader;
 import org.apache.jena.atlas.iterator.PeekIterator;
+import org.apache.jena.atlas.json.*;
 import org.apache.jena.atlas.json.io.parser.TokenizerJSON;
-import org.apache.jena.datatypes.TypeMapper;
-import org.apache.jena.graph.Node;
-import org.apache.jena.graph.NodeFactory;
 import org.apache.jena.query.QueryException;
 import org.apache.jena.riot.RiotParseException;
+import org.apache.jena.riot.lang.LabelToNode;
+import org.apache.jena.riot.system.SyntaxLabels;
 import org.apache.jena.riot.tokens.Token;
 import org.apache.jena.riot.tokens.TokenType;
 import org.apache.jena.sparql.core.Var;
 import org.apache.jena.sparql.engine.binding.Binding;
-import org.apache.jena.sparql.engine.binding.BindingFactory;
-import org.apache.jena.sparql.engine.binding.BindingMap;
 import org.apache.jena.sparql.engine.iterator.QueryIteratorBase;
+import org.apache.jena.sparql.resultset.ResultSetException;
 import org.apache.jena.sparql.serializer.SerializationContext;
 
 /**
- * Streaming Iterator over SPARQL JSON results, not yet fully implemented (see
- * JENA-267)
+ * Streaming iterator over SPARQL JSON results.
+ * <p>
+ * Creating the iterator reads the start of the document, up to the start of
+ * the "bindings" array, to find the variables and whether this is a boolean
+ * result. Rows are then read from the input as they are asked for so only the
+ * row being processed is held in memory. Any content after the rows is read
+ * when the last row has been returned.
  * <p>
- * Creating the Iterator automatically causes it to parse a small chunk of the
- * stream to determine the variables in the result set either by reading the
- * header or reading some portion of the results if the results appear before
- * the header since JSON does not guarantee the order of keys within an object
- * </p>
+ * JSON does not guarantee the order of keys within an object. If the results
+ * appear before the head, the rows are read and kept until the head is found.
  */
 public class JSONInputIterator extends QueryIteratorBase {
 
     private InputStream         input;
-
-    private boolean             isBooleanResults = false,
-                                    boolResult = false, headerSeen = false;
-    private Binding             binding          = null;
+    private final LabelToNode   labelMap;
     private TokenizerJSON       tokens;
     private PeekIterator<Token> peekIter;
 
-    private Queue<Binding>      cache            = new LinkedList<>();
-    private Set<String>         vars             = new HashSet<>();
+    private boolean             isBooleanResults = false,
+                                    boolResult = false, headerSeen = false, resultsSeen = false;
+    private List<Var>           vars             = new ArrayList<>();
+
+    // Rows read before the head was seen.
+    private Queue<Binding>      cache            = new ArrayDeque<>();
+    // Reading the bindings array.
+    private boolean             streaming        = false;
+    private Binding             binding          = null;
 
     /**
      * Creates a SPARQL JSON Iterator
@@ -72,21 +79,32 @@ public class JSONInputIterator extends QueryIteratorBase {
      * </p>
      */
     public JSONInputIterator(InputStream input) {
+        this(input, SyntaxLabels.createLabelToNode());
+    }
+
+    /**
+     * Creates a SPARQL JSON Iterator, using {@code labelMap} to create blank
+     * nodes from their labels.
+     */
+    public JSONInputIterator(InputStream input, LabelToNode labelMap) {
         this.input = input;
+        this.labelMap = labelMap;
         this.tokens = new TokenizerJSON(PeekReader.makeUTF8(input));
         this.peekIter = new PeekIterator<>(this.tokens);
-
-        // We should always parse the first little bit to see the head stuff or
-        // to cache a chunk of results and infer the headers
-        // Primarily we are trying to find out what the variables are
-        preParse();
+        expect("Expected the start of the JSON Results Object", TokenType.LBRACE);
+        parseResultsObject();
     }
 
     /**
      * Returns the variables present in the result sets
      */
     public Iterator<String> getVars() {
-        return vars.iterator();
+        return getResultVars().iterator();
+    }
+
+    /** The variables in the result set, in the order given in the head. */
+    public List<String> getResultVars() {
+        return Var.varNames(vars);
     }
 
     /**
@@ -96,263 +114,87 @@ public class JSONInputIterator extends QueryIteratorBase {
         return isBooleanResults;
     }
 
-    /**
-     * Does the pre-parsing which attempts to read the header of the results
-     * file and determine variables present
-     * <p>
-     * If the header is encountered first then we read this, if the results are
-     * encountered first we parse the first 100 results and determine the
-     * variables present from those instead
-     * </p>
-     */
-    private void preParse() {
-        // First off the { to start the object
-        expect("Expected the start of the JSON Results Object", TokenType.LBRACE);
-
-        // Then expect to see a Property Name
-        // Loop here because we might see some things we can discard first
-        do {
-            if ( !isPropertyName() ) {
-                Token t = nextToken();
-                String name = t.getImage();
-                checkColon();
-
-                if ( name.equals("head") ) {
-                    if ( headerSeen )
-                        exception(t, "Invalid duplicate header property");
-                    parseHeader();
-                    // Continue afterwards because we want to be in place to
-                    // start streaming results
-                } else if ( name.equals("boolean") ) {
-                    parseBoolean();
-                    // Afterwards we continue because we want to see an empty
-                    // head
-                } else if ( name.equals("results") ) {
-                    if ( isBooleanResults )
-                        exception(t, "Encountered results property when boolean property has already been countered");
-
-                    // Scroll to first result
-                    parseToFirstResult();
-
-                    // If we already saw the header then exit at this point
-                    if ( headerSeen )
-                        return;
-
-                    // If not we're going to pre-cache some chunk of results so
-                    // we can infer the variable names
-                    boolean complete = cacheResults(100);
-
-                    // If this exhausted the result set then we can continue
-                    // looking for the header
-                    // Otherwise we should exit as we may eventually see the
-                    // header later...
-                    if ( !complete ) {
-                        // TODO Now determine variables present from this
-                        return;
-                    }
-                } else {
-                    ignoreValue();
-                }
-                checkComma(TokenType.RBRACE);
-            } else if ( lookingAt(TokenType.RBRACE) ) {
-                // We hit the end of the result object already
-                if ( !headerSeen )
-                    exception(peekToken(), "End of JSON Results Object encountered before a valid header was seen");
-                nextToken();
-
-                // Shouldn't be any further content
-                if ( !lookingAt(TokenType.EOF) )
-                    exception(peekToken(), "Unexpected content after end of JSON Results Object");
-
-                // Can stop our initial buffering at this stage
-                return;
-            } else {
-                exception(peekToken(), "Expected a JSON property name but got %s", peekToken());
-            }
-        } while (true);
+    /** The result of a boolean result set. */
+    public boolean getBooleanResult() {
+        return boolResult;
     }
 
-    private void parseHeader() {
-        do {
-            if ( isPropertyName() ) {
-                Token t = nextToken();
-                String name = t.getImage();
-                checkColon();
-
-                if ( name.equals("vars") ) {
-                    parseVars();
-                } else if ( name.equals("link") ) {
-                    // Throw away the links
-                    skipLinks();
-                } else {
-                    exception(t, "Unexpected property %s encountered in head object", name);
+    /**
+     * Parse the members of the outer object until either the start of the
+     * bindings array, if the head has been seen, or the end of the document.
+     */
+    private void parseResultsObject() {
+        while ( !lookingAt(TokenType.RBRACE) ) {
+            Token t = nextKey();
+            String name = t.getImage();
+            if ( name.equals(kHead) ) {
+                if ( headerSeen )
+                    exception(t, "Invalid duplicate header property");
+                headerSeen = true;
+                JsonValue head = parseValue();
+                if ( !head.isObject() )
+                    throw new ResultSetException("Key 'head' must have a JSON object as value: found: " + head);
+                vars = ResultSetReaderJSON.parseHead(head.getAsObject());
+            } else if ( name.equals(kBoolean) ) {
+                JsonValue v = parseValue();
+                if ( !v.isBoolean() )
+                    exception(t, "Expected true or false for the value of the boolean property");
+                isBooleanResults = true;
+                boolResult = v.getAsBoolean().value();
+            } else if ( name.equals(kResults) ) {
+                if ( resultsSeen )
+                    exception(t, "Invalid duplicate results property");
+                resultsSeen = true;
+                parseToFirstResult();
+                if ( headerSeen && !isBooleanResults ) {
+                    // Read the rows on demand.
+                    streaming = true;
+                    return;
                 }
-                checkComma(TokenType.RBRACE);
-            } else if ( lookingAt(TokenType.RBRACE) ) {
-                nextToken();
-                return;
+                // Keep the rows until the head is found.
+                for ( Binding b = parseNextBinding() ; b != null ; b = parseNextBinding() )
+                    cache.add(b);
             } else {
-                exception(peekToken(), "Unexpected Token encountered while parsing head object");
+                parseValue();
             }
-        } while (true);
-    }
-
-    private void parseVars() {
-        if ( lookingAt(TokenType.LBRACKET) ) {
-            nextToken();
-            vars.clear();
-            do {
-                if ( lookingAt(TokenType.STRING) ) {
-                    Token t = nextToken();
-                    String var = t.getImage();
-                    vars.add(var);
-                    checkComma(TokenType.RBRACKET);
-                } else if ( lookingAt(TokenType.RBRACKET) ) {
-                    nextToken();
-                    return;
-                } else {
-                    exception(peekToken(), "Unexpected Token encountered while parsing the variables list in the head object");
-                }
-            } while (true);
-        } else {
-            exception(peekToken(), "Unexpected Token ecountered, expected a [ to start the array of variables in the head object");
-        }
-    }
-
-    private void skipLinks() {
-        if ( lookingAt(TokenType.LBRACKET) ) {
-            nextToken();
-            do {
-                if ( lookingAt(TokenType.RBRACKET) ) {
-                    // End of links
-                    nextToken();
-                    return;
-                } else if ( lookingAt(TokenType.STRING) ) {
-                    // Ignore link and continue
-                    nextToken();
-                } else {
-                    exception(peekToken(), "Unexpected Token when a Link URI was expected");
-                }
-                checkComma(TokenType.RBRACKET);
-            } while (true);
-        } else {
-            exception(peekToken(), "Unexpected token when a [ was expected to start the list of URIs for a link property");
+            checkComma(TokenType.RBRACE);
         }
+        nextToken();
+        // Any content after the end of the object is ignored.
+        if ( !headerSeen )
+            throw new ResultSetException("No 'head' in JSON results");
+        if ( !resultsSeen && !isBooleanResults )
+            throw new ResultSetException("No 'results' or 'boolean' in JSON results");
     }
 
+    // Move to the first entry of the bindings array.
     private void parseToFirstResult() {
-        if ( lookingAt(TokenType.LBRACE) ) {
-            nextToken();
-            if ( isPropertyName() ) {
-                Token t = nextToken();
-                String name = t.getImage();
-                if ( name.equals("bindings") ) {
-                    checkColon();
-                    if ( lookingAt(TokenType.LBRACKET) ) {
-                        nextToken();
-                    } else {
-                        exception(peekToken(), "Unexpected Token encountered, expected a [ for the start of the bindings array");
-                    }
-                } else {
-                    exception(t, "Unexpected Token encountered, expected the bindings property");
-                }
-            } else {
-                exception(peekToken(), "Unexpected Token ecnountered, expected the bindings property");
+        expect("Unexpected Token encountered, expected a { to start the results list object", TokenType.LBRACE);
+        while ( !lookingAt(TokenType.RBRACE) ) {
+            Token t = nextKey();
+            if ( t.getImage().equals(kBindings) ) {
+                if ( !lookingAt(TokenType.LBRACKET) )
+                    throw new ResultSetException("'bindings' must be an array");
+                nextToken();
+                return;
             }
-        } else {
-            exception(peekToken(), "Unexpected Token encountered, expected a { to start the results list object");
+            parseValue();
+            checkComma(TokenType.RBRACE);
         }
+        throw new ResultSetException("No 'bindings' in the results object");
     }
 
-    private void parseToEnd() {
-        // TODO Parse through to end of the JSON document consuming the header
-        // if we haven't seen it already
+    // After the bindings array, read to the end of the results object.
+    private void parseToEndResults() {
         checkComma(TokenType.RBRACE);
-    }
-
-    private void ignoreValue() {
-        if ( isPropertyName() ) {
-            // Just a string value so can discard and then check for the
-            // subsequent comma
-            nextToken();
-            checkComma(TokenType.RBRACE);
-        } else if ( lookingAt(TokenType.DECIMAL) || lookingAt(TokenType.INTEGER) || lookingAt(TokenType.DOUBLE)
-                    || lookingAt(TokenType.KEYWORD) ) {
-            // Just a numeric/keyword (boolean) value do discard and check for
-            // subsequent comma
-            nextToken();
+        while ( !lookingAt(TokenType.RBRACE) ) {
+            Token t = nextKey();
+            if ( t.getImage().equals(kBindings) )
+                exception(t, "Invalid duplicate bindings property");
+            parseValue();
             checkComma(TokenType.RBRACE);
-        } else if ( lookingAt(TokenType.LBRACE) ) {
-            // Start of an Object
-            nextToken();
-
-            // TODO We should really care about the syntactic validity of
-            // objects we are ignoring but that seems like a bit too much effort
-            int openBraces = 1;
-            while (openBraces >= 1) {
-                Token next = nextToken();
-                if ( next.getType().equals(TokenType.LBRACE) ) {
-                    openBraces++;
-                } else if ( next.getType().equals(TokenType.RBRACE) ) {
-                    openBraces--;
-                }
-            }
-            checkComma(TokenType.RBRACE);
-        } else if ( lookingAt(TokenType.LBRACKET) ) {
-            // Start of an Array
-            nextToken();
-
-            // TODO We should really care about the syntactic validity of
-            // objects we are ignoring but that seems like a bit too much effort
-            int openBraces = 1;
-            while (openBraces >= 1) {
-                Token next = nextToken();
-                if ( next.getType().equals(TokenType.LBRACKET) ) {
-                    openBraces++;
-                } else if ( next.getType().equals(TokenType.RBRACKET) ) {
-                    openBraces--;
-                }
-            }
-            checkComma(TokenType.RBRACE);
-        } else {
-            exception(peekToken(), "Unexpected Token");
-        }
-    }
-
-    /**
-     * Caches the first N results so we can infer variables, indicates whether
-     * the caching exhausted the result set
-     * 
-     * @param n
-     *            Number of results to cache
-     */
-    private boolean cacheResults(int n) {
-        for ( int i = 0 ; i < n ; i++ ) {
-            if ( parseNextBinding() ) {
-                this.cache.add(this.binding);
-                this.binding = null;
-            } else {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private void parseBoolean() {
-        isBooleanResults = true;
-        if ( lookingAt(TokenType.KEYWORD) ) {
-            Token t = nextToken();
-            String keyword = t.getImage();
-            if ( keyword.equals("true") ) {
-                boolResult = true;
-            } else if ( keyword.equals("false") ) {
-                boolResult = false;
-            } else {
-                exception(t, "Unexpected keyword %s encountered, expected true or false", keyword);
-            }
-        } else {
-            exception(peekToken(), "Unexpected token when a true/false keyword was expected for the value of the boolean property");
         }
+        nextToken();
     }
 
     @Override
@@ -365,140 +207,93 @@ public class JSONInputIterator extends QueryIteratorBase {
     protected boolean hasNextBinding() {
         if ( isBooleanResults )
             return false;
-
-        if ( this.input != null ) {
-            if ( this.cache.size() > 0 ) {
-                this.binding = this.cache.remove();
-                return true;
-            } else if ( this.binding == null ) {
-                return this.parseNextBinding();
-            } else {
-                return true;
-            }
-        } else {
-            return false;
+        if ( this.binding != null )
+            return true;
+        if ( !this.cache.isEmpty() ) {
+            this.binding = this.cache.remove();
+            return true;
         }
+        if ( !streaming || this.input == null )
+            return false;
+        this.binding = parseNextBinding();
+        if ( this.binding != null )
+            return true;
+        // End of the rows - read the rest of the document.
+        streaming = false;
+        checkComma(TokenType.RBRACE);
+        parseResultsObject();
+        return false;
     }
 
-    private boolean parseNextBinding() {
-        if ( lookingAt(TokenType.LBRACE) ) {
-            nextToken();
-            BindingMap b = BindingFactory.create();
-            do {
-                if ( isPropertyName() ) {
-                    Token t = nextToken();
-                    String var = t.getImage();
-                    checkColon();
-
-                    Node n = parseNode();
-                    b.add(Var.alloc(var), n);
-
-                    checkComma(TokenType.RBRACE);
-                } else if ( lookingAt(TokenType.RBRACE) ) {
-                    nextToken();
-                    checkComma(TokenType.RBRACKET);
-                    break;
-                } else {
-                    exception(peekToken(), "Unexpected Token encountered, expected a property name to indicate the value for a variable");
-                }
-            } while (true);
-
-            this.binding = b;
-            return true;
-        } else if ( lookingAt(TokenType.RBRACKET) ) {
+    /** Read the next row, or the end of the bindings array and results object and return null. */
+    private Binding parseNextBinding() {
+        if ( lookingAt(TokenType.RBRACKET) ) {
             // End of Bindings Array
             nextToken();
-            if ( lookingAt(TokenType.RBRACE) ) {
-                nextToken();
-                parseToEnd();
-            } else {
-                exception(peekToken(), "Unexpected Token encountered, expected a } to end the results object");
-            }
-        } else {
+            parseToEndResults();
+            return null;
+        }
+        if ( !lookingAt(TokenType.LBRACE) )
             exception(peekToken(),
                       "Unexpected Token encountered, expected a { for the start of a binding of ] to end the array of bindings");
-        }
-        return false;
+        JsonObject row = parseValue().getAsObject();
+        Binding b = ResultSetReaderJSON.parseBinding(row, labelMap);
+        checkComma(TokenType.RBRACKET);
+        return b;
     }
 
-    private Node parseNode() {
-        String type, value, lang, datatype;
-        type = value = lang = datatype = null;
-
-        if ( lookingAt(TokenType.LBRACE) ) {
-            Token pos = nextToken();
-
-            // Collect the Properties
-            do {
-                if ( isPropertyName() ) {
-                    Token t = nextToken();
-                    String name = t.getImage();
-                    checkColon();
-
-                    if ( name.equals("type") ) {
-                        if ( type != null )
-                            exception(t, "Illegal duplicate type property");
-                        type = parseNodeInfo("type");
-                    } else if ( name.equals("value") ) {
-                        if ( value != null )
-                            exception(t, "Illegal duplicate value property");
-                        value = parseNodeInfo("value");
-                    } else if ( name.equals("datatype") ) {
-                        if ( datatype != null )
-                            exception(t, "Illegal duplicate datatype property");
-                        datatype = parseNodeInfo("datatype");
-                    } else if ( name.equals("xml:lang") ) {
-                        if ( lang != null )
-                            exception(t, "Illegal duplicate xml:lang property");
-                        lang = parseNodeInfo("xml:lang");
-                    } else {
-                        exception(t, "Unexpected Property Name '%s', expected one of type, value, datatype or xml:lang", name);
-                    }
-                } else if ( lookingAt(TokenType.RBRACE) ) {
-                    nextToken();
-                    break;
-                } else {
-                    exception(peekToken(), "Unexpected Token, expected a property name as part of a Node object");
+    /** Parse one JSON value. */
+    private JsonValue parseValue() {
+        Token t = peekToken();
+        switch (t.getType()) {
+            case LBRACE : {
+                nextToken();
+                JsonObject obj = new JsonObject();
+                while ( !lookingAt(TokenType.RBRACE) ) {
+                    String key = nextKey().getImage();
+                    obj.put(key, parseValue());
+                    checkComma(TokenType.RBRACE);
                 }
-            } while (true);
-
-            // Error if missing type or value
-            if ( type == null )
-                exception(pos, "Encountered a Node object with no type property");
-            if ( value == null )
-                exception(pos, "Encountered a Node object with no value property");
-
-            // Generate a Node based on the properties we saw
-            if ( type.equals("uri") ) {
-                return NodeFactory.createURI(value);
-            } else if ( type.equals("literal") ) {
-                if ( datatype != null ) {
-                    return NodeFactory.createLiteral(value, TypeMapper.getInstance().getSafeTypeByName(datatype));
-                } else if ( lang != null ) {
-                    return NodeFactory.createLiteral(value, lang);
-                } else {
-                    return NodeFactory.createLiteral(value);
+                nextToken();
+                return obj;
+            }
+            case LBRACKET : {
+                nextToken();
+                JsonArray array = new JsonArray();
+                while ( !lookingAt(TokenType.RBRACKET) ) {
+                    array.add(parseValue());
+                    checkComma(TokenType.RBRACKET);
                 }
-            } else if ( type.equals("bnode") ) {
-                return NodeFactory.createBlankNode(value);
-            } else {
-                exception(pos, "Encountered a Node object with an invalid type value '%s', expected one of uri, literal or bnode", type);
+                nextToken();
+                return array;
             }
-        } else {
-            exception(peekToken(), "Unexpected Token, expected a { for the start of a Node object");
-        }
-        return null;
-    }
-
-    private String parseNodeInfo(String name) {
-        if ( lookingAt(TokenType.STRING) ) {
-            Token t = nextToken();
-            String value = t.getImage();
-            checkComma(TokenType.RBRACE);
-            return value;
-        } else {
-            exception(peekToken(), "Unexpected Token, expected a string as the value for the %s property", name);
-            return null;
+            case STRING :
+                nextToken();
+                return new JsonString(t.getImage());
+            case INTEGER :
+                nextToken();
+                return JsonNumber.valueInteger(t.getImage());
+            case DECIMAL :
+                nextToken();
+                return JsonNumber.valueDecimal(t.getImage());
+            case DOUBLE :
+                nextToken();
+                return JsonNumber.valueDouble(t.getImage());
+            case KEYWORD : {
+                nextToken();
+                String image = t.getImage();
+                if ( image.equals("true") )
+                    return new JsonBoolean(true);
+                if ( image.equals("false") )
+                    return new JsonBoolean(false);
+                if ( image.equals("null") )
+                    return JsonNull.instance;
+                exception(t, "Unexpected keyword %s", image);
+                return null;
+            }
+            default :
+                exception(t, "Unexpected Token %s, expected a JSON value", t);
+                return null;
         }
     }
 
@@ -530,13 +325,11 @@ public class JSONInputIterator extends QueryIteratorBase {
         return lookingAt(TokenType.STRING);
     }
 
-    private Token checkValidForStringProperty(String property) {
-        Token t = null;
-        if ( lookingAt(TokenType.STRING) ) {
-            t = nextToken();
-        } else {
-            exception(peekToken(), "JSON Values given for property " + property + " must be Strings");
-        }
+    private Token nextKey() {
+        if ( !isPropertyName() )
+            exception(peekToken(), "Expected a JSON property name but got %s", peekToken());
+        Token t = nextToken();
+        checkColon();
         return t;
     }
 
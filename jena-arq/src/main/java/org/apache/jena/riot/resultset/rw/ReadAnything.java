@@ -20,6 +20,7 @@ package org.apache.jena.riot.resultset.rw;
 
 import java.util.function.Supplier;
 
+import org.apache.jena.atlas.io.IO;
 import org.apache.jena.atlas.web.ContentType;
 import org.apache.jena.atlas.web.TypedInputStream;
 import org.apache.jena.query.ARQ;
@@ -60,10 +61,12 @@ public class ReadAnything {
                 RDFParser.source(in).lang(lang).parse(sink);
                 return new SPARQLResult(model);
             };
-            if ( model.supportsTransactions() )
-                return model.calculateInTxn(r);
-            else
-                return r.get();
+            try {
+                if ( model.supportsTransactions() )
+                    return model.calculateInTxn(r);
+                else
+                    return r.get();
+            } finally { IO.close(in); }
         }
 
         if ( RDFLanguages.isQuads(lang) ) {
@@ -74,10 +77,12 @@ public class ReadAnything {
                 return new SPARQLResult(ds);
             };
             
-            if ( ds.supportsTransactions() ) 
-                return Txn.calculateWrite(ds, r);
-            else
-                return r.get();
+            try {
+                if ( ds.supportsTransactions() ) 
+                    return Txn.calculateWrite(ds, r);
+                else
+                    return r.get();
+            } finally { IO.close(in); }
         }
         
         if ( ResultSetReaderRegistry.isRegistered(lang) ) {
@@ -20,30 +20,32 @@ package org.apache.jena.riot.resultset.rw;
 
 import static org.apache.jena.riot.resultset.rw.JSONResultsKW.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.OutputStream;
 import java.io.Writer;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
+import org.apache.jena.atlas.io.AWriterUTF8;
 import org.apache.jena.atlas.io.IO;
-import org.apache.jena.atlas.io.IndentedWriter;
 import org.apache.jena.atlas.json.io.JSWriter;
+import org.apache.jena.atlas.lib.StrUtils;
 import org.apache.jena.atlas.logging.Log;
+import org.apache.jena.graph.Node;
 import org.apache.jena.query.ARQ;
-import org.apache.jena.query.QuerySolution;
 import org.apache.jena.query.ResultSet;
-import org.apache.jena.rdf.model.Literal;
-import org.apache.jena.rdf.model.RDFNode;
-import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.rdf.model.impl.Util;
 import org.apache.jena.riot.out.NodeToLabel;
 import org.apache.jena.riot.resultset.ResultSetLang;
 import org.apache.jena.riot.resultset.ResultSetWriter;
 import org.apache.jena.riot.resultset.ResultSetWriterFactory;
 import org.apache.jena.riot.system.SyntaxLabels;
-import org.apache.jena.sparql.resultset.ResultSetApply;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.Binding;
 import org.apache.jena.sparql.resultset.ResultSetException;
-import org.apache.jena.sparql.resultset.ResultSetProcessor;
 import org.apache.jena.sparql.util.Context;
 
 public class ResultSetWriterJSON implements ResultSetWriter {
@@ -78,228 +80,206 @@ public class ResultSetWriterJSON implements ResultSetWriter {
     @Override
     public void write(OutputStream out, ResultSet resultSet, Context context) {
         JSONOutputResultSet jsonOut = new JSONOutputResultSet(out, context);
-        ResultSetApply a = new ResultSetApply(resultSet, jsonOut);
-        a.apply();
+        jsonOut.write(resultSet);
     }
 
-    private static class JSONOutputResultSet implements ResultSetProcessor {
-        private static final boolean multiLineValues   = false;
-        private static final boolean multiLineVarNames = false;
-
-        private final IndentedWriter out;
-        private final NodeToLabel    labels;
+    /**
+     * Write the results as UTF-8 bytes directly into a buffer. The layout is
+     * fixed so the fixed parts are encoded once. The encoded, quoted form of
+     * URIs (values and datatypes) is cached for the response because the same
+     * URIs often appear in many rows.
+     */
+    private static class JSONOutputResultSet {
+        // Limit on the number of cached encodings.
+        private static final int CacheSize = 1000;
+
+        private static final byte[] headStart   = bytes("{\n  "+quote(kHead)+": {\n    "+quote(kVars)+": [ ");
+        private static final byte[] varSep      = bytes(" , ");
+        private static final byte[] headFinish  = bytes(" ]\n  } ,\n  "+quote(kResults)+": {\n    "+quote(kBindings)+": [\n");
+        private static final byte[] rowSep      = bytes(" ,\n");
+        private static final byte[] rowStart    = bytes("      {\n");
+        private static final byte[] rowFinish   = bytes("\n      }");
+        private static final byte[] emptyRow    = bytes("        \n      }");
+        private static final byte[] bindingSep  = bytes(" ,\n");
+        private static final byte[] indentBinding = bytes("        ");
+        private static final byte[] keyFinish   = bytes(": { ");
+        private static final byte[] uriStart    = bytes(quote(kType)+": "+quote(kUri)+" , "+quote(kValue)+": ");
+        private static final byte[] bnodeStart  = bytes(quote(kType)+": "+quote(kBnode)+" , "+quote(kValue)+": ");
+        private static final byte[] literalStart = bytes(quote(kType)+": "+quote(kLiteral)+" , ");
+        private static final byte[] langStart   = bytes(quote(kXmlLang)+": ");
+        private static final byte[] datatypeStart = bytes(quote(kDatatype)+": ");
+        private static final byte[] valueStart  = bytes(quote(kValue)+": ");
+        private static final byte[] termSep     = bytes(" , ");
+        private static final byte[] termFinish  = bytes(" }");
+        private static final byte[] finishRows  = bytes("\n");
+        private static final byte[] finishNoRows = bytes("      \n");
+        private static final byte[] finish      = bytes("    ]\n  }\n}\n");
+
+        private final AWriterUTF8 out;
+        private final NodeToLabel labels;
+        // Encoded, quoted strings.
+        private final Map<String, byte[]> cache = new HashMap<>();
+        private final ByteArrayOutputStream scratchBytes = new ByteArrayOutputStream();
+        private final AWriterUTF8 scratch = new AWriterUTF8(scratchBytes, 1024);
 
         private JSONOutputResultSet(OutputStream outStream, Context context) {
-            this(new IndentedWriter(outStream), context);
-        }
-
-        private JSONOutputResultSet(IndentedWriter indentedOut, Context context) {
-            out = indentedOut;
+            out = new AWriterUTF8(outStream);
             boolean outputGraphBNodeLabels = (context != null) && context.isTrue(ARQ.outputGraphBNodeLabels);
             labels = outputGraphBNodeLabels
                 ? SyntaxLabels.createNodeToLabelAsGiven()
                 : SyntaxLabels.createNodeToLabel();
         }
 
-        @Override
-        public void start(ResultSet rs) {
-            println("{");
-            out.incIndent();
-            doHead(rs);
-            println(quoteName(kResults), ": {");
-            out.incIndent();
-            println(quoteName(kBindings), ": [");
-            out.incIndent();
-            firstSolution = true;
-        }
-
-        @Override
-        public void finish(ResultSet rs) {
-            // Close last binding.
-            out.println();
-
-            out.decIndent();    // bindings
-            println("]");
-            out.decIndent();
-            println("}");       // results
-            out.decIndent();
-            println("}");       // top level {}
+        private void write(ResultSet rs) {
+            List<String> varNames = rs.getResultVars();
+            List<Var> vars = new ArrayList<>(varNames.size());
+            List<byte[]> keys = new ArrayList<>(varNames.size());
+
+            out.write(headStart);
+            boolean first = true;
+            for ( String varName : varNames ) {
+                if ( !first )
+                    out.write(varSep);
+                first = false;
+                // Do not assume varName is JSON-safe as a bare name.
+                byte[] key = encode(varName);
+                out.write(key);
+                vars.add(Var.alloc(varName));
+                keys.add(key);
+            }
+            out.write(headFinish);
+
+            boolean firstSolution = true;
+            while ( rs.hasNext() ) {
+                Binding binding = rs.nextBinding();
+                if ( !firstSolution )
+                    out.write(rowSep);
+                firstSolution = false;
+                out.write(rowStart);
+                boolean firstBinding = true;
+                for ( int i = 0 ; i < vars.size() ; i++ ) {
+                    Node value = binding.get(vars.get(i));
+                    if ( value == null )
+                        continue;
+                    if ( !firstBinding )
+                        out.write(bindingSep);
+                    firstBinding = false;
+                    out.write(indentBinding);
+                    out.write(keys.get(i));
+                    out.write(keyFinish);
+                    writeTerm(value);
+                    out.write(termFinish);
+                }
+                out.write(firstBinding ? emptyRow : rowFinish);
+            }
+            out.write(firstSolution ? finishNoRows : finishRows);
+            out.write(finish);
             out.flush();
         }
 
-        private void doHead(ResultSet rs) {
-            println(quoteName(kHead),": {");
-            out.incIndent();
-            doLink(rs);
-            doVars(rs);
-            out.decIndent();
-            println("} ,");
-        }
-
-        private void doLink(ResultSet rs) {
-            // ---- link
-            // out.println("\"link\": []") ;
+        private void writeTerm(Node node) {
+            if ( node.isURI() ) {
+                out.write(uriStart);
+                out.write(cached(node.getURI()));
+            } else if ( node.isBlank() ) {
+                // Comes with leading "_:"
+                String label = labels.get(null, node).substring(2);
+                out.write(bnodeStart);
+                writeQuoted(out, label);
+            } else if ( node.isLiteral() ) {
+                out.write(literalStart);
+                if ( Util.isSimpleString(node) || Util.isLangString(node) ) {
+                    String lang = node.getLiteralLanguage();
+                    if ( lang != null && !lang.isEmpty() ) {
+                        out.write(langStart);
+                        writeQuoted(out, lang);
+                        out.write(termSep);
+                    }
+                } else {
+                    out.write(datatypeStart);
+                    out.write(cached(node.getLiteralDatatypeURI()));
+                    out.write(termSep);
+                }
+                out.write(valueStart);
+                writeQuoted(out, node.getLiteralLexicalForm());
+            } else
+                Log.warn(this, "Unknown node type in result set: " + node);
         }
 
-        private void doVars(ResultSet rs) {
-            // On one line.
-            print(quoteName(kVars), ": [ ");
-            if ( multiLineVarNames )
-                out.println();
-            out.incIndent();
-            for ( Iterator<String> iter = rs.getResultVars().iterator() ; iter.hasNext() ; ) {
-                String varname = iter.next();
-                print("\"", varname, "\"");
-                if ( multiLineVarNames )
-                    println();
-                if ( iter.hasNext() )
-                    print(" , ");
+        private byte[] cached(String string) {
+            byte[] bytes = cache.get(string);
+            if ( bytes == null ) {
+                bytes = encode(string);
+                if ( cache.size() >= CacheSize )
+                    cache.clear();
+                cache.put(string, bytes);
             }
-            println(" ]");
-            out.decIndent();
+            return bytes;
         }
 
-        boolean firstSolution          = true;
-        boolean firstBindingInSolution = true;
-
-        // NB assumes are on end of previous line.
-        @Override
-        public void start(QuerySolution qs) {
-            if ( !firstSolution )
-                println(" ,");
-            firstSolution = false;
-            println("{");
-            out.incIndent();
-            firstBindingInSolution = true;
+        // The quoted string as UTF-8.
+        private byte[] encode(String string) {
+            scratchBytes.reset();
+            writeQuoted(scratch, string);
+            scratch.flush();
+            return scratchBytes.toByteArray();
         }
 
-        @Override
-        public void finish(QuerySolution qs) {
-            println(); // Finish last binding
-            out.decIndent();
-            print("}"); // NB No newline
+        private static byte[] bytes(String string) {
+            return StrUtils.asUTF8bytes(string);
         }
 
-        @Override
-        public void binding(String varName, RDFNode value) {
-            if ( value == null )
-                return;
-
-            if ( !firstBindingInSolution )
-                println(" ,");
-            firstBindingInSolution = false;
-
-            // Do not use quoteName - varName may not be JSON-safe as a bare name.
-            print(quote(varName), ": { ");
-            if ( multiLineValues )
-                out.println();
-
-            out.incIndent();
-            // Old, explicit unbound
-            // if ( value == null )
-            //     printUnbound() ;
-            // else
-            if ( value.isLiteral() )
-                printLiteral((Literal)value);
-            else if ( value.isResource() )
-                printResource((Resource)value);
-            else
-                Log.warn(this, "Unknown RDFNode type in result set: " + value.getClass());
-            out.decIndent();
-
-            if ( !multiLineValues )
-                print(" ");
-            print("}"); // NB No newline
+        private static String quote(String string) {
+            return JSWriter.outputQuotedString(string);
         }
 
-         private void printUnbound() {
-             print(quoteName(kType), ": ", quote(kUnbound), " , ") ;
-             if ( multiLineValues ) 
-                 println() ;
-             print(quoteName(kValue), ": null") ;
-             if ( multiLineValues )
-                 println() ;
-         }
-
-        private void printLiteral(Literal literal) {
-            String datatype = literal.getDatatypeURI();
-            String lang = literal.getLanguage();
-
-            if ( Util.isSimpleString(literal) || Util.isLangString(literal) ) {
-                print(quoteName(kType), ": ", quote(kLiteral), " , ");
-                if ( multiLineValues )
-                    println();
-
-                if ( lang != null && !lang.equals("") ) {
-                    print(quoteName(kXmlLang), ": ", quote(lang), " , ");
-                    if ( multiLineValues )
-                        println();
+        /**
+         * Write a JSON string with the same escaping as
+         * {@link JSWriter#outputQuotedString}. Runs of characters that do not
+         * need escaping are written in one step.
+         */
+        private static void writeQuoted(AWriterUTF8 w, String string) {
+            w.writeASCII('"');
+            int len = string.length();
+            int start = 0;
+            for ( int i = 0 ; i < len ; i++ ) {
+                char ch = string.charAt(i);
+                if ( !needsEscape(string, i, ch) )
+                    continue;
+                if ( start < i )
+                    w.print(string, start, i);
+                start = i + 1;
+                w.writeASCII('\\');
+                switch (ch) {
+                    case '"' :  w.writeASCII('"'); break;
+                    case '\\' : w.writeASCII('\\'); break;
+                    case '/' :  w.writeASCII('/'); break;
+                    case '\b' : w.writeASCII('b'); break;
+                    case '\f' : w.writeASCII('f'); break;
+                    case '\n' : w.writeASCII('n'); break;
+                    case '\r' : w.writeASCII('r'); break;
+                    case '\t' : w.writeASCII('t'); break;
+                    default :
+                        w.writeASCII('u');
+                        for ( int shift = 12 ; shift >= 0 ; shift -= 4 )
+                            w.writeASCII(hexDigits[(ch >> shift) & 0xF]);
                 }
-            } else {
-                print(quoteName(kType), ": ", quote(kLiteral), " , ");
-                if ( multiLineValues )
-                    println();
-
-                print(quoteName(kDatatype), ": ", quote(datatype), " , ");
-                if ( multiLineValues )
-                    println();
             }
-
-            print(quoteName(kValue), ": ", quote(literal.getLexicalForm()));
-            if ( multiLineValues )
-                println();
+            if ( start < len )
+                w.print(string, start, len);
+            w.writeASCII('"');
         }
 
-        private void printResource(Resource resource) {
-            if ( resource.isAnon() ) {
-                String label = labels.get(null, resource.asNode());
-                // Comes with leading "_:"
-                label = label.substring(2);
-
-                print(quoteName(kType), ": ", quote(kBnode), " , ");
-                if ( multiLineValues )
-                    out.println();
+        private static final char[] hexDigits = "0123456789ABCDEF".toCharArray();
 
-                print(quoteName(kValue), ": ", quote(label));
-
-                if ( multiLineValues )
-                    println();
-            } else {
-                print(quoteName(kType), ": ", quote(kUri), " , ");
-                if ( multiLineValues )
-                    println();
-                print(quoteName(kValue), ": ", quote(resource.getURI()));
-                if ( multiLineValues )
-                    println();
-                return;
+        private static boolean needsEscape(String string, int i, char ch) {
+            if ( ch >= ' ' && ch < '\u007F' ) {
+                if ( ch == '"' || ch == '\\' )
+                    return true;
+                // Avoid </ which confuses if it's in HTML.
+                return ch == '/' && i > 0 && string.charAt(i - 1) == '<';
             }
-        }
-        
-        private void print(String... strings) {
-            for ( String s : strings )
-                out.print(s);
-        }
-
-        private void println(String... strings) {
-            print(strings);
-            out.println();
-        }
-
-        private static String quote(String string) {
-            // Scope for efficiency improvement.
-            return JSWriter.outputQuotedString(string);
-        }
-
-        // Quote a name (known to be JSON-safe)
-        // Never the RHS of a member entry (for example "false")
-        // Some (the Java JSON code for one) JSON parsers accept an unquoted
-        // string as a name of a name/value pair.
-
-        private static String quoteName(String string) {
-            // All calls to quoteName are builtin keywords which are already safe.
-            // but need the "" added.
-            //return "\""+string+"\"";
-            return quote(string);
+            return ch < ' ' || ch <= '\u009F' || (ch >= '\u2000' && ch < '\u2100');
         }
     }
 }
@@ -28,10 +28,20 @@ import org.apache.jena.riot.resultset.ResultSetLang;
 import org.apache.jena.riot.resultset.ResultSetWriter;
 import org.apache.jena.riot.resultset.ResultSetWriterFactory;
 import org.apache.jena.riot.thrift.BinRDF;
+import org.apache.jena.sparql.SystemARQ;
 import org.apache.jena.sparql.resultset.ResultSetException;
 import org.apache.jena.sparql.util.Context;
+import org.apache.jena.sparql.util.Symbol;
 
 public class ResultSetWriterThrift implements ResultSetWriter {
+
+    /**
+     * Context setting: if true, a term that is the same as in the previous row
+     * is sent as a REPEAT marker. Readers of RDF Thrift result sets accept
+     * REPEAT; older readers do not, so this is only set when the client has
+     * asked for it (see {@link org.apache.jena.riot.WebContent#paramRepeatTerms}).
+     */
+    public static final Symbol repeatTerms = SystemARQ.allocSymbol("thriftRepeatTerms");
     
     public static ResultSetWriterFactory factory = lang -> {
         if (!Objects.equals(lang, ResultSetLang.SPARQLResultSetThrift ) )
@@ -41,7 +51,10 @@ public class ResultSetWriterThrift implements ResultSetWriter {
 
     @Override
     public void write(OutputStream out, ResultSet resultSet, Context context)
-    { BinRDF.writeResultSet(out, resultSet) ; }
+    {
+        boolean repeat = context != null && context.isTrue(repeatTerms);
+        BinRDF.writeResultSet(out, resultSet, false, repeat) ;
+    }
 
     @Override
     public void write(Writer out, ResultSet resultSet, Context context) {
@@ -24,6 +24,7 @@ import java.util.Objects;
 import org.apache.jena.atlas.web.ContentType;
 import org.apache.jena.atlas.web.TypedInputStream;
 import org.apache.jena.query.ResultSet;
+import org.apache.jena.query.ResultSetFactory;
 import org.apache.jena.riot.*;
 import org.apache.jena.riot.resultset.ResultSetReader;
 import org.apache.jena.riot.resultset.ResultSetReaderFactory;
@@ -107,12 +108,16 @@ public class ResultsReader {
         return lang;
     }
     
-    /** Read a result set from a URL or filename. */
+    /**
+     * Read a result set from a URL or filename.
+     * The results are read before returning, and the input closed.
+     */
     public ResultSet read(String urlOrFilename) {
         Objects.nonNull(urlOrFilename);
         try ( TypedInputStream in = StreamManager.get(context).open(urlOrFilename) ) {
             Lang lang = determinLang(in, urlOrFilename);
-            return readResultSet(in.getInputStream(), lang);
+            // The stream is closed on return : read all the results now.
+            return ResultSetFactory.copyResults(readResultSet(in.getInputStream(), lang));
         }
     }
     
@@ -125,12 +130,19 @@ public class ResultsReader {
         return readResultSet(input, lang);
     }
     
-    /** Read a result set or boolean from a URL or filename. */
+    /**
+     * Read a result set or boolean from a URL or filename.
+     * The results are read before returning, and the input closed.
+     */
     public SPARQLResult readAny(String urlOrFilename) {
         Objects.nonNull(urlOrFilename);
         try ( TypedInputStream in = StreamManager.get(context).open(urlOrFilename) ) {
             Lang lang = determinLang(in, urlOrFilename);
-            return readAny(in.getInputStream(), lang);
+            SPARQLResult result = readAny(in.getInputStream(), lang);
+            // The stream is closed on return : read all the results now.
+            if ( result.isResultSet() )
+                return new SPARQLResult(ResultSetFactory.copyResults(result.getResultSet()));
+            return result;
         }
     }
 
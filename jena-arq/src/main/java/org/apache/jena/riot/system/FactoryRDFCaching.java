@@ -18,11 +18,14 @@
 
 package org.apache.jena.riot.system;
 
+import java.util.Objects ;
 import java.util.concurrent.ExecutionException ;
+import java.util.function.Supplier ;
 
 import org.apache.jena.ext.com.google.common.cache.Cache ;
 import org.apache.jena.atlas.lib.cache.CacheInfo ;
 import org.apache.jena.datatypes.RDFDatatype ;
+import org.apache.jena.datatypes.TypeMapper ;
 import org.apache.jena.datatypes.xsd.XSDDatatype ;
 import org.apache.jena.ext.com.google.common.cache.CacheBuilder ;
 import org.apache.jena.ext.com.google.common.cache.CacheStats ;
@@ -31,20 +34,35 @@ import org.apache.jena.riot.RiotException ;
 import org.apache.jena.riot.lang.LabelToNode ;
 import org.apache.jena.sparql.graph.NodeConst ;
 
-/** Adds some caching of created nodes - the caching is tuned to RIOT parser usage */ 
+/** Adds some caching of created nodes - the caching is tuned to RIOT parser usage.
+ * <p>
+ * By default, only IRIs are cached. With {@code cacheLiterals}, literals are cached as well,
+ * language tags are shared, and datatypes are the ones registered with {@link TypeMapper}.
+ * Literals with a lexical form longer than {@link #MaxCachedLiteralLength} are not cached,
+ * so the memory used by the literal cache is bounded.
+ * The caches are then set up for use by several threads, and record statistics.
+ * @see RiotLib#factoryRDFCacheLiterals
+ */ 
 public class FactoryRDFCaching extends FactoryRDFStd {
     public static final int DftNodeCacheSize = 5000 ; 
+    /** Default cache size when literals are also cached */
+    public static final int DftLargeNodeCacheSize = 100000 ; 
+    /** Literals with a longer lexical form are not cached. */
+    public static final int MaxCachedLiteralLength = 256 ;
 
+    private final int cacheSize ;
     // Control the setup - for one thread; start size = 50% of full size, no stats
     private final Cache<String, Node> cache ;
+    // Null if literals are not cached.
+    private final Cache<LiteralKey, Node> literalCache ;
+    private final Cache<String, String> langTagCache ;
 
     public FactoryRDFCaching() {
         this(DftNodeCacheSize) ;
     }
     
     public FactoryRDFCaching(int cacheSize) {
-        super() ;
-        cache = setCache(cacheSize) ;
+        this(cacheSize, SyntaxLabels.createLabelToNode(), false) ;
     }
 
     public FactoryRDFCaching(LabelToNode labelMapping) {
@@ -52,17 +70,32 @@ public class FactoryRDFCaching extends FactoryRDFStd {
     }
 
     public FactoryRDFCaching(int cacheSize, LabelToNode labelMapping) {
+        this(cacheSize, labelMapping, false) ;
+    }
+
+    /**
+     * @param cacheSize     Size of the IRI cache, and of the literal cache
+     * @param labelMapping  Blank node label policy
+     * @param cacheLiterals Whether to cache literals, as well as IRIs, in caches shared between threads
+     */
+    public FactoryRDFCaching(int cacheSize, LabelToNode labelMapping, boolean cacheLiterals) {
         super(labelMapping) ;
-        cache = setCache(cacheSize) ;
+        this.cacheSize = cacheSize ;
+        this.cache = setCache(cacheSize, cacheLiterals) ;
+        this.literalCache = cacheLiterals ? setCache(cacheSize, true) : null ;
+        // Language tags : few and small.
+        this.langTagCache = cacheLiterals ? setCache(1000, true) : null ;
     }
 
-    private Cache<String, Node> setCache(int cacheSize) {
-        return CacheBuilder.newBuilder()
+    private static <K,V> Cache<K, V> setCache(int cacheSize, boolean shared) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
             .maximumSize(cacheSize)
-            .initialCapacity(cacheSize/2)
-            //.recordStats()
-            .concurrencyLevel(1)
-            .build() ;
+            .initialCapacity(cacheSize/2) ;
+        if ( shared )
+            builder.recordStats() ;
+        else
+            builder.concurrencyLevel(1) ;
+        return builder.build() ;
     }
 
     @Override
@@ -94,14 +127,85 @@ public class FactoryRDFCaching extends FactoryRDFStd {
             }
             // fallthrough.
         }
-        return super.createTypedLiteral(lexical, datatype) ;
+        if ( literalCache == null )
+            return super.createTypedLiteral(lexical, datatype) ;
+        return literal(new LiteralKey(lexical, null, datatype.getURI()),
+                       ()->super.createTypedLiteral(lexical, canonical(datatype))) ;
+    }
+
+    @Override
+    public Node createLangLiteral(String lexical, String langTag) {
+        if ( literalCache == null )
+            return super.createLangLiteral(lexical, langTag) ;
+        return literal(new LiteralKey(lexical, langTag, null),
+                       ()->super.createLangLiteral(lexical, langTag(langTag))) ;
     }
 
     @Override
     public Node createStringLiteral(String lexical) {
         if ( lexical.isEmpty() )
             return NodeConst.emptyString ;
-        return super.createStringLiteral(lexical) ;
+        if ( literalCache == null )
+            return super.createStringLiteral(lexical) ;
+        return literal(new LiteralKey(lexical, null, null), ()->super.createStringLiteral(lexical)) ;
+    }
+
+    private Node literal(LiteralKey key, Supplier<Node> create) {
+        // Long literals rarely repeat; caching them would hold on to a lot of memory.
+        if ( key.lexical.length() > MaxCachedLiteralLength )
+            return create.get() ;
+        try {
+            return literalCache.get(key, create::get) ;
+        }
+        catch (ExecutionException e) {
+            throw new RiotException("Execution exception filling cache \""+key.lexical+"\"", e) ;
+        }
+    }
+
+    private String langTag(String langTag) {
+        try {
+            return langTagCache.get(langTag, ()->langTag) ;
+        }
+        catch (ExecutionException e) {
+            throw new RiotException("Execution exception filling cache @"+langTag, e) ;
+        }
+    }
+
+    /** The registered datatype for the URI, if there is one. */
+    private static RDFDatatype canonical(RDFDatatype datatype) {
+        RDFDatatype dt = TypeMapper.getInstance().getTypeByName(datatype.getURI()) ;
+        return dt != null ? dt : datatype ;
+    }
+
+    /** Key for the literal cache: one of language tag and datatype may be set. */
+    private static final class LiteralKey {
+        final String lexical ;
+        final String langTag ;
+        final String datatypeURI ;
+        private final int hash ;
+
+        LiteralKey(String lexical, String langTag, String datatypeURI) {
+            this.lexical = lexical ;
+            this.langTag = langTag ;
+            this.datatypeURI = datatypeURI ;
+            this.hash = Objects.hash(lexical, langTag, datatypeURI) ;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash ;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if ( this == obj )
+                return true ;
+            if ( !(obj instanceof LiteralKey) )
+                return false ;
+            LiteralKey other = (LiteralKey)obj ;
+            return hash == other.hash && lexical.equals(other.lexical)
+                   && Objects.equals(langTag, other.langTag) && Objects.equals(datatypeURI, other.datatypeURI) ;
+        }
     }
 
     // The cache is not reset.  It can be carried across parser runs.
@@ -110,11 +214,23 @@ public class FactoryRDFCaching extends FactoryRDFStd {
 //        super.reset();
 //    }
     
+    /** Statistics for the IRI cache, or null if statistics are not being recorded. */
     public CacheInfo stats() {
+        return stats(cache, cacheSize) ;
+    }
+
+    /** Statistics for the literal cache, or null if literals are not cached. */
+    public CacheInfo statsLiterals() {
+        if ( literalCache == null )
+            return null ;
+        return stats(literalCache, cacheSize) ;
+    }
+
+    private static CacheInfo stats(Cache<?, ?> cache, int cacheSize) {
         CacheStats stats = cache.stats() ;
         if ( stats.missCount() == 0 && stats.hitCount() == 0 )
             // Stats not enabled - all counts zero.
             return null ;
-        return new CacheInfo(DftNodeCacheSize, stats) ;
+        return new CacheInfo(cacheSize, stats) ;
     }
-}
\ No newline at end of file
+}
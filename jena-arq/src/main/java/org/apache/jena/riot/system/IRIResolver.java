@@ -156,6 +156,21 @@ public abstract class IRIResolver
         return iriFactory().construct(iriStr);
     }
 
+    /**
+     * Absolute IRIs resolve to the same IRI whatever the base, so they are
+     * cached once for all resolvers. This cache is thread safe.
+     */
+    private static final int AbsoluteCacheSize = 10_000;
+    private static volatile Cache<String, IRI> absoluteIRIs = CacheFactory.createCache(AbsoluteCacheSize);
+
+    /**
+     * Set the size of the cache of resolved absolute IRIs shared by all resolvers.
+     * Zero turns the shared cache off.
+     */
+    public static void setAbsoluteCacheSize(int size) {
+        absoluteIRIs = ( size > 0 ) ? CacheFactory.createCache(size) : null;
+    }
+
     /**
      * The current working directory, as a string.
      */
@@ -454,11 +469,30 @@ public abstract class IRIResolver
 
         @Override
         public IRI resolveSilent(String uriStr) {
+            Cache<String, IRI> cache = absoluteIRIs;
+            if ( cache != null && isAbsolute(uriStr) )
+                return cache.getOrFill(uriStr, () -> resolveSilentNoCache(uriStr));
             if ( resolvedIRIs == null )
                 return resolveSilentNoCache(uriStr);
             else
                 return resolveSilentCache(uriStr);
         }
+
+        // Starts with a scheme, and is not "file:" which may be resolved
+        // against a "file:" base (IRIFactory.setSameSchemeRelativeReferences).
+        private static boolean isAbsolute(String uriStr) {
+            int len = uriStr.length();
+            if ( len == 0 || !RiotChars.isA2Z(uriStr.charAt(0)) )
+                return false;
+            for ( int i = 1 ; i < len ; i++ ) {
+                char ch = uriStr.charAt(i);
+                if ( ch == ':' )
+                    return !( i == 4 && uriStr.regionMatches(true, 0, "file", 0, 4) );
+                if ( !RiotChars.isA2ZN(ch) && ch != '+' && ch != '-' && ch != '.' )
+                    return false;
+            }
+            return false;
+        }
         
         private IRI resolveSilentNoCache(String uriStr) {
             IRI x = IRIResolver.iriFactory().create(uriStr);
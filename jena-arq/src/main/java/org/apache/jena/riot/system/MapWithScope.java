@@ -82,6 +82,13 @@ public class MapWithScope<A, B, S>
         return mappedItem ;
     }
     
+    /** Whether there is a B object for an A object in scope S object (false if not tracked) */
+    public boolean contains(S scope, A item)
+    {
+        Map<A, B> map = scopePolicy.getScope(scope) ;
+        return map != null && map.containsKey(item) ;
+    }
+    
     /** Create a label that is guaranteed to be fresh */ 
     public B create() { return allocator.create() ; }
     
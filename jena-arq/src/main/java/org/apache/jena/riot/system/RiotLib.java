@@ -204,6 +204,17 @@ public class RiotLib
         return factoryRDF(SyntaxLabels.createLabelToNode());
     }
 
+    /** Create a new (not influenced by anything else) {@code FactoryRDF}
+     * using the label to blank node scheme provided, with a larger cache, safe
+     * for use by several threads, that also reuses literals and language tags.
+     * This is for parsing large amounts of data with many repeated literals.
+     * @see FactoryRDFCaching#stats
+     * @see FactoryRDFCaching#statsLiterals
+     */
+    public static FactoryRDF factoryRDFCacheLiterals(LabelToNode labelMapping) {
+        return new FactoryRDFCaching(FactoryRDFCaching.DftLargeNodeCacheSize, labelMapping, true);
+    }
+
     /** Create a {@link ParserProfile} with default settings. */
     public static ParserProfile dftProfile() {
         return createParserProfile(RiotLib.factoryRDF(), ErrorHandlerFactory.errorHandlerStd, true);
@@ -30,7 +30,9 @@ import org.apache.jena.atlas.lib.CharSpace ;
 import org.apache.jena.graph.Graph ;
 import org.apache.jena.graph.Triple ;
 import org.apache.jena.riot.* ;
+import org.apache.jena.riot.dict.RDFDict ;
 import org.apache.jena.riot.thrift.BinRDF ;
+import org.apache.jena.riot.writer.StreamWriterJSONLD ;
 import org.apache.jena.riot.writer.StreamWriterTriX ;
 import org.apache.jena.riot.writer.WriterStreamRDFBlocks ;
 import org.apache.jena.riot.writer.WriterStreamRDFFlat ;
@@ -87,6 +89,13 @@ public class StreamRDFWriter {
         }
     } ;
     
+    private static StreamRDFWriterFactory streamWriterFactoryDict = new StreamRDFWriterFactory() {
+        @Override
+        public StreamRDF create(OutputStream output, RDFFormat format) {
+            return RDFDict.streamToOutputStream(output, RDFDict.compression(format)) ;
+        }
+    } ;
+    
     private static StreamRDFWriterFactory streamWriterFactoryTriX = new StreamRDFWriterFactory() {
         @Override
         public StreamRDF create(OutputStream output, RDFFormat format) {
@@ -94,6 +103,13 @@ public class StreamRDFWriter {
         }
     } ;
 
+    private static StreamRDFWriterFactory streamWriterFactoryJSONLD = new StreamRDFWriterFactory() {
+        @Override
+        public StreamRDF create(OutputStream output, RDFFormat format) {
+            return new StreamWriterJSONLD(output) ;
+        }
+    } ;
+
     private static StreamRDFWriterFactory streamWriterFactoryNull = new StreamRDFWriterFactory() {
         @Override
         public StreamRDF create(OutputStream output, RDFFormat format) {
@@ -131,6 +147,7 @@ public class StreamRDFWriter {
         register(Lang.NTRIPLES,     RDFFormat.NTRIPLES) ;
         register(Lang.NQUADS,       RDFFormat.NQUADS) ;
         register(Lang.RDFTHRIFT,    RDFFormat.RDF_THRIFT) ;
+        register(Lang.RDFDICT,      RDFFormat.RDF_DICT) ;
         register(Lang.TRIX,         RDFFormat.TRIX) ;
         register(Lang.RDFNULL,      RDFFormat.RDFNULL) ;
         
@@ -149,8 +166,13 @@ public class StreamRDFWriter {
 
         register(RDFFormat.RDF_THRIFT,          streamWriterFactoryThrift) ;
         register(RDFFormat.RDF_THRIFT_VALUES,   streamWriterFactoryThrift) ;
+
+        register(RDFFormat.RDF_DICT,                streamWriterFactoryDict) ;
+        register(RDFFormat.RDF_DICT_DEFLATE,        streamWriterFactoryDict) ;
+        register(RDFFormat.RDF_DICT_UNCOMPRESSED,   streamWriterFactoryDict) ;
         
         register(RDFFormat.TRIX,            streamWriterFactoryTriX) ;
+        register(RDFFormat.JSONLD_STREAM,   streamWriterFactoryJSONLD) ;
         register(RDFFormat.RDFNULL,         streamWriterFactoryNull) ;
     }
 
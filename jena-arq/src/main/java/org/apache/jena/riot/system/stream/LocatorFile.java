@@ -165,7 +165,8 @@ public class LocatorFile implements Locator
         }
         
         try {
-            InputStream in = IO.openFileEx(fn) ;
+            // Compressed files are decompressed on other threads.
+            InputStream in = IO.openFileExAsync(fn) ;
 
             if ( StreamManager.logAllLookups && log.isTraceEnabled() )
                 log.trace("Found: "+filenameIRI+thisDirLogStr) ;
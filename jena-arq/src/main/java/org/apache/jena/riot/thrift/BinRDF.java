@@ -218,11 +218,19 @@ public class BinRDF {
     }
     
     public static void writeResultSet(OutputStream out, ResultSet resultSet, boolean withValues) {
+        writeResultSet(out, resultSet, withValues, false) ;
+    }
+
+    /**
+     * Write a result set; if {@code repeatTerms} is true, a term that is the
+     * same as in the previous row is sent as a REPEAT marker.
+     */
+    public static void writeResultSet(OutputStream out, ResultSet resultSet, boolean withValues, boolean repeatTerms) {
         BufferedOutputStream bout = 
             ( out instanceof BufferedOutputStream ) 
             ? (BufferedOutputStream)out 
             : new BufferedOutputStream(out, TRDF.OutputBufferSize) ;
-        writeResultSet(TRDF.protocol(bout), resultSet, withValues) ;
+        writeResultSet(TRDF.protocol(bout), resultSet, withValues, repeatTerms) ;
         IO.flush(out) ;
     }
     
@@ -231,8 +239,12 @@ public class BinRDF {
     }
     
     public static void writeResultSet(TProtocol protocol, ResultSet resultSet, boolean encodeValues) {
+        writeResultSet(protocol, resultSet, encodeValues, false) ;
+    }
+
+    public static void writeResultSet(TProtocol protocol, ResultSet resultSet, boolean encodeValues, boolean repeatTerms) {
         List<Var> vars = Var.varList(resultSet.getResultVars()) ;
-        try ( Binding2Thrift b2t = new Binding2Thrift(protocol, vars, encodeValues) ) {
+        try ( Binding2Thrift b2t = new Binding2Thrift(protocol, vars, encodeValues, repeatTerms) ) {
             for ( ; resultSet.hasNext() ; ) {
                 Binding b = resultSet.nextBinding() ;
                 b2t.output(b) ;
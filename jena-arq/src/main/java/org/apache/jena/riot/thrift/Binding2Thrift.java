@@ -40,16 +40,32 @@ public class Binding2Thrift implements AutoCloseable {
     private final OutputStream out ;
     private final TProtocol protocol ;
     private final boolean encodeValues ;
+    // Previous row, for REPEAT; null if not repeating terms.
+    private final Node[] previous ;
 
     public Binding2Thrift(OutputStream out, Collection<Var> vars, boolean encodeValues) { 
+        this(out, vars, encodeValues, false) ;
+    }
+
+    /**
+     * Write bindings; if {@code repeatTerms} is true, a term that is the same as
+     * the term for the same variable in the previous row is written as
+     * {@link TRDF#tREPEAT}.
+     */
+    public Binding2Thrift(OutputStream out, Collection<Var> vars, boolean encodeValues, boolean repeatTerms) { 
         this.out = out ;
         this.vars = vars ; 
         TIOStreamTransport transport = new TIOStreamTransport(out) ;
         this.protocol = TRDF.protocol(transport) ;
         this.encodeValues = encodeValues ;
+        this.previous = previousRow(vars, repeatTerms) ;
         varsRow() ;
     }
 
+    private static Node[] previousRow(Collection<Var> vars, boolean repeatTerms) {
+        return ( repeatTerms && vars != null ) ? new Node[vars.size()] : null ;
+    }
+
     private void varsRow() {
         RDF_VarTuple vrow = new RDF_VarTuple() ;
         // ** Java8
@@ -68,10 +84,15 @@ public class Binding2Thrift implements AutoCloseable {
     }
 
     public Binding2Thrift(TProtocol out, Collection<Var> vars, boolean encodeValues) { 
+        this(out, vars, encodeValues, false) ;
+    }
+
+    public Binding2Thrift(TProtocol out, Collection<Var> vars, boolean encodeValues, boolean repeatTerms) { 
         this.vars = vars ; 
         this.out = null ;
         this.protocol = out ;
         this.encodeValues = encodeValues ;
+        this.previous = previousRow(vars, repeatTerms) ;
         varsRow() ;
     }
 
@@ -85,11 +106,21 @@ public class Binding2Thrift implements AutoCloseable {
 //            RDF_Term rt = ( n == null ) ? TRDF.tUNDEF : ThriftConvert.convert(n) ;
 //            row.addToRow(rt) ;
 //        }) ;
+        int i = 0 ;
         while(vIter.hasNext()) {
             Var v = vIter.next();
             Node n = binding.get(v) ;
-            RDF_Term rt = ( n == null ) ? TRDF.tUNDEF : ThriftConvert.convert(n, encodeValues) ;
+            RDF_Term rt ;
+            if ( n == null )
+                rt = TRDF.tUNDEF ;
+            else if ( previous != null && n.equals(previous[i]) )
+                rt = TRDF.tREPEAT ;
+            else
+                rt = ThriftConvert.convert(n, encodeValues) ;
+            if ( previous != null )
+                previous[i] = n ;
             row.addToRow(rt) ;
+            i++ ;
         }
         try { row.write(protocol) ; }
         catch (TException e) { TRDF.exception(e) ; }
@@ -28,6 +28,7 @@ import org.apache.jena.atlas.logging.Log ;
 import org.apache.jena.riot.RiotException ;
 import org.apache.jena.riot.system.StreamRDF ;
 import org.apache.jena.riot.thrift.wire.RDF_ANY ;
+import org.apache.jena.riot.thrift.wire.RDF_REPEAT ;
 import org.apache.jena.riot.thrift.wire.RDF_StreamRow ;
 import org.apache.jena.riot.thrift.wire.RDF_Term ;
 import org.apache.jena.riot.thrift.wire.RDF_UNDEF ;
@@ -113,11 +114,16 @@ public class TRDF {
     /** The Thrift RDF Term 'UNDEF' */
     public static final RDF_UNDEF UNDEF = new RDF_UNDEF() ;
     public static final RDF_Term tUNDEF = new RDF_Term();
+    /** The Thrift RDF Term 'REPEAT' : the same term as in the previous row. */
+    public static final RDF_REPEAT REPEAT = new RDF_REPEAT() ;
+    public static final RDF_Term tREPEAT = new RDF_Term();
 
     static { tANY.setAny(new RDF_ANY()) ; }
 
     static { tUNDEF.setUndefined(new RDF_UNDEF()) ; }
 
+    static { tREPEAT.setRepeat(new RDF_REPEAT()) ; }
+
     public static void visit(RDF_StreamRow row, VisitorStreamRowTRDF visitor) {
         if ( row.isSetTriple() ) {
             visitor.visit(row.getTriple()) ;
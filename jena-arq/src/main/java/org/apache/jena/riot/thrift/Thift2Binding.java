@@ -44,6 +44,8 @@ public class Thift2Binding extends IteratorSlotted<Binding> implements Iterator<
     private List<Var> vars = new ArrayList<>() ;
     private List<String> varNames = new ArrayList<>() ;
     private final RDF_DataTuple row = new RDF_DataTuple() ;
+    // Terms of the previous row, for REPEAT.
+    private Node[] previous = null ;
     private InputStream in ;
     private TProtocol protocol ;
 
@@ -93,14 +95,25 @@ public class Thift2Binding extends IteratorSlotted<Binding> implements Iterator<
             throw new RiotThriftException(String.format("Vars %d : Row length : %d", vars.size(), row.getRowSize())) ;
 
         BindingMap b = BindingFactory.create() ;
+        if ( previous == null )
+            previous = new Node[vars.size()] ;
         
         for ( int i = 0 ;  i < vars.size() ; i++ ) {
             // Old school
             Var v = vars.get(i) ;
             RDF_Term rt = row.getRow().get(i) ;
-            if ( rt.isSetUndefined() )
+            if ( rt.isSetUndefined() ) {
+                previous[i] = null ;
                 continue ;
-            Node n = ThriftConvert.convert(rt) ;
+            }
+            Node n ;
+            if ( rt.isSetRepeat() ) {
+                n = previous[i] ;
+                if ( n == null )
+                    throw new RiotThriftException("REPEAT with no term in the previous row") ;
+            } else
+                n = ThriftConvert.convert(rt) ;
+            previous[i] = n ;
             b.add(v, n) ;
         }
         row.clear() ;
@@ -453,9 +453,36 @@ public final class TokenizerText implements Tokenizer
     // Spaces in IRI are illegal.
     private static final boolean AllowSpacesInIRI = false;
     
+    // Fast path tables (see PeekReader.readASCII) : ASCII characters that
+    // need no further processing in a token.
+    private static final boolean[] asciiIRI       = new boolean[128];
+    private static final boolean[] asciiString1   = new boolean[128];
+    private static final boolean[] asciiString2   = new boolean[128];
+    private static final boolean[] asciiPNChars   = new boolean[128];
+    static {
+        for ( int ch = 0x21 ; ch < 128 ; ch++ )
+            asciiIRI[ch] = true;
+        for ( char ch : new char[] {'<', '>', '"', '{', '}', '|', '^', '`', '\\'} )
+            asciiIRI[ch] = false;
+        for ( int ch = 0 ; ch < 128 ; ch++ ) {
+            asciiString1[ch] = ( ch != NL && ch != CH_RSLASH && ch != CH_QUOTE1 );
+            asciiString2[ch] = ( ch != NL && ch != CH_RSLASH && ch != CH_QUOTE2 );
+            asciiPNChars[ch] = isAlphaNumeric(ch) || ch == CH_UNDERSCORE || ch == CH_MINUS;
+        }
+    }
+
     // [8]  IRIREF  ::= '<' ([^#x00-#x20<>"{}|^`\] | UCHAR)* '>'
     private String readIRI() {
         stringBuilder.setLength(0);
+        // Fast path : the common case of an IRI in plain ASCII.
+        String fast = reader.readASCII(asciiIRI);
+        if ( fast != null ) {
+            if ( reader.peekChar() == CH_GT ) {
+                reader.readChar();
+                return fast;
+            }
+            stringBuilder.append(fast);
+        }
         for (;;) {
             int ch = reader.readChar();
             switch(ch) {
@@ -570,30 +597,46 @@ public final class TokenizerText implements Tokenizer
         // RiotChars has isPNChars_U_N for   ( PN_CHARS_U | [0-9] )
         stringBuilder.setLength(0);
 
-        // -- Test first character
         int ch = reader.peekChar();
         if ( ch == EOF )
             return "";
-        if ( isLocalPart ) {
-            if ( ch == CH_COLON ) {
-                reader.readChar();
-                stringBuilder.append((char)ch);
+
+        // Fast path : a first character and a run of ASCII name characters.
+        if ( ch < 0x80 && ( isLocalPart ? RiotChars.isPNChars_U_N(ch) : RiotChars.isPNCharsBase(ch) ) ) {
+            String fast = reader.readASCII(asciiPNChars);
+            if ( fast != null ) {
+                int ch2 = reader.peekChar();
+                boolean more = ch2 == CH_DOT || ch2 >= 0x80 ||
+                               ( isLocalPart && ( ch2 == CH_COLON || ch2 == CH_PERCENT || ch2 == CH_RSLASH ) );
+                if ( !more )
+                    return fast;
+                stringBuilder.append(fast);
             }
+        }
 
-            // processPLX
-            else if ( ch == CH_PERCENT || ch == CH_RSLASH ) {
-                reader.readChar();
-                processPLX(ch);
-            } else if ( RiotChars.isPNChars_U_N(ch) ) {
+        // -- Test first character, if not done by the fast path.
+        if ( stringBuilder.length() == 0 ) {
+            if ( isLocalPart ) {
+                if ( ch == CH_COLON ) {
+                    reader.readChar();
+                    stringBuilder.append((char)ch);
+                }
+
+                // processPLX
+                else if ( ch == CH_PERCENT || ch == CH_RSLASH ) {
+                    reader.readChar();
+                    processPLX(ch);
+                } else if ( RiotChars.isPNChars_U_N(ch) ) {
+                    stringBuilder.append((char)ch);
+                    reader.readChar();
+                } else
+                    return "";
+            } else {
+                if ( !RiotChars.isPNCharsBase(ch) )
+                    return "";
                 stringBuilder.append((char)ch);
                 reader.readChar();
-            } else
-                return "";
-        } else {
-            if ( !RiotChars.isPNCharsBase(ch) )
-                return "";
-            stringBuilder.append((char)ch);
-            reader.readChar();
+            }
         }
         // Done first character
         int chDot = 0;
@@ -684,6 +727,16 @@ public final class TokenizerText implements Tokenizer
         // Assumes first delimiter char read already.
         // Reads terminating delimiter 
 
+        // Fast path : no escapes, all ASCII.
+        String fast = reader.readASCII(endCh == CH_QUOTE1 ? asciiString1 : asciiString2);
+        if ( fast != null ) {
+            if ( reader.peekChar() == endCh ) {
+                reader.readChar();
+                return fast;
+            }
+            stringBuilder.append(fast);
+        }
+
         for (;;) {
             int ch = reader.readChar();
             if ( ch == EOF ) {
@@ -799,8 +852,21 @@ public final class TokenizerText implements Tokenizer
 
     private String readBlankNodeLabel() {
         stringBuilder.setLength(0);
+
+        // Fast path : ASCII label, no dots.
+        int ch1 = reader.peekChar();
+        if ( ch1 >= 0 && ch1 < 0x80 && RiotChars.isPNChars_U_N(ch1) ) {
+            String fast = reader.readASCII(asciiPNChars);
+            if ( fast != null ) {
+                int ch2 = reader.peekChar();
+                if ( ch2 != CH_DOT && ch2 < 0x80 )
+                    return fast;
+                stringBuilder.append(fast);
+            }
+        }
+
         // First character.
-        {
+        if ( stringBuilder.length() == 0 ) {
             int ch = reader.peekChar();
             if ( ch == EOF )
                 error("Blank node label missing (EOF found)");
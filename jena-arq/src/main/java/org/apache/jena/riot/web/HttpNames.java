@@ -39,6 +39,7 @@ public class HttpNames
     public static final String hServer              = "Server" ;
     public static final String hLocation            = "Location" ; 
     public static final String hVary                = "Vary" ;
+    public static final String hExecStats           = "Fuseki-Exec-Stats" ;
     public static final String charset              = "charset" ;
     
     // CORS: 
@@ -69,6 +70,7 @@ public class HttpNames
     public static final String paramCallback        = "callback" ;
     public static final String paramForceAccept     = "force-accept" ;  // Force the accept header at the last moment
     public static final String paramTimeout         = "timeout" ;
+    public static final String paramExecStats       = "exec-stats" ;   // Return execution statistics in a header
     
     public static final String paramUpdate          = "update" ;
     public static final String paramRequest         = "request" ; 
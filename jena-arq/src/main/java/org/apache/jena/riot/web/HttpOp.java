@@ -26,19 +26,29 @@ import java.io.InputStream ;
 import java.nio.charset.StandardCharsets ;
 import java.util.ArrayList ;
 import java.util.List ;
+import java.util.concurrent.TimeUnit ;
 import java.util.concurrent.atomic.AtomicLong ;
 
 import org.apache.http.* ;
 import org.apache.http.client.HttpClient ;
 import org.apache.http.client.entity.UrlEncodedFormEntity ;
 import org.apache.http.client.methods.* ;
+import org.apache.http.config.Registry ;
+import org.apache.http.config.RegistryBuilder ;
+import org.apache.http.conn.ConnectionKeepAliveStrategy ;
+import org.apache.http.conn.socket.ConnectionSocketFactory ;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory ;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory ;
 import org.apache.http.entity.ContentType ;
 import org.apache.http.entity.InputStreamEntity ;
 import org.apache.http.entity.StringEntity ;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy ;
 import org.apache.http.impl.client.HttpClientBuilder ;
+import org.apache.http.impl.client.IdleConnectionEvictor ;
 import org.apache.http.impl.client.LaxRedirectStrategy;
 import org.apache.http.impl.client.cache.CachingHttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager ;
 import org.apache.http.message.BasicNameValuePair ;
 import org.apache.http.protocol.HttpContext ;
 import org.apache.http.util.EntityUtils ;
@@ -96,8 +106,34 @@ public class HttpOp {
     /** System wide HTTP operation counter for log messages */
     static private AtomicLong counter = new AtomicLong(0);
 
+    /**
+     * Default time, in milliseconds, to keep an idle connection open when the
+     * server does not say how long it will keep the connection.
+     */
+    public static final long DftKeepAliveMillis = 30*1000;
+
     private static final LaxRedirectStrategy laxRedirectStrategy = new LaxRedirectStrategy();
 
+    // Use the server's keep-alive time, if it gives one, otherwise a default.
+    // Without a default, connections are kept indefinitely and may be found
+    // closed by the server when next used.
+    private static final ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+        long x = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+        return x > 0 ? x : DftKeepAliveMillis;
+    };
+
+    /**
+     * Connection pool of the initial default HttpClient.
+     */
+    private static final PoolingHttpClientConnectionManager defaultConnectionManager = createPoolingConnectionManager(maxConnections(), 2*maxConnections());
+
+    /**
+     * Close connections of the default pool that the server is likely to have
+     * dropped. One daemon thread for the pool, not one per HttpClient.
+     */
+    private static final IdleConnectionEvictor defaultConnectionEvictor = new IdleConnectionEvictor(defaultConnectionManager, DftKeepAliveMillis, TimeUnit.MILLISECONDS);
+    static { defaultConnectionEvictor.start(); }
+
     /**
      * Default HttpClient.
      */
@@ -107,9 +143,26 @@ public class HttpOp {
      * Used to reset {@link #defaultHttpClient} when needed
      */
     public static final HttpClient initialDefaultHttpClient = defaultHttpClient;
-    
+
+    /**
+     * Create an HttpClient that uses the default connection pool
+     * ({@link #getDefaultConnectionManager()}). The pool is shared, so
+     * closing the HttpClient does not close the pool, and the HttpClient does
+     * not need to be closed.
+     */
     public static HttpClient createDefaultHttpClient() {
-        return createPoolingHttpClient();
+        return createPoolingHttpClientBuilder(defaultConnectionManager).build();
+    }
+
+    /**
+     * The connection pool of the initial default HttpClient. This is shared by
+     * all HTTP operations, including {@code QueryEngineHTTP}, SERVICE and
+     * {@code RDFConnectionRemote}, that do not have their own HttpClient. Use
+     * it to change the per-route limits or to get statistics of the pool with
+     * {@link PoolingHttpClientConnectionManager#getTotalStats()}.
+     */
+    public static PoolingHttpClientConnectionManager getDefaultConnectionManager() {
+        return defaultConnectionManager;
     }
     
     /**
@@ -231,26 +284,60 @@ public class HttpOp {
      * Create an HttpClientBuilder that performs connection pooling.
      */
     public static HttpClientBuilder createPoolingHttpClientBuilder() {
-        String s = System.getProperty("http.maxConnections", "5");
-        int max = Integer.parseInt(s);
+        int max = maxConnections();
         return HttpClientBuilder.create()
             .useSystemProperties()
             .setRedirectStrategy(laxRedirectStrategy)
+            .setKeepAliveStrategy(keepAliveStrategy)
             .setMaxConnPerRoute(max)
             .setMaxConnTotal(2*max);
     }
 
+    /**
+     * Create an HttpClientBuilder that uses the given connection pool. The pool
+     * is not closed when an HttpClient built from it is closed.
+     */
+    public static HttpClientBuilder createPoolingHttpClientBuilder(PoolingHttpClientConnectionManager connectionManager) {
+        return HttpClientBuilder.create()
+            .useSystemProperties()
+            .setRedirectStrategy(laxRedirectStrategy)
+            .setKeepAliveStrategy(keepAliveStrategy)
+            .setConnectionManager(connectionManager)
+            .setConnectionManagerShared(true);
+    }
+
+    /**
+     * Create a connection pool with limits on the number of connections to any
+     * one host and in total. Secure connections use the system properties for
+     * SSL ({@code javax.net.ssl.*}).
+     */
+    public static PoolingHttpClientConnectionManager createPoolingConnectionManager(int maxPerRoute, int maxTotal) {
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", SSLConnectionSocketFactory.getSystemSocketFactory())
+            .build();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(registry);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setMaxTotal(maxTotal);
+        return connectionManager;
+    }
+
+    private static int maxConnections() {
+        String s = System.getProperty("http.maxConnections", "5");
+        return Integer.parseInt(s);
+    }
+
     /**
      * Create an HttpClient that performs client-side caching and connection pooling. 
      * This can be used with {@link #setDefaultHttpClient} or provided in the HttpOp calls.
      * Beware that content is cached in this process, including across remote server restart. 
      */
     public static CloseableHttpClient createCachingHttpClient() {
-        String s = System.getProperty("http.maxConnections", "5");
-        int max = Integer.parseInt(s);
+        int max = maxConnections();
         return CachingHttpClientBuilder.create()
             .useSystemProperties()
             .setRedirectStrategy(laxRedirectStrategy)
+            .setKeepAliveStrategy(keepAliveStrategy)
             .setMaxConnPerRoute(max)
             .setMaxConnTotal(2*max)
             .build() ;
@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.writer;
+
+import java.io.OutputStream ;
+import java.util.ArrayList ;
+import java.util.LinkedHashMap ;
+import java.util.List ;
+import java.util.Map ;
+import java.util.Objects ;
+
+import org.apache.jena.atlas.io.IndentedWriter ;
+import org.apache.jena.atlas.json.io.JSWriter ;
+import org.apache.jena.datatypes.xsd.XSDDatatype ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.lang.JsonLDStreamReader ;
+import org.apache.jena.riot.out.NodeFmtLib ;
+import org.apache.jena.riot.system.StreamRDF ;
+import org.apache.jena.sparql.core.Quad ;
+import org.apache.jena.vocabulary.RDF ;
+
+/** Write JSON-LD by streaming.
+ * <p>
+ * The output is JSON-LD in expanded form: a JSON array of node objects, one per line.
+ * Consecutive triples with the same subject become one node object,
+ * and consecutive quads in the same named graph are written in one
+ * <tt>{"@id": graph, "@graph": [ ... ]}</tt> object.
+ * Only the triples of the current subject are held in memory, so
+ * output sorted, or grouped, by subject is the most compact but any
+ * order of triples and quads is legal JSON-LD.
+ * <p>
+ * Prefixes and base are not used.
+ *
+ * @see JsonLDWriter
+ * @see JsonLDStreamReader
+ */
+public class StreamWriterJSONLD implements StreamRDF {
+    private static final String xsdString = XSDDatatype.XSDstring.getURI() ;
+    private static final Node rdfType = RDF.Nodes.type ;
+
+    private final IndentedWriter out ;
+    private int depth = 0 ;                 // Start/finish count
+    private boolean first = true ;          // No node object written at the top level.
+    private boolean firstInGraph = true ;   // No node object written in the current named graph.
+    private Node graph = null ;             // The current named graph, or null for the default graph.
+    private Node subject = null ;           // The subject being collected.
+    private final Map<Node, List<Node>> properties = new LinkedHashMap<>() ;
+
+    public StreamWriterJSONLD(OutputStream out)   { this.out = new IndentedWriter(out) ; }
+    public StreamWriterJSONLD(IndentedWriter out) { this.out = out ; }
+
+    @Override public void start() {
+        if ( depth == 0 )
+            out.print("[") ;
+        depth++ ;
+    }
+
+    @Override public void finish() {
+        depth-- ;
+        if ( depth != 0 )
+            return ;
+        endSubject() ;
+        endGraph() ;
+        out.println() ;
+        out.println("]") ;
+        out.flush() ;
+    }
+
+    @Override public void base(String base) {} // Ignore.
+
+    @Override public void prefix(String prefix, String iri) {} // Ignore.
+
+    @Override
+    public void triple(Triple triple) {
+        send(null, triple.getSubject(), triple.getPredicate(), triple.getObject()) ;
+    }
+
+    @Override
+    public void quad(Quad quad) {
+        Node g = quad.getGraph() ;
+        if ( g == null || Quad.isDefaultGraph(g) )
+            g = null ;
+        send(g, quad.getSubject(), quad.getPredicate(), quad.getObject()) ;
+    }
+
+    private void send(Node g, Node s, Node p, Node o) {
+        if ( ! Objects.equals(g, graph) ) {
+            endSubject() ;
+            endGraph() ;
+            if ( g != null )
+                startGraph(g) ;
+        } else if ( ! s.equals(subject) )
+            endSubject() ;
+        subject = s ;
+        properties.computeIfAbsent(p, x -> new ArrayList<>()).add(o) ;
+    }
+
+    private void separator() {
+        boolean isFirst = ( graph == null ) ? first : firstInGraph ;
+        if ( isFirst )
+            out.println() ;
+        else
+            out.println(",") ;
+        if ( graph == null )
+            first = false ;
+        else
+            firstInGraph = false ;
+    }
+
+    private void startGraph(Node g) {
+        separator() ;
+        out.print("{\"@id\":") ;
+        writeId(g) ;
+        out.print(",\"@graph\":[") ;
+        out.incIndent() ;
+        graph = g ;
+        firstInGraph = true ;
+    }
+
+    private void endGraph() {
+        if ( graph == null )
+            return ;
+        out.println() ;
+        out.decIndent() ;
+        out.print("]}") ;
+        graph = null ;
+    }
+
+    /** Write the node object for the current subject. */
+    private void endSubject() {
+        if ( subject == null )
+            return ;
+        separator() ;
+        out.print("{\"@id\":") ;
+        writeId(subject) ;
+
+        List<Node> types = properties.get(rdfType) ;
+        if ( types != null ) {
+            List<Node> literals = new ArrayList<>() ;
+            boolean firstType = true ;
+            for ( Node t : types ) {
+                if ( t.isLiteral() ) {
+                    literals.add(t) ;
+                    continue ;
+                }
+                out.print(firstType ? ",\"@type\":[" : ",") ;
+                writeId(t) ;
+                firstType = false ;
+            }
+            if ( ! firstType )
+                out.print("]") ;
+            if ( literals.isEmpty() )
+                properties.remove(rdfType) ;
+            else
+                properties.put(rdfType, literals) ;
+        }
+
+        for ( Map.Entry<Node, List<Node>> e : properties.entrySet() ) {
+            out.print(",") ;
+            writeId(e.getKey()) ;
+            out.print(":[") ;
+            boolean firstValue = true ;
+            for ( Node o : e.getValue() ) {
+                if ( ! firstValue )
+                    out.print(",") ;
+                writeValue(o) ;
+                firstValue = false ;
+            }
+            out.print("]") ;
+        }
+        out.print("}") ;
+        subject = null ;
+        properties.clear() ;
+    }
+
+    private void writeId(Node n) {
+        if ( n.isURI() )
+            JSWriter.outputQuotedString(out, n.getURI()) ;
+        else if ( n.isBlank() )
+            JSWriter.outputQuotedString(out, "_:"+NodeFmtLib.encodeBNodeLabel(n.getBlankNodeLabel())) ;
+        else
+            throw new RiotException("JSON-LD: Not an IRI or blank node: "+n) ;
+    }
+
+    private void writeValue(Node n) {
+        if ( ! n.isLiteral() ) {
+            out.print("{\"@id\":") ;
+            writeId(n) ;
+            out.print("}") ;
+            return ;
+        }
+        out.print("{\"@value\":") ;
+        JSWriter.outputQuotedString(out, n.getLiteralLexicalForm()) ;
+        String lang = n.getLiteralLanguage() ;
+        String dt = n.getLiteralDatatypeURI() ;
+        if ( lang != null && ! lang.isEmpty() ) {
+            out.print(",\"@language\":") ;
+            JSWriter.outputQuotedString(out, lang) ;
+        } else if ( dt != null && ! dt.equals(xsdString) ) {
+            out.print(",\"@type\":") ;
+            JSWriter.outputQuotedString(out, dt) ;
+        }
+        out.print("}") ;
+    }
+}
@@ -130,7 +130,7 @@ public class WriterStreamRDFBlocks extends WriterStreamRDFBatched
         out.decIndent(INDENT_PREDICATE) ;
     }
         
-    private void writePredicateObjectList(Collection<Triple> triples) {
+    protected void writePredicateObjectList(Collection<Triple> triples) {
         // Find width
         int predicateMaxWidth = RiotLib.calcWidthTriples(pMap, baseURI, triples, MIN_PREDICATE, LONG_PREDICATE) ;
         boolean first = true ;
@@ -145,10 +145,15 @@ public class WriterStreamRDFBlocks extends WriterStreamRDFBatched
             out.pad(predicateMaxWidth) ;
             out.print(' ', GAP_P_O) ;
             Node o = triple.getObject() ;
-            outputNode(o) ;
+            writeObject(o) ;
         }
     }
 
+    /** Write the object of a triple. */
+    protected void writeObject(Node o) {
+        outputNode(o) ;
+    }
+
     @Override
     protected void finalizeRun() {
         if ( lastGraph != null )
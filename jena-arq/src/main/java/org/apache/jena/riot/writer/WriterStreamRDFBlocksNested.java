@@ -0,0 +1,392 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.writer;
+
+import java.io.OutputStream ;
+import java.io.Writer ;
+import java.util.* ;
+
+import org.apache.jena.atlas.io.IndentedWriter ;
+import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.sparql.core.DatasetGraph ;
+import org.apache.jena.sparql.core.Quad ;
+
+/** An output of triples / quads in blocks of the same subject, as
+ *  {@link WriterStreamRDFBlocks}, where a blank node used once as an object
+ *  is written nested, in {@code [ ... ]}, in place of the object.
+ *  <p>
+ *  A nested blank node has no label, so it can not be used again after it has
+ *  been written. Only blank nodes known not to be used again are nested, as told
+ *  by the {@link Nestable} given when the writer is created. {@link #nestable(Graph)}
+ *  and {@link #nestable(DatasetGraph)} ask the data being written, with a few
+ *  lookups for each blank node subject as its block is written ; over indexed
+ *  storage such as TDB2, this needs no memory beyond the window. A blank node is
+ *  nested only if all the triples with it as subject are in one block. Without a
+ *  {@link Nestable}, all blank nodes are written with labels, as {@link WriterStreamRDFBlocks}.
+ *  <p>
+ *  At most about {@code windowSize} triples ({@link #DFT_WINDOW} by default) are
+ *  held: the most recent blocks, and older blocks for blank nodes that may be
+ *  nested when their use arrives. A blank node is nested if the block for the blank
+ *  node as subject is still held when its use as an object is written. When over
+ *  the limit, the oldest held block is written, with a label.
+ *  Input sorted by subject, such as a scan of an SPO index, gives output
+ *  that is close to that of the pretty printer.
+ *  <p>
+ *  RDF lists are not written with {@code ( ... )}.
+ */
+public class WriterStreamRDFBlocksNested extends WriterStreamRDFBlocks
+{
+    /** Default size of the window, in triples */
+    public static final int DFT_WINDOW = 10000 ;
+
+    /** Whether a blank node may be written nested. */
+    public interface Nestable {
+        /**
+         * The number of triples with the blank node as subject, if it is used once
+         * as an object, and is not used in any other way or in any other graph ;
+         * otherwise -1.
+         * @param graph     The graph of the block, or null when writing triples
+         * @param bnode     The blank node
+         */
+        int subjectTriples(Node graph, Node bnode) ;
+    }
+
+    // Not yet asked.
+    private static final int UNKNOWN = -2 ;
+
+    private static class Block {
+        final Node graph ;
+        final Node subject ;
+        final boolean quads ;
+        final List<Triple> triples = new ArrayList<>() ;
+        // In the window, or held until the triple using it is written.
+        boolean inWindow = true ;
+        boolean written = false ;
+        // Triples with the subject in the data, from the Nestable.
+        int subjectTriples = UNKNOWN ;
+        Block(Node graph, Node subject, boolean quads) { this.graph = graph ; this.subject = subject ; this.quads = quads ; }
+    }
+
+    private final int windowSize ;
+    // Blank nodes that may be nested.
+    private final Nestable nestable ;
+    private final Deque<Block> window = new ArrayDeque<>() ;
+    private int windowTriples = 0 ;
+    // Blocks out of the window, held until the triple using them is written.
+    private final Deque<Block> held = new ArrayDeque<>() ;
+    private int heldTriples = 0 ;
+    // The graph of the block being written.
+    private Node currentGraph = null ;
+    // Blocks, not yet written, for blank node subjects.
+    private final Map<Node, Block> blankBlocks = new LinkedHashMap<>() ;
+    // Uses as object, in blocks not yet written, of blank nodes.
+    private final Map<Node, Integer> objectUses = new HashMap<>() ;
+    // Blank nodes being written nested, to stop cycles.
+    private final Set<Node> writing = new HashSet<>() ;
+
+    /** A writer with no information about blank nodes : no blank node is nested. */
+    public WriterStreamRDFBlocksNested(OutputStream output) {
+        this(output, DFT_WINDOW, null) ;
+    }
+
+    /**
+     * @param output        Output
+     * @param windowSize    Size of the window, in triples
+     * @param nestable      Which blank nodes may be nested, or null for none
+     */
+    public WriterStreamRDFBlocksNested(OutputStream output, int windowSize, Nestable nestable) {
+        super(output) ;
+        this.windowSize = windowSize ;
+        this.nestable = nestable ;
+    }
+
+    /** A writer with no information about blank nodes : no blank node is nested. */
+    public WriterStreamRDFBlocksNested(Writer output) {
+        this(output, DFT_WINDOW, null) ;
+    }
+
+    /** @see #WriterStreamRDFBlocksNested(OutputStream, int, Nestable) */
+    public WriterStreamRDFBlocksNested(Writer output, int windowSize, Nestable nestable) {
+        super(output) ;
+        this.windowSize = windowSize ;
+        this.nestable = nestable ;
+    }
+
+    /** A writer with no information about blank nodes : no blank node is nested. */
+    public WriterStreamRDFBlocksNested(IndentedWriter output) {
+        this(output, DFT_WINDOW, null) ;
+    }
+
+    /** @see #WriterStreamRDFBlocksNested(OutputStream, int, Nestable) */
+    public WriterStreamRDFBlocksNested(IndentedWriter output, int windowSize, Nestable nestable) {
+        super(output) ;
+        this.windowSize = windowSize ;
+        this.nestable = nestable ;
+    }
+
+    /** Nest the blank nodes of a graph that are used once as an object, found by
+     * looking in the graph. */
+    public static Nestable nestable(Graph graph) {
+        return (g, b) -> {
+            if ( count(graph.find(Node.ANY, Node.ANY, b), 2) != 1 || count(graph.find(Node.ANY, b, Node.ANY), 1) != 0 )
+                return -1 ;
+            return count(graph.find(b, Node.ANY, Node.ANY), Integer.MAX_VALUE) ;
+        } ;
+    }
+
+    /** Nest the blank nodes of a dataset that are used once as an object, not as a
+     * graph name and only in one graph, found by looking in the dataset. */
+    public static Nestable nestable(DatasetGraph dsg) {
+        return (g, b) -> {
+            Iterator<Quad> uses = dsg.find(Node.ANY, Node.ANY, Node.ANY, b) ;
+            try {
+                if ( ! uses.hasNext() || ! sameGraph(uses.next().getGraph(), g) || uses.hasNext() )
+                    return -1 ;
+            } finally { Iter.close(uses) ; }
+            if ( count(dsg.find(b, Node.ANY, Node.ANY, Node.ANY), 1) != 0 || count(dsg.find(Node.ANY, Node.ANY, b, Node.ANY), 1) != 0 )
+                return -1 ;
+            Iterator<Quad> iter = dsg.find(Node.ANY, b, Node.ANY, Node.ANY) ;
+            try {
+                int x = 0 ;
+                while ( iter.hasNext() ) {
+                    if ( ! sameGraph(iter.next().getGraph(), g) )
+                        return -1 ;
+                    x++ ;
+                }
+                return x ;
+            } finally { Iter.close(iter) ; }
+        } ;
+    }
+
+    /** Count, up to a limit. */
+    private static int count(Iterator<?> iter, int limit) {
+        try {
+            int x = 0 ;
+            while ( x < limit && iter.hasNext() ) {
+                iter.next() ;
+                x++ ;
+            }
+            return x ;
+        } finally { Iter.close(iter) ; }
+    }
+
+    private static boolean sameGraph(Node g1, Node g2) {
+        if ( g1 == null || g2 == null )
+            return g1 == g2 ;
+        return g1.equals(g2) || ( Quad.isDefaultGraph(g1) && Quad.isDefaultGraph(g2) ) ;
+    }
+
+    @Override
+    protected void printBatchTriples(Node s, List<Triple> triples) {
+        add(null, s, triples, false) ;
+    }
+
+    @Override
+    protected void printBatchQuads(Node g, Node s, List<Quad> quads) {
+        List<Triple> triples = new ArrayList<>(quads.size()) ;
+        for ( Quad q : quads )
+            triples.add(q.asTriple()) ;
+        add(g, s, triples, true) ;
+    }
+
+    @Override
+    protected void finalizeRun() {
+        drain() ;
+        super.finalizeRun() ;
+    }
+
+    private void add(Node g, Node s, List<Triple> triples, boolean quads) {
+        if ( g != null && g.isBlank() ) {
+            // A graph name is written with a label.
+            nodeToLabel.get(null, g) ;
+            release(g) ;
+        }
+        Block block = s.isBlank() ? blankBlocks.get(s) : null ;
+        if ( block != null && ( block.quads != quads || ! Objects.equals(block.graph, g) ) ) {
+            // In more than one graph : give it a label so it is never written nested.
+            nodeToLabel.get(null, s) ;
+            release(s) ;
+            block = null ;
+        }
+        if ( block == null ) {
+            block = new Block(g, s, quads) ;
+            window.addLast(block) ;
+            if ( s.isBlank() )
+                blankBlocks.putIfAbsent(s, block) ;
+        }
+        // The batch list is reused by the caller.
+        block.triples.addAll(triples) ;
+        if ( block.inWindow )
+            windowTriples += triples.size() ;
+        else
+            heldTriples += triples.size() ;
+        for ( Triple t : triples ) {
+            Node o = t.getObject() ;
+            if ( ! o.isBlank() )
+                continue ;
+            int x = objectUses.merge(o, 1, Integer::sum) ;
+            if ( x > 1 )
+                // No longer a candidate for nesting.
+                release(o) ;
+        }
+        if ( ! block.inWindow && ! nestable(block) )
+            release(s) ;
+        // Held blocks count against the window size : when over, blocks leave the
+        // window, then the oldest held blocks are written.
+        while ( windowTriples + heldTriples > windowSize ) {
+            if ( ! window.isEmpty() )
+                next() ;
+            else if ( ! held.isEmpty() )
+                writeHeld() ;
+            else
+                break ;
+        }
+    }
+
+    /** Move the oldest block out of the window. */
+    private void next() {
+        Block block = window.removeFirst() ;
+        if ( block.written )
+            return ;
+        if ( ! nestable(block) ) {
+            write(block) ;
+            return ;
+        }
+        // Held until the block that uses it is written.
+        windowTriples -= block.triples.size() ;
+        block.inWindow = false ;
+        heldTriples += block.triples.size() ;
+        held.addLast(block) ;
+    }
+
+    /** Write the oldest held block, with a label. */
+    private void writeHeld() {
+        Block block = held.removeFirst() ;
+        if ( ! block.written )
+            write(block) ;
+    }
+
+    /** The number of triples held, in the window or waiting for their use. */
+    /*package*/ int bufferedTriples() {
+        return windowTriples + heldTriples ;
+    }
+
+    /** Could the block be written nested: known not to be used again, all the triples of the
+     * subject, one use as an object, not by itself, and no label written yet. */
+    private boolean nestable(Block block) {
+        Node s = block.subject ;
+        if ( ! s.isBlank() || nestable == null )
+            return false ;
+        if ( block.subjectTriples == UNKNOWN )
+            block.subjectTriples = nestable.subjectTriples(block.graph, s) ;
+        if ( block.subjectTriples != block.triples.size() )
+            return false ;
+        if ( objectUses.getOrDefault(s, 0) != 1 || nodeToLabel.contains(null, s) )
+            return false ;
+        for ( Triple t : block.triples ) {
+            if ( t.getObject().equals(s) )
+                return false ;
+        }
+        return true ;
+    }
+
+    /** Write a held block if it is not going to be written nested. */
+    private void release(Node s) {
+        Block block = blankBlocks.get(s) ;
+        if ( block != null && ! block.inWindow && ! block.written )
+            write(block) ;
+    }
+
+    private void drain() {
+        while ( ! window.isEmpty() )
+            next() ;
+        // Held blocks, such as cycles of blank nodes.
+        while ( ! blankBlocks.isEmpty() )
+            write(blankBlocks.values().iterator().next()) ;
+        held.clear() ;
+        windowTriples = 0 ;
+        heldTriples = 0 ;
+    }
+
+    private void write(Block block) {
+        block.written = true ;
+        blankBlocks.remove(block.subject, block) ;
+        currentGraph = block.graph ;
+        if ( block.quads ) {
+            List<Quad> quads = new ArrayList<>(block.triples.size()) ;
+            for ( Triple t : block.triples )
+                quads.add(new Quad(block.graph, t)) ;
+            super.printBatchQuads(block.graph, block.subject, quads) ;
+        } else
+            super.printBatchTriples(block.subject, block.triples) ;
+        written(block) ;
+    }
+
+    /** Update uses of blank nodes after a block has been written. */
+    private void written(Block block) {
+        if ( block.inWindow )
+            windowTriples -= block.triples.size() ;
+        else
+            heldTriples -= block.triples.size() ;
+        for ( Triple t : block.triples ) {
+            Node o = t.getObject() ;
+            if ( ! o.isBlank() )
+                continue ;
+            int x = objectUses.merge(o, -1, Integer::sum) ;
+            if ( x <= 0 ) {
+                objectUses.remove(o) ;
+                // Written with a label.
+                release(o) ;
+            }
+        }
+    }
+
+    @Override
+    protected void writeObject(Node o) {
+        Block block = o.isBlank() ? blankBlocks.get(o) : null ;
+        if ( block == null || block.written || writing.contains(o)
+             || ! Objects.equals(block.graph, currentGraph) || ! nestable(block) ) {
+            super.writeObject(o) ;
+            return ;
+        }
+        block.written = true ;
+        blankBlocks.remove(o, block) ;
+        writing.add(o) ;
+
+        int indent0 = out.getAbsoluteIndent() ;
+        out.setAbsoluteIndent(out.getCol()) ;
+        out.print("[ ") ;
+        out.incIndent(2) ;
+        writePredicateObjectList(block.triples) ;
+        out.decIndent(2) ;
+        if ( block.triples.size() == 1 )
+            out.print(" ]") ;
+        else {
+            out.println() ;
+            out.print("]") ;
+        }
+        out.setAbsoluteIndent(indent0) ;
+
+        writing.remove(o) ;
+        written(block) ;
+    }
+}
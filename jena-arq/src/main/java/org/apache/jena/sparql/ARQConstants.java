@@ -237,6 +237,9 @@ public class ARQConstants
     /** Context key for the algebra expression of the query execution after optimization */
     public static final Symbol sysCurrentAlgebra        = Symbol.create(systemVarNS+"algebra") ;
 
+    /** Context key for the per-operator execution statistics, if being collected */
+    public static final Symbol sysExecStats             = Symbol.create(systemVarNS+"execStats") ;
+
 //    /** Context key for the algebra execution engine of the query execution */
 //    public static final Symbol sysCurrentOpExec   = Symbol.create(systemVarNS+"opExec") ;
 
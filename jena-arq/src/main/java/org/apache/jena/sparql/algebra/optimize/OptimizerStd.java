@@ -23,6 +23,7 @@ import org.apache.jena.sparql.ARQConstants ;
 import org.apache.jena.sparql.SystemARQ ;
 import org.apache.jena.sparql.algebra.* ;
 import org.apache.jena.sparql.algebra.op.OpLabel ;
+import org.apache.jena.sparql.engine.http.Service ;
 import org.apache.jena.sparql.util.Context ;
 import org.apache.jena.sparql.util.Symbol ;
 import org.slf4j.Logger ;
@@ -132,6 +133,12 @@ public class OptimizerStd implements Rewrite
         // Find joins/leftJoin that can be done by index joins (generally preferred as fixed memory overhead).
         if ( context.isTrueOrUndef(ARQ.optIndexJoinStrategy) )
             op = transformJoinStrategy(op) ;
+
+        // Order joins involving SERVICE using statistics about the endpoints.
+        // Done after choosing linear joins because it also decides between
+        // bind join (sequence) and independent fetch (join) for each SERVICE.
+        if ( context.isTrue(ARQ.optServiceFederation) && ! context.isFalse(Service.serviceAllowed) )
+            op = transformServiceFederation(op) ;
                 
         // Place filters close to where their dependency variables are defined.
         // This prunes the output of that step as early as possible.
@@ -223,6 +230,10 @@ public class OptimizerStd implements Rewrite
         return apply("Index Join strategy", new TransformJoinStrategy(), op) ;
     }
 
+    protected Op transformServiceFederation(Op op) {
+        return apply("SERVICE federation", new TransformServiceFederation(context), op) ;
+    }
+
     protected Op transformFilterPlacement(Op op) {
         if ( context.isTrue(ARQ.optFilterPlacementConservative))
             op = apply("Filter Placement (conservative)", new TransformFilterPlacementConservative(), op) ;
@@ -0,0 +1,305 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.algebra.optimize;
+
+import java.util.* ;
+import java.util.function.ToLongFunction ;
+
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.graph.GraphStatisticsHandler ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.query.Dataset ;
+import org.apache.jena.sparql.ARQConstants ;
+import org.apache.jena.sparql.algebra.Op ;
+import org.apache.jena.sparql.algebra.OpVars ;
+import org.apache.jena.sparql.algebra.TransformCopy ;
+import org.apache.jena.sparql.algebra.op.* ;
+import org.apache.jena.sparql.core.BasicPattern ;
+import org.apache.jena.sparql.core.DatasetGraph ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.engine.http.ServiceStats ;
+import org.apache.jena.sparql.engine.main.JoinClassifier ;
+import org.apache.jena.sparql.engine.main.iterator.QueryIterServiceBulk ;
+import org.apache.jena.sparql.util.Context ;
+
+/**
+ * Plan joins that involve SERVICE.
+ * <p>
+ * The elements of a join (or of a sequence made from a join by
+ * {@link TransformJoinStrategy}) are given an estimated size: SERVICE patterns
+ * from the statistics of the endpoint ({@link ServiceStats}), basic graph
+ * patterns from the statistics of the local default graph, if available, and
+ * tables by their size. The elements are then ordered, smallest first and
+ * preferring elements that share variables with those already placed.
+ * <p>
+ * Each SERVICE is then either a bind join, where the bindings so far are
+ * substituted into the SERVICE request ({@code (sequence)}), or fetched
+ * independently and joined ({@code (join)}), whichever is estimated to be
+ * cheaper, counting each request as {@link #RequestCost} results.
+ * <p>
+ * Elements with no estimate are left in their original order after those with
+ * estimates. If there is no estimate for any SERVICE, the join is not changed.
+ */
+public class TransformServiceFederation extends TransformCopy
+{
+    /** Cost of making a request, in terms of the number of results transferred. */
+    public static final long RequestCost = 100 ;
+
+    private static final long Unknown = ServiceStats.Unknown ;
+
+    private final ServiceStats stats ;
+    private final Graph localGraph ;
+    private final int batchSize ;
+    // Settings for requests for statistics.
+    private final Context context ;
+
+    public TransformServiceFederation(Context context) {
+        this(ServiceStats.get(context), localGraph(context), QueryIterServiceBulk.batchSize(context), context) ;
+    }
+
+    public TransformServiceFederation(ServiceStats stats, Graph localGraph, int batchSize) {
+        this(stats, localGraph, batchSize, null) ;
+    }
+
+    private TransformServiceFederation(ServiceStats stats, Graph localGraph, int batchSize, Context context) {
+        this.stats = stats ;
+        this.localGraph = localGraph ;
+        this.batchSize = Math.max(1, batchSize) ;
+        this.context = context ;
+    }
+
+    private static Graph localGraph(Context context) {
+        Object obj = context.get(ARQConstants.sysCurrentDataset) ;
+        DatasetGraph dsg = null ;
+        if ( obj instanceof Dataset )
+            dsg = ((Dataset)obj).asDatasetGraph() ;
+        else if ( obj instanceof DatasetGraph )
+            dsg = (DatasetGraph)obj ;
+        return dsg == null ? null : dsg.getDefaultGraph() ;
+    }
+
+    @Override
+    public Op transform(OpJoin opJoin, Op left, Op right) {
+        Op op = plan(Arrays.asList(left, right)) ;
+        return op != null ? op : super.transform(opJoin, left, right) ;
+    }
+
+    @Override
+    public Op transform(OpSequence opSequence, List<Op> elts) {
+        Op op = plan(elts) ;
+        return op != null ? op : super.transform(opSequence, elts) ;
+    }
+
+    private static class Element {
+        final Op op ;
+        final long estimate ;
+        final Set<Var> vars ;
+        Element(Op op, long estimate) {
+            this.op = op ;
+            this.estimate = estimate ;
+            this.vars = OpVars.visibleVars(op) ;
+        }
+    }
+
+    /** Order the elements of a join; return null for no change. */
+    private Op plan(List<Op> ops) {
+        List<Op> leaves = new ArrayList<>() ;
+        flatten(ops, leaves) ;
+        boolean hasEstimate = false ;
+        List<Element> elements = new ArrayList<>() ;
+        for ( Op op : leaves ) {
+            Element elt = new Element(op, estimate(op)) ;
+            if ( op instanceof OpService && elt.estimate != Unknown )
+                hasEstimate = true ;
+            elements.add(elt) ;
+        }
+        if ( ! hasEstimate )
+            return null ;
+
+        // Greedy ordering.
+        List<Element> ordered = new ArrayList<>() ;
+        Set<Var> placedVars = new HashSet<>() ;
+        while ( ! elements.isEmpty() ) {
+            Element next = choose(elements, placedVars, ! ordered.isEmpty()) ;
+            elements.remove(next) ;
+            ordered.add(next) ;
+            placedVars.addAll(next.vars) ;
+        }
+
+        Element first = ordered.get(0) ;
+        Op acc = first.op ;
+        long accEstimate = first.estimate ;
+        Set<Var> accVars = new HashSet<>(first.vars) ;
+        for ( int i = 1 ; i < ordered.size() ; i++ ) {
+            Element elt = ordered.get(i) ;
+            boolean connected = ! Collections.disjoint(accVars, elt.vars) ;
+            if ( ! independentFetch(elt, accEstimate) && JoinClassifier.isLinear(acc, elt.op) )
+                acc = sequence(acc, elt.op) ;
+            else
+                acc = OpJoin.create(acc, elt.op) ;
+            accEstimate = joinEstimate(accEstimate, elt.estimate, connected) ;
+            accVars.addAll(elt.vars) ;
+        }
+        return acc ;
+    }
+
+    private static void flatten(List<Op> ops, List<Op> acc) {
+        for ( Op op : ops ) {
+            if ( op instanceof OpJoin ) {
+                OpJoin opJoin = (OpJoin)op ;
+                flatten(Arrays.asList(opJoin.getLeft(), opJoin.getRight()), acc) ;
+            } else if ( op instanceof OpSequence )
+                flatten(((OpSequence)op).getElements(), acc) ;
+            else
+                acc.add(op) ;
+        }
+    }
+
+    private static Element choose(List<Element> elements, Set<Var> placedVars, boolean preferConnected) {
+        Element best = null ;
+        boolean bestConnected = false ;
+        for ( Element elt : elements ) {
+            boolean connected = preferConnected && ! Collections.disjoint(placedVars, elt.vars) ;
+            if ( best == null || better(elt, connected, best, bestConnected) ) {
+                best = elt ;
+                bestConnected = connected ;
+            }
+        }
+        return best ;
+    }
+
+    private static boolean better(Element elt, boolean connected, Element best, boolean bestConnected) {
+        if ( connected != bestConnected )
+            return connected ;
+        // Unknown sorts last; ties keep the original order.
+        if ( elt.estimate == Unknown )
+            return false ;
+        return best.estimate == Unknown || elt.estimate < best.estimate ;
+    }
+
+    // Compare the cost of one request per batch of the bindings so far with one request for all the results.
+    private boolean independentFetch(Element elt, long accEstimate) {
+        if ( ! ( elt.op instanceof OpService ) || elt.estimate == Unknown || accEstimate == Unknown )
+            return false ;
+        long requests = ( accEstimate + batchSize - 1 ) / batchSize ;
+        long bindJoinCost = requests * RequestCost ;
+        long fetchCost = RequestCost + elt.estimate ;
+        return fetchCost < bindJoinCost ;
+    }
+
+    private static long joinEstimate(long accEstimate, long estimate, boolean connected) {
+        if ( accEstimate == Unknown || estimate == Unknown )
+            return Unknown ;
+        if ( connected )
+            return Math.min(accEstimate, estimate) ;
+        try {
+            return Math.multiplyExact(accEstimate, estimate) ;
+        } catch (ArithmeticException ex) {
+            return Long.MAX_VALUE ;
+        }
+    }
+
+    private static Op sequence(Op acc, Op op) {
+        if ( acc instanceof OpSequence ) {
+            ((OpSequence)acc).add(op) ;
+            return acc ;
+        }
+        OpSequence opSequence = OpSequence.create() ;
+        opSequence.add(acc) ;
+        opSequence.add(op) ;
+        return opSequence ;
+    }
+
+    // ---- Estimates
+
+    private long estimate(Op op) {
+        if ( op instanceof OpService )
+            return estimateService((OpService)op) ;
+        if ( op instanceof OpBGP )
+            return estimateLocal(((OpBGP)op).getPattern()) ;
+        if ( op instanceof OpTriple )
+            return estimateLocal(((OpTriple)op).asBGP().getPattern()) ;
+        if ( op instanceof OpTable )
+            return ((OpTable)op).getTable().size() ;
+        if ( op instanceof OpFilter )
+            return estimate(((OpFilter)op).getSubOp()) ;
+        return Unknown ;
+    }
+
+    private long estimateService(OpService opService) {
+        Node service = opService.getService() ;
+        if ( ! service.isURI() )
+            return Unknown ;
+        Op sub = opService.getSubOp() ;
+        while ( sub instanceof OpFilter )
+            sub = ((OpFilter)sub).getSubOp() ;
+        if ( ! ( sub instanceof OpBGP ) )
+            return Unknown ;
+        String endpoint = service.getURI() ;
+        return minimum(((OpBGP)sub).getPattern(), t -> estimateRemote(endpoint, t)) ;
+    }
+
+    private long estimateRemote(String endpoint, Triple triple) {
+        Node s = triple.getSubject() ;
+        Node p = triple.getPredicate() ;
+        Node o = triple.getObject() ;
+        if ( ! p.isURI() )
+            return stats.triples(endpoint, context) ;
+        ServiceStats.PredicateStats pStats = stats.predicate(endpoint, p, context) ;
+        long triples = pStats.triples ;
+        if ( triples == Unknown || triples == 0 )
+            return triples ;
+        if ( s.isConcrete() && o.isConcrete() )
+            return 1 ;
+        if ( s.isConcrete() && pStats.distinctSubjects > 0 )
+            return Math.max(1, triples / pStats.distinctSubjects) ;
+        if ( o.isConcrete() && pStats.distinctObjects > 0 )
+            return Math.max(1, triples / pStats.distinctObjects) ;
+        return triples ;
+    }
+
+    private long estimateLocal(BasicPattern pattern) {
+        if ( localGraph == null )
+            return Unknown ;
+        GraphStatisticsHandler handler = localGraph.getStatisticsHandler() ;
+        if ( handler == null )
+            return Unknown ;
+        return minimum(pattern, t -> handler.getStatistic(any(t.getSubject()), any(t.getPredicate()), any(t.getObject()))) ;
+    }
+
+    private static Node any(Node node) {
+        return node.isConcrete() ? node : Node.ANY ;
+    }
+
+    // The smallest estimate of the triple patterns, as the size of the basic graph pattern.
+    private static long minimum(BasicPattern pattern, ToLongFunction<Triple> estimator) {
+        if ( pattern.isEmpty() )
+            return 1 ;
+        long min = Unknown ;
+        for ( Triple t : pattern ) {
+            long x = estimator.applyAsLong(t) ;
+            if ( x == Unknown )
+                continue ;
+            if ( min == Unknown || x < min )
+                min = x ;
+        }
+        return min ;
+    }
+}
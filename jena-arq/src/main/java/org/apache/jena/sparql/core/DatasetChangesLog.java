@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.core;
+
+import java.io.ByteArrayOutputStream ;
+import java.io.IOException ;
+import java.io.OutputStream ;
+import java.util.LinkedHashMap ;
+import java.util.Map ;
+
+import org.apache.jena.atlas.io.IO ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.riot.dict.RDFDict ;
+import org.apache.jena.riot.dict.RDFDict.Compression ;
+import org.apache.jena.riot.dict.StreamRDF2Dict ;
+
+/** A {@link DatasetChanges} that writes the changes of each committed transaction
+ * to a patch log ; see {@link PatchLog} for the format.
+ * <p>
+ * The changes of a transaction are collected, per thread, until the transaction commits,
+ * when the net effect of the transaction, the quads deleted and the quads added, is written
+ * as one patch. {@link #abort()} discards the changes. A transaction with no changes
+ * writes nothing.
+ * <p>
+ * This class receives changes: use with {@link DatasetGraphMonitor}
+ * or a storage layer's change hooks. Call {@link #prepare()} before the commit of the
+ * storage, and {@link #commit()} or {@link #abort()} as the transaction finishes. The
+ * patch is written by {@link #prepare()}, so a transaction that commits is never missing
+ * from the log, and is followed by a record of whether the transaction committed. Only
+ * patches of transactions that committed are applied. If {@link #prepare()} is not used,
+ * {@link #commit()} writes the patch and its commit record together.
+ * <p>
+ * Only one transaction at a time should be between {@link #prepare()} and its
+ * {@link #commit()} or {@link #abort()}, as is the case when the storage commits one
+ * writer at a time.
+ */
+public class DatasetChangesLog implements DatasetChanges, AutoCloseable
+{
+    // The changes of a transaction.
+    private static class TxnChanges {
+        // Net changes : true for add, false for delete.
+        final Map<Quad, Boolean> quads = new LinkedHashMap<>() ;
+        // Sequence number of the patch written by prepare(), or 0.
+        long prepared = 0 ;
+
+        void clear() {
+            quads.clear() ;
+            prepared = 0 ;
+        }
+    }
+
+    private final OutputStream out ;
+    private final Compression compression ;
+    private boolean headerWritten = false ;
+    private long sequence ;
+    private final ThreadLocal<TxnChanges> changes = ThreadLocal.withInitial(TxnChanges::new) ;
+
+    /** Log to an {@code OutputStream}, with LZ4 compression, numbering patches from 1. */
+    public DatasetChangesLog(OutputStream out) {
+        this(out, Compression.LZ4, 0) ;
+    }
+
+    /**
+     * @param out           Output
+     * @param compression   Block compression of the patches
+     * @param lastSequence  Sequence number of the last patch already written, when continuing a log
+     */
+    public DatasetChangesLog(OutputStream out, Compression compression, long lastSequence) {
+        this.out = out ;
+        this.compression = compression ;
+        this.sequence = lastSequence ;
+    }
+
+    /** The sequence number of the last patch written. */
+    public synchronized long getSequence() {
+        return sequence ;
+    }
+
+    @Override
+    public void start() {
+        changes.get().clear() ;
+    }
+
+    @Override
+    public void change(QuadAction qaction, Node g, Node s, Node p, Node o) {
+        switch (qaction) {
+            case ADD :
+                changes.get().quads.put(quad(g, s, p, o), Boolean.TRUE) ;
+                break ;
+            case DELETE :
+                changes.get().quads.put(quad(g, s, p, o), Boolean.FALSE) ;
+                break ;
+            default :
+                break ;
+        }
+    }
+
+    private static Quad quad(Node g, Node s, Node p, Node o) {
+        if ( g == null || Quad.isDefaultGraph(g) )
+            g = Quad.defaultGraphIRI ;
+        return Quad.create(g, s, p, o) ;
+    }
+
+    @Override
+    public void finish() {}
+
+    @Override
+    public void reset() {
+        changes.get().clear() ;
+    }
+
+    /** The transaction on this thread is about to commit : write its changes as a patch.
+     * If this throws an exception, the patch has not been written and the transaction
+     * should not commit.
+     */
+    public void prepare() {
+        TxnChanges x = changes.get() ;
+        if ( x.prepared != 0 || x.quads.isEmpty() )
+            return ;
+        try {
+            synchronized(this) {
+                x.prepared = writePatch(x.quads) ;
+            }
+        } catch (IOException ex) { IO.exception(ex) ; }
+    }
+
+    /** The transaction on this thread has committed : record that its patch is committed,
+     * writing the patch first if {@link #prepare()} has not done so. */
+    public void commit() {
+        TxnChanges x = changes.get() ;
+        try {
+            synchronized(this) {
+                if ( x.prepared == 0 && ! x.quads.isEmpty() )
+                    x.prepared = writePatch(x.quads) ;
+                if ( x.prepared != 0 )
+                    writeOutcome(PatchLog.COMMIT, x.prepared) ;
+            }
+        } catch (IOException ex) { IO.exception(ex) ; }
+        finally { x.clear() ; }
+    }
+
+    /** The transaction on this thread has aborted : discard its changes. If
+     * {@link #prepare()} has written its patch, record that the patch is not committed. */
+    public void abort() {
+        TxnChanges x = changes.get() ;
+        try {
+            if ( x.prepared != 0 ) {
+                synchronized(this) {
+                    writeOutcome(PatchLog.ABORT, x.prepared) ;
+                }
+            }
+        } catch (IOException ex) { IO.exception(ex) ; }
+        finally { x.clear() ; }
+    }
+
+    /** Write a patch and return its sequence number. Caller synchronizes. */
+    private long writePatch(Map<Quad, Boolean> x) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream() ;
+        PatchLog.writeVarLong(body, sequence+1) ;
+        section(body, x, false) ;
+        section(body, x, true) ;
+        writeRecord(PatchLog.PATCH, body.toByteArray()) ;
+        // Written.
+        sequence++ ;
+        return sequence ;
+    }
+
+    // Caller synchronizes.
+    private void writeOutcome(int tag, long seq) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream() ;
+        PatchLog.writeVarLong(body, seq) ;
+        writeRecord(tag, body.toByteArray()) ;
+    }
+
+    // Caller synchronizes.
+    private void writeRecord(int tag, byte[] bytes) throws IOException {
+        if ( ! headerWritten ) {
+            out.write(PatchLog.MAGIC) ;
+            out.write(PatchLog.VERSION) ;
+        }
+        out.write(tag) ;
+        PatchLog.writeVarLong(out, bytes.length) ;
+        out.write(bytes) ;
+        long crc = PatchLog.crc(bytes, bytes.length) ;
+        for ( int i = 24 ; i >= 0 ; i -= 8 )
+            out.write((int)( crc >>> i ) & 0xFF) ;
+        out.flush() ;
+        headerWritten = true ;
+    }
+
+    private void section(OutputStream out, Map<Quad, Boolean> x, boolean adds) {
+        // Each section has its own tables; a small transaction has small tables.
+        int size = (int)Math.min(RDFDict.DFT_TERMS, 4L*x.size()+16) ;
+        StreamRDF2Dict stream = new StreamRDF2Dict(out, compression, size, Math.min(size, RDFDict.DFT_NAMESPACES), RDFDict.DFT_BLOCK_SIZE) ;
+        stream.start() ;
+        x.forEach((quad, add)->{
+            if ( add == adds )
+                stream.quad(quad) ;
+        }) ;
+        stream.finish() ;
+    }
+
+    /** Flush and close the output. */
+    @Override
+    public void close() {
+        synchronized(this) {
+            IO.close(out) ;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.core;
+
+import java.io.* ;
+import java.util.zip.CRC32 ;
+
+import org.apache.jena.atlas.io.IO ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.dict.Dict2StreamRDF ;
+import org.apache.jena.riot.dict.RDFDict ;
+import org.apache.jena.riot.system.StreamRDF ;
+import org.apache.jena.riot.system.StreamRDFBase ;
+import org.apache.jena.riot.system.StreamRDFLib ;
+import org.apache.jena.system.Txn ;
+
+/** Reading a log of changes to a dataset, as written by {@link DatasetChangesLog}.
+ * <p>
+ * The format is:
+ * <ul>
+ * <li>A header: the bytes {@code RDFL} and a version byte.
+ * <li>Records: a tag byte, the length of the body, the body, and the CRC-32 of the body
+ * (4 bytes, big-endian). The body starts with the sequence number of a patch.
+ * <li>A patch record: the sequence number, then the quads deleted and the quads added,
+ * each as RDF Dict (see {@link RDFDict}).
+ * <li>A commit or abort record: the sequence number of the patch before it, and
+ * whether its transaction committed. Only patches that are followed by a commit record
+ * are applied.
+ * </ul>
+ * Each patch has its own term tables, so a patch can be decoded without the patches before it.
+ * The header may appear again before any record so logs can be appended to each other.
+ * Within a patch, no quad is both deleted and added. Patches are numbered 1, 2, 3, ...
+ * with no gaps ; a gap means a patch is missing and is an error when applying the log.
+ * <p>
+ * A patch at the end of the log with no commit or abort record is waiting for its
+ * transaction to finish, and is not applied yet. A patch followed by another patch
+ * is in doubt : the writer stopped between writing the patch and the end of the
+ * transaction, and whether it committed is not known. Applying a log with a patch
+ * in doubt is an error.
+ * <p>
+ * A log that ends part way through a record, as when a process stops while writing,
+ * is read up to the last complete record. A complete record that fails its CRC check is an error.
+ */
+public class PatchLog {
+    static final byte[] MAGIC  = { 'R', 'D', 'F', 'L' } ;
+    static final int VERSION   = 1 ;
+    static final int PATCH     = 1 ;
+    static final int COMMIT    = 2 ;
+    static final int ABORT     = 3 ;
+    // Largest body of a record.
+    static final int MAX_PATCH = Integer.MAX_VALUE - 8 ;
+
+    /** Apply all the committed patches in the log to the dataset.
+     * @return The sequence number of the last patch committed or aborted, or 0 if none.
+     */
+    public static long apply(InputStream in, DatasetGraph dsg) {
+        return apply(in, dsg, 0) ;
+    }
+
+    /** Apply the committed patches in the log with a sequence number greater than {@code after}
+     * to the dataset. Each patch is applied in its own write transaction if the dataset supports
+     * transactions and the caller is not already in a transaction. The first patch read must be
+     * numbered {@code after+1}, and each patch after that one more than the one before.
+     * @return The sequence number of the last patch committed or aborted, or {@code after} if none.
+     *     A patch after that one is waiting for its transaction to finish.
+     * @throws RiotException if a patch is missing or in doubt
+     */
+    public static long apply(InputStream in, DatasetGraph dsg, long after) {
+        boolean txn = dsg.supportsTransactions() && ! dsg.isInTransaction() ;
+        StreamRDF deletes = deletes(dsg) ;
+        StreamRDF adds = StreamRDFLib.dataset(dsg) ;
+        long last = after ;
+        // The patch waiting for its commit or abort record.
+        Record pending = null ;
+        in = buffered(in) ;
+        try {
+            for (;;) {
+                Record record = nextRecord(in) ;
+                if ( record == null )
+                    return last ;
+                if ( record.tag == PATCH ) {
+                    if ( pending != null )
+                        throw new RiotException("RDF Log: Patch "+pending.seq+" has no commit or abort") ;
+                    if ( record.seq <= after )
+                        continue ;
+                    if ( record.seq != last+1 )
+                        throw new RiotException("RDF Log: Missing patch: expected "+(last+1)+", found "+record.seq) ;
+                    pending = record ;
+                    continue ;
+                }
+                // Commit or abort.
+                if ( pending == null || pending.seq != record.seq ) {
+                    if ( record.seq > after )
+                        throw new RiotException("RDF Log: Commit or abort of patch "+record.seq+" does not follow the patch") ;
+                    continue ;
+                }
+                if ( record.tag == COMMIT ) {
+                    Record patch = pending ;
+                    Runnable action = ()->{
+                        section(patch.body, deletes) ;
+                        section(patch.body, adds) ;
+                    } ;
+                    if ( txn )
+                        Txn.executeWrite(dsg, action) ;
+                    else
+                        action.run() ;
+                }
+                last = pending.seq ;
+                pending = null ;
+            }
+        } catch (IOException ex) { IO.exception(ex) ; return last ; }
+    }
+
+    /** The sequence number of the last patch in the log, committed or not, or 0 if there are none.
+     * Use this to continue a log with {@link DatasetChangesLog#DatasetChangesLog(OutputStream, RDFDict.Compression, long)}.
+     */
+    public static long lastSequence(InputStream in) {
+        long last = 0 ;
+        in = buffered(in) ;
+        try {
+            for (;;) {
+                Record record = nextRecord(in) ;
+                if ( record == null )
+                    return last ;
+                if ( record.tag == PATCH )
+                    last = record.seq ;
+            }
+        } catch (IOException ex) { IO.exception(ex) ; return last ; }
+    }
+
+    // A record of the log, with the body after the sequence number.
+    private static class Record {
+        final int tag ;
+        final long seq ;
+        final InputStream body ;
+        Record(int tag, long seq, InputStream body) { this.tag = tag ; this.seq = seq ; this.body = body ; }
+    }
+
+    private static InputStream buffered(InputStream in) {
+        return ( in instanceof BufferedInputStream ) ? in : new BufferedInputStream(in, 128*1024) ;
+    }
+
+    /** Read the next record and check it ; return null at the end of the log
+     * or if the log ends part way through the record. */
+    private static Record nextRecord(InputStream in) throws IOException {
+        int tag ;
+        for (;;) {
+            int b = in.read() ;
+            if ( b < 0 )
+                return null ;
+            if ( b == PATCH || b == COMMIT || b == ABORT ) {
+                tag = b ;
+                break ;
+            }
+            if ( b != MAGIC[0] )
+                throw new RiotException("RDF Log: Bad record: "+b) ;
+            for ( int i = 1 ; i < MAGIC.length ; i++ ) {
+                int x = in.read() ;
+                if ( x < 0 )
+                    return null ;
+                if ( x != MAGIC[i] )
+                    throw new RiotException("RDF Log: Not an RDF log") ;
+            }
+            int version = in.read() ;
+            if ( version < 0 )
+                return null ;
+            if ( version != VERSION )
+                throw new RiotException("RDF Log: Unsupported version: "+version) ;
+        }
+        long length = readVarLong(in, true) ;
+        if ( length < 0 )
+            return null ;
+        if ( length > MAX_PATCH )
+            throw new RiotException("RDF Log: Bad record length: "+length) ;
+        byte[] body = readBytes(in, (int)length) ;
+        if ( body == null )
+            return null ;
+        long crc = 0 ;
+        for ( int i = 0 ; i < 4 ; i++ ) {
+            int x = in.read() ;
+            if ( x < 0 )
+                return null ;
+            crc = ( crc << 8 ) | x ;
+        }
+        if ( crc != crc(body, body.length) )
+            throw new RiotException("RDF Log: Record fails CRC check") ;
+        InputStream bodyIn = new ByteArrayInputStream(body) ;
+        long seq = readVarLong(bodyIn) ;
+        return new Record(tag, seq, bodyIn) ;
+    }
+
+    /** Read {@code length} bytes, or return null if there are not that many. */
+    private static byte[] readBytes(InputStream in, int length) throws IOException {
+        // Grow as bytes are read so a bad length does not allocate a large array.
+        ByteArrayOutputStream x = new ByteArrayOutputStream(Math.min(length, 64*1024)) ;
+        byte[] buffer = new byte[8*1024] ;
+        int remaining = length ;
+        while ( remaining > 0 ) {
+            int n = in.read(buffer, 0, Math.min(buffer.length, remaining)) ;
+            if ( n < 0 )
+                return null ;
+            x.write(buffer, 0, n) ;
+            remaining -= n ;
+        }
+        return x.toByteArray() ;
+    }
+
+    static long crc(byte[] bytes, int length) {
+        CRC32 crc = new CRC32() ;
+        crc.update(bytes, 0, length) ;
+        return crc.getValue() ;
+    }
+
+    private static void section(InputStream in, StreamRDF dest) {
+        new Dict2StreamRDF(in, dest).parse() ;
+    }
+
+    private static StreamRDF deletes(DatasetGraph dsg) {
+        return new StreamRDFBase() {
+            @Override
+            public void triple(Triple triple) {
+                dsg.delete(Quad.defaultGraphIRI, triple.getSubject(), triple.getPredicate(), triple.getObject()) ;
+            }
+
+            @Override
+            public void quad(Quad quad) {
+                dsg.delete(quad) ;
+            }
+        } ;
+    }
+
+    static void writeVarLong(OutputStream out, long x) throws IOException {
+        while ( ( x & ~0x7FL ) != 0 ) {
+            out.write((int)( x & 0x7F ) | 0x80) ;
+            x >>>= 7 ;
+        }
+        out.write((int)x) ;
+    }
+
+    static long readVarLong(InputStream in) throws IOException {
+        return readVarLong(in, false) ;
+    }
+
+    /** Read a number ; at the end of the input, return -1 if {@code eofOK} else throw an exception. */
+    private static long readVarLong(InputStream in, boolean eofOK) throws IOException {
+        long x = 0 ;
+        for ( int shift = 0 ; shift < 64 ; shift += 7 ) {
+            int b = in.read() ;
+            if ( b < 0 && eofOK )
+                return -1 ;
+            if ( b < 0 )
+                throw new RiotException("RDF Log: Unexpected end of input") ;
+            x |= (long)( b & 0x7F ) << shift ;
+            if ( ( b & 0x80 ) == 0 )
+                return x ;
+        }
+        throw new RiotException("RDF Log: Bad number") ;
+    }
+}
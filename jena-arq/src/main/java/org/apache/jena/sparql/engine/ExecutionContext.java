@@ -26,6 +26,7 @@ import org.apache.jena.graph.Graph ;
 import org.apache.jena.sparql.core.DatasetGraph ;
 import org.apache.jena.sparql.engine.main.OpExecutorFactory ;
 import org.apache.jena.sparql.function.FunctionEnv ;
+import org.apache.jena.sparql.path.eval.PathReachability ;
 import org.apache.jena.sparql.util.Context ;
 
 public class ExecutionContext implements FunctionEnv
@@ -41,6 +42,8 @@ public class ExecutionContext implements FunctionEnv
     private Collection<QueryIterator> allIterators     = null ; 
     private Graph activeGraph           = null ;
     private OpExecutorFactory executor  = null ;
+    // Remembered reachable sets for closure paths - shared by clones.
+    private PathReachability pathReachability = null ;
 
     /** Clone */
     public ExecutionContext(ExecutionContext other) 
@@ -51,6 +54,7 @@ public class ExecutionContext implements FunctionEnv
         this.allIterators = other.allIterators ;
         this.activeGraph = other.activeGraph ;
         this.executor = other.executor ;
+        this.pathReachability = other.pathReachability ;
     }
     
     /** Clone and change active graph - shares tracking */
@@ -69,6 +73,7 @@ public class ExecutionContext implements FunctionEnv
             this.allIterators  = new ArrayList<>() ;
         this.activeGraph = activeGraph ;
         this.executor = factory ;
+        this.pathReachability = PathReachability.create() ;
     }
 
     @Override
@@ -107,6 +112,16 @@ public class ExecutionContext implements FunctionEnv
         this.executor = executor ;
     }
 
+    /**
+     * The remembered reachable sets of closure paths for this execution.
+     * They are not reused by any other execution, including later operations
+     * of the same update request.
+     */
+    public PathReachability getPathReachability()
+    {
+        return pathReachability ;
+    }
+
     @Override
     public DatasetGraph getDataset()  { return dataset ; }
 
@@ -50,14 +50,21 @@ public abstract class QueryEngineBase implements OpEval, Closeable
     private Query query = null ;
     private Op queryOp = null ;
     private Plan plan = null ;
+    // Set when queryOp is an already optimized algebra expression from the plan cache.
+    private boolean cachedOp = false ;
     
     protected QueryEngineBase(Query query, DatasetGraph dsg, Binding input, Context cxt) {
         this(dsg, input, cxt) ;
         this.query = query ;
         query.setResultVars() ;
-        // Unoptimized so far.
-        setOp(createOp(query)) ;
         dataset = prepareDataset(dsg, query);
+        Op op = getCachedOp() ;
+        if ( op != null ) {
+            cachedOp = true ;
+            setOp(op) ;
+        } else
+            // Unoptimized so far.
+            setOp(createOp(query)) ;
     }
 
     private DatasetGraph prepareDataset(DatasetGraph originalDataset, Query query) {
@@ -117,13 +124,26 @@ public abstract class QueryEngineBase implements OpEval, Closeable
     {
         // Decide the algebra to actually execute.
         Op op = queryOp ;
-        if ( ! startBinding.isEmpty() ) {
-            op = Substitute.substitute(op, startBinding) ;
-            context.put(ARQConstants.sysCurrentAlgebra, op) ;
-            // Don't reset the startBinding because it also is
-            // needed in the output.
+        if ( QueryPlanCache.get(context) != null && isCacheablePlan() ) {
+            // Plan caching: optimize before substituting the start binding
+            // so that the optimized algebra can be reused with other bindings.
+            if ( ! cachedOp ) {
+                op = modifyOp(op) ;
+                putCachedOp(op) ;
+            }
+            if ( ! startBinding.isEmpty() ) {
+                op = Substitute.substitute(op, startBinding) ;
+                context.put(ARQConstants.sysCurrentAlgebra, op) ;
+            }
+        } else {
+            if ( ! startBinding.isEmpty() ) {
+                op = Substitute.substitute(op, startBinding) ;
+                context.put(ARQConstants.sysCurrentAlgebra, op) ;
+                // Don't reset the startBinding because it also is
+                // needed in the output.
+            }
+            op = modifyOp(op) ;
         }
-        op = modifyOp(op) ;
 
         QueryIterator queryIterator = null ;
         if ( dataset != null )
@@ -139,6 +159,24 @@ public abstract class QueryEngineBase implements OpEval, Closeable
     protected Op modifyOp(Op op)
     { return op ; }
     
+    private boolean isCacheablePlan() {
+        return query != null && ! isDynamicDataset() ;
+    }
+    
+    private Op getCachedOp() {
+        QueryPlanCache planCache = QueryPlanCache.get(context) ;
+        if ( planCache == null || ! isCacheablePlan() )
+            return null ;
+        return planCache.get(query, getClass(), dataset, context) ;
+    }
+    
+    private void putCachedOp(Op op) {
+        QueryPlanCache planCache = QueryPlanCache.get(context) ;
+        if ( planCache == null || ! isCacheablePlan() )
+            return ;
+        planCache.put(query, getClass(), dataset, context, op) ;
+    }
+    
     protected Op createOp(Query query)
     {
         Op op = Algebra.compile(query) ;
@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine;
+
+import java.lang.ref.WeakReference ;
+import java.util.Collections ;
+import java.util.HashMap ;
+import java.util.Map ;
+import java.util.Objects ;
+import java.util.concurrent.atomic.AtomicLong ;
+
+import org.apache.jena.atlas.lib.Cache ;
+import org.apache.jena.atlas.lib.CacheFactory ;
+import org.apache.jena.atlas.lib.cache.CacheGuava ;
+import org.apache.jena.atlas.lib.cache.CacheInfo ;
+import org.apache.jena.query.ARQ ;
+import org.apache.jena.query.Query ;
+import org.apache.jena.sparql.algebra.Op ;
+import org.apache.jena.sparql.algebra.OpVisitorBase ;
+import org.apache.jena.sparql.algebra.op.OpService ;
+import org.apache.jena.sparql.algebra.walker.Walker ;
+import org.apache.jena.sparql.core.DatasetGraph ;
+import org.apache.jena.sparql.engine.http.ServiceStats ;
+import org.apache.jena.sparql.util.Context ;
+import org.apache.jena.sparql.util.Symbol ;
+
+/**
+ * A cache of optimized algebra expressions for queries.
+ * <p>
+ * The cache is keyed by the normalized query (the parsed query, compared by
+ * {@link Query#equals}, so differences of layout and comments do not matter),
+ * the kind of query engine, the dataset (by identity, weakly held), and the
+ * simple-valued settings of the execution context, so a change to an optimizer
+ * setting does not reuse a plan made under different settings. The cache holds its
+ * own copy of the query.
+ * <p>
+ * Plan caching is enabled by setting {@link ARQ#queryPlanCache} in the context,
+ * either to {@code true} for the shared, system-wide cache, or to a specific
+ * {@code QueryPlanCache}. Only queries executed against the dataset as given
+ * (i.e. no FROM/FROM NAMED dataset description) are cached. When plan caching is
+ * enabled, an initial binding is substituted into the optimized algebra, so the
+ * plan is shared by executions with different bindings (see {@link org.apache.jena.query.PreparedQuery}).
+ * Query objects must not be modified after they have been executed.
+ * <p>
+ * Anything that changes the plan that would be generated, other than context
+ * settings, such as new statistics, calls {@link #statisticsChanged()}; plans made
+ * before then are not used again. A plan with a {@code SERVICE} is also not used
+ * again once the statistics for that endpoint change (see {@link ServiceStats#version});
+ * other plans are not affected.
+ */
+public class QueryPlanCache {
+    /** Default size of the shared plan cache. */
+    public static final int DftPlanCacheSize = 1000 ;
+
+    private static QueryPlanCache systemPlanCache = new QueryPlanCache(DftPlanCacheSize) ;
+
+    /** The system-wide plan cache. */
+    public static QueryPlanCache get() {
+        return systemPlanCache ;
+    }
+
+    /**
+     * Return the plan cache to use for a context, or null if plan caching is not
+     * enabled.
+     */
+    public static QueryPlanCache get(Context context) {
+        if ( context == null )
+            return null ;
+        Object obj = context.get(ARQ.queryPlanCache) ;
+        if ( obj == null )
+            return null ;
+        if ( obj instanceof QueryPlanCache )
+            return (QueryPlanCache)obj ;
+        if ( context.isTrue(ARQ.queryPlanCache) )
+            return systemPlanCache ;
+        return null ;
+    }
+
+    // Incremented when statistics used by optimizers change.
+    private static final AtomicLong statsVersion = new AtomicLong(0) ;
+
+    /** Statistics used by query optimization have changed: cached plans are not used again. */
+    public static void statisticsChanged() {
+        statsVersion.incrementAndGet() ;
+    }
+
+    private final int maxSize ;
+    private final Cache<PlanKey, Plan> cache ;
+
+    public QueryPlanCache(int maxSize) {
+        this.maxSize = maxSize ;
+        this.cache = CacheFactory.createCache(maxSize) ;
+    }
+
+    /** Get a plan, or return null. */
+    public Op get(Query query, Class<?> engine, DatasetGraph dataset, Context context) {
+        PlanKey key = key(query, engine, dataset, context) ;
+        Plan plan = cache.getIfPresent(key) ;
+        if ( plan == null )
+            return null ;
+        if ( ! plan.isCurrent(ServiceStats.get(context)) ) {
+            cache.remove(key) ;
+            return null ;
+        }
+        return plan.op ;
+    }
+
+    /** Record the optimized algebra for a query. */
+    public void put(Query query, Class<?> engine, DatasetGraph dataset, Context context, Op op) {
+        // The caller's query may be changed later.
+        Query copy = query.cloneQuery() ;
+        copy.setResultVars() ;
+        cache.put(key(copy, engine, dataset, context), new Plan(op, serviceVersions(op, ServiceStats.get(context)))) ;
+    }
+
+    /** Remove all entries. */
+    public void clear() {
+        cache.clear() ;
+    }
+
+    /** Current number of entries in the cache. */
+    public long size() {
+        return cache.size() ;
+    }
+
+    public CacheInfo stats() {
+        if ( cache instanceof CacheGuava<?, ?> )
+            return new CacheInfo(maxSize, ((CacheGuava<?, ?>)cache).stats()) ;
+        return new CacheInfo(maxSize, -1, -1, -1, -1) ;
+    }
+
+    private static PlanKey key(Query query, Class<?> engine, DatasetGraph dataset, Context context) {
+        return new PlanKey(query, engine.getName(), dataset, statsVersion.get(), settings(context)) ;
+    }
+
+    /** The statistics versions of the endpoints of the SERVICEs in a plan. */
+    private static Map<String, Long> serviceVersions(Op op, ServiceStats stats) {
+        Map<String, Long> versions = new HashMap<>() ;
+        Walker.walk(op, new OpVisitorBase() {
+            @Override
+            public void visit(OpService opService) {
+                if ( opService.getService().isURI() ) {
+                    String endpoint = opService.getService().getURI() ;
+                    versions.put(endpoint, stats.version(endpoint)) ;
+                }
+            }
+        }) ;
+        return versions.isEmpty() ? Collections.emptyMap() : versions ;
+    }
+
+    /** The simple-valued settings; excludes per-execution objects such as the current time. */
+    private static Map<Symbol, Object> settings(Context context) {
+        Map<Symbol, Object> settings = new HashMap<>() ;
+        for ( Symbol s : context.keys() ) {
+            Object v = context.get(s) ;
+            if ( v instanceof Boolean || v instanceof String || v instanceof Number || v instanceof Symbol )
+                settings.put(s, v) ;
+        }
+        return settings ;
+    }
+
+    private static final class Plan {
+        private final Op op ;
+        private final Map<String, Long> serviceVersions ;
+
+        Plan(Op op, Map<String, Long> serviceVersions) {
+            this.op = op ;
+            this.serviceVersions = serviceVersions ;
+        }
+
+        // Whether the endpoint statistics are those the plan was made with.
+        boolean isCurrent(ServiceStats stats) {
+            for ( Map.Entry<String, Long> e : serviceVersions.entrySet() ) {
+                if ( stats.version(e.getKey()) != e.getValue() )
+                    return false ;
+            }
+            return true ;
+        }
+    }
+
+    private static final class PlanKey {
+        private final Query query ;
+        private final String engine ;
+        // Weak so the cache does not keep datasets alive; a cleared key matches nothing.
+        private final WeakReference<DatasetGraph> dataset ;
+        private final int datasetHash ;
+        private final long version ;
+        private final Map<Symbol, Object> settings ;
+
+        PlanKey(Query query, String engine, DatasetGraph dataset, long version, Map<Symbol, Object> settings) {
+            this.query = query ;
+            this.engine = engine ;
+            this.dataset = (dataset == null) ? null : new WeakReference<>(dataset) ;
+            this.datasetHash = System.identityHashCode(dataset) ;
+            this.version = version ;
+            this.settings = settings ;
+        }
+
+        private boolean sameDataset(PlanKey other) {
+            if ( dataset == null || other.dataset == null )
+                return dataset == other.dataset ;
+            DatasetGraph dsg = dataset.get() ;
+            return dsg != null && dsg == other.dataset.get() ;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, engine, datasetHash, version, settings) ;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if ( this == obj )
+                return true ;
+            if ( !(obj instanceof PlanKey) )
+                return false ;
+            PlanKey other = (PlanKey)obj ;
+            return version == other.version &&
+                   Objects.equals(engine, other.engine) &&
+                   sameDataset(other) &&
+                   Objects.equals(settings, other.settings) &&
+                   Objects.equals(query, other.query) ;
+        }
+    }
+}
@@ -855,8 +855,16 @@ public class QueryEngineHTTP implements QueryExecution {
 
     private static String initSelectContentTypes() {
         StringBuilder sBuff = new StringBuilder() ;
-        accumulateContentTypeString(sBuff, WebContent.contentTypeResultsJSON,  1.0);
-        accumulateContentTypeString(sBuff, WebContent.contentTypeResultsXML,   0.9);     // Less efficient
+        // Binary, streaming, for Jena to Jena. Other servers do not offer it.
+        // The parameter asks for terms repeated from the previous row to be sent once.
+        accumulateContentTypeString(sBuff, WebContent.contentTypeResultsThriftRepeat, 1.0);
+        accumulateResultsContentTypes(sBuff);
+        return sBuff.toString() ;
+    }
+
+    private static void accumulateResultsContentTypes(StringBuilder sBuff) {
+        accumulateContentTypeString(sBuff, WebContent.contentTypeResultsJSON,  0.9);
+        accumulateContentTypeString(sBuff, WebContent.contentTypeResultsXML,   0.8);     // Less efficient
         
         accumulateContentTypeString(sBuff, WebContent.contentTypeTextTSV,      0.7);
         accumulateContentTypeString(sBuff, WebContent.contentTypeTextCSV,      0.5);
@@ -864,17 +872,20 @@ public class QueryEngineHTTP implements QueryExecution {
         accumulateContentTypeString(sBuff, WebContent.contentTypeJSON,         0.2);     // We try to parse these in  
         accumulateContentTypeString(sBuff, WebContent.contentTypeXML,          0.2) ;    // the hope they are right.
         accumulateContentTypeString(sBuff, "*/*",                              0.1) ;    // Get something!
-        return sBuff.toString() ;
     }
 
     private static final String askContentTypeHeader = initAskContentTypes() ;
 
     public static String defaultAskHeader() {
-        return dftSelectContentTypeHeader ;
+        return askContentTypeHeader ;
     }
 
-    // These happen to be the same.
-    private static String initAskContentTypes() { return initSelectContentTypes(); }
+    // As SELECT except there is no RDF Thrift encoding for boolean results.
+    private static String initAskContentTypes() {
+        StringBuilder sBuff = new StringBuilder() ;
+        accumulateResultsContentTypes(sBuff);
+        return sBuff.toString() ;
+    }
 
     private static final String dftConstructContentTypeHeader = initConstructContentTypes() ;
 
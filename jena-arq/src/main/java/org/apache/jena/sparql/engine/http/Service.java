@@ -20,15 +20,21 @@ package org.apache.jena.sparql.engine.http;
 
 import java.io.InputStream;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.apache.http.client.HttpClient;
 import org.apache.jena.atlas.io.IO;
+import org.apache.jena.atlas.iterator.Iter;
 import org.apache.jena.query.Query ;
 import org.apache.jena.query.QueryExecException ;
 import org.apache.jena.query.ResultSet ;
-import org.apache.jena.query.ResultSetFactory ;
+import org.apache.jena.riot.Lang ;
+import org.apache.jena.riot.ResultSetMgr ;
+import org.apache.jena.riot.WebContent ;
+import org.apache.jena.riot.resultset.ResultSetLang ;
+import org.apache.jena.riot.resultset.ResultSetReaderRegistry ;
 import org.apache.jena.sparql.SystemARQ ;
 import org.apache.jena.sparql.algebra.Op ;
 import org.apache.jena.sparql.algebra.OpAsQuery ;
@@ -37,8 +43,11 @@ import org.apache.jena.sparql.algebra.op.OpService ;
 import org.apache.jena.sparql.core.Var ;
 import org.apache.jena.sparql.engine.QueryIterator ;
 import org.apache.jena.sparql.engine.Rename ;
+import org.apache.jena.sparql.engine.binding.Binding ;
 import org.apache.jena.sparql.engine.iterator.QueryIter ;
+import org.apache.jena.sparql.engine.iterator.QueryIterPlainWrapper ;
 import org.apache.jena.sparql.engine.iterator.QueryIteratorResultSet ;
+import org.apache.jena.sparql.engine.iterator.QueryIteratorWrapper ;
 import org.apache.jena.sparql.mgt.Explain ;
 import org.apache.jena.sparql.util.Context ;
 import org.apache.jena.sparql.util.Symbol ;
@@ -76,6 +85,49 @@ public class Service {
     
     public static final Symbol serviceAllowed = SystemARQ.allocSymbol(base, "serviceAllowed");
     
+    /**
+     * Number of input bindings sent to the remote endpoint in one request,
+     * as a {@code VALUES} block (a Number, or a string parsed as a number).
+     * If not set, or 1, there is one request for each input binding.
+     * @see org.apache.jena.sparql.engine.main.iterator.QueryIterServiceBulk
+     */
+    public static final Symbol serviceBatchSize = SystemARQ.allocSymbol(base, "serviceBatchSize");
+
+    /**
+     * Number of remote requests that one SERVICE in a query execution may have
+     * in progress at the same time (a Number, or a string parsed as a number).
+     * If not set, or 1, requests are made one after another.
+     * @see org.apache.jena.sparql.engine.main.iterator.QueryIterServiceBulk
+     */
+    public static final Symbol serviceConcurrency = SystemARQ.allocSymbol(base, "serviceConcurrency");
+
+    /**
+     * Maximum number of requests in progress at the same time to any one
+     * endpoint, over all query executions, when SERVICE requests are made
+     * concurrently. If not set, there is no limit.
+     */
+    public static final Symbol serviceEndpointConcurrency = SystemARQ.allocSymbol(base, "serviceEndpointConcurrency");
+
+    /**
+     * Whether the results of concurrent SERVICE requests are returned in the
+     * order of the input bindings (the default). If "false", results are
+     * returned as they arrive from any of the requests in progress.
+     */
+    public static final Symbol serviceOrdered = SystemARQ.allocSymbol(base, "serviceOrdered");
+
+    /**
+     * Cache the results of SERVICE requests. Set to {@code true} for the shared,
+     * system-wide cache or to a specific {@link ServiceCache}.
+     * <p>By default, results are not cached.
+     */
+    public static final Symbol serviceCache = SystemARQ.allocSymbol(base, "serviceCache");
+
+    /**
+     * The {@link ServiceStats} used to plan SERVICE execution. If not set, the
+     * system-wide statistics are used.
+     */
+    public static final Symbol serviceStats = SystemARQ.allocSymbol(base, "serviceStats");
+
     /**
      * Set timeout. The value of this symbol gives the value of the timeout in
      * milliseconds
@@ -100,12 +152,49 @@ public class Service {
      * @return Query iterator of service results
      */
     public static QueryIterator exec(OpService op, Context context) {
+        return exec(op, context, true) ;
+    }
+
+    /**
+     * Executes a service operator.
+     * <p>
+     * If {@code materialize} is true, the results are read completely before
+     * returning and the connection is released. If it is false, results are
+     * read as the iterator is used and the iterator must be closed.
+     *
+     * @param op
+     *            Service
+     * @param context
+     *            Context
+     * @param materialize
+     *            Whether to read all the results before returning
+     * @return Query iterator of service results
+     */
+    public static QueryIterator exec(OpService op, Context context, boolean materialize) {
         if ( context != null && context.isFalse(serviceAllowed) )
             throw new QueryExecException("SERVICE execution disabled") ;
         
         if (!op.getService().isURI())
             throw new QueryExecException("Service URI not bound: " + op.getService());
 
+        ServiceCache serviceCache = ServiceCache.get(context);
+        if ( serviceCache != null ) {
+            ServiceCache.Request request = serviceCache.request(op, context);
+            if ( request != null ) {
+                List<Binding> results = serviceCache.get(request);
+                if ( results == null ) {
+                    QueryIterator qIter = execHTTP(op, context, true);
+                    try { results = Iter.toList(qIter); }
+                    finally { qIter.close(); }
+                    serviceCache.put(request, results);
+                }
+                return new QueryIterPlainWrapper(results.iterator());
+            }
+        }
+        return execHTTP(op, context, materialize);
+    }
+
+    private static QueryIterator execHTTP(OpService op, Context context, boolean materialize) {
         // This relies on the observation that the query was originally correct,
         // so reversing the scope renaming is safe (it merely restores the
         // algebra expression).
@@ -169,16 +258,28 @@ public class Service {
         Explain.explain("HTTP", query, context);
         String uri = op.getService().getURI();
         HttpQuery httpQuery = configureQuery(uri, context, query);
+        // Prefer RDF Thrift, which Jena endpoints offer, then the standard formats.
+        httpQuery.setAccept(QueryEngineHTTP.defaultSelectHeader());
         InputStream in = httpQuery.exec();
 
-        // Read the whole of the results now.
-        // Avoids the problems with calling back into the same system e.g.
-        // Fuseki+SERVICE <http://localhost:3030/...>
-
-        ResultSet rs = ResultSetFactory.fromXML(in);
-        QueryIterator qIter = QueryIter.materialize(new QueryIteratorResultSet(rs));
-        // And close connection now, not when qIter is closed.
-        IO.close(in);
+        ResultSet rs = readResultSet(in, httpQuery.getContentType());
+        QueryIterator qIter;
+        if ( materialize ) {
+            // Read the whole of the results now.
+            // Avoids the problems with calling back into the same system e.g.
+            // Fuseki+SERVICE <http://localhost:3030/...>
+            qIter = QueryIter.materialize(new QueryIteratorResultSet(rs));
+            // And close connection now, not when qIter is closed.
+            IO.close(in);
+        } else {
+            qIter = new QueryIteratorWrapper(new QueryIteratorResultSet(rs)) {
+                @Override
+                protected void closeIterator() {
+                    super.closeIterator();
+                    IO.close(in);
+                }
+            };
+        }
 
         // In some cases we may need to apply a re-mapping
         // This solves JENA-494 the naive way and may be brittle for complex
@@ -190,6 +291,14 @@ public class Service {
         return qIter;
     }
 
+    // Read the results in the format of the response, assuming XML if it is not known.
+    private static ResultSet readResultSet(InputStream in, String contentType) {
+        Lang lang = WebContent.contentTypeToLangResultSet(contentType);
+        if ( lang == null || ! ResultSetReaderRegistry.isRegistered(lang) )
+            lang = ResultSetLang.SPARQLResultSetXML;
+        return ResultSetMgr.read(in, lang);
+    }
+
     /**
      * Create and configure the HttpQuery object.
      * 
@@ -0,0 +1,378 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.http;
+
+import java.io.* ;
+import java.nio.charset.StandardCharsets ;
+import java.nio.file.DirectoryStream ;
+import java.nio.file.Files ;
+import java.nio.file.Path ;
+import java.nio.file.StandardCopyOption ;
+import java.security.MessageDigest ;
+import java.security.NoSuchAlgorithmException ;
+import java.util.* ;
+
+import org.apache.jena.atlas.lib.Bytes ;
+import org.apache.jena.atlas.lib.Cache ;
+import org.apache.jena.atlas.lib.CacheFactory ;
+import org.apache.jena.atlas.lib.cache.CacheGuava ;
+import org.apache.jena.atlas.lib.cache.CacheInfo ;
+import org.apache.jena.atlas.logging.Log ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.query.ARQ ;
+import org.apache.jena.riot.thrift.Binding2Thrift ;
+import org.apache.jena.riot.thrift.Thift2Binding ;
+import org.apache.jena.sparql.algebra.Op ;
+import org.apache.jena.sparql.algebra.op.OpService ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.engine.binding.Binding ;
+import org.apache.jena.sparql.engine.binding.BindingFactory ;
+import org.apache.jena.sparql.engine.binding.BindingMap ;
+import org.apache.jena.sparql.graph.NodeTransformLib ;
+import org.apache.jena.sparql.util.Context ;
+import org.apache.jena.sparql.util.Symbol ;
+
+/**
+ * A cache of the results of SERVICE requests.
+ * <p>
+ * Entries are keyed by the SERVICE operation, after any substitution of
+ * bindings, with the variables renamed in a standard way so that patterns that
+ * differ only in the names of their variables share an entry, and by the
+ * settings for the endpoint ({@link org.apache.jena.query.ARQ#serviceParams} and
+ * {@link Service#serviceContext}). Requests made with an HTTP client set in the
+ * context ({@link Service#queryClient}), which may carry credentials, are not
+ * cached. Results are held
+ * as compact binary rows (the RDF Thrift encoding). Entries expire a fixed time
+ * after they are added and the number of entries is limited. Results larger
+ * than a set size are not cached. Optionally, entries are also written to a
+ * directory so they can be used by later runs of the JVM ; expired files are
+ * removed when the cache is created and from time to time when entries are written.
+ * <p>
+ * Caching is enabled by setting {@link Service#serviceCache} in the context,
+ * either to {@code true} for the shared, system-wide cache, or to a specific
+ * {@code ServiceCache}. Only successful requests are cached.
+ */
+public class ServiceCache {
+    /** Default number of entries in the shared cache. */
+    public static final int DftCacheSize = 1000 ;
+    /** Default time to live of an entry, in milliseconds. */
+    public static final long DftTimeToLive = 5*60*1000 ;
+    /** Default largest result, in bytes, that is cached. */
+    public static final int DftMaxEntryBytes = 1024*1024 ;
+
+    private static ServiceCache systemServiceCache = new ServiceCache(DftCacheSize, DftTimeToLive) ;
+
+    /** The system-wide SERVICE cache. */
+    public static ServiceCache get() {
+        return systemServiceCache ;
+    }
+
+    /**
+     * Return the SERVICE cache to use for a context, or null if caching is not
+     * enabled.
+     */
+    public static ServiceCache get(Context context) {
+        if ( context == null )
+            return null ;
+        Object obj = context.get(Service.serviceCache) ;
+        if ( obj == null )
+            return null ;
+        if ( obj instanceof ServiceCache )
+            return (ServiceCache)obj ;
+        if ( context.isTrue(Service.serviceCache) )
+            return systemServiceCache ;
+        return null ;
+    }
+
+    private final int maxSize ;
+    private final long timeToLive ;
+    private final int maxEntryBytes ;
+    private final Path directory ;
+    private final Cache<String, Entry> cache ;
+    private volatile long lastSweep ;
+
+    /** A cache, held in memory. */
+    public ServiceCache(int maxSize, long timeToLiveMillis) {
+        this(maxSize, timeToLiveMillis, DftMaxEntryBytes, null) ;
+    }
+
+    /**
+     * A cache, held in memory and, if {@code directory} is not null, also kept
+     * as files in that directory.
+     */
+    public ServiceCache(int maxSize, long timeToLiveMillis, int maxEntryBytes, Path directory) {
+        this.maxSize = maxSize ;
+        this.timeToLive = timeToLiveMillis ;
+        this.maxEntryBytes = maxEntryBytes ;
+        this.directory = directory ;
+        this.cache = CacheFactory.createCache(maxSize) ;
+        if ( directory != null )
+            sweep() ;
+    }
+
+    private static class Entry {
+        final long created ;
+        final byte[] rows ;
+        Entry(long created, byte[] rows) {
+            this.created = created ;
+            this.rows = rows ;
+        }
+    }
+
+    /**
+     * A SERVICE request, with its variables renamed to the standard names used
+     * for the cache key.
+     */
+    public static class Request {
+        private final String key ;
+        private final Map<Var, Var> toStandard = new HashMap<>() ;
+        private final Map<Var, Var> fromStandard = new HashMap<>() ;
+
+        private Request(OpService op, String settings) {
+            Op op2 = NodeTransformLib.transform(n -> {
+                if ( ! Var.isVar(n) )
+                    return n ;
+                return toStandard.computeIfAbsent(Var.alloc(n), v -> {
+                    Var v2 = Var.alloc("v"+toStandard.size()) ;
+                    fromStandard.put(v2, v) ;
+                    return v2 ;
+                }) ;
+            }, op) ;
+            this.key = ( settings == null ) ? op2.toString() : op2.toString()+settings ;
+        }
+
+        /** The normalized form of the request, used as the cache key. */
+        public String getKey() {
+            return key ;
+        }
+    }
+
+    /**
+     * Prepare a SERVICE operation for lookup in the cache, or return null if
+     * the request is not to be cached.
+     */
+    public Request request(OpService op, Context context) {
+        String uri = op.getService().getURI() ;
+        Context serviceContext = null ;
+        if ( context != null ) {
+            if ( context.isDefined(Service.queryClient) )
+                return null ;
+            Map<String, Context> serviceContextMap = context.get(Service.serviceContext) ;
+            if ( serviceContextMap != null )
+                serviceContext = serviceContextMap.get(uri) ;
+            if ( serviceContext != null && serviceContext.isDefined(Service.queryClient) )
+                return null ;
+        }
+        return new Request(op, settings(uri, context, serviceContext)) ;
+    }
+
+    /** The settings that affect a request to an endpoint, as a digest, or null if there are none. */
+    private static String settings(String uri, Context context, Context serviceContext) {
+        StringBuilder sb = new StringBuilder() ;
+        if ( context != null ) {
+            Map<String, Map<String, List<String>>> serviceParams = context.get(ARQ.serviceParams) ;
+            if ( serviceParams != null && serviceParams.get(uri) != null )
+                sb.append(new TreeMap<>(serviceParams.get(uri))) ;
+        }
+        if ( serviceContext != null ) {
+            SortedMap<String, String> settings = new TreeMap<>() ;
+            for ( Symbol symbol : serviceContext.keys() ) {
+                Object value = serviceContext.get(symbol) ;
+                settings.put(symbol.getSymbol(), String.valueOf(value)) ;
+            }
+            sb.append(settings) ;
+        }
+        if ( sb.length() == 0 )
+            return null ;
+        // Settings may include secrets : the key, which is also written to disk, has a digest.
+        return " "+Bytes.asHex(sha256(sb.toString())) ;
+    }
+
+    /** Get the results of a request, or return null. */
+    public List<Binding> get(Request request) {
+        Entry entry = cache.getIfPresent(request.key) ;
+        if ( entry == null && directory != null ) {
+            entry = readEntry(request.key) ;
+            if ( entry != null )
+                cache.put(request.key, entry) ;
+        }
+        if ( entry == null )
+            return null ;
+        if ( expired(entry) ) {
+            cache.remove(request.key) ;
+            return null ;
+        }
+        List<Binding> results = new ArrayList<>() ;
+        Thift2Binding t2b = new Thift2Binding(new ByteArrayInputStream(entry.rows)) ;
+        t2b.forEachRemaining(b -> results.add(rename(b, request.fromStandard))) ;
+        return results ;
+    }
+
+    /** Record the results of a request. */
+    public void put(Request request, List<Binding> results) {
+        List<Var> vars = new ArrayList<>() ;
+        for ( Binding b : results ) {
+            for ( Iterator<Var> iter = b.vars() ; iter.hasNext() ; ) {
+                Var v = request.toStandard.get(iter.next()) ;
+                if ( v == null )
+                    // Not a variable of the request.
+                    return ;
+                if ( ! vars.contains(v) )
+                    vars.add(v) ;
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        try ( Binding2Thrift b2t = new Binding2Thrift(out, vars, false) ) {
+            for ( Binding b : results ) {
+                b2t.output(rename(b, request.toStandard)) ;
+                if ( out.size() > maxEntryBytes )
+                    return ;
+            }
+        }
+        Entry entry = new Entry(System.currentTimeMillis(), out.toByteArray()) ;
+        cache.put(request.key, entry) ;
+        if ( directory != null ) {
+            writeEntry(request.key, entry) ;
+            if ( entry.created - lastSweep > timeToLive )
+                sweep() ;
+        }
+    }
+
+    private boolean expired(Entry entry) {
+        return System.currentTimeMillis() - entry.created > timeToLive ;
+    }
+
+    private static Binding rename(Binding binding, Map<Var, Var> mapping) {
+        BindingMap b = BindingFactory.create() ;
+        for ( Iterator<Var> iter = binding.vars() ; iter.hasNext() ; ) {
+            Var v = iter.next() ;
+            Node n = binding.get(v) ;
+            b.add(mapping.getOrDefault(v, v), n) ;
+        }
+        return b ;
+    }
+
+    // ---- On disk : key, time created, rows.
+
+    private Path file(String key) {
+        return directory.resolve(Bytes.asHex(sha256(key))+".svc") ;
+    }
+
+    private static byte[] sha256(String string) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256") ;
+            return digest.digest(string.getBytes(StandardCharsets.UTF_8)) ;
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex) ;
+        }
+    }
+
+    /** Delete the files of expired entries. */
+    private void sweep() {
+        lastSweep = System.currentTimeMillis() ;
+        if ( ! Files.isDirectory(directory) )
+            return ;
+        try ( DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.svc") ) {
+            for ( Path f : files ) {
+                long created ;
+                try ( DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(f))) ) {
+                    int keyLength = in.readInt() ;
+                    if ( keyLength < 0 || in.skip(keyLength) != keyLength )
+                        created = -1 ;
+                    else
+                        created = in.readLong() ;
+                } catch (IOException ex) {
+                    // Unreadable.
+                    created = -1 ;
+                }
+                if ( created < 0 || lastSweep - created > timeToLive )
+                    Files.deleteIfExists(f) ;
+            }
+        } catch (IOException ex) {
+            Log.warn(this, "Failed to clean SERVICE cache directory: "+ex.getMessage()) ;
+        }
+    }
+
+    private void writeEntry(String key, Entry entry) {
+        Path file = file(key) ;
+        try {
+            Files.createDirectories(directory) ;
+            Path tmp = Files.createTempFile(directory, "svc", ".tmp") ;
+            try ( DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp))) ) {
+                byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8) ;
+                out.writeInt(keyBytes.length) ;
+                out.write(keyBytes) ;
+                out.writeLong(entry.created) ;
+                out.writeInt(entry.rows.length) ;
+                out.write(entry.rows) ;
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE) ;
+        } catch (IOException ex) {
+            Log.warn(this, "Failed to write SERVICE cache entry: "+ex.getMessage()) ;
+        }
+    }
+
+    private Entry readEntry(String key) {
+        Path file = file(key) ;
+        if ( ! Files.exists(file) )
+            return null ;
+        try ( DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))) ) {
+            byte[] keyBytes = new byte[in.readInt()] ;
+            in.readFully(keyBytes) ;
+            if ( ! key.equals(new String(keyBytes, StandardCharsets.UTF_8)) )
+                return null ;
+            long created = in.readLong() ;
+            byte[] rows = new byte[in.readInt()] ;
+            in.readFully(rows) ;
+            Entry entry = new Entry(created, rows) ;
+            if ( expired(entry) ) {
+                Files.deleteIfExists(file) ;
+                return null ;
+            }
+            return entry ;
+        } catch (IOException ex) {
+            Log.warn(this, "Failed to read SERVICE cache entry: "+ex.getMessage()) ;
+            return null ;
+        }
+    }
+
+    /** Remove all entries, including any on disk. */
+    public void clear() {
+        cache.clear() ;
+        if ( directory == null || ! Files.isDirectory(directory) )
+            return ;
+        try ( DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.svc") ) {
+            for ( Path f : files )
+                Files.deleteIfExists(f) ;
+        } catch (IOException ex) {
+            Log.warn(this, "Failed to clear SERVICE cache directory: "+ex.getMessage()) ;
+        }
+    }
+
+    /** Current number of entries in memory. */
+    public long size() {
+        return cache.size() ;
+    }
+
+    public CacheInfo stats() {
+        if ( cache instanceof CacheGuava<?, ?> )
+            return new CacheInfo(maxSize, ((CacheGuava<?, ?>)cache).stats()) ;
+        return new CacheInfo(maxSize, -1, -1, -1, -1) ;
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.http;
+
+import java.util.Map ;
+import java.util.concurrent.ConcurrentHashMap ;
+import java.util.concurrent.atomic.AtomicLong ;
+
+import org.apache.http.client.HttpClient ;
+import org.apache.jena.atlas.lib.StrUtils ;
+import org.apache.jena.atlas.logging.Log ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.query.* ;
+import org.apache.jena.sparql.engine.QueryPlanCache ;
+import org.apache.jena.sparql.util.Context ;
+import org.apache.jena.sparql.util.FmtUtils ;
+
+/**
+ * Statistics about remote SPARQL endpoints, used to plan SERVICE execution.
+ * <p>
+ * For each endpoint, the number of triples and, for each predicate, the number
+ * of triples, distinct subjects and distinct objects are recorded. Statistics
+ * are gathered on first use: the endpoint is asked for a VoID description
+ * (property partitions) and, if there is none, each predicate is counted with
+ * a {@code COUNT} query. Statistics can also be set by the application; these
+ * take precedence and are kept until {@link #clear()}. Gathered
+ * statistics are kept for a fixed time. A count that fails, or gives no answer,
+ * is "no information" and is not asked for again until a delay has passed; the
+ * delay doubles each time, up to the time statistics are kept.
+ * <p>
+ * Queries for statistics are made with the settings of the query being planned
+ * ({@link Service#serviceContext}, {@link Service#queryClient} and
+ * {@link ARQ#serviceParams}). New statistics for an endpoint change its
+ * {@link #version}, making cached query plans with a SERVICE to that endpoint
+ * out of date (see {@link QueryPlanCache}).
+ * <p>
+ * The statistics in use are those set in the context with
+ * {@link Service#serviceStats}, otherwise the system-wide ones.
+ */
+public class ServiceStats {
+    /** Value meaning "no information". */
+    public static final long Unknown = -1 ;
+    /** Default time, in milliseconds, statistics are kept. */
+    public static final long DftTimeToLive = 60*60*1000 ;
+    /** Default timeout, in milliseconds, of a statistics query. */
+    public static final long DftProbeTimeout = 5*1000 ;
+    /** Delay, in milliseconds, before a count that failed is asked for again for the first time. */
+    public static final long DftRetryDelay = 60*1000 ;
+
+    private static ServiceStats systemServiceStats = new ServiceStats(DftTimeToLive, DftProbeTimeout) ;
+
+    /** The system-wide endpoint statistics. */
+    public static ServiceStats get() {
+        return systemServiceStats ;
+    }
+
+    /** Return the endpoint statistics to use for a context. */
+    public static ServiceStats get(Context context) {
+        if ( context != null ) {
+            Object obj = context.get(Service.serviceStats) ;
+            if ( obj instanceof ServiceStats )
+                return (ServiceStats)obj ;
+        }
+        return systemServiceStats ;
+    }
+
+    /** Counts for one predicate at one endpoint. */
+    public static class PredicateStats {
+        public final long triples ;
+        public final long distinctSubjects ;
+        public final long distinctObjects ;
+
+        public PredicateStats(long triples, long distinctSubjects, long distinctObjects) {
+            this.triples = triples ;
+            this.distinctSubjects = distinctSubjects ;
+            this.distinctObjects = distinctObjects ;
+        }
+
+        @Override
+        public String toString() {
+            return "["+triples+" "+distinctSubjects+" "+distinctObjects+"]" ;
+        }
+    }
+
+    private static final PredicateStats noStats  = new PredicateStats(Unknown, Unknown, Unknown) ;
+    private static final PredicateStats zeroStats = new PredicateStats(0, 0, 0) ;
+
+    // A count that failed : when it may be asked for again.
+    private static class Retry {
+        final long at ;
+        final long delay ;
+        Retry(long at, long delay) { this.at = at ; this.delay = delay ; }
+    }
+
+    private static class EndpointStats {
+        final long created = System.currentTimeMillis() ;
+        volatile long triples = Unknown ;
+        volatile Retry triplesRetry = null ;
+        volatile boolean probed = false ;
+        // From VoID: predicates not listed do not occur.
+        volatile boolean complete = false ;
+        final Map<Node, PredicateStats> predicates = new ConcurrentHashMap<>() ;
+        final Map<Node, Retry> predicatesRetry = new ConcurrentHashMap<>() ;
+    }
+
+    // Set by the application : these do not expire.
+    private static class SuppliedStats {
+        volatile long triples = Unknown ;
+        final Map<Node, PredicateStats> predicates = new ConcurrentHashMap<>() ;
+    }
+
+    private final long timeToLive ;
+    private final long probeTimeout ;
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>() ;
+    private final Map<String, SuppliedStats> supplied = new ConcurrentHashMap<>() ;
+    // Unique across all ServiceStats so a plan made with other statistics is not current.
+    private static final AtomicLong versionCounter = new AtomicLong(0) ;
+    private final Map<String, Long> versions = new ConcurrentHashMap<>() ;
+
+    /**
+     * Endpoint statistics, kept for {@code timeToLiveMillis}, gathered with
+     * queries limited to {@code probeTimeoutMillis} each.
+     */
+    public ServiceStats(long timeToLiveMillis, long probeTimeoutMillis) {
+        this.timeToLive = timeToLiveMillis ;
+        this.probeTimeout = probeTimeoutMillis ;
+    }
+
+    /**
+     * The version of the statistics for an endpoint. This changes whenever
+     * statistics for the endpoint are set, gathered or cleared; 0 means there
+     * have been none.
+     */
+    public long version(String endpoint) {
+        return versions.getOrDefault(endpoint, 0L) ;
+    }
+
+    private void statisticsChanged(String endpoint) {
+        versions.put(endpoint, versionCounter.incrementAndGet()) ;
+    }
+
+    /** Set the number of triples at an endpoint. */
+    public void setTriples(String endpoint, long triples) {
+        supplied(endpoint).triples = triples ;
+        statisticsChanged(endpoint) ;
+    }
+
+    /** Set the counts for a predicate at an endpoint. */
+    public void setPredicate(String endpoint, Node predicate, long triples, long distinctSubjects, long distinctObjects) {
+        supplied(endpoint).predicates.put(predicate, new PredicateStats(triples, distinctSubjects, distinctObjects)) ;
+        statisticsChanged(endpoint) ;
+    }
+
+    /** The number of triples at an endpoint, or {@link #Unknown}. */
+    public long triples(String endpoint) {
+        return triples(endpoint, null) ;
+    }
+
+    /** The number of triples at an endpoint, or {@link #Unknown}, asking with the settings in the context. */
+    public long triples(String endpoint, Context context) {
+        SuppliedStats given = supplied.get(endpoint) ;
+        if ( given != null && given.triples != Unknown )
+            return given.triples ;
+        EndpointStats stats = probed(endpoint, context) ;
+        if ( stats.triples == Unknown && ! stats.complete && retry(stats.triplesRetry) ) {
+            String qs = "SELECT (COUNT(*) AS ?t) { ?s ?p ?o }" ;
+            long triples = count(endpoint, qs, "t", context) ;
+            if ( triples == Unknown )
+                stats.triplesRetry = failed(stats.triplesRetry) ;
+            else {
+                stats.triples = triples ;
+                statisticsChanged(endpoint) ;
+            }
+        }
+        return stats.triples ;
+    }
+
+    /** The counts for a predicate at an endpoint; unknown counts are {@link #Unknown}. */
+    public PredicateStats predicate(String endpoint, Node predicate) {
+        return predicate(endpoint, predicate, null) ;
+    }
+
+    /** The counts for a predicate at an endpoint, asking with the settings in the context;
+     * unknown counts are {@link #Unknown}. */
+    public PredicateStats predicate(String endpoint, Node predicate, Context context) {
+        SuppliedStats given = supplied.get(endpoint) ;
+        PredicateStats pStats = ( given == null ) ? null : given.predicates.get(predicate) ;
+        if ( pStats != null )
+            return pStats ;
+        EndpointStats stats = probed(endpoint, context) ;
+        pStats = stats.predicates.get(predicate) ;
+        if ( pStats != null )
+            return pStats ;
+        if ( stats.complete )
+            return zeroStats ;
+        Retry retry = stats.predicatesRetry.get(predicate) ;
+        if ( ! retry(retry) )
+            return noStats ;
+        pStats = probePredicate(endpoint, predicate, context) ;
+        if ( pStats.triples == Unknown ) {
+            stats.predicatesRetry.put(predicate, failed(retry)) ;
+            return pStats ;
+        }
+        stats.predicates.put(predicate, pStats) ;
+        stats.predicatesRetry.remove(predicate) ;
+        statisticsChanged(endpoint) ;
+        return pStats ;
+    }
+
+    /** Forget all statistics. */
+    public void clear() {
+        endpoints.clear() ;
+        supplied.clear() ;
+        versions.replaceAll((endpoint, v) -> versionCounter.incrementAndGet()) ;
+    }
+
+    private static boolean retry(Retry retry) {
+        return retry == null || System.currentTimeMillis() >= retry.at ;
+    }
+
+    private Retry failed(Retry previous) {
+        long delay = ( previous == null ) ? DftRetryDelay : previous.delay*2 ;
+        delay = Math.min(delay, timeToLive) ;
+        return new Retry(System.currentTimeMillis()+delay, delay) ;
+    }
+
+    // Gathered statistics, replaced when older than the time to live.
+    private EndpointStats endpoint(String endpoint) {
+        EndpointStats stats = endpoints.get(endpoint) ;
+        if ( stats == null || System.currentTimeMillis() - stats.created > timeToLive ) {
+            stats = new EndpointStats() ;
+            endpoints.put(endpoint, stats) ;
+        }
+        return stats ;
+    }
+
+    private SuppliedStats supplied(String endpoint) {
+        return supplied.computeIfAbsent(endpoint, k->new SuppliedStats()) ;
+    }
+
+    // Get the statistics for the endpoint, asking for the VoID description if this is
+    // the first use and the application has not set counts for predicates.
+    private EndpointStats probed(String endpoint, Context context) {
+        EndpointStats stats = endpoint(endpoint) ;
+        if ( ! stats.probed ) {
+            stats.probed = true ;
+            SuppliedStats given = supplied.get(endpoint) ;
+            if ( given == null || given.predicates.isEmpty() )
+                probeVoID(endpoint, stats, context) ;
+        }
+        return stats ;
+    }
+
+    private static final String voidQuery = StrUtils.strjoinNL
+        ("PREFIX void: <http://rdfs.org/ns/void#>"
+        ,"SELECT ?total ?p ?t ?ds ?do {"
+        ,"  ?d void:propertyPartition ?pp ."
+        ,"  ?pp void:property ?p ."
+        ,"  OPTIONAL { ?d void:triples ?total }"
+        ,"  OPTIONAL { ?pp void:triples ?t }"
+        ,"  OPTIONAL { ?pp void:distinctSubjects ?ds }"
+        ,"  OPTIONAL { ?pp void:distinctObjects ?do }"
+        ,"}") ;
+
+    private void probeVoID(String endpoint, EndpointStats stats, Context context) {
+        try ( QueryExecution qExec = probe(endpoint, voidQuery, context) ) {
+            ResultSet rs = qExec.execSelect() ;
+            boolean found = false ;
+            while ( rs.hasNext() ) {
+                QuerySolution row = rs.next() ;
+                Node p = row.get("p").asNode() ;
+                if ( ! p.isURI() )
+                    continue ;
+                found = true ;
+                long total = number(row, "total") ;
+                if ( total != Unknown )
+                    stats.triples = total ;
+                stats.predicates.put(p, new PredicateStats(number(row, "t"), number(row, "ds"), number(row, "do"))) ;
+            }
+            stats.complete = found ;
+            if ( found )
+                statisticsChanged(endpoint) ;
+        } catch (Exception ex) {
+            Log.warn(this, "Statistics for "+endpoint+": "+ex.getMessage()) ;
+        }
+    }
+
+    private PredicateStats probePredicate(String endpoint, Node predicate, Context context) {
+        String qs = "SELECT (COUNT(*) AS ?t) (COUNT(DISTINCT ?s) AS ?ds) (COUNT(DISTINCT ?o) AS ?do) { ?s "+FmtUtils.stringForNode(predicate)+" ?o }" ;
+        try ( QueryExecution qExec = probe(endpoint, qs, context) ) {
+            ResultSet rs = qExec.execSelect() ;
+            if ( ! rs.hasNext() )
+                return noStats ;
+            QuerySolution row = rs.next() ;
+            return new PredicateStats(number(row, "t"), number(row, "ds"), number(row, "do")) ;
+        } catch (Exception ex) {
+            Log.warn(this, "Statistics for "+endpoint+": "+ex.getMessage()) ;
+            return noStats ;
+        }
+    }
+
+    private long count(String endpoint, String qs, String varName, Context context) {
+        try ( QueryExecution qExec = probe(endpoint, qs, context) ) {
+            ResultSet rs = qExec.execSelect() ;
+            if ( ! rs.hasNext() )
+                return Unknown ;
+            return number(rs.next(), varName) ;
+        } catch (Exception ex) {
+            Log.warn(this, "Statistics for "+endpoint+": "+ex.getMessage()) ;
+            return Unknown ;
+        }
+    }
+
+    private QueryExecution probe(String endpoint, String queryString, Context context) {
+        HttpClient client = null ;
+        if ( context != null ) {
+            client = context.get(Service.queryClient) ;
+            Map<String, Context> serviceContextMap = context.get(Service.serviceContext) ;
+            Context serviceContext = ( serviceContextMap == null ) ? null : serviceContextMap.get(endpoint) ;
+            if ( serviceContext != null && serviceContext.isDefined(Service.queryClient) )
+                client = serviceContext.get(Service.queryClient) ;
+        }
+        QueryEngineHTTP qExec = new QueryEngineHTTP(endpoint, queryString, client) ;
+        if ( context != null )
+            // Service parameters and the service context.
+            qExec.getContext().putAll(context) ;
+        if ( probeTimeout > 0 )
+            qExec.setTimeout(probeTimeout, probeTimeout) ;
+        return qExec ;
+    }
+
+    private static long number(QuerySolution row, String varName) {
+        if ( ! row.contains(varName) || ! row.get(varName).isLiteral() )
+            return Unknown ;
+        try {
+            return row.getLiteral(varName).getLong() ;
+        } catch (Exception ex) {
+            return Unknown ;
+        }
+    }
+}
@@ -42,6 +42,7 @@ import org.apache.jena.sparql.engine.join.Join ;
 import org.apache.jena.sparql.engine.main.iterator.* ;
 import org.apache.jena.sparql.expr.Expr ;
 import org.apache.jena.sparql.expr.ExprList ;
+import org.apache.jena.sparql.mgt.ExecStats ;
 import org.apache.jena.sparql.procedure.ProcEval ;
 import org.apache.jena.sparql.procedure.Procedure ;
 
@@ -97,6 +98,7 @@ public class OpExecutor
     protected int                  level      = TOP_LEVEL - 1 ;
     private final boolean          hideBNodeVars ;
     protected final StageGenerator stageGenerator ;
+    private final ExecStats        execStats ;
 
     protected OpExecutor(ExecutionContext execCxt)
     {
@@ -104,6 +106,7 @@ public class OpExecutor
         this.dispatcher = new ExecutionDispatch(this) ;
         this.hideBNodeVars = execCxt.getContext().isTrue(ARQ.hideNonDistiguishedVariables) ;
         this.stageGenerator = StageBuilder.chooseStageGenerator(execCxt.getContext()) ;
+        this.execStats = ExecStats.get(execCxt.getContext()) ;
     }
 
     // Public interface 
@@ -115,6 +118,8 @@ public class OpExecutor
     protected QueryIterator exec(Op op, QueryIterator input) {
         level++ ;
         QueryIterator qIter = dispatcher.exec(op, input) ;
+        if ( execStats != null )
+            qIter = execStats.track(op, input, qIter, level == TOP_LEVEL) ;
         // Intentionally not try/finally so exceptions leave some evidence
         // around.
         level-- ;
@@ -304,6 +309,9 @@ public class OpExecutor
     }
 
     protected QueryIterator execute(OpService opService, QueryIterator input) {
+        int batchSize = QueryIterServiceBulk.batchSize(execCxt.getContext()) ;
+        if ( batchSize > 1 || QueryIterServiceBulk.concurrency(execCxt.getContext()) > 1 )
+            return new QueryIterServiceBulk(input, opService, batchSize, execCxt) ;
         return new QueryIterService(input, opService, execCxt) ;
     }
 
@@ -19,7 +19,9 @@
 package org.apache.jena.sparql.engine.main;
 
 import org.apache.jena.query.ARQ ;
+import org.apache.jena.query.DatasetFactory ;
 import org.apache.jena.query.Query ;
+import org.apache.jena.sparql.ARQConstants ;
 import org.apache.jena.sparql.algebra.Algebra ;
 import org.apache.jena.sparql.algebra.Op ;
 import org.apache.jena.sparql.algebra.optimize.Optimize;
@@ -29,6 +31,7 @@ import org.apache.jena.sparql.engine.binding.Binding ;
 import org.apache.jena.sparql.engine.iterator.QueryIterRoot ;
 import org.apache.jena.sparql.engine.iterator.QueryIteratorCheck ;
 import org.apache.jena.sparql.engine.iterator.QueryIteratorTiming ;
+import org.apache.jena.sparql.mgt.ExecStats ;
 import org.apache.jena.sparql.util.Context ;
 
 public class QueryEngineMain extends QueryEngineBase
@@ -48,6 +51,7 @@ public class QueryEngineMain extends QueryEngineBase
     @Override
     public QueryIterator eval(Op op, DatasetGraph dsg, Binding input, Context context)
     {
+        ExecStats.setup(op, context) ;
         ExecutionContext execCxt = new ExecutionContext(context, dsg.getDefaultGraph(), dsg, QC.getFactory(context)) ;
         QueryIterator qIter1 = 
             ( input.isEmpty() ) ? QueryIterRoot.create(execCxt) 
@@ -66,6 +70,9 @@ public class QueryEngineMain extends QueryEngineBase
     { 
         if ( context.isFalse(ARQ.optimization) )
             return minimalModifyOp(op) ;
+        if ( context.isTrue(ARQ.optServiceFederation) && dataset != null && context.get(ARQConstants.sysCurrentDataset) == null )
+            // Local statistics for planning SERVICE.
+            context.set(ARQConstants.sysCurrentDataset, DatasetFactory.wrap(dataset)) ;
         return Algebra.optimize(op, super.context) ;
     }
     
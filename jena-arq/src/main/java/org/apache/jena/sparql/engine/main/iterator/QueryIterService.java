@@ -47,31 +47,37 @@ public class QueryIterService extends QueryIterRepeatApply
     
     @Override
     protected QueryIterator nextStage(Binding outerBinding)
+    {
+        return exec(opService, outerBinding, getExecContext()) ;
+    }
+
+    /** Execute a SERVICE for one binding, by substitution. */
+    /*package*/ static QueryIterator exec(OpService opService, Binding outerBinding, ExecutionContext execCxt)
     {
         Op op = QC.substitute(opService, outerBinding) ;
         boolean silent = opService.getSilent() ;
         QueryIterator qIter ;
         try {
-            qIter = Service.exec((OpService)op, getExecContext().getContext()) ;
+            qIter = Service.exec((OpService)op, execCxt.getContext()) ;
             // This iterator is materialized already otherwise we may end up
             // not servicing the HTTP connection as needed.
             // In extremis, can cause a deadlock when SERVICE loops back to this server.
             // Add tracking.
-            qIter = QueryIter.makeTracked(qIter, getExecContext()) ;
+            qIter = QueryIter.makeTracked(qIter, execCxt) ;
         } catch (RuntimeException ex)
         {
             if ( silent )
             {
-                Log.warn(this, "SERVICE <" + opService.getService().toString() + ">: " + ex.getMessage()) ;
+                Log.warn(QueryIterService.class, "SERVICE <" + opService.getService().toString() + ">: " + ex.getMessage()) ;
                 // Return the input
-                return QueryIterSingleton.create(outerBinding, getExecContext()) ; 
+                return QueryIterSingleton.create(outerBinding, execCxt) ; 
             }
             throw ex ;
         }
             
         // Need to put the outerBinding as parent to every binding of the service call.
         // There should be no variables in common because of the OpSubstitute.substitute 
-        QueryIterator qIter2 = new QueryIterCommonParent(qIter, outerBinding, getExecContext()) ;
+        QueryIterator qIter2 = new QueryIterCommonParent(qIter, outerBinding, execCxt) ;
         return qIter2 ;
     }
 }
@@ -0,0 +1,567 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.main.iterator;
+
+import java.util.* ;
+import java.util.concurrent.* ;
+import java.util.function.Consumer ;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory ;
+import org.apache.jena.atlas.lib.Lib ;
+import org.apache.jena.atlas.logging.Log ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.query.QueryCancelledException ;
+import org.apache.jena.query.QueryExecException ;
+import org.apache.jena.sparql.algebra.Op ;
+import org.apache.jena.sparql.algebra.OpVars ;
+import org.apache.jena.sparql.algebra.OpVisitorBase ;
+import org.apache.jena.sparql.algebra.OpWalker ;
+import org.apache.jena.sparql.algebra.Table ;
+import org.apache.jena.sparql.algebra.TableFactory ;
+import org.apache.jena.sparql.algebra.op.* ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.engine.ExecutionContext ;
+import org.apache.jena.sparql.engine.QueryIterator ;
+import org.apache.jena.sparql.engine.binding.Binding ;
+import org.apache.jena.sparql.engine.binding.BindingFactory ;
+import org.apache.jena.sparql.engine.binding.BindingMap ;
+import org.apache.jena.sparql.engine.http.Service ;
+import org.apache.jena.sparql.engine.iterator.QueryIter1 ;
+import org.apache.jena.sparql.engine.main.QC ;
+import org.apache.jena.sparql.expr.NodeValue ;
+import org.apache.jena.sparql.util.Context ;
+import org.apache.jena.sparql.util.Symbol ;
+
+/**
+ * Execute a SERVICE as a bind-join, sending the bindings from the input to the
+ * remote endpoint in batches. Each batch is one remote request, with the values
+ * of the variables of the SERVICE pattern in a {@code VALUES} block. A
+ * correlation variable numbers the rows of the {@code VALUES} block so the
+ * remote results can be joined back to the binding they came from.
+ * <p>
+ * Joining the {@code VALUES} block gives the same results as substituting each
+ * binding into the SERVICE pattern ({@link QueryIterService}) only when the
+ * variables sent are certain to be bound by the pattern and the pattern has no
+ * operators that act on all its results together ({@code LIMIT}, {@code OFFSET},
+ * {@code DISTINCT}, {@code REDUCED}, {@code GROUP BY} and aggregates, including
+ * in a sub-query): a {@code LIMIT} would apply once to the whole batch rather than
+ * once for each binding. If that is not the case, each binding of the batch is
+ * executed by substitution. A binding with a blank node that would need to be
+ * sent is also executed by substitution. If the bindings of a batch have no
+ * variables in common with the pattern, the pattern is executed once and the
+ * results are joined with each binding.
+ * <p>
+ * Requests are made in other threads, and several can be in progress at the
+ * same time. Remote results are passed on as they are read. If ordered, the
+ * results of one batch come before those of the next: the oldest request in
+ * progress is read as its results arrive, and the results of later requests
+ * are held until it ends. Within a batch sent as a {@code VALUES} block,
+ * results are in the order the endpoint returns them. If unordered, results
+ * are returned as they are read from any of the requests in progress. The
+ * number of requests in progress to one endpoint over all query executions
+ * can be limited.
+ * <p>
+ * Settings in the context:
+ * <ul>
+ * <li>{@link Service#serviceBatchSize} : bindings in one request</li>
+ * <li>{@link Service#serviceConcurrency} : requests in progress for this SERVICE</li>
+ * <li>{@link Service#serviceEndpointConcurrency} : requests in progress to one endpoint</li>
+ * <li>{@link Service#serviceOrdered} : whether to keep results in input order</li>
+ * </ul>
+ */
+public class QueryIterServiceBulk extends QueryIter1
+{
+    /** The variable used to correlate remote results with the input binding. */
+    public static final Var varRow = Var.alloc("__serviceRow") ;
+
+    /** The batch size for SERVICE in the context; 1 (no batching) if not set. */
+    public static int batchSize(Context context) {
+        return intSetting(context, Service.serviceBatchSize) ;
+    }
+
+    /** The number of concurrent requests for a SERVICE in the context; 1 if not set. */
+    public static int concurrency(Context context) {
+        return intSetting(context, Service.serviceConcurrency) ;
+    }
+
+    private static int intSetting(Context context, Symbol symbol) {
+        Object obj = context.get(symbol) ;
+        if ( obj == null )
+            return 1 ;
+        try {
+            int x = ( obj instanceof Number ) ? ((Number)obj).intValue() : Integer.parseInt(obj.toString()) ;
+            return Math.max(1, x) ;
+        } catch (NumberFormatException ex) {
+            throw new QueryExecException("Can't interpret " + symbol.getSymbol() + ": " + obj) ;
+        }
+    }
+
+    // Threads for concurrent requests - daemons so as not to stop the JVM exiting.
+    private static final ExecutorService executor = Executors.newCachedThreadPool(
+        new BasicThreadFactory.Builder().daemon(true).namingPattern("service-%d").build()) ;
+
+    // Requests in progress for each endpoint.
+    private static final Map<String, EndpointLimit> endpointLimits = new ConcurrentHashMap<>() ;
+
+    private static class EndpointLimit {
+        final int limit ;
+        final Semaphore permits ;
+        EndpointLimit(int limit) { this.limit = limit ; this.permits = new Semaphore(limit) ; }
+    }
+
+    // Rows held for a request, before the consumer is ready for them.
+    private static final int channelCapacity = 1000 ;
+
+    /**
+     * Passes rows and the ends of requests from the threads making the requests
+     * to the consumer. The end of a request is always accepted, so it reaches the
+     * consumer whatever happens to the request. Rows are limited to
+     * {@link #channelCapacity} once the consumer is reading the channel; until
+     * then, the rows of a request are held as they arrive. Cancelling wakes any
+     * thread waiting on the channel.
+     */
+    private static class Channel {
+        private final Deque<Object> items = new ArrayDeque<>() ;
+        private boolean bounded ;
+        private boolean cancelled = false ;
+
+        Channel(boolean bounded) { this.bounded = bounded ; }
+
+        synchronized void put(Binding binding) {
+            try {
+                while ( bounded && ! cancelled && items.size() >= channelCapacity )
+                    wait() ;
+            } catch (InterruptedException ex) { throw new QueryCancelledException() ; }
+            if ( cancelled )
+                throw new QueryCancelledException() ;
+            items.add(binding) ;
+            notifyAll() ;
+        }
+
+        synchronized void end(Request request) {
+            items.add(request) ;
+            notifyAll() ;
+        }
+
+        synchronized Object take() {
+            bounded = true ;
+            try {
+                while ( ! cancelled && items.isEmpty() )
+                    wait() ;
+            } catch (InterruptedException ex) { throw new QueryCancelledException() ; }
+            if ( cancelled )
+                throw new QueryCancelledException() ;
+            Object x = items.poll() ;
+            notifyAll() ;
+            return x ;
+        }
+
+        synchronized void cancel() {
+            cancelled = true ;
+            items.clear() ;
+            notifyAll() ;
+        }
+    }
+
+    /** One remote request, run in another thread: a batch of input bindings. */
+    private class Request implements Runnable {
+        final List<Binding> batch ;
+        final Channel channel ;
+        Future<?> future = null ;
+        // Set before the end of the request is passed on.
+        Throwable failure = null ;
+
+        Request(List<Binding> batch, Channel channel) { this.batch = batch ; this.channel = channel ; }
+
+        @Override
+        public void run() {
+            try {
+                execBatch(batch, channel::put) ;
+            } catch (RuntimeException | Error ex) {
+                failure = ex ;
+            } finally {
+                channel.end(this) ;
+            }
+        }
+    }
+
+    private final OpService opService ;
+    private final int batchSize ;
+    private final int concurrency ;
+    private final boolean ordered ;
+    private final Set<Var> mentionedVars ;
+    private final Set<Var> fixedVars ;
+    // Whether the pattern can be joined with a VALUES block of several bindings.
+    private final boolean batchable ;
+    private final Context context ;
+
+    // Requests in progress, oldest first. Also the lock for starting and cancelling requests.
+    private final Deque<Request> inProgress = new ArrayDeque<>() ;
+    // Unordered results: all requests share one channel.
+    private final Channel arrivals = new Channel(true) ;
+    private boolean cancelled = false ;
+    private Binding nextRow = null ;
+
+    public QueryIterServiceBulk(QueryIterator input, OpService opService, int batchSize, ExecutionContext execCxt)
+    {
+        super(input, execCxt) ;
+        this.context = execCxt.getContext() ;
+        if ( context.isFalse(Service.serviceAllowed) )
+            throw new QueryExecException("SERVICE not allowed") ;
+        this.opService = opService ;
+        this.batchSize = batchSize ;
+        this.concurrency = concurrency(context) ;
+        this.ordered = ( concurrency == 1 ) || context.isTrueOrUndef(Service.serviceOrdered) ;
+        this.mentionedVars = new HashSet<>(OpVars.mentionedVars(opService.getSubOp())) ;
+        this.fixedVars = OpVars.fixedVars(opService.getSubOp()) ;
+        this.batchable = ! hasSolutionModifiers(opService.getSubOp()) ;
+    }
+
+    /** Whether an operator acts on all the results of the pattern together. */
+    private static boolean hasSolutionModifiers(Op op)
+    {
+        boolean[] found = { false } ;
+        OpWalker.walk(op, new OpVisitorBase() {
+            @Override public void visit(OpSlice opSlice)         { found[0] = true ; }
+            @Override public void visit(OpTopN opTop)            { found[0] = true ; }
+            @Override public void visit(OpGroup opGroup)         { found[0] = true ; }
+            @Override public void visit(OpDistinct opDistinct)   { found[0] = true ; }
+            @Override public void visit(OpReduced opReduced)     { found[0] = true ; }
+        }) ;
+        return found[0] ;
+    }
+
+    @Override
+    protected boolean hasNextBinding()
+    {
+        if ( isFinished() )
+            return false ;
+        if ( nextRow != null )
+            return true ;
+        for ( ;; )
+        {
+            // Keep the requests in progress up to the concurrency.
+            List<Binding> batch ;
+            while ( requests() < concurrency && (batch = readBatch()) != null )
+                start(batch) ;
+            Channel channel ;
+            synchronized (inProgress) {
+                if ( inProgress.isEmpty() )
+                    return false ;
+                // Ordered: read the oldest request, as its rows arrive.
+                channel = ordered ? inProgress.peek().channel : arrivals ;
+            }
+            Object x = channel.take() ;
+            if ( x instanceof Request ) {
+                Request request = (Request)x ;
+                synchronized (inProgress) { inProgress.remove(request) ; }
+                if ( request.failure instanceof RuntimeException )
+                    throw (RuntimeException)request.failure ;
+                if ( request.failure instanceof Error )
+                    throw (Error)request.failure ;
+                continue ;
+            }
+            nextRow = (Binding)x ;
+            return true ;
+        }
+    }
+
+    @Override
+    protected Binding moveToNextBinding()
+    {
+        if ( ! hasNextBinding() )
+            throw new NoSuchElementException(Lib.className(this)+".next()/finished") ;
+        Binding b = nextRow ;
+        nextRow = null ;
+        return b ;
+    }
+
+    /** Read the next batch from the input, or return null. */
+    private List<Binding> readBatch()
+    {
+        QueryIterator input = getInput() ;
+        if ( input == null || ! input.hasNext() )
+            return null ;
+        List<Binding> batch = new ArrayList<>(batchSize) ;
+        while ( batch.size() < batchSize && input.hasNext() )
+            batch.add(input.nextBinding()) ;
+        return batch ;
+    }
+
+    private int requests()
+    {
+        synchronized (inProgress) { return inProgress.size() ; }
+    }
+
+    private void start(List<Binding> batch)
+    {
+        Request request = new Request(batch, ordered ? new Channel(false) : arrivals) ;
+        synchronized (inProgress) {
+            if ( cancelled )
+                throw new QueryCancelledException() ;
+            inProgress.add(request) ;
+            request.future = executor.submit(request) ;
+        }
+    }
+
+    /** Execute a batch, passing each result to the sink. */
+    private void execBatch(List<Binding> batch, Consumer<Binding> sink)
+    {
+        if ( ! opService.getService().isURI() ) {
+            // The endpoint comes from each binding.
+            for ( Binding b : batch )
+                execOne(b, sink) ;
+            return ;
+        }
+        if ( batch.size() > 1 && ! sharesVars(batch) ) {
+            execIndependent(batch, sink) ;
+            return ;
+        }
+        List<Var> vars = batchVars(batch) ;
+        if ( batch.size() == 1 || vars == null ) {
+            for ( Binding b : batch )
+                execOne(b, sink) ;
+            return ;
+        }
+
+        List<Var> tableVars = new ArrayList<>(vars) ;
+        tableVars.add(varRow) ;
+        Table table = TableFactory.create(tableVars) ;
+        for ( int i = 0 ; i < batch.size() ; i++ ) {
+            Binding b = batch.get(i) ;
+            if ( hasBlankNode(b, vars) ) {
+                // Can't be put in a VALUES block.
+                execOne(b, sink) ;
+                continue ;
+            }
+            BindingMap row = BindingFactory.create() ;
+            row.add(varRow, NodeValue.makeInteger(i).asNode()) ;
+            for ( Var v : vars ) {
+                Node n = b.get(v) ;
+                if ( n != null )
+                    row.add(v, n) ;
+            }
+            table.addBinding(row) ;
+        }
+        if ( table.isEmpty() )
+            return ;
+
+        Op op = OpJoin.create(OpTable.create(table), opService.getSubOp()) ;
+        OpService opRemote = new OpService(opService.getService(), op, opService.getSilent()) ;
+        try {
+            execRemote(opRemote, remote -> {
+                int idx = rowNumber(remote.get(varRow), batch.size()) ;
+                if ( idx < 0 )
+                    return ;
+                Binding b = merge(batch.get(idx), remote) ;
+                if ( b != null )
+                    sink.accept(b) ;
+            }) ;
+        } catch (RuntimeException ex) {
+            if ( ! silent(ex) )
+                throw ex ;
+            // Return the input.
+            for ( Binding b : batch ) {
+                if ( ! hasBlankNode(b, vars) )
+                    sink.accept(b) ;
+            }
+        }
+    }
+
+    /** Execute the pattern once, and join the results with each binding of the batch. */
+    private void execIndependent(List<Binding> batch, Consumer<Binding> sink)
+    {
+        List<Binding> remoteResults = new ArrayList<>() ;
+        try {
+            execRemote(opService, remoteResults::add) ;
+        } catch (RuntimeException ex) {
+            if ( ! silent(ex) )
+                throw ex ;
+            // Return the input.
+            batch.forEach(sink) ;
+            return ;
+        }
+        for ( Binding binding : batch ) {
+            for ( Binding remote : remoteResults ) {
+                Binding b = merge(binding, remote) ;
+                if ( b != null )
+                    sink.accept(b) ;
+            }
+        }
+    }
+
+    /** Execute one binding by substitution. */
+    private void execOne(Binding binding, Consumer<Binding> sink)
+    {
+        OpService op = (OpService)QC.substitute(opService, binding) ;
+        try {
+            execRemote(op, remote -> {
+                Binding b = merge(binding, remote) ;
+                if ( b != null )
+                    sink.accept(b) ;
+            }) ;
+        } catch (RuntimeException ex) {
+            if ( ! silent(ex) )
+                throw ex ;
+            // Return the input.
+            sink.accept(binding) ;
+        }
+    }
+
+    private boolean silent(RuntimeException ex)
+    {
+        if ( ! opService.getSilent() || ex instanceof QueryCancelledException )
+            return false ;
+        Log.warn(this, "SERVICE <" + opService.getService().toString() + ">: " + ex.getMessage()) ;
+        return true ;
+    }
+
+    /**
+     * Make a request, within any limit on requests to the endpoint. Results are
+     * passed on as they are read unless the SERVICE is "SILENT", which must
+     * return all the results or none.
+     */
+    private void execRemote(OpService op, Consumer<Binding> action)
+    {
+        Semaphore permits = endpointPermits(op.getService()) ;
+        if ( permits != null ) {
+            try { permits.acquire() ; }
+            catch (InterruptedException ex) { throw new QueryCancelledException() ; }
+        }
+        try {
+            QueryIterator qIter = Service.exec(op, context, op.getSilent()) ;
+            try { qIter.forEachRemaining(action) ; }
+            finally { qIter.close() ; }
+        } finally {
+            if ( permits != null )
+                permits.release() ;
+        }
+    }
+
+    private Semaphore endpointPermits(Node service)
+    {
+        if ( concurrency == 1 || ! service.isURI() || ! context.isDefined(Service.serviceEndpointConcurrency) )
+            return null ;
+        int limit = intSetting(context, Service.serviceEndpointConcurrency) ;
+        EndpointLimit x = endpointLimits.compute(service.getURI(),
+            (uri, current) -> ( current != null && current.limit == limit ) ? current : new EndpointLimit(limit)) ;
+        return x.permits ;
+    }
+
+    private static int rowNumber(Node n, int size)
+    {
+        if ( n == null || ! n.isLiteral() )
+            return -1 ;
+        try {
+            int idx = Integer.parseInt(n.getLiteralLexicalForm()) ;
+            return ( idx < size ) ? idx : -1 ;
+        } catch (NumberFormatException ex) { return -1 ; }
+    }
+
+    /** Combine a remote result with the input binding, or return null if not compatible. */
+    private static Binding merge(Binding parent, Binding remote)
+    {
+        BindingMap b = BindingFactory.create(parent) ;
+        for ( Iterator<Var> iter = remote.vars() ; iter.hasNext() ; ) {
+            Var v = iter.next() ;
+            if ( v.equals(varRow) )
+                continue ;
+            Node value = remote.get(v) ;
+            Node current = parent.get(v) ;
+            if ( current == null )
+                b.add(v, value) ;
+            else if ( ! current.equals(value) )
+                return null ;
+        }
+        return b ;
+    }
+
+    private static boolean hasBlankNode(Binding binding, List<Var> vars)
+    {
+        for ( Var v : vars ) {
+            Node n = binding.get(v) ;
+            if ( n != null && n.isBlank() )
+                return true ;
+        }
+        return false ;
+    }
+
+    /** Whether any binding of the batch has a variable of the pattern. */
+    private boolean sharesVars(List<Binding> batch)
+    {
+        for ( Binding b : batch ) {
+            for ( Iterator<Var> iter = b.vars() ; iter.hasNext() ; ) {
+                if ( mentionedVars.contains(iter.next()) )
+                    return true ;
+            }
+        }
+        return false ;
+    }
+
+    /**
+     * The variables to send for a batch, or null if the batch can not be sent
+     * as a {@code VALUES} block.
+     */
+    private List<Var> batchVars(List<Binding> batch)
+    {
+        if ( ! batchable || ! opService.getService().isURI() || mentionedVars.contains(varRow) )
+            return null ;
+        List<Var> vars = new ArrayList<>() ;
+        for ( Binding b : batch ) {
+            for ( Iterator<Var> iter = b.vars() ; iter.hasNext() ; ) {
+                Var v = iter.next() ;
+                if ( ! mentionedVars.contains(v) )
+                    continue ;
+                // Joining the VALUES block is the same as substitution only
+                // if the pattern always binds the variable.
+                if ( ! fixedVars.contains(v) )
+                    return null ;
+                if ( ! vars.contains(v) )
+                    vars.add(v) ;
+            }
+        }
+        return vars ;
+    }
+
+    // May be called from another thread while the consumer waits on a channel.
+    private void cancelRequests()
+    {
+        synchronized (inProgress) {
+            cancelled = true ;
+            for ( Request request : inProgress ) {
+                request.future.cancel(true) ;
+                request.channel.cancel() ;
+            }
+            inProgress.clear() ;
+        }
+        arrivals.cancel() ;
+    }
+
+    @Override
+    protected void closeSubIterator()
+    {
+        cancelRequests() ;
+    }
+
+    @Override
+    protected void requestSubCancel()
+    {
+        cancelRequests() ;
+    }
+}
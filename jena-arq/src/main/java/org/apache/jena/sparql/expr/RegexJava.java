@@ -22,21 +22,102 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
+import org.apache.jena.atlas.lib.Cache ;
+import org.apache.jena.atlas.lib.CacheFactory ;
+import org.apache.jena.atlas.lib.Pair ;
+
 public class RegexJava implements RegexEngine
 {
+    /** Size of the cache of compiled patterns shared across all queries. */
+    public static final int DftPatternCacheSize = 1000;
+
+    // Keyed by (pattern string, flags). Thread-safe for single operations.
+    private static Cache<Pair<String, String>, Pattern> patternCache = CacheFactory.createCache(DftPatternCacheSize);
+
     private Pattern regexPattern;
+    // Non-null when the pattern is "^literal" and a simple string prefix test is sufficient.
+    private String prefix;
 
     public RegexJava(String pattern, String flags) {
-        regexPattern = makePattern("Regex", pattern, flags);
+        prefix = literalPrefix(pattern, flags);
+        if ( prefix == null )
+            regexPattern = makePattern("Regex", pattern, flags);
     }
 
     @Override
     public boolean match(String s) {
+        if ( prefix != null )
+            return s.startsWith(prefix);
         Matcher m = regexPattern.matcher(s);
         return m.find();
     }
 
+    /**
+     * Return the compiled {@link Pattern}, using the shared cache of patterns.
+     * Patterns that fail to compile are not cached.
+     */
     public static Pattern makePattern(String label, String patternStr, String flags) {
+        Pair<String, String> key = Pair.create(patternStr, flags);
+        Pattern pattern = patternCache.getIfPresent(key);
+        if ( pattern == null ) {
+            pattern = compilePattern(label, patternStr, flags);
+            patternCache.put(key, pattern);
+        }
+        return pattern;
+    }
+
+    /** Clear the shared cache of compiled patterns. */
+    public static void clearPatternCache() {
+        patternCache.clear();
+    }
+
+    /**
+     * If the regular expression is an anchored literal string, "^abc", return the
+     * literal part ("abc"), otherwise return null. A regex of this form is
+     * equivalent to a STRSTARTS test. Escaped punctuation characters ({@code "\."})
+     * are accepted as literal characters. Only patterns without flags (or with no
+     * effective flags) are considered.
+     */
+    public static String literalPrefix(String patternStr, String flags) {
+        if ( flags != null && ! flags.isEmpty() )
+            return null;
+        if ( patternStr.length() < 1 || patternStr.charAt(0) != '^' )
+            return null;
+        StringBuilder sb = new StringBuilder(patternStr.length()-1);
+        for ( int i = 1 ; i < patternStr.length() ; i++ ) {
+            char ch = patternStr.charAt(i);
+            if ( ch == '\\' ) {
+                i++;
+                if ( i >= patternStr.length() )
+                    return null;
+                ch = patternStr.charAt(i);
+                // "\d", "\w", "\Q" etc are not literal characters.
+                if ( Character.isLetterOrDigit(ch) )
+                    return null;
+                sb.append(ch);
+                continue;
+            }
+            if ( isMetaChar(ch) )
+                return null;
+            // Leave surrogate pairs etc to the regex engine.
+            if ( Character.isSurrogate(ch) )
+                return null;
+            sb.append(ch);
+        }
+        return sb.toString();
+    }
+
+    private static boolean isMetaChar(char ch) {
+        switch(ch) {
+            case '^': case '$': case '.': case '|': case '?': case '*': case '+':
+            case '(': case ')': case '[': case ']': case '{': case '}':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static Pattern compilePattern(String label, String patternStr, String flags) {
         try {
             int mask = 0;
             if ( flags != null ) {
@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.mgt;
+
+import java.util.* ;
+import java.util.concurrent.atomic.LongAdder ;
+
+import org.apache.jena.atlas.io.IndentedLineBuffer ;
+import org.apache.jena.atlas.io.IndentedWriter ;
+import org.apache.jena.atlas.json.JsonArray ;
+import org.apache.jena.atlas.json.JsonObject ;
+import org.apache.jena.query.ARQ ;
+import org.apache.jena.sparql.ARQConstants ;
+import org.apache.jena.sparql.algebra.Op ;
+import org.apache.jena.sparql.algebra.op.Op0 ;
+import org.apache.jena.sparql.algebra.op.Op1 ;
+import org.apache.jena.sparql.algebra.op.Op2 ;
+import org.apache.jena.sparql.algebra.op.OpN ;
+import org.apache.jena.sparql.engine.QueryIterator ;
+import org.apache.jena.sparql.engine.binding.Binding ;
+import org.apache.jena.sparql.engine.iterator.QueryIteratorWrapper ;
+import org.apache.jena.sparql.util.Context ;
+
+/**
+ * Per-operator execution statistics ("explain analyze").
+ * <p>
+ * When {@link ARQ#collectExecStats} is set, the main query engine records, for
+ * each operator of the algebra expression being executed, the number of times
+ * it was executed, the number of rows it produced, the time spent getting those
+ * rows (inclusive of the operators below it) and the number of times it caused
+ * a sub-expression to be executed with a substituted binding (the stages of an
+ * index join, or of an {@code OPTIONAL}, {@code MINUS} or {@code SERVICE} done
+ * by substitution).
+ * <p>
+ * After the results have been consumed, the statistics are available from the
+ * execution context with {@link #get(Context)} and can be output as an
+ * annotated algebra tree, either text ({@link #toString()}) or JSON
+ * ({@link #asJson()}).
+ * <p>
+ * Iterators running on other threads, such as concurrent {@code SERVICE} requests,
+ * update the counters safely; a stage is counted for the operator getting rows on
+ * the same thread.
+ * <p>
+ * Collecting statistics adds overhead to every step of query execution.
+ */
+public class ExecStats {
+
+    /** Statistics for one operator. */
+    public static class OpStats {
+        private final Op op ;
+        // Updated by iterators that may be running on other threads.
+        private final LongAdder executions = new LongAdder() ;
+        private final LongAdder rows = new LongAdder() ;
+        private final LongAdder nanos = new LongAdder() ;
+        private final LongAdder stages = new LongAdder() ;
+
+        private OpStats(Op op) { this.op = op ; }
+
+        public Op getOp()           { return op ; }
+        /** Number of times an iterator for this operator was created. */
+        public long getExecutions() { return executions.sum() ; }
+        /** Number of rows produced. */
+        public long getRows()       { return rows.sum() ; }
+        /** Time spent producing rows, including the time for the operators below this one. */
+        public long getTimeNanos()  { return nanos.sum() ; }
+        /** Number of executions of substituted sub-expressions. */
+        public long getStages()     { return stages.sum() ; }
+    }
+
+    /**
+     * Return the execution statistics for an execution context, or null if
+     * statistics are not being collected.
+     */
+    public static ExecStats get(Context context) {
+        if ( context == null )
+            return null ;
+        return context.get(ARQConstants.sysExecStats) ;
+    }
+
+    /**
+     * Start collecting execution statistics for an algebra expression, if enabled
+     * by {@link ARQ#collectExecStats} in the context.
+     */
+    public static ExecStats setup(Op op, Context context) {
+        if ( ! context.isTrue(ARQ.collectExecStats) )
+            return null ;
+        ExecStats execStats = new ExecStats(op) ;
+        context.set(ARQConstants.sysExecStats, execStats) ;
+        return execStats ;
+    }
+
+    private final Op opTop ;
+    // Indexed by object identity - the same operator may appear more than once in an algebra expression.
+    private final Map<Op, OpStats> opStats = new IdentityHashMap<>() ;
+    // The operators currently getting rows, on each thread.
+    private final ThreadLocal<Deque<OpStats>> active = ThreadLocal.withInitial(ArrayDeque::new) ;
+
+    public ExecStats(Op op) {
+        this.opTop = op ;
+        register(op) ;
+    }
+
+    private void register(Op op) {
+        if ( op == null || opStats.containsKey(op) )
+            return ;
+        opStats.put(op, new OpStats(op)) ;
+        for ( Op sub : subOps(op) )
+            register(sub) ;
+    }
+
+    /** The algebra expression that the statistics are for. */
+    public Op getOp() {
+        return opTop ;
+    }
+
+    /** The statistics for an operator of the algebra expression, or null. */
+    public OpStats getStats(Op op) {
+        return opStats.get(op) ;
+    }
+
+    /**
+     * Record the execution of an operator, returning the {@link QueryIterator} to
+     * use. Operators of the algebra expression have their iterator wrapped to
+     * count rows and time. Any other operator is part of a sub-expression with a
+     * substituted binding; the root of that sub-expression ({@code root} is true)
+     * is counted as one stage of the operator currently producing rows, and the
+     * operators nested inside it are not counted.
+     */
+    public QueryIterator track(Op op, QueryIterator input, QueryIterator qIter, boolean root) {
+        OpStats stats = opStats.get(op) ;
+        if ( stats == null ) {
+            if ( ! root )
+                return qIter ;
+            OpStats current = active.get().peek() ;
+            if ( current != null )
+                current.stages.increment() ;
+            return qIter ;
+        }
+        stats.executions.increment() ;
+        if ( qIter == input )
+            // No work done by this operator.
+            return qIter ;
+        return new QueryIterStats(qIter, stats) ;
+    }
+
+    private static List<Op> subOps(Op op) {
+        if ( op instanceof Op0 )
+            return Collections.emptyList() ;
+        if ( op instanceof Op1 ) {
+            Op sub = ((Op1)op).getSubOp() ;
+            return sub == null ? Collections.emptyList() : Collections.singletonList(sub) ;
+        }
+        if ( op instanceof Op2 )
+            return Arrays.asList(((Op2)op).getLeft(), ((Op2)op).getRight()) ;
+        if ( op instanceof OpN )
+            return ((OpN)op).getElements() ;
+        return Collections.emptyList() ;
+    }
+
+    /** Label for an operator: the first line of its SSE form. */
+    private static String label(Op op) {
+        if ( op instanceof Op0 )
+            return op.toString().trim().replaceAll("\\s+", " ") ;
+        String str = op.toString() ;
+        int idx = str.indexOf('\n') ;
+        if ( idx >= 0 )
+            str = str.substring(0, idx) ;
+        return str.trim() ;
+    }
+
+    /** Output as an annotated algebra expression. */
+    public void output(IndentedWriter out) {
+        output(out, opTop) ;
+    }
+
+    private void output(IndentedWriter out, Op op) {
+        OpStats stats = opStats.get(op) ;
+        out.print(label(op)) ;
+        out.pad(40) ;
+        out.print("  # ") ;
+        out.print(String.format("execs=%d rows=%d time=%.3fms", stats.getExecutions(), stats.getRows(), stats.getTimeNanos()/1e6)) ;
+        if ( stats.getStages() > 0 )
+            out.print(String.format(" stages=%d", stats.getStages())) ;
+        out.println() ;
+        out.incIndent() ;
+        for ( Op sub : subOps(op) )
+            output(out, sub) ;
+        out.decIndent() ;
+    }
+
+    /** Return as a JSON object tree. */
+    public JsonObject asJson() {
+        return asJson(opTop) ;
+    }
+
+    private JsonObject asJson(Op op) {
+        OpStats stats = opStats.get(op) ;
+        JsonObject obj = new JsonObject() ;
+        obj.put("op", op.getName()) ;
+        obj.put("algebra", label(op)) ;
+        obj.put("executions", stats.getExecutions()) ;
+        obj.put("rows", stats.getRows()) ;
+        obj.put("timeMicros", stats.getTimeNanos()/1000) ;
+        obj.put("stages", stats.getStages()) ;
+        List<Op> subOps = subOps(op) ;
+        if ( ! subOps.isEmpty() ) {
+            JsonArray array = new JsonArray() ;
+            for ( Op sub : subOps )
+                array.add(asJson(sub)) ;
+            obj.put("subOps", array) ;
+        }
+        return obj ;
+    }
+
+    @Override
+    public String toString() {
+        IndentedLineBuffer buff = new IndentedLineBuffer() ;
+        output(buff) ;
+        return buff.asString() ;
+    }
+
+    /** Count rows and time for one execution of an operator. */
+    private class QueryIterStats extends QueryIteratorWrapper {
+        private final OpStats stats ;
+
+        QueryIterStats(QueryIterator qIter, OpStats stats) {
+            super(qIter) ;
+            this.stats = stats ;
+        }
+
+        @Override
+        protected boolean hasNextBinding() {
+            Deque<OpStats> stack = active.get() ;
+            stack.push(stats) ;
+            long start = System.nanoTime() ;
+            try {
+                return super.hasNextBinding() ;
+            } finally {
+                stats.nanos.add(System.nanoTime() - start) ;
+                stack.pop() ;
+            }
+        }
+
+        @Override
+        protected Binding moveToNextBinding() {
+            Deque<OpStats> stack = active.get() ;
+            stack.push(stats) ;
+            long start = System.nanoTime() ;
+            try {
+                Binding b = super.moveToNextBinding() ;
+                stats.rows.increment() ;
+                return b ;
+            } finally {
+                stats.nanos.add(System.nanoTime() - start) ;
+                stack.pop() ;
+            }
+        }
+    }
+}
@@ -159,23 +159,24 @@ public class UpdateEngineWorker implements UpdateVisitor
             // parser behaviour of just selecting default graph triples when the
             // destination is a graph, we need to do the same steps as RDFParser.parseURI,
             // with different checking.
-            TypedInputStream input = RDFDataMgr.open(source);
-            String contentType = input.getContentType();
-            Lang lang = RDFDataMgr.determineLang(source, contentType, Lang.TTL); 
-            if ( lang == null )
-                throw new UpdateException("Failed to determine the syntax for '"+source+"'");
-            if ( ! RDFLanguages.isTriples(lang) )
-                throw new UpdateException("Attempt to load quads into a graph");
-            RDFParser parser = RDFParser
-                .source(input.getInputStream())
-                .forceLang(lang)
-                .build();
-            if ( loadBuffered ) {
-                Graph g = GraphFactory.createGraphMem();
-                parser.parse(g);
-                GraphUtil.addInto(graph, g);
-            } else {
-                parser.parse(graph);
+            try ( TypedInputStream input = RDFDataMgr.open(source) ) {
+                String contentType = input.getContentType();
+                Lang lang = RDFDataMgr.determineLang(source, contentType, Lang.TTL); 
+                if ( lang == null )
+                    throw new UpdateException("Failed to determine the syntax for '"+source+"'");
+                if ( ! RDFLanguages.isTriples(lang) )
+                    throw new UpdateException("Attempt to load quads into a graph");
+                RDFParser parser = RDFParser
+                    .source(input.getInputStream())
+                    .forceLang(lang)
+                    .build();
+                if ( loadBuffered ) {
+                    Graph g = GraphFactory.createGraphMem();
+                    parser.parse(g);
+                    GraphUtil.addInto(graph, g);
+                } else {
+                    parser.parse(graph);
+                }
             }
         } catch (RuntimeException ex) {
             if ( !update.getSilent() ) {
@@ -21,7 +21,9 @@ package org.apache.jena.sparql.path;
 import java.util.ArrayList ;
 import java.util.Iterator ;
 import java.util.List ;
+import java.util.Map ;
 import java.util.Objects;
+import java.util.Set ;
 import java.util.function.Predicate;
 
 import org.apache.jena.atlas.iterator.Iter ;
@@ -42,10 +44,13 @@ import org.apache.jena.sparql.engine.QueryIterator ;
 import org.apache.jena.sparql.engine.binding.Binding ;
 import org.apache.jena.sparql.engine.binding.BindingFactory ;
 import org.apache.jena.sparql.engine.iterator.QueryIterConcat ;
+import org.apache.jena.sparql.engine.iterator.QueryIterNullIterator ;
 import org.apache.jena.sparql.engine.iterator.QueryIterPlainWrapper ;
+import org.apache.jena.sparql.engine.iterator.QueryIterSingleton ;
 import org.apache.jena.sparql.engine.iterator.QueryIterYieldN ;
 import org.apache.jena.sparql.mgt.Explain ;
 import org.apache.jena.sparql.path.eval.PathEval ;
+import org.apache.jena.sparql.path.eval.PathReachability ;
 import org.apache.jena.sparql.pfunction.PropertyFunctionFactory ;
 import org.apache.jena.sparql.pfunction.PropertyFunctionRegistry ;
 import org.apache.jena.sparql.util.Context;
@@ -133,12 +138,17 @@ public class PathLib
             return evalGroundedPath(binding, graph, s, path, o, execCxt);
 
         // One variable, one constant
+        PathReachability.Closure closure = PathReachability.closure(graph, path, execCxt) ;
         if ( Var.isVar(s) ) {
             // Var subject, concrete object - do backwards.
-            iter = PathEval.evalReverse(graph, o, path, execCxt.getContext());
+            iter = ( closure != null )
+                ? closure.evalReverse(o)
+                : PathEval.evalReverse(graph, o, path, execCxt.getContext());
             endNode = s;
         } else {
-            iter = PathEval.eval(graph, s, path, execCxt.getContext());
+            iter = ( closure != null )
+                ? closure.eval(s)
+                : PathEval.eval(graph, s, path, execCxt.getContext());
             endNode = o;
         }
         return evalGroundedOneEnd(binding, iter, endNode, execCxt);
@@ -163,6 +173,13 @@ public class PathLib
     private static QueryIterator evalGroundedPath(Binding binding, 
                                                   Graph graph, Node subject, Path path, Node object,
                                                   ExecutionContext execCxt) {
+        PathReachability.Closure closure = PathReachability.closure(graph, path, execCxt) ;
+        if ( closure != null ) {
+            // Distinct results - zero or one match.
+            if ( ! closure.connected(subject, object) )
+                return QueryIterNullIterator.create(execCxt) ;
+            return QueryIterSingleton.create(binding, execCxt) ;
+        }
         Iterator<Node> iter = PathEval.eval(graph, subject, path, execCxt.getContext()) ;
         // Now count the number of matches.
         
@@ -178,6 +195,9 @@ public class PathLib
 
     // Brute force evaluation of a TriplePath where neither subject nor object are bound 
     private static QueryIterator execUngroundedPath(Binding binding, Graph graph, Var sVar, Path path, Var oVar, ExecutionContext execCxt) {
+        PathReachability.Closure closure = PathReachability.closure(graph, path, execCxt) ;
+        if ( closure != null )
+            return execUngroundedClosure(binding, closure, sVar, oVar, execCxt) ;
         // Starting points.
         Iterator<Node> iter = determineUngroundedStartingSet(graph, path, execCxt) ;
         QueryIterConcat qIterCat = new QueryIterConcat(execCxt) ;
@@ -193,6 +213,16 @@ public class PathLib
         return qIterCat ;
     }
     
+    // Closure for all nodes, calculated together.
+    private static QueryIterator execUngroundedClosure(Binding binding, PathReachability.Closure closure, Var sVar, Var oVar, ExecutionContext execCxt) {
+        Map<Node, Set<Node>> all = closure.evalAll() ;
+        Iterator<Binding> iter = Iter.flatMap(all.entrySet().iterator(), e -> {
+            Binding b2 = BindingFactory.binding(binding, sVar, e.getKey()) ;
+            return Iter.map(e.getValue().iterator(), n -> BindingFactory.binding(b2, oVar, n)) ;
+        }) ;
+        return new QueryIterPlainWrapper(iter, execCxt) ;
+    }
+
     private static QueryIterator execUngroundedPathSameVar(Binding binding, Graph graph, Var var, Path path, ExecutionContext execCxt) {
         // Try each end, ungrounded.
         // Slightly more efficient would be to add a per-engine to do this.
@@ -254,6 +284,9 @@ public class PathLib
     private static int existsPath(Graph graph, Node subject, Path path, final Node object, ExecutionContext execCxt) {
         if ( ! subject.isConcrete() || !object.isConcrete() )
             throw new ARQInternalErrorException("Non concrete node for existsPath evaluation") ;
+        PathReachability.Closure closure = PathReachability.closure(graph, path, execCxt) ;
+        if ( closure != null )
+            return closure.connected(subject, object) ? 1 : 0 ;
         Iterator<Node> iter = PathEval.eval(graph, subject, path, execCxt.getContext()) ;
         Predicate<Node> filter = node -> Objects.equals(node,  object); 
         // See if we got to the node we're interested in finishing at.
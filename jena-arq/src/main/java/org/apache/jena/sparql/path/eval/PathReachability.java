@@ -0,0 +1,405 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.path.eval;
+
+import java.util.* ;
+
+import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.ext.com.google.common.cache.Cache ;
+import org.apache.jena.ext.com.google.common.cache.CacheBuilder ;
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.query.ARQ ;
+import org.apache.jena.sparql.engine.ExecutionContext ;
+import org.apache.jena.sparql.path.* ;
+import org.apache.jena.sparql.pfunction.PropertyFunctionRegistry ;
+import org.apache.jena.sparql.util.Context ;
+import org.apache.jena.sparql.util.graph.GraphUtils ;
+
+/**
+ * Evaluation of the closure paths {@code :p*} and {@code :p+}, and their
+ * inverses {@code (^:p)*} and {@code (^:p)+}, for one query execution.
+ * <p>
+ * The nodes reachable from a start node are remembered, and the remembered sets
+ * are reused both when the same start node occurs again (e.g. for each binding
+ * of an index join) and when a traversal from another start node arrives at a
+ * node whose reachable set is already known. When both ends of the path are
+ * bound, a bidirectional search is done, expanding the smaller of the forward
+ * and backward frontiers until they meet. When both ends are unbound, the
+ * closure for all nodes is calculated by semi-naive iteration, extending only
+ * the pairs found in the previous round.
+ * <p>
+ * The remembered sets are held by the {@link ExecutionContext}, so they last for one
+ * evaluation of a query plan, and are not carried over to the next operation of an
+ * update request, which may see different data. The total number of nodes
+ * in the remembered sets is bounded by {@link #DftMaxNodes}; least recently used sets
+ * are dropped first. This is controlled by {@link ARQ#pathReachabilityCache}; it is on
+ * by default.
+ */
+public class PathReachability {
+    /** Maximum total size of the reachable sets remembered in a query execution. */
+    public static final long DftMaxNodes = 1000000 ;
+
+    /**
+     * Return the closure evaluator for a path, or null if the path is not a
+     * closure of a simple property or if reachability caching is not enabled.
+     */
+    public static Closure closure(Graph graph, Path path, ExecutionContext execCxt) {
+        Context context = execCxt.getContext() ;
+        if ( ! context.isTrueOrUndef(ARQ.pathReachabilityCache) )
+            return null ;
+        boolean zeroLength ;
+        if ( path instanceof P_ZeroOrMore1 )
+            zeroLength = true ;
+        else if ( path instanceof P_OneOrMore1 )
+            zeroLength = false ;
+        else
+            return null ;
+
+        Path subPath = ((P_Path1)path).getSubPath() ;
+        boolean forward = true ;
+        if ( subPath instanceof P_Inverse ) {
+            forward = false ;
+            subPath = ((P_Inverse)subPath).getSubPath() ;
+        }
+        if ( !(subPath instanceof P_Link) )
+            return null ;
+        Node property = ((P_Link)subPath).getNode() ;
+        if ( isPropertyFunction(property, context) )
+            return null ;
+
+        PathReachability reachability = execCxt.getPathReachability() ;
+        if ( reachability == null )
+            return null ;
+        return reachability.closure(graph, property, forward, zeroLength) ;
+    }
+
+    private static boolean isPropertyFunction(Node node, Context context) {
+        if ( ! node.isURI() )
+            return false ;
+        return PropertyFunctionRegistry.chooseRegistry(context).isRegistered(node.getURI()) ;
+    }
+
+    /** Create the remembered sets for one execution; nothing is allocated until first use. */
+    public static PathReachability create() {
+        return new PathReachability() ;
+    }
+
+    // Reachable sets, one or more steps, for (graph, property, direction) and start node,
+    // weighed by the size of the set. Created on first use.
+    private Cache<ReachKey, Set<Node>> reachable = null ;
+
+    private PathReachability() {}
+
+    private synchronized Cache<ReachKey, Set<Node>> reachable() {
+        if ( reachable == null )
+            reachable = CacheBuilder.newBuilder()
+                .concurrencyLevel(1)
+                .maximumWeight(DftMaxNodes)
+                .weigher((ReachKey k, Set<Node> v) -> v.size()+1)
+                .build() ;
+        return reachable ;
+    }
+
+    private Closure closure(Graph graph, Node property, boolean forward, boolean zeroLength) {
+        Reachable fwd = new Reachable(new ClosureKey(graph, property, forward)) ;
+        Reachable bwd = new Reachable(new ClosureKey(graph, property, !forward)) ;
+        return new Closure(graph, property, forward, zeroLength, fwd, bwd) ;
+    }
+
+    /** The remembered sets for one closure key. */
+    private class Reachable {
+        private final ClosureKey key ;
+
+        Reachable(ClosureKey key) { this.key = key ; }
+
+        Set<Node> getIfPresent(Node start) {
+            return reachable().getIfPresent(new ReachKey(key, start)) ;
+        }
+
+        void put(Node start, Set<Node> nodes) {
+            reachable().put(new ReachKey(key, start), nodes) ;
+        }
+    }
+
+    /** The closure of one property, in one direction, over one graph. */
+    public static class Closure {
+        private final Graph graph ;
+        private final Node property ;
+        private final boolean forward ;
+        private final boolean zeroLength ;
+        private final Reachable fwdReachable ;
+        private final Reachable bwdReachable ;
+
+        private Closure(Graph graph, Node property, boolean forward, boolean zeroLength,
+                        Reachable fwdReachable, Reachable bwdReachable) {
+            this.graph = graph ;
+            this.property = property ;
+            this.forward = forward ;
+            this.zeroLength = zeroLength ;
+            this.fwdReachable = fwdReachable ;
+            this.bwdReachable = bwdReachable ;
+        }
+
+        /** The nodes reachable from {@code start}, each once. */
+        public Iterator<Node> eval(Node start) {
+            return results(start, reachable(start, forward, fwdReachable)).iterator() ;
+        }
+
+        /** The nodes from which {@code end} is reachable, each once. */
+        public Iterator<Node> evalReverse(Node end) {
+            return results(end, reachable(end, !forward, bwdReachable)).iterator() ;
+        }
+
+        /** Whether {@code end} is reachable from {@code start}. */
+        public boolean connected(Node start, Node end) {
+            // Path evaluation compares by term.
+            if ( zeroLength && start.equals(end) )
+                return true ;
+            Set<Node> known = fwdReachable.getIfPresent(start) ;
+            if ( known != null )
+                return known.contains(end) ;
+            known = bwdReachable.getIfPresent(end) ;
+            if ( known != null )
+                return known.contains(start) ;
+            return bidirectional(start, end) ;
+        }
+
+        /**
+         * The closure for all nodes, as a map from start node to the nodes
+         * reachable from it. For {@code :p*}, every node of the graph is a start
+         * node, reaching at least itself.
+         */
+        public Map<Node, Set<Node>> evalAll() {
+            Map<Node, Set<Node>> closure = seminaive() ;
+            if ( ! zeroLength )
+                return closure ;
+            Map<Node, Set<Node>> result = new LinkedHashMap<>() ;
+            Iterator<Node> iter = GraphUtils.allNodes(graph) ;
+            for ( ; iter.hasNext() ; ) {
+                Node n = iter.next() ;
+                Set<Node> x = closure.get(n) ;
+                result.put(n, results(n, x == null ? Collections.emptySet() : x)) ;
+            }
+            return result ;
+        }
+
+        // Add the start node for the zero length path.
+        private Set<Node> results(Node start, Set<Node> oneOrMore) {
+            if ( ! zeroLength || oneOrMore.contains(start) )
+                return oneOrMore ;
+            Set<Node> x = new LinkedHashSet<>() ;
+            x.add(start) ;
+            x.addAll(oneOrMore) ;
+            return x ;
+        }
+
+        /**
+         * Nodes reachable in one or more steps. Traversal stops at any node for
+         * which the reachable set is already known, and uses that set instead.
+         */
+        private Set<Node> reachable(Node start, boolean fwd, Reachable cache) {
+            Set<Node> result = cache.getIfPresent(start) ;
+            if ( result != null )
+                return result ;
+            result = new LinkedHashSet<>() ;
+            Deque<Node> stack = new ArrayDeque<>() ;
+            push(step(start, fwd), result, stack) ;
+            while ( ! stack.isEmpty() ) {
+                Node n = stack.pop() ;
+                Set<Node> known = cache.getIfPresent(n) ;
+                if ( known != null )
+                    // Already closed - everything reachable from n is in "known".
+                    result.addAll(known) ;
+                else
+                    push(step(n, fwd), result, stack) ;
+            }
+            result = Collections.unmodifiableSet(result) ;
+            cache.put(start, result) ;
+            return result ;
+        }
+
+        private static void push(Iterator<Node> iter, Set<Node> visited, Deque<Node> stack) {
+            for ( ; iter.hasNext() ; ) {
+                Node n = iter.next() ;
+                if ( visited.add(n) )
+                    stack.push(n) ;
+            }
+        }
+
+        // Whether "end" is reachable from "start" in one or more steps.
+        // "fwdSeen" : reachable from start in one or more steps.
+        // "bwdSeen" : reaches end in zero or more steps.
+        private boolean bidirectional(Node start, Node end) {
+            Set<Node> fwdSeen = new HashSet<>() ;
+            Set<Node> bwdSeen = new HashSet<>() ;
+            List<Node> fwdFrontier = new ArrayList<>() ;
+            List<Node> bwdFrontier = new ArrayList<>() ;
+            bwdSeen.add(end) ;
+            bwdFrontier.add(end) ;
+            Iterator<Node> iter = step(start, forward) ;
+            for ( ; iter.hasNext() ; ) {
+                Node n = iter.next() ;
+                if ( bwdSeen.contains(n) )
+                    return true ;
+                if ( fwdSeen.add(n) )
+                    fwdFrontier.add(n) ;
+            }
+
+            while ( ! fwdFrontier.isEmpty() && ! bwdFrontier.isEmpty() ) {
+                if ( fwdFrontier.size() <= bwdFrontier.size() ) {
+                    fwdFrontier = expand(fwdFrontier, forward, fwdSeen, bwdSeen) ;
+                    if ( fwdFrontier == null )
+                        return true ;
+                } else {
+                    bwdFrontier = expand(bwdFrontier, !forward, bwdSeen, fwdSeen) ;
+                    if ( bwdFrontier == null )
+                        return true ;
+                }
+            }
+            return false ;
+        }
+
+        // One level of breadth first search. Returns null if the other side was met.
+        private List<Node> expand(List<Node> frontier, boolean fwd, Set<Node> seen, Set<Node> other) {
+            List<Node> next = new ArrayList<>() ;
+            for ( Node n : frontier ) {
+                Iterator<Node> iter = step(n, fwd) ;
+                for ( ; iter.hasNext() ; ) {
+                    Node n2 = iter.next() ;
+                    if ( other.contains(n2) )
+                        return null ;
+                    if ( seen.add(n2) )
+                        next.add(n2) ;
+                }
+            }
+            return next ;
+        }
+
+        /**
+         * Semi-naive calculation of the closure: each round extends, by one step,
+         * only the pairs that were new in the previous round.
+         */
+        private Map<Node, Set<Node>> seminaive() {
+            Map<Node, Set<Node>> edges = new HashMap<>() ;
+            Map<Node, Set<Node>> closure = new LinkedHashMap<>() ;
+            Map<Node, Set<Node>> delta = new HashMap<>() ;
+            Iterator<Triple> iter = graph.find(Node.ANY, property, Node.ANY) ;
+            for ( ; iter.hasNext() ; ) {
+                Triple t = iter.next() ;
+                Node from = forward ? t.getSubject() : t.getObject() ;
+                Node to = forward ? t.getObject() : t.getSubject() ;
+                edges.computeIfAbsent(from, k -> new LinkedHashSet<>()).add(to) ;
+            }
+            edges.forEach((n, s) -> {
+                closure.put(n, new LinkedHashSet<>(s)) ;
+                delta.put(n, new HashSet<>(s)) ;
+            }) ;
+
+            while ( ! delta.isEmpty() ) {
+                Map<Node, Set<Node>> nextDelta = new HashMap<>() ;
+                delta.forEach((n, newNodes) -> {
+                    Set<Node> reached = closure.get(n) ;
+                    Set<Node> added = null ;
+                    for ( Node m : newNodes ) {
+                        Set<Node> step = edges.get(m) ;
+                        if ( step == null )
+                            continue ;
+                        for ( Node m2 : step ) {
+                            if ( reached.add(m2) ) {
+                                if ( added == null )
+                                    added = new HashSet<>() ;
+                                added.add(m2) ;
+                            }
+                        }
+                    }
+                    if ( added != null )
+                        nextDelta.put(n, added) ;
+                }) ;
+                delta.clear() ;
+                delta.putAll(nextDelta) ;
+            }
+
+            closure.forEach((n, s) -> fwdReachable.put(n, Collections.unmodifiableSet(s))) ;
+            return closure ;
+        }
+
+        private Iterator<Node> step(Node node, boolean fwd) {
+            if ( fwd )
+                return Iter.map(graph.find(node, property, Node.ANY), Triple::getObject) ;
+            return Iter.map(graph.find(Node.ANY, property, node), Triple::getSubject) ;
+        }
+    }
+
+    private static final class ReachKey {
+        private final ClosureKey closure ;
+        private final Node start ;
+        private final int hash ;
+
+        ReachKey(ClosureKey closure, Node start) {
+            this.closure = closure ;
+            this.start = start ;
+            this.hash = 31*closure.hashCode() + start.hashCode() ;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash ;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if ( this == obj )
+                return true ;
+            if ( !(obj instanceof ReachKey) )
+                return false ;
+            ReachKey other = (ReachKey)obj ;
+            return hash == other.hash && start.equals(other.start) && closure.equals(other.closure) ;
+        }
+    }
+
+    // Graphs are compared by identity; the same graph may be reached in different ways.
+    private static final class ClosureKey {
+        private final Graph graph ;
+        private final Node property ;
+        private final boolean forward ;
+
+        ClosureKey(Graph graph, Node property, boolean forward) {
+            this.graph = graph ;
+            this.property = property ;
+            this.forward = forward ;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(graph), property, forward) ;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if ( this == obj )
+                return true ;
+            if ( !(obj instanceof ClosureKey) )
+                return false ;
+            ClosureKey other = (ClosureKey)obj ;
+            return graph == other.graph && forward == other.forward && property.equals(other.property) ;
+        }
+    }
+}
@@ -18,13 +18,13 @@
 
 package org.apache.jena.sparql.resultset;
 
-import java.io.BufferedWriter ;
 import java.io.IOException ;
 import java.io.OutputStream ;
-import java.io.Writer ;
 import java.util.ArrayList ;
 import java.util.List ;
 
+import org.apache.jena.atlas.io.AWriter ;
+import org.apache.jena.atlas.io.AWriterUTF8 ;
 import org.apache.jena.atlas.lib.StrUtils ;
 import org.apache.jena.graph.Node ;
 import org.apache.jena.query.ResultSet ;
@@ -32,7 +32,6 @@ import org.apache.jena.sparql.ARQException ;
 import org.apache.jena.sparql.core.Var ;
 import org.apache.jena.sparql.engine.binding.Binding ;
 import org.apache.jena.sparql.util.NodeToLabelMap ;
-import org.apache.jena.util.FileUtils ;
 
 /** Convenient comma separated values - see also TSV (tab separated values)
  *  which outputs full RDF terms (in Turtle-style).
@@ -56,53 +55,47 @@ public class CSVOutput extends OutputBase
     @Override
     public void format(OutputStream out, ResultSet resultSet)
     {
-        try {
-            Writer w = FileUtils.asUTF8(out) ;
-            NodeToLabelMap bnodes = new NodeToLabelMap() ;
-            w = new BufferedWriter(w) ;
-            
-            String sep = null ;
-            List<String> varNames = resultSet.getResultVars() ;
-            List<Var> vars = new ArrayList<>(varNames.size()) ;
+        AWriter w = new AWriterUTF8(out) ;
+        NodeToLabelMap bnodes = new NodeToLabelMap() ;
+
+        String sep = null ;
+        List<String> varNames = resultSet.getResultVars() ;
+        List<Var> vars = new ArrayList<>(varNames.size()) ;
+        
+        // Convert to Vars and output the header line.
+        for( String v : varNames )
+        {
+            if ( sep != null )
+                w.write(sep) ;
+            else
+                sep = "," ;
+            csvSafe(w, v) ;
+            vars.add(Var.alloc(v)) ;
+        }
+        w.write(NL) ;
+        
+        // Data output
+        for ( ; resultSet.hasNext() ; )
+        {
+            sep = null ;
+            Binding b = resultSet.nextBinding() ;
             
-            // Convert to Vars and output the header line.
-            for( String v : varNames )
+            for( Var v : vars )
             {
                 if ( sep != null )
                     w.write(sep) ;
-                else
-                    sep = "," ;
-                w.write(csvSafe(v)) ; 
-                vars.add(Var.alloc(v)) ;
-            }
-            w.write(NL) ;
-            
-            // Data output
-            for ( ; resultSet.hasNext() ; )
-            {
-                sep = null ;
-                Binding b = resultSet.nextBinding() ;
+                sep = "," ;
                 
-                for( Var v : vars )
-                {
-                    if ( sep != null )
-                        w.write(sep) ;
-                    sep = "," ;
-                    
-                    Node n = b.get(v) ;
-                    if ( n != null )
-                        output(w, n, bnodes) ;
-                }
-                w.write(NL) ;
+                Node n = b.get(v) ;
+                if ( n != null )
+                    output(w, n, bnodes) ;
             }
-            w.flush() ;
-        } catch (IOException ex)
-        {
-            throw new ARQException(ex) ;
+            w.write(NL) ;
         }
+        w.flush() ;
     }
 
-    protected void output(Writer w, Node n, NodeToLabelMap bnodes) throws IOException 
+    protected void output(AWriter w, Node n, NodeToLabelMap bnodes)
     {
         //String str = FmtUtils.stringForNode(n) ;
         String str = "?" ;
@@ -111,8 +104,48 @@ public class CSVOutput extends OutputBase
         else if ( n.isBlank() )
             str = bnodes.asString(n) ;
         
-        str = csvSafe(str) ;
-        w.write(str) ;
+        csvSafe(w, str) ;
+    }
+
+    /** Write a string, quoted if necessary, in one pass over the string. */
+    protected void csvSafe(AWriter w, String str)
+    {
+        int len = str.length() ;
+        if ( len == 0 ) {
+            // The quoted empty string.
+            w.write("\"\"") ;
+            return ;
+        }
+        int i = 0 ;
+        for ( ; i < len ; i++ ) {
+            char ch = str.charAt(i) ;
+            if ( ch == '"' || ch == ',' || ch == '\r' || ch == '\n' )
+                break ;
+        }
+        if ( i == len ) {
+            w.write(str) ;
+            return ;
+        }
+        // Apparently, there are CSV parsers that only accept "" as an escaped quote if inside a "..."
+        w.write('"') ;
+        int start = 0 ;
+        for ( ; i < len ; i++ ) {
+            if ( str.charAt(i) != '"' )
+                continue ;
+            // Include the quote, then write it again.
+            write(w, str, start, i+1) ;
+            start = i ;
+        }
+        write(w, str, start, len) ;
+        w.write('"') ;
+    }
+
+    private static void write(AWriter w, String str, int start, int end)
+    {
+        if ( w instanceof AWriterUTF8 )
+            ((AWriterUTF8)w).print(str, start, end) ;
+        else
+            w.write(str.substring(start, end)) ;
     }
 
     protected String csvSafe(String str)
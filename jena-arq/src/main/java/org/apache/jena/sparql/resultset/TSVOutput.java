@@ -18,13 +18,15 @@
 
 package org.apache.jena.sparql.resultset;
 
+import java.io.ByteArrayOutputStream ;
 import java.io.IOException ;
 import java.io.OutputStream ;
 import java.util.ArrayList ;
+import java.util.HashMap ;
 import java.util.List ;
+import java.util.Map ;
 
-import org.apache.jena.atlas.io.IO ;
-import org.apache.jena.atlas.io.AWriter ;
+import org.apache.jena.atlas.io.AWriterUTF8 ;
 import org.apache.jena.atlas.lib.StrUtils ;
 import org.apache.jena.graph.Node ;
 import org.apache.jena.query.ResultSet ;
@@ -47,12 +49,19 @@ public class TSVOutput extends OutputBase
     
     static String NL   = "\n" ;
     static String SEP  = "\t" ;
-    
+
+    // Limit on the number of URIs with cached formatted bytes.
+    private static final int CacheSize = 1000 ;
+
     @Override
     public void format(OutputStream out, ResultSet resultSet) {
         NodeFormatter formatter = createNodeFormatter();
 
-        AWriter w = IO.wrapUTF8(out);
+        AWriterUTF8 w = new AWriterUTF8(out);
+        // URIs are often repeated : keep their formatted bytes for this output.
+        Map<String, byte[]> uris = new HashMap<>();
+        ByteArrayOutputStream scratchBytes = new ByteArrayOutputStream();
+        AWriterUTF8 scratch = new AWriterUTF8(scratchBytes, 1024);
 
         String sep = null;
         List<String> varNames = resultSet.getResultVars();
@@ -81,7 +90,21 @@ public class TSVOutput extends OutputBase
                 sep = SEP;
 
                 Node n = b.get(v);
-                if ( n != null ) {
+                if ( n == null )
+                    continue;
+                if ( n.isURI() ) {
+                    byte[] bytes = uris.get(n.getURI());
+                    if ( bytes == null ) {
+                        scratchBytes.reset();
+                        formatter.format(scratch, n);
+                        scratch.flush();
+                        bytes = scratchBytes.toByteArray();
+                        if ( uris.size() >= CacheSize )
+                            uris.clear();
+                        uris.put(n.getURI(), bytes);
+                    }
+                    w.write(bytes);
+                } else {
                     // This will not include a raw tab.
                     formatter.format(w, n);
                 }
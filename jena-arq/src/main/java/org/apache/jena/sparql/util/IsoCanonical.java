@@ -0,0 +1,639 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.util ;
+
+import java.io.OutputStream ;
+import java.nio.charset.StandardCharsets ;
+import java.security.MessageDigest ;
+import java.security.NoSuchAlgorithmException ;
+import java.util.* ;
+import java.util.concurrent.CompletableFuture ;
+import java.util.stream.IntStream ;
+
+import org.apache.jena.atlas.io.AWriter ;
+import org.apache.jena.atlas.io.IO ;
+import org.apache.jena.atlas.lib.Bytes ;
+import org.apache.jena.atlas.lib.InternalErrorException ;
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.riot.out.NodeFmtLib ;
+import org.apache.jena.sparql.core.DatasetGraph ;
+import org.apache.jena.sparql.core.Quad ;
+
+/** Canonical forms of graphs and datasets, for isomorphism testing and fingerprinting of large data.
+ * <p>
+ * Blank nodes are given labels that depend only on the data, not on the blank nodes themselves.
+ * The canonical form is the sorted N-Triples (or N-Quads) with these labels ({@code _:b0}, {@code _:b1}, ...)
+ * so two graphs are isomorphic exactly when their canonical forms are the same.
+ * <ul>
+ * <li>Blank nodes are split into components, connected by being in the same triple or quad.
+ * Components are independent of each other and are labelled in parallel.
+ * <li>Within a component, each blank node has a colour (a hash), recalculated from the colours
+ * and terms of the triples it is in until no more blank nodes are told apart (colour refinement).
+ * Refinement of a large component is done in parallel.
+ * <li>If some blank nodes still have the same colour, each in turn is given a new colour
+ * and refinement is repeated; the smallest outcome is used. Symmetries found
+ * along the way are used to skip equivalent choices.
+ * <li>Blank nodes that are in the same triples except for themselves (twins, such as
+ * the leaves of a star {@code _:h :p _:b1 . _:h :p _:b2 ...}) are interchangeable:
+ * only one of a group of twins is tried, and a group of twins that is all of
+ * the blank nodes with a colour is given new colours in one step.
+ * </ul>
+ * For most data, refinement alone tells the blank nodes apart. The search can be exponential
+ * for large, regular structures of blank nodes with many symmetries, which are rare in practice.
+ * <p>
+ * Comparison of terms is by term, not value (as {@code Graph.isIsomorphicWith}).
+ *
+ * @see IsoMatcher
+ */
+public class IsoCanonical
+{
+    private static final String BNODE_PREFIX = "_:b" ;
+    // Components with at least this many blank nodes are refined in parallel.
+    private static final int PARALLEL_REFINE = 10000 ;
+    // The colour of the blank node itself when seen from a triple it is in.
+    private static final long SELF = 0x5DEECE66DL ;
+
+    /** Test whether two graphs are isomorphic, by comparing their canonical forms. */
+    public static boolean isomorphic(Graph graph1, Graph graph2) {
+        if ( graph1.size() != graph2.size() )
+            return false ;
+        return sameLines(tuples(graph1), tuples(graph2)) ;
+    }
+
+    /** Test whether two datasets are isomorphic, by comparing their canonical forms.
+     * Blank nodes may be shared between graphs. */
+    public static boolean isomorphic(DatasetGraph dsg1, DatasetGraph dsg2) {
+        List<Node[]> tuples1 = tuples(dsg1) ;
+        List<Node[]> tuples2 = tuples(dsg2) ;
+        if ( tuples1.size() != tuples2.size() )
+            return false ;
+        return sameLines(tuples1, tuples2) ;
+    }
+
+    private static boolean sameLines(List<Node[]> tuples1, List<Node[]> tuples2) {
+        CompletableFuture<String[]> lines1 = CompletableFuture.supplyAsync(()->lines(tuples1)) ;
+        String[] lines2 = lines(tuples2) ;
+        return Arrays.equals(lines1.join(), lines2) ;
+    }
+
+    /** The canonical N-Triples for a graph, as sorted lines, without newlines. */
+    public static List<String> canonicalNTriples(Graph graph) {
+        return Arrays.asList(lines(tuples(graph))) ;
+    }
+
+    /** The canonical N-Quads for a dataset, as sorted lines, without newlines.
+     * The default graph is written as triples. */
+    public static List<String> canonicalNQuads(DatasetGraph dsg) {
+        return Arrays.asList(lines(tuples(dsg))) ;
+    }
+
+    /** Write the canonical N-Triples for a graph. */
+    public static void write(OutputStream out, Graph graph) {
+        write(out, lines(tuples(graph))) ;
+    }
+
+    /** Write the canonical N-Quads for a dataset. */
+    public static void write(OutputStream out, DatasetGraph dsg) {
+        write(out, lines(tuples(dsg))) ;
+    }
+
+    private static void write(OutputStream out, String[] lines) {
+        AWriter w = IO.wrapUTF8(out) ;
+        for ( String line : lines ) {
+            w.write(line) ;
+            w.write('\n') ;
+        }
+        w.flush() ;
+    }
+
+    /** A fingerprint for a graph: the SHA-256, in hex, of the canonical N-Triples.
+     * Isomorphic graphs have the same fingerprint. */
+    public static String hash(Graph graph) {
+        return hash(lines(tuples(graph))) ;
+    }
+
+    /** A fingerprint for a dataset: the SHA-256, in hex, of the canonical N-Quads.
+     * Isomorphic datasets have the same fingerprint. */
+    public static String hash(DatasetGraph dsg) {
+        return hash(lines(tuples(dsg))) ;
+    }
+
+    private static String hash(String[] lines) {
+        MessageDigest digest ;
+        try { digest = MessageDigest.getInstance("SHA-256") ; }
+        catch (NoSuchAlgorithmException ex) { throw new InternalErrorException("SHA-256", ex) ; }
+        for ( String line : lines ) {
+            digest.update(line.getBytes(StandardCharsets.UTF_8)) ;
+            digest.update((byte)'\n') ;
+        }
+        return Bytes.asHexLC(digest.digest()) ;
+    }
+
+    private static List<Node[]> tuples(Graph graph) {
+        List<Node[]> tuples = new ArrayList<>() ;
+        Iterator<Triple> iter = graph.find() ;
+        while ( iter.hasNext() ) {
+            Triple t = iter.next() ;
+            tuples.add(new Node[]{ t.getSubject(), t.getPredicate(), t.getObject() }) ;
+        }
+        return tuples ;
+    }
+
+    private static List<Node[]> tuples(DatasetGraph dsg) {
+        List<Node[]> tuples = new ArrayList<>() ;
+        Iterator<Quad> iter = dsg.find() ;
+        while ( iter.hasNext() ) {
+            Quad q = iter.next() ;
+            if ( q.isDefaultGraph() )
+                tuples.add(new Node[]{ q.getSubject(), q.getPredicate(), q.getObject() }) ;
+            else
+                tuples.add(new Node[]{ q.getSubject(), q.getPredicate(), q.getObject(), q.getGraph() }) ;
+        }
+        return tuples ;
+    }
+
+    /** Canonical labels for blank nodes, then the sorted lines. */
+    private static String[] lines(List<Node[]> tuples) {
+        // Number the terms ; each term is formatted once.
+        Map<Node, Integer> ids = new HashMap<>() ;
+        List<Node> terms = new ArrayList<>() ;
+        int[][] data = new int[tuples.size()][] ;
+        for ( int t = 0 ; t < data.length ; t++ ) {
+            Node[] tuple = tuples.get(t) ;
+            int[] x = new int[tuple.length] ;
+            for ( int j = 0 ; j < tuple.length ; j++ ) {
+                Integer id = ids.get(tuple[j]) ;
+                if ( id == null ) {
+                    id = terms.size() ;
+                    ids.put(tuple[j], id) ;
+                    terms.add(tuple[j]) ;
+                }
+                x[j] = id ;
+            }
+            data[t] = x ;
+        }
+        ids = null ;
+        // Blank nodes are numbered ; other terms are formatted.
+        int[] bnodeIdx = new int[terms.size()] ;
+        int N = 0 ;
+        for ( int i = 0 ; i < bnodeIdx.length ; i++ )
+            bnodeIdx[i] = terms.get(i).isBlank() ? N++ : -1 ;
+        String[] strings = new String[terms.size()] ;
+        IntStream.range(0, strings.length).parallel().forEach(i->{
+            if ( bnodeIdx[i] < 0 )
+                strings[i] = NodeFmtLib.str(terms.get(i)) ;
+        }) ;
+        long[] hashes = new long[strings.length] ;
+        for ( int i = 0 ; i < strings.length ; i++ )
+            hashes[i] = ( strings[i] == null ) ? 0 : hash(strings[i]) ;
+
+        if ( N > 0 ) {
+            Component[] components = components(data, bnodeIdx, N, strings, hashes) ;
+            Arrays.stream(components).parallel().forEach(Component::canonical) ;
+            Arrays.parallelSort(components, (c1, c2)->compare(c1.leaf, c2.leaf)) ;
+            int offset = 0 ;
+            for ( Component c : components ) {
+                for ( int u = 0 ; u < c.nodes.length ; u++ )
+                    strings[c.nodes[u]] = BNODE_PREFIX+(offset+c.rank[u]) ;
+                offset += c.nodes.length ;
+            }
+        }
+        String[] lines = Arrays.stream(data).parallel().map(tuple->{
+            StringBuilder sb = new StringBuilder() ;
+            for ( int id : tuple )
+                sb.append(strings[id]).append(' ') ;
+            return sb.append('.').toString() ;
+        }).toArray(String[]::new) ;
+        Arrays.parallelSort(lines) ;
+        return lines ;
+    }
+
+    /** Split the blank nodes, and the tuples they are in, into connected components. */
+    private static Component[] components(int[][] data, int[] bnodeIdx, int N, String[] strings, long[] hashes) {
+        int[] parent = new int[N] ;
+        for ( int i = 0 ; i < N ; i++ )
+            parent[i] = i ;
+        // Component of each tuple, by its first blank node.
+        int[] first = new int[data.length] ;
+        for ( int t = 0 ; t < data.length ; t++ ) {
+            first[t] = -1 ;
+            for ( int id : data[t] ) {
+                int x = bnodeIdx[id] ;
+                if ( x < 0 )
+                    continue ;
+                if ( first[t] < 0 )
+                    first[t] = x ;
+                else
+                    union(parent, first[t], x) ;
+            }
+        }
+        // Number the components, and the blank nodes within each.
+        int[] componentOf = new int[N] ;
+        int[] local = new int[N] ;
+        int[] componentIdx = new int[N] ;
+        Arrays.fill(componentIdx, -1) ;
+        int C = 0 ;
+        int[] sizes = new int[N] ;
+        for ( int i = 0 ; i < N ; i++ ) {
+            int root = find(parent, i) ;
+            if ( componentIdx[root] < 0 )
+                componentIdx[root] = C++ ;
+            int c = componentIdx[root] ;
+            componentOf[i] = c ;
+            local[i] = sizes[c]++ ;
+        }
+        // Blank node term ids, by component.
+        int[][] members = new int[C][] ;
+        for ( int c = 0 ; c < C ; c++ )
+            members[c] = new int[sizes[c]] ;
+        for ( int id = 0 ; id < bnodeIdx.length ; id++ ) {
+            int x = bnodeIdx[id] ;
+            if ( x >= 0 )
+                members[componentOf[x]][local[x]] = id ;
+        }
+        int[] tupleCount = new int[C] ;
+        for ( int t = 0 ; t < data.length ; t++ ) {
+            if ( first[t] >= 0 )
+                tupleCount[componentOf[first[t]]]++ ;
+        }
+        int[][][] componentTuples = new int[C][][] ;
+        for ( int c = 0 ; c < C ; c++ )
+            componentTuples[c] = new int[tupleCount[c]][] ;
+        Arrays.fill(tupleCount, 0) ;
+        for ( int t = 0 ; t < data.length ; t++ ) {
+            if ( first[t] >= 0 ) {
+                int c = componentOf[first[t]] ;
+                componentTuples[c][tupleCount[c]++] = data[t] ;
+            }
+        }
+        Component[] components = new Component[C] ;
+        for ( int c = 0 ; c < C ; c++ )
+            components[c] = new Component(members[c], componentTuples[c], bnodeIdx, local, strings, hashes) ;
+        return components ;
+    }
+
+    private static int find(int[] parent, int x) {
+        while ( parent[x] != x ) {
+            parent[x] = parent[parent[x]] ;
+            x = parent[x] ;
+        }
+        return x ;
+    }
+
+    private static void union(int[] parent, int x, int y) {
+        int rx = find(parent, x) ;
+        int ry = find(parent, y) ;
+        if ( rx != ry )
+            parent[ry] = rx ;
+    }
+
+    /** Blank nodes that are connected, the tuples they are in, and the search for their canonical labels. */
+    private static class Component {
+        // Term ids of the blank nodes ; the index in this array is the local number.
+        final int[] nodes ;
+        // Per tuple: local blank node number or -1, and the N-Triples form and hash of other terms.
+        final int[][] tupleBNodes ;
+        final String[][] tupleTerms ;
+        final long[][] tupleHashes ;
+        // Per blank node: the tuples it is in, as (tuple index * 4 + position).
+        final int[][] incidence ;
+        // Per blank node: its group of twins.
+        final int[] twin ;
+
+        // Outcome: the local canonical lines, and the rank of each blank node.
+        String[] leaf = null ;
+        int[] rank = null ;
+        // Automorphisms found during the search.
+        final List<int[]> automorphisms = new ArrayList<>() ;
+
+        Component(int[] nodes, int[][] tuples, int[] bnodeIdx, int[] local, String[] strings, long[] hashes) {
+            this.nodes = nodes ;
+            int T = tuples.length ;
+            tupleBNodes = new int[T][] ;
+            tupleTerms = new String[T][] ;
+            tupleHashes = new long[T][] ;
+            int[] count = new int[nodes.length] ;
+            for ( int t = 0 ; t < T ; t++ ) {
+                int[] tuple = tuples[t] ;
+                int[] bn = new int[tuple.length] ;
+                String[] terms = new String[tuple.length] ;
+                long[] h = new long[tuple.length] ;
+                for ( int j = 0 ; j < tuple.length ; j++ ) {
+                    int id = tuple[j] ;
+                    if ( bnodeIdx[id] >= 0 ) {
+                        bn[j] = local[bnodeIdx[id]] ;
+                        count[bn[j]]++ ;
+                    } else {
+                        bn[j] = -1 ;
+                        terms[j] = strings[id] ;
+                        h[j] = hashes[id] ;
+                    }
+                }
+                tupleBNodes[t] = bn ;
+                tupleTerms[t] = terms ;
+                tupleHashes[t] = h ;
+            }
+            incidence = new int[nodes.length][] ;
+            for ( int u = 0 ; u < nodes.length ; u++ )
+                incidence[u] = new int[count[u]] ;
+            Arrays.fill(count, 0) ;
+            for ( int t = 0 ; t < T ; t++ ) {
+                int[] bn = tupleBNodes[t] ;
+                for ( int j = 0 ; j < bn.length ; j++ ) {
+                    if ( bn[j] >= 0 )
+                        incidence[bn[j]][count[bn[j]]++] = t*4+j ;
+                }
+            }
+            twin = twins() ;
+        }
+
+        /**
+         * Group the blank nodes that are in the same tuples, with themselves in the same places.
+         * Exchanging two such blank nodes maps the tuples to themselves.
+         */
+        private int[] twins() {
+            int[] twin = new int[nodes.length] ;
+            Map<List<String>, Integer> groups = new HashMap<>() ;
+            StringBuilder sb = new StringBuilder() ;
+            for ( int u = 0 ; u < nodes.length ; u++ ) {
+                List<String> signature = new ArrayList<>(incidence[u].length) ;
+                for ( int e : incidence[u] ) {
+                    int t = e >>> 2 ;
+                    int[] bn = tupleBNodes[t] ;
+                    sb.setLength(0) ;
+                    for ( int j = 0 ; j < bn.length ; j++ ) {
+                        if ( bn[j] == u )
+                            sb.append('*') ;
+                        else if ( bn[j] >= 0 )
+                            sb.append(BNODE_PREFIX).append(bn[j]) ;
+                        else
+                            sb.append(tupleTerms[t][j]) ;
+                        sb.append(' ') ;
+                    }
+                    signature.add(sb.toString()) ;
+                }
+                Collections.sort(signature) ;
+                twin[u] = groups.computeIfAbsent(signature, x->groups.size()) ;
+            }
+            return twin ;
+        }
+
+        void canonical() {
+            search(new long[nodes.length], new ArrayDeque<>()) ;
+        }
+
+        private void search(long[] colour, Deque<Integer> path) {
+            colour = refine(colour) ;
+            int[] cell = targetCell(colour) ;
+            if ( cell == null ) {
+                leaf(ranks(colour)) ;
+                return ;
+            }
+            if ( allTwins(cell) ) {
+                // Any order of the twins gives the same lines.
+                long[] colour2 = colour.clone() ;
+                for ( int k = 0 ; k < cell.length ; k++ ) {
+                    colour2[cell[k]] = mix(colour2[cell[k]] ^ ( SELF+k )) ;
+                    path.push(cell[k]) ;
+                }
+                search(colour2, path) ;
+                for ( int k = 0 ; k < cell.length ; k++ )
+                    path.pop() ;
+                return ;
+            }
+            List<Integer> done = new ArrayList<>() ;
+            Set<Integer> twinsDone = new HashSet<>() ;
+            for ( int m : cell ) {
+                // A twin of a blank node already tried gives the same outcome.
+                if ( ! twinsDone.add(twin[m]) )
+                    continue ;
+                if ( equivalent(m, done, path) )
+                    continue ;
+                long[] colour2 = colour.clone() ;
+                colour2[m] = mix(colour2[m] ^ SELF) ;
+                path.push(m) ;
+                search(colour2, path) ;
+                path.pop() ;
+                done.add(m) ;
+            }
+        }
+
+        private boolean allTwins(int[] cell) {
+            for ( int m : cell ) {
+                if ( twin[m] != twin[cell[0]] )
+                    return false ;
+            }
+            return true ;
+        }
+
+        /** Is {@code m} mapped to one of {@code done} by the automorphisms that fix the path? */
+        private boolean equivalent(int m, List<Integer> done, Deque<Integer> path) {
+            if ( done.isEmpty() || automorphisms.isEmpty() )
+                return false ;
+            int[] parent = null ;
+            for ( int[] gamma : automorphisms ) {
+                boolean fixes = true ;
+                for ( int p : path ) {
+                    if ( gamma[p] != p ) {
+                        fixes = false ;
+                        break ;
+                    }
+                }
+                if ( ! fixes )
+                    continue ;
+                if ( parent == null ) {
+                    parent = new int[nodes.length] ;
+                    for ( int i = 0 ; i < parent.length ; i++ )
+                        parent[i] = i ;
+                }
+                for ( int u = 0 ; u < gamma.length ; u++ )
+                    union(parent, u, gamma[u]) ;
+            }
+            if ( parent == null )
+                return false ;
+            int r = find(parent, m) ;
+            for ( int d : done ) {
+                if ( find(parent, d) == r )
+                    return true ;
+            }
+            return false ;
+        }
+
+        /** A complete labelling : keep it if it is the smallest so far ; record an automorphism if it is the same. */
+        private void leaf(int[] ranks) {
+            String[] lines = lines(ranks) ;
+            int x = ( leaf == null ) ? -1 : compare(lines, leaf) ;
+            if ( x < 0 ) {
+                leaf = lines ;
+                rank = ranks ;
+                return ;
+            }
+            if ( x == 0 ) {
+                int[] inverse = new int[rank.length] ;
+                for ( int v = 0 ; v < rank.length ; v++ )
+                    inverse[rank[v]] = v ;
+                int[] gamma = new int[ranks.length] ;
+                for ( int u = 0 ; u < ranks.length ; u++ )
+                    gamma[u] = inverse[ranks[u]] ;
+                automorphisms.add(gamma) ;
+            }
+        }
+
+        private String[] lines(int[] ranks) {
+            String[] lines = new String[tupleBNodes.length] ;
+            StringBuilder sb = new StringBuilder() ;
+            for ( int t = 0 ; t < lines.length ; t++ ) {
+                sb.setLength(0) ;
+                int[] bn = tupleBNodes[t] ;
+                for ( int j = 0 ; j < bn.length ; j++ ) {
+                    if ( bn[j] >= 0 )
+                        sb.append(BNODE_PREFIX).append(ranks[bn[j]]) ;
+                    else
+                        sb.append(tupleTerms[t][j]) ;
+                    sb.append(' ') ;
+                }
+                lines[t] = sb.toString() ;
+            }
+            Arrays.sort(lines) ;
+            return lines ;
+        }
+
+        /** Recalculate colours until the number of different colours does not go up. */
+        private long[] refine(long[] colour) {
+            int classes = classes(colour) ;
+            while ( classes < colour.length ) {
+                long[] current = colour ;
+                long[] next = new long[current.length] ;
+                IntStream range = IntStream.range(0, current.length) ;
+                if ( current.length >= PARALLEL_REFINE )
+                    range = range.parallel() ;
+                range.forEach(u->next[u] = recolour(u, current)) ;
+                int classes2 = classes(next) ;
+                colour = next ;
+                if ( classes2 == classes )
+                    break ;
+                classes = classes2 ;
+            }
+            return colour ;
+        }
+
+        private long recolour(int u, long[] colour) {
+            long sum = 0 ;
+            for ( int e : incidence[u] ) {
+                int t = e >>> 2 ;
+                int pos = e & 3 ;
+                int[] bn = tupleBNodes[t] ;
+                long[] hashes = tupleHashes[t] ;
+                long x = bn.length ;
+                for ( int j = 0 ; j < bn.length ; j++ ) {
+                    long term = ( j == pos ) ? SELF : ( bn[j] >= 0 ? colour[bn[j]] : hashes[j] ) ;
+                    x = mix(x*31 + term) ;
+                }
+                // Order independent.
+                sum += x ;
+            }
+            return mix(colour[u] + mix(sum)) ;
+        }
+
+        /** The smallest group of blank nodes with the same colour, or null if all colours are different. */
+        private int[] targetCell(long[] colour) {
+            Integer[] order = byColour(colour) ;
+            int bestStart = -1 ;
+            int bestLen = Integer.MAX_VALUE ;
+            for ( int i = 0 ; i < order.length ; ) {
+                int j = i+1 ;
+                while ( j < order.length && colour[order[j]] == colour[order[i]] )
+                    j++ ;
+                // Ties broken by colour : order is by colour.
+                if ( j-i > 1 && j-i < bestLen ) {
+                    bestStart = i ;
+                    bestLen = j-i ;
+                }
+                i = j ;
+            }
+            if ( bestStart < 0 )
+                return null ;
+            int[] cell = new int[bestLen] ;
+            for ( int i = 0 ; i < bestLen ; i++ )
+                cell[i] = order[bestStart+i] ;
+            return cell ;
+        }
+
+        private static int[] ranks(long[] colour) {
+            Integer[] order = byColour(colour) ;
+            int[] ranks = new int[colour.length] ;
+            for ( int i = 0 ; i < order.length ; i++ )
+                ranks[order[i]] = i ;
+            return ranks ;
+        }
+
+        private static Integer[] byColour(long[] colour) {
+            Integer[] order = new Integer[colour.length] ;
+            for ( int i = 0 ; i < order.length ; i++ )
+                order[i] = i ;
+            Arrays.sort(order, (a, b)->Long.compare(colour[a], colour[b])) ;
+            return order ;
+        }
+
+        private static int classes(long[] colour) {
+            if ( colour.length <= 1 )
+                return colour.length ;
+            long[] x = colour.clone() ;
+            Arrays.sort(x) ;
+            int n = 1 ;
+            for ( int i = 1 ; i < x.length ; i++ ) {
+                if ( x[i] != x[i-1] )
+                    n++ ;
+            }
+            return n ;
+        }
+    }
+
+    private static int compare(String[] lines1, String[] lines2) {
+        int n = Math.min(lines1.length, lines2.length) ;
+        for ( int i = 0 ; i < n ; i++ ) {
+            int x = lines1[i].compareTo(lines2[i]) ;
+            if ( x != 0 )
+                return x ;
+        }
+        return Integer.compare(lines1.length, lines2.length) ;
+    }
+
+    /** 64 bit hash of a string (FNV-1a), independent of the JVM. */
+    private static long hash(String s) {
+        long h = 0xcbf29ce484222325L ;
+        for ( int i = 0 ; i < s.length() ; i++ ) {
+            h ^= s.charAt(i) ;
+            h *= 0x100000001b3L ;
+        }
+        return mix(h) ;
+    }
+
+    /** Bit mixing (MurmurHash3 finalizer). */
+    private static long mix(long h) {
+        h ^= h >>> 33 ;
+        h *= 0xff51afd7ed558ccdL ;
+        h ^= h >>> 33 ;
+        h *= 0xc4ceb93e7f91d1f3L ;
+        h ^= h >>> 33 ;
+        return h ;
+    }
+}
@@ -19,6 +19,7 @@
 package org.apache.jena.riot;
 
 import org.apache.jena.riot.adapters.TS_RIOTAdapters ;
+import org.apache.jena.riot.dict.TS_RDFDict ;
 import org.apache.jena.riot.lang.TS_Lang ;
 import org.apache.jena.riot.lang.extra.TS_LangExtra;
 import org.apache.jena.riot.out.TS_Out ;
@@ -49,6 +50,7 @@ import org.junit.runners.Suite ;
     , TS_RiotWeb.class
     , TS_ResultSetRIOT.class
     , TS_RDFThrift.class
+    , TS_RDFDict.class
 })
 
 
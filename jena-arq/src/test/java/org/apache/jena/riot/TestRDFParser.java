@@ -20,14 +20,22 @@ package org.apache.jena.riot;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
 
 import org.apache.jena.graph.Graph;
 import org.apache.jena.graph.Node;
@@ -59,6 +67,21 @@ public class TestRDFParser {
         assertEquals(1, graph.size());
     }
     
+    @Test public void source_not_uri_03() {
+        // The InputStream is closed by the parser, whether parsing in parallel or not.
+        String data = "<http://example/s> <http://example/p> \"1\" .\n";
+        for ( int parallel : new int[] {1, 2} ) {
+            boolean[] closed = { false };
+            InputStream input = new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)) {
+                @Override public void close() { closed[0] = true; }
+            };
+            Graph graph = GraphFactory.createGraphMem();
+            RDFParser.create().lang(Lang.NT).source(input).parallel(parallel).parse(graph);
+            assertEquals(1, graph.size());
+            assertTrue(closed[0]);
+        }
+    }
+
     @Test public void source_uri_01() {
         Graph graph = GraphFactory.createGraphMem();
         RDFParser.create().source("file:"+DIR+"data.ttl").parse(graph);
@@ -98,6 +121,48 @@ public class TestRDFParser {
         assertEquals(3, graph.size());
     }
 
+    @Test
+    public void source_compressed_1() throws IOException {
+        Path path = Files.createTempFile("data", ".nt.gz");
+        try {
+            try ( OutputStream out = new GZIPOutputStream(Files.newOutputStream(path)) ) {
+                RDFDataMgr.write(out, dataGraph(), Lang.NTRIPLES);
+            }
+            testCompressed(path);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void source_compressed_2() throws IOException {
+        Path path = Files.createTempFile("data", ".nt.bz2");
+        try {
+            try ( OutputStream out = new BZip2CompressorOutputStream(Files.newOutputStream(path)) ) {
+                RDFDataMgr.write(out, dataGraph(), Lang.NTRIPLES);
+            }
+            testCompressed(path);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static Graph dataGraph() {
+        Graph graph = GraphFactory.createGraphMem();
+        RDFParser.create().source(DIR+"data.ttl").parse(graph);
+        return graph;
+    }
+
+    // By file name and by Path.
+    private static void testCompressed(Path path) {
+        Graph graph1 = GraphFactory.createGraphMem();
+        RDFParser.create().source(path.toString()).parse(graph1);
+        Graph graph2 = GraphFactory.createGraphMem();
+        RDFParser.create().source(path).parallel(2).parse(graph2);
+        assertTrue(graph1.isIsomorphicWith(dataGraph()));
+        assertTrue(graph2.isIsomorphicWith(dataGraph()));
+    }
+
     // Shortcut source
     @Test public void source_shortcut_01() {
         Graph graph = GraphFactory.createGraphMem();
@@ -238,6 +303,16 @@ public class TestRDFParser {
         testNormalization("'abc'@En-gB", "'abc'@en-GB", builder().langTagCanonical());
     }
     
+    @Test public void cache_literals_1() {
+        Graph graph = GraphFactory.createGraphMem();
+        String x = PREFIX+":s1 :p 'abc'@en . :s2 :p 'abc'@en .";
+        builder().cacheLiterals(true).fromString(x).lang(Lang.TTL).parse(graph);
+        assertEquals(2, graph.size());
+        Node o1 = graph.find(SSE.parseNode(":s1"), p, null).next().getObject();
+        Node o2 = graph.find(SSE.parseNode(":s2"), p, null).next().getObject();
+        assertSame(o1, o2);
+    }
+
     private static String PREFIX = "PREFIX : <http://example/>\n ";
     private static Node s = SSE.parseNode(":s");
     private static Node p = SSE.parseNode(":p");
@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.dict;
+
+import java.io.ByteArrayInputStream ;
+import java.io.ByteArrayOutputStream ;
+import java.io.IOException ;
+import java.util.Arrays ;
+import java.util.Iterator ;
+import java.util.Random ;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.atlas.lib.StrUtils ;
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.graph.NodeFactory ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.riot.Lang ;
+import org.apache.jena.riot.RDFDataMgr ;
+import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.dict.RDFDict.Compression ;
+import org.apache.jena.riot.system.* ;
+import org.apache.jena.sparql.core.DatasetGraph ;
+import org.apache.jena.sparql.core.DatasetGraphFactory ;
+import org.apache.jena.sparql.graph.GraphFactory ;
+import org.apache.jena.sparql.sse.SSE ;
+import org.apache.jena.sparql.util.IsoMatcher ;
+import org.junit.Test ;
+
+public class TestStreamRDFDict extends BaseTest {
+
+    static String gs = StrUtils.strjoinNL(
+        "(graph",
+        "  (_:a :p 123) ",
+        "  (_:a :p 'foo'@en) ",
+        "  (_:a :p 'foo'@EN) ",
+        "  (_:b :p '456') ",
+        "  (_:b :p '456.5') ",
+        "  (_:b :p 'café ☺') ",
+        "  (_:b <http://example/#q> '') ",
+        "  (_:b <urn:x> 'abc'^^<http://example/dt>) ",
+        "  (<http://example/> :p _:a) ",
+        ")") ;
+
+    static Graph graph = SSE.parseGraph(gs) ;
+
+    static String dgs = StrUtils.strjoinNL(
+        "(dataset",
+        "  (graph (:s1 :p _:a) (:s2 :p _:a))" ,
+        "  (graph :g  (:s1 :p _:a))" ,
+        "  (graph _:a (:s2 :p _:a))" ,
+        ")" ) ;
+
+    static DatasetGraph datasetGraph = SSE.parseDatasetGraph(dgs) ;
+
+    private static void write(Graph graph, StreamRDF2Dict stream) {
+        StreamOps.graphToStream(graph, stream) ;
+    }
+
+    private static Graph read(byte[] bytes) {
+        Graph g = GraphFactory.createGraphMem() ;
+        RDFDict.inputStreamToStream(new ByteArrayInputStream(bytes), StreamRDFLib.graph(g)) ;
+        return g ;
+    }
+
+    private static void roundTrip(Graph graph, Compression compression, int terms, int namespaces, int blockSize) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        write(graph, new StreamRDF2Dict(out, compression, terms, namespaces, blockSize)) ;
+        Graph g2 = read(out.toByteArray()) ;
+        assertTrue(graph.isIsomorphicWith(g2)) ;
+        // Stronger - same bNodes.
+        sameTerms(graph, g2) ;
+    }
+
+    @Test public void graph_01() { roundTrip(graph, Compression.NONE, RDFDict.DFT_TERMS, RDFDict.DFT_NAMESPACES, RDFDict.DFT_BLOCK_SIZE) ; }
+    @Test public void graph_02() { roundTrip(graph, Compression.LZ4, RDFDict.DFT_TERMS, RDFDict.DFT_NAMESPACES, RDFDict.DFT_BLOCK_SIZE) ; }
+    @Test public void graph_03() { roundTrip(graph, Compression.DEFLATE, RDFDict.DFT_TERMS, RDFDict.DFT_NAMESPACES, RDFDict.DFT_BLOCK_SIZE) ; }
+
+    // Small tables and blocks.
+    @Test public void graph_04() { roundTrip(graph, Compression.NONE, 1, 1, 1) ; }
+    @Test public void graph_05() { roundTrip(graph, Compression.LZ4, 3, 2, 20) ; }
+    @Test public void graph_06() { roundTrip(graph, Compression.DEFLATE, 2, 1, 10) ; }
+
+    @Test public void graph_07() {
+        // Many triples, repeated terms, several blocks.
+        Graph g = GraphFactory.createGraphMem() ;
+        for ( int i = 0 ; i < 5000 ; i++ ) {
+            g.add(Triple.create(NodeFactory.createURI("http://example/s/"+(i/10)),
+                                NodeFactory.createURI("http://example/p#"+(i%7)),
+                                NodeFactory.createLiteral("v"+(i%100)))) ;
+        }
+        for ( Compression c : Compression.values() ) {
+            roundTrip(g, c, 100, 4, 1000) ;
+            roundTrip(g, c, RDFDict.DFT_TERMS, RDFDict.DFT_NAMESPACES, RDFDict.DFT_BLOCK_SIZE) ;
+        }
+    }
+
+    @Test public void graph_08() {
+        // Repeated terms are smaller than RDF Thrift.
+        Graph g = GraphFactory.createGraphMem() ;
+        for ( int i = 0 ; i < 1000 ; i++ )
+            g.add(Triple.create(NodeFactory.createURI("http://example/s/"+(i/10)),
+                                NodeFactory.createURI("http://example/p"),
+                                NodeFactory.createURI("http://example/o/"+(i%10)))) ;
+        ByteArrayOutputStream out1 = new ByteArrayOutputStream() ;
+        RDFDataMgr.write(out1, g, Lang.RDFTHRIFT) ;
+        ByteArrayOutputStream out2 = new ByteArrayOutputStream() ;
+        RDFDataMgr.write(out2, g, Lang.RDFDICT) ;
+        assertTrue(out2.size() < out1.size()/4) ;
+    }
+
+    @Test public void graph_09() {
+        // Empty
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        write(GraphFactory.createGraphMem(), new StreamRDF2Dict(out, Compression.LZ4)) ;
+        assertTrue(read(out.toByteArray()).isEmpty()) ;
+    }
+
+    @Test public void graph_10() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        StreamRDFWriter.write(out, graph, Lang.RDFDICT) ;
+        Graph g2 = GraphFactory.createGraphMem() ;
+        RDFDataMgr.read(g2, new ByteArrayInputStream(out.toByteArray()), Lang.RDFDICT) ;
+        assertTrue(IsoMatcher.isomorphic(graph, g2)) ;
+    }
+
+    @Test public void prefixes_01() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        StreamRDF stream = RDFDict.streamToOutputStream(out) ;
+        stream.start() ;
+        stream.base("http://example/base") ;
+        stream.prefix("ex", "http://example/") ;
+        stream.triple(SSE.parseTriple("(<http://example/s> <http://example/p> 1)")) ;
+        stream.finish() ;
+
+        Graph g = GraphFactory.createGraphMem() ;
+        StreamRDFBase collect = new StreamRDFBase() {
+            String base = null ;
+            @Override public void base(String base) { this.base = base ; }
+            @Override public void prefix(String prefix, String iri) {
+                assertEquals("http://example/base", base) ;
+                g.getPrefixMapping().setNsPrefix(prefix, iri) ;
+            }
+            @Override public void triple(Triple triple) { g.add(triple) ; }
+        } ;
+        RDFDict.inputStreamToStream(new ByteArrayInputStream(out.toByteArray()), collect) ;
+        assertEquals("http://example/", g.getPrefixMapping().getNsPrefixURI("ex")) ;
+        assertEquals(1, g.size()) ;
+    }
+
+    @Test public void dataset_01() {
+        for ( Compression c : Compression.values() ) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+            StreamOps.datasetToStream(datasetGraph, RDFDict.streamToOutputStream(out, c)) ;
+            DatasetGraph dsg2 = DatasetGraphFactory.create() ;
+            RDFDict.inputStreamToStream(new ByteArrayInputStream(out.toByteArray()), StreamRDFLib.dataset(dsg2)) ;
+            assertTrue(IsoMatcher.isomorphic(datasetGraph, dsg2)) ;
+        }
+    }
+
+    private static void lz4(byte[] data) {
+        byte[] c = new byte[LZ4Block.maxCompressedLength(data.length)] ;
+        int n = LZ4Block.compress(data, data.length, c) ;
+        byte[] d = new byte[data.length] ;
+        LZ4Block.decompress(c, n, d, d.length) ;
+        assertArrayEquals(data, d) ;
+    }
+
+    @Test public void lz4_01() {
+        lz4(new byte[0]) ;
+        lz4(StrUtils.asUTF8bytes("a")) ;
+        lz4(StrUtils.asUTF8bytes("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa")) ;
+        lz4(StrUtils.asUTF8bytes(StrUtils.strjoin("", gs, gs, gs, gs))) ;
+    }
+
+    @Test public void lz4_02() {
+        Random random = new Random(123) ;
+        for ( int i = 0 ; i < 50 ; i++ ) {
+            byte[] data = new byte[random.nextInt(100000)] ;
+            // Low entropy, with long and short repeats.
+            for ( int j = 0 ; j < data.length ; j++ )
+                data[j] = ( j > 300 && random.nextInt(4) != 0 ) ? data[j-1-random.nextInt(300)] : (byte)random.nextInt(8) ;
+            lz4(data) ;
+        }
+    }
+
+    @Test(expected=RiotException.class)
+    public void lz4_bad_01() {
+        byte[] data = StrUtils.asUTF8bytes(StrUtils.strjoin("", gs, gs, gs)) ;
+        byte[] c = new byte[LZ4Block.maxCompressedLength(data.length)] ;
+        int n = LZ4Block.compress(data, data.length, c) ;
+        LZ4Block.decompress(c, n-3, new byte[data.length], data.length) ;
+    }
+
+    @Test(expected=RiotException.class)
+    public void bad_01() {
+        read(StrUtils.asUTF8bytes("<s> <p> <o> .")) ;
+    }
+
+    @Test(expected=RiotException.class)
+    public void bad_02() {
+        // Truncated.
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        write(graph, new StreamRDF2Dict(out, Compression.NONE)) ;
+        byte[] bytes = out.toByteArray() ;
+        read(Arrays.copyOf(bytes, bytes.length-10)) ;
+    }
+
+    @Test(expected=RiotException.class)
+    public void bad_03() {
+        // Term table too large.
+        read(header(RDFDict.MAX_TERMS+1, 16)) ;
+    }
+
+    @Test(expected=RiotException.class)
+    public void bad_04() {
+        // Namespace table too large.
+        read(header(16, -1)) ;
+    }
+
+    @Test(expected=RiotException.class)
+    public void bad_05() {
+        // Block too large.
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        out.write(header(16, 16), 0, header(16, 16).length) ;
+        writeVarInt(out, RDFDict.MAX_BLOCK_SIZE+1) ;
+        out.write(Compression.NONE.code) ;
+        writeVarInt(out, RDFDict.MAX_BLOCK_SIZE+1) ;
+        read(out.toByteArray()) ;
+    }
+
+    @Test(expected=RiotException.class)
+    public void bad_06() {
+        // Stored length, for the raw length, too large.
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        out.write(header(16, 16), 0, header(16, 16).length) ;
+        writeVarInt(out, 100) ;
+        out.write(Compression.LZ4.code) ;
+        writeVarInt(out, Integer.MAX_VALUE) ;
+        read(out.toByteArray()) ;
+    }
+
+    private static byte[] header(int termTableSize, int nsTableSize) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        out.write(RDFDict.MAGIC, 0, RDFDict.MAGIC.length) ;
+        out.write(RDFDict.VERSION) ;
+        writeVarInt(out, termTableSize) ;
+        writeVarInt(out, nsTableSize) ;
+        return out.toByteArray() ;
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int x) {
+        try { RDFDict.writeVarInt(out, x) ; }
+        catch (IOException ex) { throw new RuntimeException(ex) ; }
+    }
+
+    static void sameTerms(Graph g1, Graph g2) {
+        assertEquals(g1.size() , g2.size() ) ;
+        Iterator<Triple> iter = g1.find(null, null, null) ;
+        while(iter.hasNext()) {
+            Triple t = iter.next() ;
+            assertTrue(g2.contains(t)) ;
+        }
+    }
+}
@@ -38,12 +38,14 @@ import org.junit.runners.Suite ;
     , TestLangTurtle.class
     , TestLangTrig.class
     , TestLangRdfJson.class
+    , TestLangRdfXml.class
     , TestTriXReader.class
     , TestTriXBad.class
     // Thrift is done in the "thrift" package
     , TestParserFactory.class
     , TestPipedRDFIterators.class
     , TestCollectorStream.class
+    , TestParallelParserNTuples.class
 
 })
 
@@ -54,6 +54,31 @@ public class TestIRI extends BaseTest
     @Test(expected=ExWarning.class) 
     public void iriErr3()  { testIRI("http://example/.") ; }
     
+    @Test public void iriResolve1()
+    {
+        // Absolute IRIs : shared cache, same result for every base.
+        IRIResolver r1 = IRIResolver.create("http://example/base1/") ;
+        IRIResolver r2 = IRIResolver.create("urn:base2") ;
+        assertEquals("http://other/a/c", r1.resolveToStringSilent("http://other/a/b/../c")) ;
+        assertEquals("http://other/a/c", r2.resolveToStringSilent("http://other/a/b/../c")) ;
+        assertSame(r1.resolveSilent("http://other/x"), r2.resolveSilent("http://other/x")) ;
+        // Relative IRIs, including "file:" relative to a "file:" base.
+        assertEquals("http://example/base1/x", r1.resolveToString("x")) ;
+        assertEquals("file:///dir/x", IRIResolver.create("file:///dir/").resolveToString("file:x")) ;
+    }
+
+    @Test public void iriResolve2()
+    {
+        try {
+            IRIResolver.setAbsoluteCacheSize(0) ;
+            IRIResolver r = IRIResolver.create("http://example/base/") ;
+            assertEquals("http://other/c", r.resolveToStringSilent("http://other/b/../c")) ;
+            assertEquals("http://example/base/x", r.resolveToString("x")) ;
+        } finally {
+            IRIResolver.setAbsoluteCacheSize(10000) ;
+        }
+    }
+
     private void testIRI(String uriStr)
     {
         IRI iri = factory.create(uriStr) ;
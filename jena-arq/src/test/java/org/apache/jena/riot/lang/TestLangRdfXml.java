@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.lang;
+
+import java.io.ByteArrayInputStream ;
+import java.io.StringReader ;
+import java.nio.charset.StandardCharsets ;
+import java.util.ArrayList ;
+import java.util.HashMap ;
+import java.util.List ;
+import java.util.Map ;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.riot.Lang ;
+import org.apache.jena.riot.RDFParser ;
+import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.SysRIOT ;
+import org.apache.jena.riot.system.ErrorHandler ;
+import org.apache.jena.riot.system.StreamRDFLib ;
+import org.apache.jena.sparql.graph.GraphFactory ;
+import org.apache.jena.sparql.util.Context ;
+import org.junit.Test ;
+
+public class TestLangRdfXml extends BaseTest
+{
+    private static final String PREFIX =
+        "<rdf:RDF xmlns:rdf='http://www.w3.org/1999/02/22-rdf-syntax-ns#' xmlns:ex='http://example/ns#' xml:base='http://example/base/'>\n" ;
+
+    private static final String DATA = PREFIX +
+        "  <ex:Thing rdf:about='#a' ex:name='A' xml:lang='en'>\n" +
+        "    <ex:value rdf:datatype='http://www.w3.org/2001/XMLSchema#integer'>1</ex:value>\n" +
+        "    <ex:node rdf:nodeID='b1'/>\n" +
+        "    <ex:inner rdf:parseType='Resource'><ex:p>x</ex:p></ex:inner>\n" +
+        "    <ex:list rdf:parseType='Collection'><rdf:Description rdf:about='#c'/><rdf:Description rdf:about='#d'/></ex:list>\n" +
+        "    <ex:xml rdf:parseType='Literal'><b xmlns='http://www.w3.org/1999/xhtml'>bold</b> text</ex:xml>\n" +
+        "    <ex:stmt rdf:ID='s1'>reified</ex:stmt>\n" +
+        "    <!-- comment -->\n" +
+        "  </ex:Thing>\n" +
+        "  <rdf:Description rdf:nodeID='b1' ex:p='Z'/>\n" +
+        "</rdf:RDF>\n" ;
+
+    private static Graph parse(String data, Map<String, Object> properties, ErrorHandler errorHandler) {
+        Context cxt = new Context() ;
+        cxt.set(SysRIOT.sysRdfReaderProperties, properties) ;
+        Graph graph = GraphFactory.createDefaultGraph() ;
+        RDFParser.create()
+            .source(new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)))
+            .lang(Lang.RDFXML)
+            .context(cxt)
+            .errorHandler(errorHandler)
+            .parse(StreamRDFLib.graph(graph)) ;
+        return graph ;
+    }
+
+    private static Map<String, Object> props(String key, Object value) {
+        Map<String, Object> properties = new HashMap<>() ;
+        properties.put(key, value) ;
+        return properties ;
+    }
+
+    @Test public void rdfxml_stax_01() {
+        Graph g1 = parse(DATA, new HashMap<>(), null) ;
+        Graph g2 = parse(DATA, props(ReaderRIOTRDFXML.propStAX, true), null) ;
+        assertEquals(18, g1.size()) ;
+        assertTrue(g1.isIsomorphicWith(g2)) ;
+    }
+
+    @Test public void rdfxml_stax_02() {
+        // From a Reader, property as a string.
+        Graph g1 = parse(DATA, new HashMap<>(), null) ;
+        Graph g2 = GraphFactory.createDefaultGraph() ;
+        Context cxt = new Context() ;
+        cxt.set(SysRIOT.sysRdfReaderProperties, props(ReaderRIOTRDFXML.propStAX, "true")) ;
+        RDFParser.create().source(new StringReader(DATA)).lang(Lang.RDFXML).context(cxt).parse(StreamRDFLib.graph(g2)) ;
+        assertTrue(g1.isIsomorphicWith(g2)) ;
+    }
+
+    @Test(expected=RiotException.class)
+    public void rdfxml_stax_bad_01() {
+        // Not well-formed XML.
+        parse(PREFIX + "<ex:Thing rdf:about='#a'>\n", props(ReaderRIOTRDFXML.propStAX, true), new Recorder()) ;
+    }
+
+    @Test(expected=RiotException.class)
+    public void rdfxml_bad_property_01() {
+        parse(DATA, props(ReaderRIOTRDFXML.propIDBloomFilter, "many"), new Recorder()) ;
+    }
+
+    private static String manyIDs(int n) {
+        StringBuilder sb = new StringBuilder(PREFIX) ;
+        for ( int i = 0 ; i < n ; i++ )
+            sb.append("<rdf:Description rdf:ID='id").append(i).append("' ex:p='x'/>\n") ;
+        // Reuse one from the first 10000, one after.
+        sb.append("<rdf:Description rdf:ID='id5' ex:p='y'/>\n") ;
+        sb.append("<rdf:Description rdf:ID='id").append(n - 1).append("' ex:p='y'/>\n") ;
+        sb.append("</rdf:RDF>\n") ;
+        return sb.toString() ;
+    }
+
+    @Test public void rdfxml_ids_01() {
+        // Checking stops after 10000 rdf:IDs.
+        Recorder recorder = new Recorder() ;
+        parse(manyIDs(10500), new HashMap<>(), recorder) ;
+        assertEquals(1, recorder.warnings.size()) ;
+        assertTrue(recorder.warnings.get(0).startsWith("{W137}")) ;
+    }
+
+    @Test public void rdfxml_ids_02() {
+        Recorder recorder = new Recorder() ;
+        parse(manyIDs(10500), props(ReaderRIOTRDFXML.propIDBloomFilter, 100000), recorder) ;
+        assertEquals(3, recorder.warnings.size()) ;
+        assertTrue(recorder.warnings.get(0).startsWith("{W137}")) ;
+        assertTrue(recorder.warnings.get(1).startsWith("{W105}")) ;
+        assertTrue(recorder.warnings.get(2).startsWith("{W105}")) ;
+    }
+
+    @Test public void rdfxml_ids_03() {
+        // StAX, with the Bloom filter
+        Map<String, Object> properties = props(ReaderRIOTRDFXML.propIDBloomFilter, "100000") ;
+        properties.put(ReaderRIOTRDFXML.propStAX, true) ;
+        Recorder recorder = new Recorder() ;
+        Graph graph = parse(manyIDs(10500), properties, recorder) ;
+        assertEquals(10502, graph.size()) ;
+        assertEquals(3, recorder.warnings.size()) ;
+    }
+
+    private static class Recorder implements ErrorHandler {
+        List<String> warnings = new ArrayList<>() ;
+
+        @Override
+        public void warning(String message, long line, long col) {
+            warnings.add(message) ;
+        }
+
+        @Override
+        public void error(String message, long line, long col) {
+            throw new RiotException(message) ;
+        }
+
+        @Override
+        public void fatal(String message, long line, long col) {
+            throw new RiotException(message) ;
+        }
+    }
+}
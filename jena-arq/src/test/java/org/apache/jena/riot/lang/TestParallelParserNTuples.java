@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.RiotParseException;
+import org.apache.jena.riot.system.ErrorHandler;
+import org.apache.jena.riot.system.ErrorHandlerFactory;
+import org.apache.jena.riot.system.FactoryRDF;
+import org.apache.jena.riot.system.IRIResolver;
+import org.apache.jena.riot.system.ParserProfileStd;
+import org.apache.jena.riot.system.PrefixMapFactory;
+import org.apache.jena.riot.system.RiotLib;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.junit.Test;
+
+public class TestParallelParserNTuples {
+    private static String data(int n) {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0 ; i < n ; i++ ) {
+            // The same blank node labels in every chunk.
+            sb.append("_:b").append(i % 7).append(" <http://example/p> \"é ").append(i).append("\" .\n");
+            sb.append("<http://example/s").append(i).append("> <http://example/q> _:b").append(i % 7).append(" .\n");
+        }
+        return sb.toString();
+    }
+
+    private static CollectorStreamRDF parse(String string, Lang lang, int threads, boolean preserveOrder, int chunkSize,
+                                            ErrorHandler errorHandler) {
+        FactoryRDF factory = ParallelParserNTuples.threadSafe(RiotLib.factoryRDF());
+        ParallelParserNTuples parser = new ParallelParserNTuples(lang,
+            eh -> new ParserProfileStd(factory, eh, IRIResolver.createNoResolve(), PrefixMapFactory.createForInput(), null, false, false),
+            errorHandler, threads, preserveOrder, chunkSize);
+        CollectorStreamRDF dest = new CollectorStreamRDF();
+        parser.parse(new ByteArrayInputStream(string.getBytes(StandardCharsets.UTF_8)), dest);
+        return dest;
+    }
+
+    private static List<Triple> parseSequential(String string) {
+        CollectorStreamRDF dest = new CollectorStreamRDF();
+        RDFParser.fromString(string).lang(Lang.NTRIPLES).labelToNode(LabelToNode.createUseLabelAsGiven()).parse(dest);
+        return dest.getTriples();
+    }
+
+    @Test public void parallel_ntriples_01() {
+        String string = data(100);
+        CollectorStreamRDF dest = parse(string, Lang.NTRIPLES, 4, true, 100, ErrorHandlerFactory.errorHandlerNoLogging);
+        List<Triple> triples = dest.getTriples();
+        List<Triple> expected = parseSequential(string);
+        assertEquals(expected.size(), triples.size());
+        // Same order; blank nodes with the same label are the same node across chunks.
+        Set<Node> bnodes = new HashSet<>();
+        for ( int i = 0 ; i < triples.size() ; i++ ) {
+            Triple t = triples.get(i);
+            Triple t2 = expected.get(i);
+            Node b = t.getSubject().isBlank() ? t.getSubject() : t.getObject();
+            bnodes.add(b);
+            assertEquals(t2.getPredicate(), t.getPredicate());
+        }
+        assertEquals(7, bnodes.size());
+    }
+
+    @Test public void parallel_ntriples_02() {
+        // Relaxed order : the same graph.
+        String string = data(200);
+        CollectorStreamRDF dest = parse(string, Lang.NTRIPLES, 4, false, 64, ErrorHandlerFactory.errorHandlerNoLogging);
+        Graph graph = GraphFactory.createDefaultGraph();
+        dest.getTriples().forEach(graph::add);
+        Graph expected = GraphFactory.createDefaultGraph();
+        RDFParser.fromString(string).lang(Lang.NTRIPLES).parse(expected);
+        assertTrue(graph.isIsomorphicWith(expected));
+    }
+
+    @Test public void parallel_ntriples_03() {
+        // A line longer than the chunk size, and no final newline.
+        String string = data(3)+"<http://example/s> <http://example/p> \""+String.join("", Collections.nCopies(500, "x"))+"\" .";
+        CollectorStreamRDF dest = parse(string, Lang.NTRIPLES, 2, true, 50, ErrorHandlerFactory.errorHandlerNoLogging);
+        assertEquals(7, dest.getTriples().size());
+    }
+
+    @Test public void parallel_ntriples_04() {
+        // Error : the line number is in the whole input.
+        String string = data(10)+"<http://example/s> <http://example/p> .\n"+data(10);
+        try {
+            parse(string, Lang.NTRIPLES, 3, true, 100, ErrorHandlerFactory.errorHandlerDetailed());
+            fail("No exception");
+        } catch (RiotParseException ex) {
+            assertEquals(21, ex.getLine());
+        }
+    }
+
+    @Test public void parallel_nquads_01() {
+        String string = "<http://example/s> <http://example/p> _:b <http://example/g> .\n"
+                      + "_:b <http://example/p> \"abc\"@en .\n"
+                      + "<http://example/s> <http://example/p> 'x' _:g .\n";
+        CollectorStreamRDF dest = parse(string.replace('\'', '"'), Lang.NQUADS, 2, true, 10, ErrorHandlerFactory.errorHandlerNoLogging);
+        List<Quad> quads = dest.getQuads();
+        assertEquals(3, quads.size());
+        assertEquals(quads.get(0).getObject(), quads.get(1).getSubject());
+        assertTrue(quads.get(1).isDefaultGraph());
+    }
+
+    @Test public void parallel_rdfparser_01() throws IOException {
+        // Memory-mapped file.
+        String string = data(1000);
+        Path path = Files.createTempFile("data", ".nt");
+        try {
+            Files.write(path, string.getBytes(StandardCharsets.UTF_8));
+            Graph graph = GraphFactory.createDefaultGraph();
+            RDFParser.source(path).parallel(4).parse(graph);
+            Graph expected = GraphFactory.createDefaultGraph();
+            RDFParser.fromString(string).lang(Lang.NTRIPLES).parse(expected);
+            assertTrue(graph.isIsomorphicWith(expected));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test public void parallel_rdfparser_02() {
+        String string = "<http://example/s> <http://example/p> _:b <http://example/g> .\n"
+                      + "_:b <http://example/p> \"abc\" .\n";
+        DatasetGraph dsg = DatasetGraphFactory.create();
+        RDFParser.source(new ByteArrayInputStream(string.getBytes(StandardCharsets.UTF_8)))
+            .lang(Lang.NQUADS).parallel(2).preserveOrder(false).parse(dsg);
+        assertEquals(1, dsg.getDefaultGraph().size());
+        assertEquals(1, dsg.getGraph(NodeFactory.createURI("http://example/g")).size());
+    }
+}
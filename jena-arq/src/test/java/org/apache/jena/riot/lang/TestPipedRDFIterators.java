@@ -68,8 +68,12 @@ public class TestPipedRDFIterators {
 
     private void test_streamed_triples(int bufferSize, final int generateSize, boolean fair) throws InterruptedException,
             ExecutionException, TimeoutException {
+        test_streamed_triples(new PipedRDFIterator<Triple>(bufferSize, fair), generateSize);
+    }
+
+    private void test_streamed_triples(final PipedRDFIterator<Triple> it, final int generateSize) throws InterruptedException,
+            ExecutionException, TimeoutException {
 
-        final PipedRDFIterator<Triple> it = new PipedRDFIterator<>(bufferSize, fair);
         final PipedTriplesStream out = new PipedTriplesStream(it);
 
         // Create a runnable that will generate triples
@@ -355,6 +359,104 @@ public class TestPipedRDFIterators {
         this.test_streamed_quads(10000, 100000, false);
     }
 
+    private static PipedRDFIterator<Triple> batched(int bufferSize, int batchSize) {
+        return new PipedRDFIterator<>(bufferSize, false, PipedRDFIterator.DEFAULT_POLL_TIMEOUT,
+                                      PipedRDFIterator.DEFAULT_MAX_POLLS, batchSize);
+    }
+
+    /**
+     * Test batched hand-off, including a buffer smaller than a batch and a
+     * final partial batch
+     * 
+     * @throws ExecutionException
+     * @throws InterruptedException
+     * @throws TimeoutException
+     */
+    @Test
+    public void streamed_triples_batched_01() throws InterruptedException, ExecutionException, TimeoutException {
+        this.test_streamed_triples(batched(1000, 100), 100000);
+        this.test_streamed_triples(batched(10, 100), 1005);
+        this.test_streamed_triples(batched(1, 7), 50);
+        this.test_streamed_triples(batched(10, 100), 0);
+    }
+
+    /**
+     * Test that a partial batch reaches a waiting consumer while the producer
+     * is still running
+     * 
+     * @throws ExecutionException
+     * @throws InterruptedException
+     * @throws TimeoutException
+     */
+    @Test
+    public void streamed_triples_batched_02() throws InterruptedException, ExecutionException, TimeoutException {
+        final PipedRDFIterator<Triple> it = batched(1000, 100);
+        final PipedTriplesStream out = new PipedTriplesStream(it);
+        final CountDownLatch consumed = new CountDownLatch(1);
+
+        Callable<Boolean> producer = new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws InterruptedException {
+                out.start();
+                for (int i = 1; i <= 3; i++)
+                    out.triple(new Triple(org.apache.jena.graph.NodeFactory.createBlankNode(),
+                            org.apache.jena.graph.NodeFactory.createURI("http://predicate"), NodeFactoryExtra.intToNode(i)));
+                // Neither a full batch nor finish() : wait for the consumer.
+                boolean seen = consumed.await(5, TimeUnit.SECONDS);
+                out.finish();
+                return seen;
+            }
+        };
+
+        Future<Boolean> p = executor.submit(producer);
+        for (int i = 1; i <= 3; i++) {
+            Assert.assertTrue(it.hasNext());
+            Assert.assertEquals(NodeFactoryExtra.intToNode(i), it.next().getObject());
+        }
+        consumed.countDown();
+        Assert.assertFalse(it.hasNext());
+        Assert.assertTrue(p.get(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Test that items in a partial batch are delivered when the producer stops
+     * without calling finish()
+     */
+    @Test
+    public void streamed_triples_batched_03() throws InterruptedException, ExecutionException, TimeoutException {
+        final PipedRDFIterator<Triple> it = new PipedRDFIterator<>(1000, false, 100, 3, 100);
+        final PipedTriplesStream out = new PipedTriplesStream(it);
+        Runnable producer = new Runnable() {
+            @Override
+            public void run() {
+                out.start();
+                for (int i = 1; i <= 5; i++)
+                    out.triple(new Triple(org.apache.jena.graph.NodeFactory.createBlankNode(),
+                            org.apache.jena.graph.NodeFactory.createURI("http://predicate"), NodeFactoryExtra.intToNode(i)));
+            }
+        };
+        executor.submit(producer).get(10, TimeUnit.SECONDS);
+        int count = 0;
+        try {
+            while (it.hasNext()) {
+                it.next();
+                count++;
+            }
+            Assert.fail("Expected an error");
+        } catch (RiotException e) {
+            // Expected
+        }
+        Assert.assertEquals(5, count);
+    }
+
+    /**
+     * Test for bad batch size
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void streamed_instantiation_bad_03() {
+        batched(10, 0);
+    }
+
     /**
      * Test for bad buffer size
      */
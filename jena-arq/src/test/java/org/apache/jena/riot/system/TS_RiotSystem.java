@@ -46,6 +46,7 @@ import org.junit.runners.Suite.SuiteClasses ;
     , TestLangRegistration.class
     , TestFormatRegistration.class
     , TestJsonLDReadWrite.class         // Some simple testing of the jsonld-java engine.
+    , TestJsonLDStream.class
     , TestSerializable.class
     
     // May be subject to performance vagaries, with the improvements made
@@ -19,6 +19,9 @@
 package org.apache.jena.riot.system;
 
 import static org.junit.Assert. * ;
+import org.apache.jena.atlas.lib.cache.CacheInfo ;
+import org.apache.jena.datatypes.BaseDatatype ;
+import org.apache.jena.datatypes.xsd.XSDDatatype ;
 import org.apache.jena.graph.Node ;
 import org.apache.jena.riot.lang.LabelToNode ;
 import org.apache.jena.riot.system.FactoryRDFCaching ;
@@ -42,6 +45,74 @@ public class TestFactoryRDFCaching extends TestFactoryRDF {
         Node n3 = factory.createURI("http://test/n1") ;
         assertSame(n1, n3); 
     }
-}
 
+    @Test public void factory_cache_03() {
+        // Literals not cached by default.
+        Node n1 = factory.createLangLiteral("abc", "en") ;
+        Node n2 = factory.createLangLiteral("abc", "en") ;
+        assertEquals(n1, n2) ;
+        assertNotSame(n1, n2) ;
+        assertNull(((FactoryRDFCaching)factory).statsLiterals()) ;
+    }
+
+    private static FactoryRDFCaching factoryCacheLiterals() {
+        return new FactoryRDFCaching(100, LabelToNode.createUseLabelAsGiven(), true) ;
+    }
+
+    @Test public void factory_cache_literals_01() {
+        FactoryRDF f = factoryCacheLiterals() ;
+        assertSame(f.createStringLiteral("abc"), f.createStringLiteral("abc")) ;
+        assertSame(f.createLangLiteral("abc", "en"), f.createLangLiteral("abc", "en")) ;
+        assertSame(f.createTypedLiteral("12", XSDDatatype.XSDinteger), f.createTypedLiteral("12", XSDDatatype.XSDinteger)) ;
+        assertNotSame(f.createLangLiteral("abc", "en"), f.createStringLiteral("abc")) ;
+        assertNotEquals(f.createTypedLiteral("abc", XSDDatatype.XSDstring), f.createLangLiteral("abc", "en")) ;
+    }
+
+    @Test public void factory_cache_literals_02() {
+        // Language tags are shared.
+        FactoryRDF f = factoryCacheLiterals() ;
+        Node n1 = f.createLangLiteral("abc", new String("en")) ;
+        Node n2 = f.createLangLiteral("def", new String("en")) ;
+        assertSame(n1.getLiteralLanguage(), n2.getLiteralLanguage()) ;
+    }
+
+    @Test public void factory_cache_literals_03() {
+        // The registered datatype is used.
+        FactoryRDF f = factoryCacheLiterals() ;
+        Node n1 = f.createTypedLiteral("12", new BaseDatatype(XSDDatatype.XSDinteger.getURI())) ;
+        assertSame(XSDDatatype.XSDinteger, n1.getLiteralDatatype()) ;
+        assertSame(n1, f.createTypedLiteral("12", XSDDatatype.XSDinteger)) ;
+    }
 
+    @Test public void factory_cache_literals_04() {
+        FactoryRDFCaching f = factoryCacheLiterals() ;
+        f.createURI("http://test/n1") ;
+        f.createURI("http://test/n1") ;
+        f.createStringLiteral("abc") ;
+        f.createStringLiteral("abc") ;
+        f.createStringLiteral("def") ;
+        CacheInfo info1 = f.stats() ;
+        assertEquals(2, info1.requests) ;
+        assertEquals(1, info1.hits) ;
+        CacheInfo info2 = f.statsLiterals() ;
+        assertEquals(3, info2.requests) ;
+        assertEquals(1, info2.hits) ;
+        assertEquals(100, info2.cacheSize) ;
+    }
+
+    @Test public void factory_cache_literals_05() {
+        // Long literals are not cached.
+        FactoryRDFCaching f = factoryCacheLiterals() ;
+        StringBuilder sb = new StringBuilder() ;
+        for ( int i = 0 ; i <= FactoryRDFCaching.MaxCachedLiteralLength ; i++ )
+            sb.append('x') ;
+        String lex = sb.toString() ;
+        Node n1 = f.createStringLiteral(lex) ;
+        Node n2 = f.createStringLiteral(lex) ;
+        assertEquals(n1, n2) ;
+        assertNotSame(n1, n2) ;
+        assertEquals(0, f.statsLiterals().requests) ;
+        String lex2 = lex.substring(1) ;
+        assertSame(f.createStringLiteral(lex2), f.createStringLiteral(lex2)) ;
+    }
+}
@@ -47,14 +47,20 @@ public class TestFormatRegistration extends BaseTest
         add("NT",       x, RDFFormat.NT,         true, false) ;
         add("TURTLE",   x, RDFFormat.TURTLE,     true, false) ;
         add("TTL",      x, RDFFormat.TTL,        true, false) ;
+        add("TURTLE",   x, RDFFormat.TURTLE_BLOCKS_NESTED, true, false) ;
         add("JSONLD",   x, RDFFormat.JSONLD,     true, true) ;
+        add("JSONLD",   x, RDFFormat.JSONLD_STREAM, true, true) ;
         add("RDFJSON",  x, RDFFormat.RDFJSON,    true, false) ;
         add("NQUADS",   x, RDFFormat.NQUADS,     true, true) ;
         add("NQ",       x, RDFFormat.NQ,         true, true) ;
         add("TRIG",     x, RDFFormat.TRIG,       true, true) ;
+        add("TRIG",     x, RDFFormat.TRIG_BLOCKS_NESTED, true, true) ;
         add("TRIX",     x, RDFFormat.TRIX,       true, true) ;
         add("TRDF",     x, RDFFormat.RDF_THRIFT, true, true) ;
         add("TRDF",     x, RDFFormat.RDF_THRIFT_VALUES, true, true) ;
+        add("RDFDICT",  x, RDFFormat.RDF_DICT, true, true) ;
+        add("RDFDICT",  x, RDFFormat.RDF_DICT_DEFLATE, true, true) ;
+        add("RDFDICT",  x, RDFFormat.RDF_DICT_UNCOMPRESSED, true, true) ;
         return x ;
     }
     
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.system;
+
+import java.io.ByteArrayOutputStream ;
+import java.io.IOException ;
+import java.nio.charset.StandardCharsets ;
+
+import org.apache.jena.atlas.io.IO ;
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.atlas.lib.StrUtils ;
+import org.apache.jena.riot.* ;
+import org.apache.jena.sparql.core.DatasetGraph ;
+import org.apache.jena.sparql.core.DatasetGraphFactory ;
+import org.apache.jena.sparql.sse.SSE ;
+import org.apache.jena.sparql.util.Context ;
+import org.apache.jena.sparql.util.IsoMatcher ;
+import org.junit.Test ;
+
+/** tests : JSON-LD streaming writer and streaming reader */
+public class TestJsonLDStream extends BaseTest
+{
+    private static String DIR = "testing/RIOT/jsonld/" ;
+
+    private static DatasetGraph parse(String string, boolean streaming) {
+        DatasetGraph dsg = DatasetGraphFactory.create() ;
+        Context cxt = new Context() ;
+        if ( streaming )
+            cxt.set(RIOT.JSONLD_STREAMING, true) ;
+        RDFParser.create().fromString(string).lang(Lang.JSONLD).base("http://example/base/").context(cxt).parse(dsg) ;
+        return dsg ;
+    }
+
+    private static String write(DatasetGraph dsg) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        StreamRDF stream = StreamRDFWriter.getWriterStream(out, RDFFormat.JSONLD_STREAM) ;
+        StreamOps.datasetToStream(dsg, stream) ;
+        return new String(out.toByteArray(), StandardCharsets.UTF_8) ;
+    }
+
+    /** Streaming and not streaming give the same results. */
+    private static DatasetGraph test(String string) {
+        DatasetGraph dsg1 = parse(string, false) ;
+        DatasetGraph dsg2 = parse(string, true) ;
+        assertTrue(isomorphic(dsg1, dsg2)) ;
+        return dsg2 ;
+    }
+
+    private static boolean isomorphic(DatasetGraph dsg1, DatasetGraph dsg2) {
+        boolean b = IsoMatcher.isomorphic(dsg1, dsg2) ;
+        if ( ! b ) {
+            SSE.write(dsg1) ;
+            SSE.write(dsg2) ;
+        }
+        return b ;
+    }
+
+    private static void file(String filename) throws IOException {
+        test(IO.readWholeFileAsUTF8(DIR+filename)) ;
+    }
+
+    // jsonld-java written, @context after @graph.
+    @Test public void stream_read_01() throws IOException { file("graph1.jsonld") ; }
+
+    @Test public void stream_read_02() throws IOException { file("graph2.jsonld") ; }
+
+    // Expanded form.
+    @Test public void stream_read_03() throws IOException { file("dataset1.jsonld") ; }
+
+    @Test public void stream_read_04() {
+        String x = StrUtils.strjoinNL
+            ("{ '@context': { 'ex': 'http://example/', '@vocab': 'http://example/v#',"
+            ,"                'knows': { '@id': 'ex:knows', '@type': '@id' },"
+            ,"                'age':   { '@id': 'ex:age', '@type': 'http://www.w3.org/2001/XMLSchema#integer' } },"
+            ,"  '@graph': ["
+            ,"    { '@id': 'ex:a', '@type': 'ex:T', 'name': 'A', 'knows': ['ex:b', 'c'], 'age': '21',"
+            ,"      'n': [1, 2.5, true], 'ex:list': { '@list': [ 'x', {'@id': 'ex:y'} ] }, 'ex:empty': { '@list': [] } },"
+            ,"    { '@id': '_:b1', 'ex:p': { 'ex:q': 'nested' }, '@reverse': { 'ex:r': { '@id': 'ex:z' } } },"
+            ,"    { '@id': 'ex:c', 'ex:v': [ { '@value': 'chat', '@language': 'fr' }, { '@value': '1', '@type': 'ex:dt' } ],"
+            ,"      'ex:s': { '@set': [ 'a', 'b' ] } }"
+            ,"  ]"
+            ,"}") ;
+        DatasetGraph dsg = test(x.replace('\'', '"')) ;
+        assertEquals(21, dsg.getDefaultGraph().size()) ;
+    }
+
+    @Test public void stream_read_05() {
+        // Default language, @base, named graph in an array.
+        String x = StrUtils.strjoinNL
+            ("[ { '@context': { '@language': 'en', '@base': 'http://example/other/', 'p': 'http://example/p' },"
+            ,"    '@id': 'g', '@graph': [ { '@id': 's', 'p': 'o' } ] },"
+            ,"  { '@id': 'http://example/s', 'http://example/p': { '@value': 'o' } } ]") ;
+        DatasetGraph dsg = test(x.replace('\'', '"')) ;
+        assertEquals(1, dsg.getDefaultGraph().size()) ;
+        assertEquals(1, dsg.getGraph(SSE.parseNode("<http://example/other/g>")).size()) ;
+    }
+
+    @Test public void stream_read_06() {
+        // Not a simple context : read by the JSON-LD processor.
+        String x = StrUtils.strjoinNL
+            ("{ '@context': { 'p': { '@id': 'http://example/p', '@container': '@list' } },"
+            ,"  '@id': 'http://example/s', 'p': [ 'a', 'b' ] }") ;
+        DatasetGraph dsg = test(x.replace('\'', '"')) ;
+        assertEquals(5, dsg.getDefaultGraph().size()) ;
+    }
+
+    @Test(expected=RiotException.class)
+    public void stream_read_bad_01() {
+        // @context after @graph, not at the top level.
+        String x = "[ { \"@id\": \"http://example/g\", \"@graph\": [], \"@context\": {} } ]" ;
+        parse(x, true) ;
+    }
+
+    @Test(expected=RiotException.class)
+    public void stream_read_bad_02() {
+        String x = "{ \"@context\": {}, \"@graph\": [], \"@id\": \"http://example/g\" }" ;
+        parse(x, true) ;
+    }
+
+    @Test(expected=RiotException.class)
+    public void stream_read_bad_03() {
+        parse("[] []", true) ;
+    }
+
+    @Test public void stream_write_01() {
+        String x = StrUtils.strjoinNL
+            ("(dataset"
+            ," (graph (<http://example/s> <http://example/p> 1)"
+            ,"        (<http://example/s> <http://example/p> 'a'@en)"
+            ,"        (<http://example/s> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://example/T>)"
+            ,"        (<http://example/s> <http://example/q> _:b)"
+            ,"        (_:b <http://example/p> 'x\"y\\n'))"
+            ," (graph <http://example/g>"
+            ,"        (<http://example/s> <http://example/p> 'g1')"
+            ,"        (<http://example/s1> <http://example/p> 'g2'))"
+            ,")") ;
+        DatasetGraph dsg = SSE.parseDatasetGraph(x) ;
+        String out = write(dsg) ;
+        // Array start and end, a line for each subject, and the start and end of the named graph.
+        assertEquals(8, out.split("\n").length) ;
+        assertTrue(isomorphic(dsg, parse(out, false))) ;
+        assertTrue(isomorphic(dsg, parse(out, true))) ;
+    }
+
+    @Test public void stream_write_02() {
+        DatasetGraph dsg = DatasetGraphFactory.create() ;
+        String out = write(dsg) ;
+        assertEquals("[\n]\n", out) ;
+        assertTrue(parse(out, true).isEmpty()) ;
+    }
+
+    @Test public void stream_write_03() {
+        // Round trip of a file through the streaming writer and reader.
+        DatasetGraph dsg = RDFDataMgr.loadDatasetGraph("testing/RIOT/Writer/writer-rt-27.trig") ;
+        assertTrue(isomorphic(dsg, parse(write(dsg), true))) ;
+    }
+
+    @Test public void stream_write_04() {
+        // Streaming JSON-LD is asked for explicitly : it is not the default for the language.
+        assertTrue(StreamRDFWriter.registered(RDFFormat.JSONLD_STREAM)) ;
+        assertFalse(StreamRDFWriter.registered(Lang.JSONLD)) ;
+    }
+}
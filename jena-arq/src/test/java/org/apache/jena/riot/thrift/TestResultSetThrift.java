@@ -82,10 +82,49 @@ public class TestResultSetThrift extends BaseTest {
         rs1.reset() ;
     }
 
+    // Repeated terms, including after an undefined term.
+    static ResultSetRewindable rs3 = make
+        ("(resultset (?x ?y)"
+         , "   (row (?x <http://example/s>) (?y 'abc'))"
+         , "   (row (?x <http://example/s>) (?y 'abc'))"
+         , "   (row (?x <http://example/s>))"
+         , "   (row (?x <http://example/s>) (?y 'abc'))"
+         , "   (row (?x _:a) (?y 'abc'))"
+         , "   (row (?x _:a) (?y 'def'))"
+         , ")"
+         ) ;
+
+    @Test public void resultSet_repeat_01() {
+        rs3.reset() ;
+        ByteArrayOutputStream out1 = new ByteArrayOutputStream() ;
+        BinRDF.writeResultSet(out1, rs3, false, false) ;
+        rs3.reset() ;
+        ByteArrayOutputStream out2 = new ByteArrayOutputStream() ;
+        BinRDF.writeResultSet(out2, rs3, false, true) ;
+        rs3.reset() ;
+        assertTrue(out2.size() < out1.size()) ;
+
+        ResultSetRewindable resultSet2 = ResultSetFactory.makeRewindable(BinRDF.readResultSet(new ByteArrayInputStream(out2.toByteArray()))) ;
+        assertTrue(ResultSetCompare.equalsExact(rs3, resultSet2)) ;
+        rs3.reset() ;
+    }
+
+    @Test public void resultSet_repeat_02() {
+        // Undefined terms and empty rows, written with repeats enabled.
+        ResultSetRewindable r0 = test(rs0, true) ;
+        rs0.reset() ;
+        assertTrue(ResultSetCompare.equalsExact(rs0, r0)) ;
+        rs0.reset() ;
+    }
+
     private static ResultSetRewindable test(ResultSetRewindable resultSet) {
+        return test(resultSet, false) ;
+    }
+
+    private static ResultSetRewindable test(ResultSetRewindable resultSet, boolean repeatTerms) {
         resultSet.reset(); 
         ByteArrayOutputStream out = new ByteArrayOutputStream() ;
-        BinRDF.writeResultSet(out, resultSet, true) ; 
+        BinRDF.writeResultSet(out, resultSet, true, repeatTerms) ; 
         resultSet.reset();
 
         ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray()) ;
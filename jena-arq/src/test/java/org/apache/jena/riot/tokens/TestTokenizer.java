@@ -1100,4 +1100,67 @@ public class TestTokenizer extends BaseTest {
         testNextToken(tokenizer, TokenType.NL) ;
         assertFalse(tokenizer.hasNext()) ;
     }
+
+    // UTF-8 bytes : fast paths for ASCII and the fallback for other characters.
+    private static Tokenizer tokenizerUTF8(String string) {
+        ByteArrayInputStream in = new ByteArrayInputStream(StrUtils.asUTF8bytes(string)) ;
+        return TokenizerFactory.makeTokenizerUTF8(in) ;
+    }
+
+    @Test
+    public void tokenizer_utf8_1() {
+        Tokenizer tokenizer = tokenizerUTF8("<http://example/a> <http://example/é> <http://example/\\u00E9x> <>") ;
+        testNextToken(tokenizer, TokenType.IRI, "http://example/a") ;
+        testNextToken(tokenizer, TokenType.IRI, "http://example/é") ;
+        testNextToken(tokenizer, TokenType.IRI, "http://example/éx") ;
+        testNextToken(tokenizer, TokenType.IRI, "") ;
+        assertFalse(tokenizer.hasNext()) ;
+    }
+
+    @Test
+    public void tokenizer_utf8_2() {
+        Tokenizer tokenizer = tokenizerUTF8("'abc' \"abc\" \"a'b\" 'a\\tb' \"aé孫\"@en 'x'^^<http://example/dt>") ;
+        testNextToken(tokenizer, TokenType.STRING, "abc") ;
+        testNextToken(tokenizer, TokenType.STRING, "abc") ;
+        testNextToken(tokenizer, TokenType.STRING, "a'b") ;
+        testNextToken(tokenizer, TokenType.STRING, "a\tb") ;
+        testNextToken(tokenizer, TokenType.LITERAL_LANG, "aé孫", "en") ;
+        Token t = testNextToken(tokenizer, TokenType.LITERAL_DT, "x") ;
+        assertEquals("http://example/dt", t.getSubToken2().getImage()) ;
+        assertFalse(tokenizer.hasNext()) ;
+    }
+
+    @Test
+    public void tokenizer_utf8_3() {
+        Tokenizer tokenizer = tokenizerUTF8("ex:abc ex:a.b. :x%20y a é:é _:b1 _:b.2. _:bé") ;
+        testNextToken(tokenizer, TokenType.PREFIXED_NAME, "ex", "abc") ;
+        testNextToken(tokenizer, TokenType.PREFIXED_NAME, "ex", "a.b") ;
+        testNextToken(tokenizer, TokenType.DOT) ;
+        testNextToken(tokenizer, TokenType.PREFIXED_NAME, "", "x%20y") ;
+        testNextToken(tokenizer, TokenType.KEYWORD, "a") ;
+        testNextToken(tokenizer, TokenType.PREFIXED_NAME, "é", "é") ;
+        testNextToken(tokenizer, TokenType.BNODE, "b1") ;
+        testNextToken(tokenizer, TokenType.BNODE, "b.2") ;
+        testNextToken(tokenizer, TokenType.DOT) ;
+        testNextToken(tokenizer, TokenType.BNODE, "bé") ;
+        assertFalse(tokenizer.hasNext()) ;
+    }
+
+    @Test
+    public void tokenizer_utf8_4() {
+        Tokenizer tokenizer = tokenizerUTF8("<http://example/a>\n  \"abc\" .") ;
+        Token t = testNextToken(tokenizer, TokenType.IRI, "http://example/a") ;
+        t = testNextToken(tokenizer, TokenType.STRING, "abc") ;
+        assertEquals(2, t.getLine()) ;
+        assertEquals(3, t.getColumn()) ;
+        t = testNextToken(tokenizer, TokenType.DOT) ;
+        assertEquals(9, t.getColumn()) ;
+        assertFalse(tokenizer.hasNext()) ;
+    }
+
+    @Test(expected = RiotParseException.class)
+    public void tokenizer_utf8_5() {
+        Tokenizer tokenizer = tokenizerUTF8("<http://example/a b>") ;
+        tokenizer.next() ;
+    }
 }
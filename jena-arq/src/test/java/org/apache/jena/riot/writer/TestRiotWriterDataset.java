@@ -42,15 +42,20 @@ public class TestRiotWriterDataset extends AbstractWriterTest
             , { RDFFormat.TRIG }
             , { RDFFormat.TRIG_PRETTY }
             , { RDFFormat.TRIG_BLOCKS }
+            , { RDFFormat.TRIG_BLOCKS_NESTED }
             , { RDFFormat.TRIG_FLAT }
             , { RDFFormat.JSONLD }
             , { RDFFormat.JSONLD_PRETTY }
             , { RDFFormat.JSONLD_FLAT }
+            , { RDFFormat.JSONLD_STREAM }
             , { RDFFormat.NQUADS}
             , { RDFFormat.NQUADS_UTF8}
             , { RDFFormat.NQUADS_ASCII}
             , { RDFFormat.RDF_THRIFT }
             , { RDFFormat.RDF_THRIFT_VALUES }
+            , { RDFFormat.RDF_DICT }
+            , { RDFFormat.RDF_DICT_DEFLATE }
+            , { RDFFormat.RDF_DICT_UNCOMPRESSED }
             , { RDFFormat.TRIX }
         }) ; 
     }
@@ -45,6 +45,7 @@ public class TestRiotWriterGraph extends AbstractWriterTest
             , { RDFFormat.TURTLE }
             , { RDFFormat.TURTLE_PRETTY }
             , { RDFFormat.TURTLE_BLOCKS }
+            , { RDFFormat.TURTLE_BLOCKS_NESTED }
             , { RDFFormat.TURTLE_FLAT }
             , { RDFFormat.RDFXML }
             , { RDFFormat.RDFXML_PRETTY }
@@ -52,12 +53,14 @@ public class TestRiotWriterGraph extends AbstractWriterTest
             , { RDFFormat.JSONLD }
             , { RDFFormat.JSONLD_PRETTY }
             , { RDFFormat.JSONLD_FLAT }
+            , { RDFFormat.JSONLD_STREAM }
             , { RDFFormat.RDFJSON }
 
             // graph in quad formats.
             , { RDFFormat.TRIG }
             , { RDFFormat.TRIG_PRETTY }
             , { RDFFormat.TRIG_BLOCKS }
+            , { RDFFormat.TRIG_BLOCKS_NESTED }
             , { RDFFormat.TRIG_FLAT }
             , { RDFFormat.NQUADS_UTF8}
             , { RDFFormat.NQUADS_ASCII}
@@ -65,6 +68,9 @@ public class TestRiotWriterGraph extends AbstractWriterTest
             
             , { RDFFormat.RDF_THRIFT }
             , { RDFFormat.RDF_THRIFT_VALUES }
+            , { RDFFormat.RDF_DICT }
+            , { RDFFormat.RDF_DICT_DEFLATE }
+            , { RDFFormat.RDF_DICT_UNCOMPRESSED }
             , { RDFFormat.TRIX }
         }) ; 
     }
@@ -85,6 +85,12 @@ public class TestTurtleWriter {
     @Test
     public void bnode_cycles_08() { blankNodeLang(cycle2, RDFFormat.TURTLE_PRETTY) ; }
 
+    @Test
+    public void bnode_cycles_09() { blankNodeLang(cycle1, RDFFormat.TURTLE_BLOCKS_NESTED) ; }
+
+    @Test
+    public void bnode_cycles_10() { blankNodeLang(cycle2, RDFFormat.TURTLE_BLOCKS_NESTED) ; }
+
     @Test
     public void bnode_cycles() {
         Model m = RDFDataMgr.loadModel("testing/DAWG-Final/construct/data-ident.ttl");
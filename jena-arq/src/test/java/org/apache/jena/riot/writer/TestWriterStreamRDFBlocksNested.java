@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.writer;
+
+import java.io.ByteArrayOutputStream ;
+import java.nio.charset.StandardCharsets ;
+import java.util.ArrayList ;
+import java.util.List ;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.NodeFactory ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.riot.* ;
+import org.apache.jena.riot.system.StreamRDF ;
+import org.apache.jena.riot.system.StreamRDFBase ;
+import org.apache.jena.riot.system.StreamRDFWriter ;
+import org.apache.jena.riot.writer.WriterStreamRDFBlocksNested.Nestable ;
+import org.apache.jena.sparql.core.DatasetGraph ;
+import org.apache.jena.sparql.core.DatasetGraphFactory ;
+import org.apache.jena.sparql.core.Quad ;
+import org.apache.jena.sparql.graph.GraphFactory ;
+import org.apache.jena.sparql.sse.SSE ;
+import org.apache.jena.sparql.util.IsoMatcher ;
+import org.junit.Test ;
+
+public class TestWriterStreamRDFBlocksNested extends BaseTest
+{
+    /** Write the N-Triples, in order, and check the Turtle read back is the same graph. */
+    private static String write(String ntriples, int window) {
+        return write(ntriples, window, true) ;
+    }
+
+    private static String write(String ntriples, int window, boolean nestable) {
+        List<Triple> triples = new ArrayList<>() ;
+        RDFParser.create().fromString(ntriples).lang(Lang.NTRIPLES).parse(new StreamRDFBase() {
+            @Override public void triple(Triple triple) { triples.add(triple) ; }
+        }) ;
+        Graph graph = GraphFactory.createDefaultGraph() ;
+        triples.forEach(graph::add) ;
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        StreamRDF dest = new WriterStreamRDFBlocksNested(out, window, nestable ? WriterStreamRDFBlocksNested.nestable(graph) : null) ;
+        dest.start() ;
+        triples.forEach(dest::triple) ;
+        dest.finish() ;
+        String x = new String(out.toByteArray(), StandardCharsets.UTF_8) ;
+        Graph graph2 = GraphFactory.createDefaultGraph() ;
+        RDFParser.create().fromString(x).lang(Lang.TURTLE).parse(graph2) ;
+        assertTrue(x, graph.isIsomorphicWith(graph2)) ;
+        return x ;
+    }
+
+    private static String write(String ntriples) {
+        return write(ntriples, WriterStreamRDFBlocksNested.DFT_WINDOW) ;
+    }
+
+    @Test public void nested_01() {
+        String x = write("<http://ex/s> <http://ex/p> _:b . _:b <http://ex/q> '1' .".replace('\'', '"')) ;
+        assertFalse(x, x.contains("_:")) ;
+        assertTrue(x, x.contains("[ <http://ex/q>  \"1\" ]")) ;
+    }
+
+    @Test public void nested_02() {
+        // Blank node before its use, two predicates, and nested again.
+        String x = write(String.join("\n"
+            , "_:b <http://ex/q> \"1\" ."
+            , "_:b <http://ex/r> _:c ."
+            , "_:c <http://ex/q> \"2\" ."
+            , "<http://ex/s> <http://ex/p> _:b ."
+            )) ;
+        assertFalse(x, x.contains("_:")) ;
+    }
+
+    @Test public void nested_03() {
+        // Used twice : labelled.
+        String x = write(String.join("\n"
+            , "<http://ex/s1> <http://ex/p> _:b ."
+            , "<http://ex/s2> <http://ex/p> _:b ."
+            , "_:b <http://ex/q> \"1\" ."
+            )) ;
+        assertTrue(x, x.contains("_:")) ;
+    }
+
+    @Test public void nested_04() {
+        // Not used as an object, and a cycle.
+        String x = write(String.join("\n"
+            , "_:a <http://ex/q> \"1\" ."
+            , "_:b <http://ex/p> _:c ."
+            , "_:c <http://ex/p> _:b ."
+            )) ;
+        assertTrue(x, x.contains("_:")) ;
+    }
+
+    @Test public void nested_05() {
+        // Outside the window : labelled.
+        String x = write(String.join("\n"
+            , "<http://ex/s> <http://ex/p> _:b ."
+            , "<http://ex/s1> <http://ex/p> \"1\" ."
+            , "<http://ex/s2> <http://ex/p> \"2\" ."
+            , "_:b <http://ex/q> \"1\" ."
+            ), 1) ;
+        assertTrue(x, x.contains("_:")) ;
+    }
+
+    @Test public void nested_06() {
+        // Used again, later in the stream : labelled.
+        String x = write(String.join("\n"
+            , "<http://ex/s> <http://ex/p> _:b ."
+            , "_:b <http://ex/q> \"1\" ."
+            , "<http://ex/s1> <http://ex/p> \"1\" ."
+            , "<http://ex/s2> <http://ex/p> _:b ."
+            ), 1) ;
+        assertTrue(x, x.contains("_:")) ;
+    }
+
+    @Test public void nested_07() {
+        // Subject in two blocks : labelled.
+        String x = write(String.join("\n"
+            , "_:b <http://ex/q> \"1\" ."
+            , "<http://ex/s> <http://ex/p> _:b ."
+            , "<http://ex/s1> <http://ex/p> \"1\" ."
+            , "<http://ex/s2> <http://ex/p> \"2\" ."
+            , "_:b <http://ex/q> \"2\" ."
+            ), 1) ;
+        assertTrue(x, x.contains("_:")) ;
+    }
+
+    @Test public void nested_08() {
+        // Uses of blank nodes not known : labelled.
+        String x = write("<http://ex/s> <http://ex/p> _:b . _:b <http://ex/q> '1' .".replace('\'', '"'), WriterStreamRDFBlocksNested.DFT_WINDOW, false) ;
+        assertTrue(x, x.contains("_:")) ;
+    }
+
+    @Test public void nested_09() {
+        // A chain of blank nodes, each block before its use : held blocks are bounded by the window.
+        int N = 1000 ;
+        int window = 10 ;
+        StringBuilder sb = new StringBuilder() ;
+        sb.append("_:b"+N+" <http://ex/q> \"1\" .\n") ;
+        for ( int i = N-1 ; i > 0 ; i-- )
+            sb.append("_:b"+i+" <http://ex/p> _:b"+(i+1)+" .\n") ;
+        sb.append("<http://ex/s> <http://ex/p> _:b1 .\n") ;
+        List<Triple> triples = new ArrayList<>() ;
+        RDFParser.create().fromString(sb.toString()).lang(Lang.NTRIPLES).parse(new StreamRDFBase() {
+            @Override public void triple(Triple triple) { triples.add(triple) ; }
+        }) ;
+        Graph graph = GraphFactory.createDefaultGraph() ;
+        triples.forEach(graph::add) ;
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        WriterStreamRDFBlocksNested dest = new WriterStreamRDFBlocksNested(out, window, WriterStreamRDFBlocksNested.nestable(graph)) ;
+        dest.start() ;
+        for ( Triple t : triples ) {
+            dest.triple(t) ;
+            assertTrue(dest.bufferedTriples() <= window) ;
+        }
+        dest.finish() ;
+        String x = new String(out.toByteArray(), StandardCharsets.UTF_8) ;
+        Graph graph2 = GraphFactory.createDefaultGraph() ;
+        RDFParser.create().fromString(x).lang(Lang.TURTLE).parse(graph2) ;
+        assertTrue(graph.isIsomorphicWith(graph2)) ;
+        // The last blocks of the chain are nested.
+        assertTrue(x, x.contains("[ <http://ex/p>")) ;
+    }
+
+    @Test public void nested_10() {
+        // Asked about each blank node subject as its block is written, not about all the data first.
+        List<Node> asked = new ArrayList<>() ;
+        Nestable nestable = (g, b) -> { asked.add(b) ; return 1 ; } ;
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        StreamRDF dest = new WriterStreamRDFBlocksNested(out, WriterStreamRDFBlocksNested.DFT_WINDOW, nestable) ;
+        Node s = NodeFactory.createURI("http://ex/s") ;
+        Node q = NodeFactory.createURI("http://ex/q") ;
+        Node b = NodeFactory.createBlankNode() ;
+        Node c = NodeFactory.createBlankNode() ;
+        dest.start() ;
+        dest.triple(Triple.create(s, NodeFactory.createURI("http://ex/p"), b)) ;
+        dest.triple(Triple.create(b, q, NodeFactory.createLiteral("1"))) ;
+        dest.triple(Triple.create(s, NodeFactory.createURI("http://ex/r"), c)) ;
+        dest.triple(Triple.create(c, q, NodeFactory.createLiteral("2"))) ;
+        assertEquals(0, asked.size()) ;
+        dest.finish() ;
+        assertEquals(2, asked.size()) ;
+        String x = new String(out.toByteArray(), StandardCharsets.UTF_8) ;
+        assertFalse(x, x.contains("_:")) ;
+    }
+
+    @Test public void nested_11() {
+        // A pure stream has nothing to ask : not offered as a streaming format.
+        assertFalse(StreamRDFWriter.registered(RDFFormat.TURTLE_BLOCKS_NESTED)) ;
+        assertFalse(StreamRDFWriter.registered(RDFFormat.TRIG_BLOCKS_NESTED)) ;
+        assertTrue(RDFWriterRegistry.contains(RDFFormat.TURTLE_BLOCKS_NESTED)) ;
+    }
+
+    @Test public void nested_dataset_01() {
+        DatasetGraph dsg = SSE.parseDatasetGraph(String.join("\n"
+            , "(dataset"
+            , "  (graph (<http://ex/s> <http://ex/p> _:b) (_:b <http://ex/q> 1))"
+            , "  (graph <http://ex/g> (<http://ex/s> <http://ex/p> _:c) (_:c <http://ex/q> 2) (_:c <http://ex/q> 3))"
+            , ")")) ;
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        RDFDataMgr.write(out, dsg, RDFFormat.TRIG_BLOCKS_NESTED) ;
+        String x = new String(out.toByteArray(), StandardCharsets.UTF_8) ;
+        assertFalse(x, x.contains("_:")) ;
+        DatasetGraph dsg2 = DatasetGraphFactory.create() ;
+        RDFParser.create().fromString(x).lang(Lang.TRIG).parse(dsg2) ;
+        assertTrue(x, IsoMatcher.isomorphic(dsg, dsg2)) ;
+    }
+
+    @Test public void nested_dataset_02() {
+        // A blank node that is a graph name is not nested, whichever graph is written first.
+        String nq = String.join("\n"
+            , "<http://ex/z> <http://ex/p> _:x <http://ex/g> ."
+            , "_:x <http://ex/q> \"1\" <http://ex/g> ."
+            , "<http://ex/s> <http://ex/p> <http://ex/o> _:x ."
+            ) ;
+        List<Quad> quads = new ArrayList<>() ;
+        RDFParser.create().fromString(nq).lang(Lang.NQUADS).parse(new StreamRDFBase() {
+            @Override public void quad(Quad quad) { quads.add(quad) ; }
+        }) ;
+        DatasetGraph dsg = DatasetGraphFactory.create() ;
+        quads.forEach(dsg::add) ;
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        StreamRDF dest = new WriterStreamRDFBlocksNested(out, WriterStreamRDFBlocksNested.DFT_WINDOW, WriterStreamRDFBlocksNested.nestable(dsg)) ;
+        dest.start() ;
+        quads.forEach(dest::quad) ;
+        dest.finish() ;
+        String x = new String(out.toByteArray(), StandardCharsets.UTF_8) ;
+        DatasetGraph dsg2 = DatasetGraphFactory.create() ;
+        RDFParser.create().fromString(x).lang(Lang.TRIG).parse(dsg2) ;
+        assertTrue(x, IsoMatcher.isomorphic(dsg, dsg2)) ;
+    }
+}
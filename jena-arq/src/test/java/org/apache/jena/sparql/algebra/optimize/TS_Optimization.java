@@ -35,6 +35,7 @@ import org.junit.runners.Suite ;
     , TestTransformPromoteTableEmpty.class
     , TestTransformEliminateAssignments.class
     , TestTransformTopN.class
+    , TestTransformServiceFederation.class
     , TestOptimizer.class
 })
 
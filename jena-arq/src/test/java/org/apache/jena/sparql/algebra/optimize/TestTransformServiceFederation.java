@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.algebra.optimize;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.sparql.algebra.Transform;
+import org.apache.jena.sparql.engine.http.ServiceStats;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.sparql.sse.SSE;
+import org.junit.Test;
+
+public class TestTransformServiceFederation extends AbstractTestTransform {
+    private static String EP = "http://example/sparql";
+    private static Node q = NodeFactory.createURI("http://example/q");
+
+    // Local graph with n triples with predicate :p
+    private static Graph localGraph(int n) {
+        Graph graph = GraphFactory.createGraphMem();
+        for ( int i = 0 ; i < n ; i++ )
+            graph.add(SSE.parseTriple("(<http://example/x"+i+"> <http://example/p> <http://example/s"+i+">)"));
+        return graph;
+    }
+
+    private static ServiceStats remoteStats(long triples, long distinctSubjects) {
+        ServiceStats stats = new ServiceStats(ServiceStats.DftTimeToLive, 0);
+        stats.setPredicate(EP, q, triples, distinctSubjects, triples);
+        stats.setTriples(EP, triples);
+        return stats;
+    }
+
+    private static String join =
+        "(join (bgp (?x <http://example/p> ?s)) (service <"+EP+"> (bgp (?s <http://example/q> ?v))))";
+
+    @Test public void federation_01() {
+        // Remote is small - first, then substituted into the local pattern.
+        Transform t = new TransformServiceFederation(remoteStats(5, 5), localGraph(100), 1);
+        testOp(join, t,
+               "(sequence (service <"+EP+"> (bgp (?s <http://example/q> ?v))) (bgp (?x <http://example/p> ?s)))");
+    }
+
+    @Test public void federation_02() {
+        // Local is small - bind join.
+        Transform t = new TransformServiceFederation(remoteStats(1000000, 1000000), localGraph(5), 1);
+        testOp(join, t,
+               "(sequence (bgp (?x <http://example/p> ?s)) (service <"+EP+"> (bgp (?s <http://example/q> ?v))))");
+    }
+
+    @Test public void federation_03() {
+        // Many requests for a bind join - fetch once and join.
+        Transform t = new TransformServiceFederation(remoteStats(500, 500), localGraph(200), 1);
+        testOp(join, t,
+               "(join (bgp (?x <http://example/p> ?s)) (service <"+EP+"> (bgp (?s <http://example/q> ?v))))");
+    }
+
+    @Test public void federation_04() {
+        // As federation_03 but with batched requests, a bind join is cheaper.
+        Transform t = new TransformServiceFederation(remoteStats(500, 500), localGraph(200), 100);
+        testOp(join, t,
+               "(sequence (bgp (?x <http://example/p> ?s)) (service <"+EP+"> (bgp (?s <http://example/q> ?v))))");
+    }
+
+    @Test public void federation_05() {
+        // Connected patterns are preferred to smaller, unconnected ones.
+        // The SERVICE is fetched once rather than once for each row of the table.
+        Transform t = new TransformServiceFederation(remoteStats(5, 5), localGraph(100), 1);
+        testOp("(join (join (table (vars ?z) (row [?z 1]) (row [?z 2]) (row [?z 3])) (bgp (?x <http://example/p> ?s)))"+
+               "      (service <"+EP+"> (bgp (?s <http://example/q> ?v))))", t,
+               "(sequence (join (table (vars ?z) (row [?z 1]) (row [?z 2]) (row [?z 3]))"+
+               "                (service <"+EP+"> (bgp (?s <http://example/q> ?v))))"+
+               "  (bgp (?x <http://example/p> ?s)))");
+    }
+
+    @Test public void federation_06() {
+        // No estimate for the SERVICE - no change.
+        Transform t = new TransformServiceFederation(remoteStats(5, 5), localGraph(5), 1);
+        testOp("(join (bgp (?x <http://example/p> ?s)) (service ?endpoint (bgp (?s <http://example/q> ?v))))", t, (String[])null);
+    }
+
+    @Test public void federation_stats_01() throws InterruptedException {
+        // Statistics set by the application do not expire.
+        ServiceStats stats = new ServiceStats(1, 0);
+        stats.setPredicate(EP, q, 10, 5, 10);
+        stats.setTriples(EP, 100);
+        Thread.sleep(20);
+        assertEquals(100, stats.triples(EP));
+        assertEquals(10, stats.predicate(EP, q).triples);
+        assertEquals(5, stats.predicate(EP, q).distinctSubjects);
+    }
+}
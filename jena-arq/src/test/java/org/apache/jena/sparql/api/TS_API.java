@@ -28,6 +28,7 @@ import org.junit.runners.Suite.SuiteClasses ;
     , TestQueryExecutionCancel.class
     , TestQueryExecutionTimeout1.class
     , TestQueryExecutionTimeout2.class
+    , TestPreparedQuery.class
 })
 
 public class TS_API
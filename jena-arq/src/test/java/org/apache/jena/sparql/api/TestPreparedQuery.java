@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.*;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.sse.SSE;
+import org.junit.Test;
+
+public class TestPreparedQuery {
+    private static DatasetGraph dsg = SSE.parseDatasetGraph(String.join("\n"
+        , "(dataset"
+        , "  (graph (:s1 :p 1) (:s1 :p 2) (:s2 :p 3) (:s2 :q 'x'))"
+        , ")"));
+    private static Dataset dataset = DatasetFactory.wrap(dsg);
+    private static Model model = dataset.getDefaultModel();
+
+    private static String PREFIX = "PREFIX : <http://example/> ";
+
+    @Test public void prepared_01() {
+        PreparedQuery pq = QueryExecutionFactory.prepare(PREFIX+"SELECT * { ?s :p ?o }", dataset);
+        assertEquals(2, count(pq, "s", model.createResource("http://example/s1")));
+        assertEquals(1, count(pq, "s", model.createResource("http://example/s2")));
+        assertEquals(0, count(pq, "s", model.createResource("http://example/s3")));
+        assertEquals(3, count(pq, null, null));
+    }
+
+    @Test public void prepared_02() {
+        // Parameter in a FILTER.
+        PreparedQuery pq = PreparedQuery.prepare(PREFIX+"SELECT ?s { ?s :p ?o FILTER(?o > ?min) }", dataset);
+        assertEquals(3, count(pq, "min", model.createTypedLiteral(0)));
+        assertEquals(1, count(pq, "min", model.createTypedLiteral(2)));
+        assertEquals(0, count(pq, "min", model.createTypedLiteral(3)));
+    }
+
+    @Test public void prepared_03() {
+        // Parameter is returned in the results.
+        PreparedQuery pq = PreparedQuery.prepare(PREFIX+"SELECT ?s ?o { ?s :q ?o }", dataset);
+        Resource s2 = model.createResource("http://example/s2");
+        QuerySolutionMap params = new QuerySolutionMap();
+        params.add("s", s2);
+        try ( QueryExecution qExec = pq.execute(params) ) {
+            List<QuerySolution> x = ResultSetFormatter.toList(qExec.execSelect());
+            assertEquals(1, x.size());
+            assertEquals(s2, x.get(0).get("s"));
+        }
+    }
+
+    @Test public void prepared_04() {
+        // Binding
+        PreparedQuery pq = PreparedQuery.prepare(PREFIX+"ASK { ?s :q 'x' }", dataset);
+        Node s1 = SSE.parseNode(":s1");
+        Node s2 = SSE.parseNode(":s2");
+        try ( QueryExecution qExec = pq.execute(BindingFactory.binding(Var.alloc("s"), s1)) ) {
+            assertFalse(qExec.execAsk());
+        }
+        try ( QueryExecution qExec = pq.execute(BindingFactory.binding(Var.alloc("s"), s2)) ) {
+            assertTrue(qExec.execAsk());
+        }
+    }
+
+    private static long count(PreparedQuery pq, String varName, RDFNode value) {
+        QuerySolutionMap params = null;
+        if ( varName != null ) {
+            params = new QuerySolutionMap();
+            params.add(varName, value);
+        }
+        try ( QueryExecution qExec = pq.execute(params) ) {
+            return ResultSetFormatter.consume(qExec.execSelect());
+        }
+    }
+}
@@ -34,6 +34,7 @@ import org.junit.runners.Suite ;
     , TestDatasetGraphViewGraphs.class
     , TestGraphView.class
     , TestDatasetMonitor.class
+    , TestPatchLog.class
     
     , TestDatasetGraphBaseFind_General.class
     , TestDatasetGraphBaseFind_General.class
@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.core;
+
+import java.io.ByteArrayInputStream ;
+import java.io.ByteArrayOutputStream ;
+import java.io.IOException ;
+
+import org.apache.jena.atlas.RuntimeIOException ;
+import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.dict.RDFDict.Compression ;
+import org.apache.jena.sparql.sse.SSE ;
+import org.apache.jena.system.Txn ;
+import org.junit.Test ;
+
+public class TestPatchLog extends BaseTest
+{
+    private static Quad quad1 = SSE.parseQuad("(_ :s :p 1)") ;
+    private static Quad quad2 = SSE.parseQuad("(:g :s :p 'abc'@en)") ;
+    private static Quad quad3 = SSE.parseQuad("(:g _:b :q _:b)") ;
+    private static Quad quad4 = SSE.parseQuad("(<urn:x-arq:DefaultGraph> :s :p 4)") ;
+
+    private static void change(DatasetChangesLog log, QuadAction action, Quad quad) {
+        // Default graph as null, as from a storage layer.
+        log.change(action, quad.isDefaultGraph() ? null : quad.getGraph(), quad.getSubject(), quad.getPredicate(), quad.getObject()) ;
+    }
+
+    private static DatasetGraph replay(ByteArrayOutputStream out) {
+        DatasetGraph dsg = DatasetGraphFactory.createTxnMem() ;
+        PatchLog.apply(new ByteArrayInputStream(out.toByteArray()), dsg) ;
+        return dsg ;
+    }
+
+    @Test public void patch_log_01() {
+        // Nothing.
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        DatasetChangesLog log = new DatasetChangesLog(out) ;
+        log.start() ;
+        log.commit() ;
+        assertEquals(0, out.size()) ;
+        assertEquals(0, log.getSequence()) ;
+        assertEquals(0, PatchLog.apply(new ByteArrayInputStream(out.toByteArray()), DatasetGraphFactory.create())) ;
+    }
+
+    @Test public void patch_log_02() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        DatasetChangesLog log = new DatasetChangesLog(out) ;
+        log.start() ;
+        change(log, QuadAction.ADD, quad1) ;
+        change(log, QuadAction.ADD, quad2) ;
+        change(log, QuadAction.ADD, quad3) ;
+        log.commit() ;
+        log.start() ;
+        change(log, QuadAction.DELETE, quad2) ;
+        change(log, QuadAction.ADD, quad4) ;
+        log.commit() ;
+        assertEquals(2, log.getSequence()) ;
+
+        DatasetGraph dsg = replay(out) ;
+        assertTrue(dsg.contains(quad1)) ;
+        assertFalse(dsg.contains(quad2)) ;
+        assertTrue(dsg.contains(quad3)) ;
+        assertTrue(dsg.contains(quad4)) ;
+        assertEquals(2, PatchLog.lastSequence(new ByteArrayInputStream(out.toByteArray()))) ;
+    }
+
+    @Test public void patch_log_03() {
+        // Net effect of a transaction, and aborts.
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        DatasetChangesLog log = new DatasetChangesLog(out) ;
+        log.start() ;
+        change(log, QuadAction.ADD, quad1) ;
+        change(log, QuadAction.ADD, quad2) ;
+        change(log, QuadAction.DELETE, quad1) ;
+        change(log, QuadAction.NO_ADD, quad3) ;
+        log.commit() ;
+        log.start() ;
+        change(log, QuadAction.ADD, quad3) ;
+        log.abort() ;
+        log.start() ;
+        change(log, QuadAction.ADD, quad4) ;
+        log.reset() ;
+        assertEquals(1, log.getSequence()) ;
+
+        DatasetGraph dsg = DatasetGraphFactory.createTxnMem() ;
+        Txn.executeWrite(dsg, ()->dsg.add(quad1)) ;
+        PatchLog.apply(new ByteArrayInputStream(out.toByteArray()), dsg) ;
+        assertFalse(dsg.contains(quad1)) ;
+        assertTrue(dsg.contains(quad2)) ;
+        assertFalse(dsg.contains(quad3)) ;
+        assertFalse(dsg.contains(quad4)) ;
+    }
+
+    @Test public void patch_log_04() {
+        // Continue a log ; replay after a sequence number.
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        DatasetChangesLog log1 = new DatasetChangesLog(out, Compression.DEFLATE, 0) ;
+        log1.start() ;
+        change(log1, QuadAction.ADD, quad1) ;
+        log1.commit() ;
+        long seq = PatchLog.lastSequence(new ByteArrayInputStream(out.toByteArray())) ;
+        assertEquals(1, seq) ;
+
+        DatasetChangesLog log2 = new DatasetChangesLog(out, Compression.NONE, seq) ;
+        log2.start() ;
+        change(log2, QuadAction.ADD, quad2) ;
+        log2.commit() ;
+        log2.start() ;
+        change(log2, QuadAction.DELETE, quad1) ;
+        log2.commit() ;
+        assertEquals(3, log2.getSequence()) ;
+
+        byte[] bytes = out.toByteArray() ;
+        DatasetGraph dsg = DatasetGraphFactory.createTxnMem() ;
+        assertEquals(3, PatchLog.apply(new ByteArrayInputStream(bytes), dsg, 0)) ;
+        assertFalse(dsg.contains(quad1)) ;
+        assertTrue(dsg.contains(quad2)) ;
+
+        DatasetGraph dsg2 = DatasetGraphFactory.createTxnMem() ;
+        Txn.executeWrite(dsg2, ()->dsg2.add(quad1)) ;
+        assertEquals(3, PatchLog.apply(new ByteArrayInputStream(bytes), dsg2, 2)) ;
+        // Only the last patch.
+        assertFalse(dsg2.contains(quad1)) ;
+        assertFalse(dsg2.contains(quad2)) ;
+        assertEquals(3, PatchLog.apply(new ByteArrayInputStream(bytes), dsg2, 3)) ;
+    }
+
+    @Test public void patch_log_05() {
+        // Larger transaction.
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        DatasetChangesLog log = new DatasetChangesLog(out) ;
+        DatasetGraph dsg1 = DatasetGraphFactory.create() ;
+        log.start() ;
+        for ( int i = 0 ; i < 20000 ; i++ ) {
+            Quad quad = SSE.parseQuad("(:g"+(i%7)+" :s"+(i%100)+" :p "+i+")") ;
+            change(log, QuadAction.ADD, quad) ;
+            dsg1.add(quad) ;
+        }
+        log.commit() ;
+        DatasetGraph dsg2 = replay(out) ;
+        assertEquals(20000, Iter.count(dsg2.find())) ;
+        dsg1.find().forEachRemaining(q->assertTrue(dsg2.contains(q))) ;
+    }
+
+    @Test public void patch_log_06() {
+        // A patch that is not written does not use a sequence number.
+        boolean[] fail = { true } ;
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override public void flush() throws IOException {
+                if ( fail[0] )
+                    throw new IOException("Flush") ;
+            }
+        } ;
+        DatasetChangesLog log = new DatasetChangesLog(out) ;
+        log.start() ;
+        change(log, QuadAction.ADD, quad1) ;
+        try {
+            log.commit() ;
+            fail("No exception") ;
+        } catch (RuntimeIOException ex) {}
+        assertEquals(0, log.getSequence()) ;
+        fail[0] = false ;
+        out.reset() ;
+        log.start() ;
+        change(log, QuadAction.ADD, quad2) ;
+        log.commit() ;
+        assertEquals(1, log.getSequence()) ;
+        assertEquals(1, PatchLog.lastSequence(new ByteArrayInputStream(out.toByteArray()))) ;
+    }
+
+    @Test public void patch_log_07() {
+        // Written before the commit ; a transaction that then aborts is not applied.
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        DatasetChangesLog log = new DatasetChangesLog(out) ;
+        log.start() ;
+        change(log, QuadAction.ADD, quad1) ;
+        log.prepare() ;
+        assertEquals(1, log.getSequence()) ;
+        // Waiting for the commit.
+        DatasetGraph dsg1 = DatasetGraphFactory.createTxnMem() ;
+        assertEquals(0, PatchLog.apply(new ByteArrayInputStream(out.toByteArray()), dsg1)) ;
+        assertFalse(dsg1.contains(quad1)) ;
+        log.abort() ;
+        log.start() ;
+        change(log, QuadAction.ADD, quad2) ;
+        log.prepare() ;
+        log.commit() ;
+        assertEquals(2, log.getSequence()) ;
+
+        DatasetGraph dsg2 = DatasetGraphFactory.createTxnMem() ;
+        assertEquals(2, PatchLog.apply(new ByteArrayInputStream(out.toByteArray()), dsg2)) ;
+        assertFalse(dsg2.contains(quad1)) ;
+        assertTrue(dsg2.contains(quad2)) ;
+        // Continue after the aborted patch.
+        DatasetGraph dsg3 = DatasetGraphFactory.createTxnMem() ;
+        assertEquals(2, PatchLog.apply(new ByteArrayInputStream(out.toByteArray()), dsg3, 1)) ;
+        assertTrue(dsg3.contains(quad2)) ;
+    }
+
+    @Test(expected=RiotException.class)
+    public void patch_log_08() {
+        // A patch is missing.
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        DatasetChangesLog log1 = new DatasetChangesLog(out) ;
+        log1.start() ;
+        change(log1, QuadAction.ADD, quad1) ;
+        log1.commit() ;
+        DatasetChangesLog log2 = new DatasetChangesLog(out, Compression.LZ4, 2) ;
+        log2.start() ;
+        change(log2, QuadAction.ADD, quad2) ;
+        log2.commit() ;
+        PatchLog.apply(new ByteArrayInputStream(out.toByteArray()), DatasetGraphFactory.createTxnMem()) ;
+    }
+
+    @Test(expected=RiotException.class)
+    public void patch_log_09() {
+        // The writer stopped between the patch and the commit : the patch is in doubt.
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        DatasetChangesLog log1 = new DatasetChangesLog(out) ;
+        log1.start() ;
+        change(log1, QuadAction.ADD, quad1) ;
+        log1.prepare() ;
+        long seq = PatchLog.lastSequence(new ByteArrayInputStream(out.toByteArray())) ;
+        assertEquals(1, seq) ;
+        DatasetChangesLog log2 = new DatasetChangesLog(out, Compression.LZ4, seq) ;
+        log2.start() ;
+        change(log2, QuadAction.ADD, quad2) ;
+        log2.commit() ;
+        PatchLog.apply(new ByteArrayInputStream(out.toByteArray()), DatasetGraphFactory.createTxnMem()) ;
+    }
+
+    @Test(expected=RiotException.class)
+    public void patch_log_bad_01() {
+        byte[] bytes = { 'R', 'D', 'F', 'X', 1 } ;
+        PatchLog.apply(new ByteArrayInputStream(bytes), DatasetGraphFactory.create()) ;
+    }
+
+    @Test public void patch_log_truncated_01() {
+        // A log that ends part way through a patch : read up to the last complete patch.
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        DatasetChangesLog log = new DatasetChangesLog(out) ;
+        log.start() ;
+        change(log, QuadAction.ADD, quad1) ;
+        log.commit() ;
+        int length1 = out.size() ;
+        log.start() ;
+        change(log, QuadAction.ADD, quad2) ;
+        log.prepare() ;
+        int length2 = out.size() ;
+        log.commit() ;
+        byte[] bytes = out.toByteArray() ;
+        for ( int i = length1 ; i < bytes.length ; i++ ) {
+            // The second patch is not applied until its commit record is complete.
+            assertEquals(i < length2 ? 1 : 2, PatchLog.lastSequence(new ByteArrayInputStream(bytes, 0, i))) ;
+            DatasetGraph dsg = DatasetGraphFactory.createTxnMem() ;
+            assertEquals(1, PatchLog.apply(new ByteArrayInputStream(bytes, 0, i), dsg)) ;
+            assertTrue(dsg.contains(quad1)) ;
+            assertFalse(dsg.contains(quad2)) ;
+        }
+        for ( int i = 0 ; i < length1 ; i++ )
+            assertEquals(0, PatchLog.lastSequence(new ByteArrayInputStream(bytes, 0, i))) ;
+    }
+
+    @Test(expected=RiotException.class)
+    public void patch_log_bad_02() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        DatasetChangesLog log = new DatasetChangesLog(out) ;
+        log.start() ;
+        change(log, QuadAction.ADD, quad1) ;
+        log.commit() ;
+        byte[] bytes = out.toByteArray() ;
+        // Corrupted.
+        bytes[bytes.length-6] ^= 0x01 ;
+        PatchLog.apply(new ByteArrayInputStream(bytes), DatasetGraphFactory.create()) ;
+    }
+}
@@ -34,6 +34,8 @@ import org.junit.runners.Suite ;
       , TestQueryEngineMultiThreaded.class
       , TestJsonIterator.class
       , TestJsonEval.class
+      , TestQueryPlanCache.class
+      , TestExecStats.class
 })
 
 public class TS_Engine {}
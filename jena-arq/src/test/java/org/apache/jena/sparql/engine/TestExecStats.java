@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.jena.atlas.json.JsonObject;
+import org.apache.jena.query.*;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.op.Op1;
+import org.apache.jena.sparql.algebra.op.OpConditional;
+import org.apache.jena.sparql.algebra.op.OpFilter;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.mgt.ExecStats;
+import org.apache.jena.sparql.sse.SSE;
+import org.junit.Test;
+
+public class TestExecStats {
+
+    private static DatasetGraph dsg = SSE.parseDatasetGraph(String.join("\n"
+        , "(dataset"
+        , "  (graph (:s1 :p 1) (:s1 :p 2) (:s2 :p 3) (:s2 :q 'x'))"
+        , ")"));
+
+    private static String PREFIX = "PREFIX : <http://example/> ";
+
+    @Test public void exec_stats_01() {
+        // Not enabled.
+        ExecStats stats = exec(PREFIX+"SELECT * { ?s :p ?o }", false);
+        assertNull(stats);
+    }
+
+    @Test public void exec_stats_02() {
+        ExecStats stats = exec(PREFIX+"SELECT * { ?s :p ?o FILTER(?o > 1) }", true);
+        assertNotNull(stats);
+        Op op = stats.getOp();
+        // (filter (bgp))
+        ExecStats.OpStats filterStats = stats.getStats(op);
+        ExecStats.OpStats bgpStats = stats.getStats(((Op1)op).getSubOp());
+        assertEquals(1, filterStats.getExecutions());
+        assertEquals(2, filterStats.getRows());
+        assertEquals(3, bgpStats.getRows());
+        assertTrue(filterStats.getTimeNanos() >= bgpStats.getTimeNanos());
+    }
+
+    @Test public void exec_stats_03() {
+        // OPTIONAL by substitution - each left row is a stage.
+        ExecStats stats = exec(PREFIX+"SELECT * { ?s :p ?o OPTIONAL { ?s :q ?z } }", true);
+        Op op = stats.getOp();
+        assertTrue(op instanceof OpConditional);
+        ExecStats.OpStats condStats = stats.getStats(op);
+        assertEquals(3, condStats.getRows());
+        assertEquals(3, condStats.getStages());
+    }
+
+    @Test public void exec_stats_04() {
+        ExecStats stats = exec(PREFIX+"SELECT * { ?s :p ?o FILTER(?o > 1) }", true);
+        JsonObject obj = stats.asJson();
+        assertEquals("filter", obj.get("op").getAsString().value());
+        assertEquals(2, obj.get("rows").getAsNumber().value().intValue());
+        assertEquals(1, obj.get("subOps").getAsArray().size());
+        String str = stats.toString();
+        assertTrue(str.contains("rows=3"));
+    }
+
+    @Test public void exec_stats_05() {
+        // Index join with a nested sub-expression (conditional (bgp) (filter (bgp))).
+        // Each left row is one stage, not one for each operator substituted.
+        ExecStats stats = exec(PREFIX+"SELECT * { ?s :p ?o OPTIONAL { ?s :q ?z FILTER(?z != 'y') } }", true);
+        Op op = stats.getOp();
+        assertTrue(op instanceof OpConditional);
+        assertTrue(((OpConditional)op).getRight() instanceof OpFilter);
+        ExecStats.OpStats condStats = stats.getStats(op);
+        assertEquals(3, condStats.getRows());
+        assertEquals(3, condStats.getStages());
+    }
+
+    private static ExecStats exec(String queryString, boolean enable) {
+        Query query = QueryFactory.create(queryString);
+        try ( QueryExecution qExec = QueryExecutionFactory.create(query, DatasetFactory.wrap(dsg)) ) {
+            if ( enable )
+                qExec.getContext().set(ARQ.collectExecStats, true);
+            ResultSetFormatter.consume(qExec.execSelect());
+            return ExecStats.get(qExec.getContext());
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.apache.jena.query.*;
+import org.apache.jena.sparql.ARQConstants;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.engine.http.Service;
+import org.apache.jena.sparql.engine.http.ServiceStats;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.sparql.util.Context;
+import org.junit.Test;
+
+public class TestQueryPlanCache {
+
+    private static DatasetGraph dsg = SSE.parseDatasetGraph("(dataset (graph (:s :p 1) (:s :p 2) (:s :q 3)))");
+
+    @Test public void plan_cache_01() {
+        QueryPlanCache cache = new QueryPlanCache(10);
+        long x1 = count("PREFIX : <http://example/> SELECT * { ?s :p ?o }", cache, null);
+        assertEquals(2, x1);
+        assertEquals(1, cache.size());
+        // Different layout, same query.
+        long x2 = count("PREFIX : <http://example/>\nSELECT *\n# Comment\n{ ?s :p ?o . }", cache, null);
+        assertEquals(2, x2);
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.stats().hits);
+    }
+
+    @Test public void plan_cache_02() {
+        QueryPlanCache cache = new QueryPlanCache(10);
+        count("PREFIX : <http://example/> SELECT * { ?s :p ?o }", cache, null);
+        count("PREFIX : <http://example/> SELECT * { ?s :q ?o }", cache, null);
+        assertEquals(2, cache.size());
+    }
+
+    @Test public void plan_cache_03() {
+        // Different settings, different plan.
+        QueryPlanCache cache = new QueryPlanCache(10);
+        String qs = "PREFIX : <http://example/> SELECT * { ?s :p ?o FILTER(?o = 1) }";
+        long x1 = count(qs, cache, null);
+        Context cxt = new Context();
+        cxt.set(ARQ.optimization, false);
+        long x2 = count(qs, cache, cxt);
+        assertEquals(1, x1);
+        assertEquals(1, x2);
+        assertEquals(2, cache.size());
+    }
+
+    @Test public void plan_cache_04() {
+        QueryPlanCache cache = new QueryPlanCache(10);
+        String qs = "PREFIX : <http://example/> SELECT * { ?s :p ?o FILTER(?o = 1) }";
+        count(qs, cache, null);
+        Op op1 = planOp(qs, cache);
+        Op op2 = planOp(qs, cache);
+        assertSame(op1, op2);
+        assertEquals(2, cache.stats().hits);
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test public void plan_cache_05() {
+        // Plans are per dataset.
+        QueryPlanCache cache = new QueryPlanCache(10);
+        String qs = "PREFIX : <http://example/> SELECT * { ?s :p ?o }";
+        DatasetGraph dsg2 = SSE.parseDatasetGraph("(dataset (graph (:s :p 1)))");
+        assertEquals(2, count(qs, cache, null, dsg));
+        assertEquals(1, count(qs, cache, null, dsg2));
+        assertEquals(2, cache.size());
+        assertEquals(0, cache.stats().hits);
+    }
+
+    @Test public void plan_cache_06() {
+        // New statistics.
+        QueryPlanCache cache = new QueryPlanCache(10);
+        String qs = "PREFIX : <http://example/> SELECT * { ?s :p ?o }";
+        count(qs, cache, null);
+        QueryPlanCache.statisticsChanged();
+        count(qs, cache, null);
+        assertEquals(0, cache.stats().hits);
+        count(qs, cache, null);
+        assertEquals(1, cache.stats().hits);
+    }
+
+    @Test public void plan_cache_08() {
+        // New SERVICE statistics do not affect plans without that SERVICE.
+        QueryPlanCache cache = new QueryPlanCache(10);
+        String qs = "PREFIX : <http://example/> SELECT * { ?s :p ?o }";
+        count(qs, cache, null);
+        new ServiceStats(ServiceStats.DftTimeToLive, ServiceStats.DftProbeTimeout).setTriples("http://example/sparql", 100);
+        count(qs, cache, null);
+        assertEquals(1, cache.stats().hits);
+    }
+
+    @Test public void plan_cache_09() {
+        // New SERVICE statistics make plans with a SERVICE to that endpoint out of date.
+        QueryPlanCache cache = new QueryPlanCache(10);
+        ServiceStats stats = new ServiceStats(ServiceStats.DftTimeToLive, ServiceStats.DftProbeTimeout);
+        Context cxt = new Context();
+        cxt.set(Service.serviceStats, stats);
+        Query query1 = QueryFactory.create("SELECT * { SERVICE <http://example/sparql1> { ?s ?p ?o } }");
+        Query query2 = QueryFactory.create("SELECT * { SERVICE <http://example/sparql2> { ?s ?p ?o } }");
+        Op op1 = SSE.parseOp("(service <http://example/sparql1> (bgp (?s ?p ?o)))");
+        Op op2 = SSE.parseOp("(service <http://example/sparql2> (bgp (?s ?p ?o)))");
+        cache.put(query1, QueryEngineBase.class, dsg, cxt, op1);
+        cache.put(query2, QueryEngineBase.class, dsg, cxt, op2);
+        assertSame(op1, cache.get(query1, QueryEngineBase.class, dsg, cxt));
+        stats.setTriples("http://example/sparql1", 100);
+        assertNull(cache.get(query1, QueryEngineBase.class, dsg, cxt));
+        assertSame(op2, cache.get(query2, QueryEngineBase.class, dsg, cxt));
+        assertEquals(1, cache.size());
+    }
+
+    @Test public void plan_cache_07() {
+        // The cache has its own copy of the query.
+        QueryPlanCache cache = new QueryPlanCache(10);
+        Query query = QueryFactory.create("PREFIX : <http://example/> SELECT * { ?s :p ?o }");
+        try ( QueryExecution qExec = QueryExecutionFactory.create(query, DatasetFactory.wrap(dsg)) ) {
+            qExec.getContext().set(ARQ.queryPlanCache, cache);
+            ResultSetFormatter.consume(qExec.execSelect());
+        }
+        query.setLimit(1);
+        assertEquals(2, count("PREFIX : <http://example/> SELECT * { ?s :p ?o }", cache, null));
+        assertEquals(1, cache.stats().hits);
+    }
+
+    private static long count(String queryString, QueryPlanCache cache, Context cxt) {
+        return count(queryString, cache, cxt, dsg);
+    }
+
+    private static long count(String queryString, QueryPlanCache cache, Context cxt, DatasetGraph dsg) {
+        Query query = QueryFactory.create(queryString);
+        Dataset ds = DatasetFactory.wrap(dsg);
+        try ( QueryExecution qExec = QueryExecutionFactory.create(query, ds) ) {
+            if ( cxt != null )
+                qExec.getContext().putAll(cxt);
+            qExec.getContext().set(ARQ.queryPlanCache, cache);
+            return ResultSetFormatter.consume(qExec.execSelect());
+        }
+    }
+
+    private static Op planOp(String queryString, QueryPlanCache cache) {
+        Query query = QueryFactory.create(queryString);
+        try ( QueryExecution qExec = QueryExecutionFactory.create(query, DatasetFactory.wrap(dsg)) ) {
+            qExec.getContext().set(ARQ.queryPlanCache, cache);
+            ResultSetFormatter.consume(qExec.execSelect());
+            return qExec.getContext().get(ARQConstants.sysCurrentAlgebra);
+        }
+    }
+}
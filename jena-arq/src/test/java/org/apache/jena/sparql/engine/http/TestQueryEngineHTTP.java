@@ -39,6 +39,10 @@ public class TestQueryEngineHTTP extends BaseTest {
         test(QueryEngineHTTP.defaultSelectHeader(), WebContent.contentTypeTextTSV) ;
     }
     
+    @Test public void selectHeader_04() {
+        test(QueryEngineHTTP.defaultSelectHeader(), WebContent.contentTypeResultsThriftRepeat) ;
+    }
+    
     @Test public void constructHeader_01() {
         test(QueryEngineHTTP.defaultConstructHeader(), WebContent.contentTypeTurtle) ;
     }
@@ -52,11 +56,16 @@ public class TestQueryEngineHTTP extends BaseTest {
     }
     
     @Test public void askHeader_01() {
-        test(QueryEngineHTTP.defaultSelectHeader(), WebContent.contentTypeResultsJSON) ;
+        test(QueryEngineHTTP.defaultAskHeader(), WebContent.contentTypeResultsJSON) ;
     }
     
     @Test public void askHeader_02() {
-        test(QueryEngineHTTP.defaultSelectHeader(), WebContent.contentTypeResultsXML) ;
+        test(QueryEngineHTTP.defaultAskHeader(), WebContent.contentTypeResultsXML) ;
+    }
+    
+    @Test public void askHeader_03() {
+        // No boolean result in RDF Thrift.
+        assertFalse(QueryEngineHTTP.defaultAskHeader().contains(WebContent.contentTypeResultsThrift)) ;
     }
     
     private static void test(String header, String content) {
@@ -66,6 +66,31 @@ public class TestRegex extends BaseTest
     @Test public void testRegex07() { regexTest( "ABC",  "BC",   null,   true) ; }
     @Test public void testRegex08() { regexTest( "ABC",  "^BC",  null,   false) ; }
     @Test public void testRegex09() { regexTest( "[[",   "[",    "q",    true) ; }
+    @Test public void testRegex10() { regexTest( "a.bc", "^a\\.b", null,  true) ; }
+    @Test public void testRegex11() { regexTest( "axbc", "^a\\.b", null,  false) ; }
+    @Test public void testRegex12() { regexTest( "ABC",  "^",    null,   true) ; }
+    @Test public void testRegex13() { regexTest( "ABC",  "^abc", "i",    true) ; }
+    @Test public void testRegex14() { regexTest( "XYZ",  "^A|Z", null,   true) ; }
+
+    @Test public void testRegexPrefix01() { literalPrefixTest("^abc",     null, "abc") ; }
+    @Test public void testRegexPrefix02() { literalPrefixTest("^abc",     "",   "abc") ; }
+    @Test public void testRegexPrefix03() { literalPrefixTest("^a\\.b",   null, "a.b") ; }
+    @Test public void testRegexPrefix04() { literalPrefixTest("^",        null, "") ; }
+    @Test public void testRegexPrefix05() { literalPrefixTest("abc",      null, null) ; }
+    @Test public void testRegexPrefix06() { literalPrefixTest("^abc",     "i",  null) ; }
+    @Test public void testRegexPrefix07() { literalPrefixTest("^ab.",     null, null) ; }
+    @Test public void testRegexPrefix08() { literalPrefixTest("^ab$",     null, null) ; }
+    @Test public void testRegexPrefix09() { literalPrefixTest("^a\\d",    null, null) ; }
+    @Test public void testRegexPrefix10() { literalPrefixTest("^a|b",     null, null) ; }
+
+    @Test public void testRegexPatternCache() {
+        assertSame(RegexJava.makePattern("Regex", "a+b", "i"), RegexJava.makePattern("Regex", "a+b", "i")) ;
+        assertNotSame(RegexJava.makePattern("Regex", "a+b", "i"), RegexJava.makePattern("Regex", "a+b", null)) ;
+    }
+
+    private static void literalPrefixTest(String pattern, String flags, String expected) {
+        assertEquals(expected, RegexJava.literalPrefix(pattern, flags)) ;
+    }
     
     public void regexTest(String value, String pattern, String flags, boolean expected) {
         Expr s = NodeValue.makeString(value) ;
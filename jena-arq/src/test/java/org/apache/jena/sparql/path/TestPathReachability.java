@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.jena.atlas.lib.StrUtils;
+import org.apache.jena.query.*;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.sparql.path.eval.PathReachability;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.update.*;
+import org.junit.Test;
+
+/** Closure paths evaluated with and without {@link PathReachability} */
+public class TestPathReachability {
+    static String PRE = "PREFIX : <http://example/> ";
+
+    static Model model = ModelFactory.createModelForGraph(SSE.parseGraph(StrUtils.strjoinNL(
+        "(prefix ((: <http://example/>))",
+        "  (graph",
+        // Loop and a tail
+        "     (:x :p :y) (:y :p :z) (:z :p :x) (:x :p :a)",
+        // Diamonds
+        "     (:x :r :y1) (:x :r :y2) (:y1 :r :z) (:y2 :r :z)",
+        "     (:z :r :a1) (:z :r :a2) (:a1 :r :b) (:a2 :r :b)",
+        "     (:x :q 'literal')",
+        "))")));
+
+    @Test public void reachability_01() { test("SELECT * { :x :p* ?o }"); }
+    @Test public void reachability_02() { test("SELECT * { :x :p+ ?o }"); }
+    @Test public void reachability_03() { test("SELECT * { ?s :p* :a }"); }
+    @Test public void reachability_04() { test("SELECT * { ?s :r+ :b }"); }
+    @Test public void reachability_05() { test("SELECT * { :x (^:r)+ ?o }"); }
+    @Test public void reachability_06() { test("SELECT * { :b (^:r)* ?o }"); }
+
+    // Both ends bound.
+    @Test public void reachability_10() { test("ASK { :x :r+ :b }"); }
+    @Test public void reachability_11() { test("ASK { :b :r+ :x }"); }
+    @Test public void reachability_12() { test("ASK { :x :p+ :x }"); }
+    @Test public void reachability_13() { test("ASK { :b :r+ :b }"); }
+    @Test public void reachability_14() { test("ASK { :b :r* :b }"); }
+    @Test public void reachability_15() { test("ASK { :z (^:r)+ :x }"); }
+    @Test public void reachability_16() { test("SELECT * { VALUES (?s ?o) { (:x :b) (:b :x) (:y1 :a2) (:a :a) (:z :z) } ?s :r* ?o }"); }
+    // Zero length compares by term, not by value.
+    @Test public void reachability_17() {
+        assertTrue(ask(QueryFactory.create(PRE+"ASK { 1 :p* 1 }"), true));
+        assertFalse(ask(QueryFactory.create(PRE+"ASK { 1 :p* '01'^^<http://www.w3.org/2001/XMLSchema#integer> }"), true));
+    }
+
+    // Both ends unbound.
+    @Test public void reachability_20() { test("SELECT * { ?s :p+ ?o }"); }
+    @Test public void reachability_21() { test("SELECT * { ?s :p* ?o }"); }
+    @Test public void reachability_22() { test("SELECT * { ?s (^:r)+ ?o }"); }
+    @Test public void reachability_23() { test("SELECT * { ?s :r+ ?s }"); }
+    @Test public void reachability_24() { test("SELECT * { ?s :p+ ?s }"); }
+
+    // Reuse across bindings.
+    @Test public void reachability_30() { test("SELECT * { ?s :r ?m . ?m :r* ?o }"); }
+    @Test public void reachability_31() { test("SELECT * { ?s :p ?m . ?m :p+ ?o . ?o :p* ?z }"); }
+
+    // Each operation of an update request sees the data as changed by the previous ones.
+    @Test public void reachability_40() {
+        Dataset dataset = DatasetFactory.create();
+        UpdateRequest request = UpdateFactory.create(StrUtils.strjoinNL(
+            PRE,
+            "INSERT DATA { :a :p :b } ;",
+            "INSERT { :r :reach1 ?x } WHERE { :a :p+ ?x } ;",
+            "INSERT DATA { :b :p :c } ;",
+            "INSERT { :r :reach2 ?x } WHERE { :a :p+ ?x } ;",
+            "INSERT { :r :reach3 ?x } WHERE { :c (^:p)* ?x }"
+            ));
+        UpdateProcessor proc = UpdateExecutionFactory.create(request, dataset);
+        proc.getContext().set(ARQ.pathReachabilityCache, true);
+        proc.execute();
+        Model m = dataset.getDefaultModel();
+        assertEquals(1, count(m, "reach1"));
+        assertEquals(2, count(m, "reach2"));
+        assertEquals(3, count(m, "reach3"));
+    }
+
+    private static int count(Model m, String localName) {
+        return m.listStatements(null, m.createProperty("http://example/"+localName), (RDFNode)null).toList().size();
+    }
+
+    private static void test(String queryString) {
+        Query query = QueryFactory.create(PRE+queryString);
+        if ( query.isAskType() ) {
+            assertEquals(ask(query, false), ask(query, true));
+            return;
+        }
+        ResultSetRewindable rs1 = select(query, false);
+        ResultSetRewindable rs2 = select(query, true);
+        assertEquals(rs1.size(), rs2.size());
+        assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+    }
+
+    private static ResultSetRewindable select(Query query, boolean reachability) {
+        try ( QueryExecution qExec = QueryExecutionFactory.create(query, model) ) {
+            qExec.getContext().set(ARQ.pathReachabilityCache, reachability);
+            return ResultSetFactory.copyResults(qExec.execSelect());
+        }
+    }
+
+    private static boolean ask(Query query, boolean reachability) {
+        try ( QueryExecution qExec = QueryExecutionFactory.create(query, model) ) {
+            qExec.getContext().set(ARQ.pathReachabilityCache, reachability);
+            return qExec.execAsk();
+        }
+    }
+}
@@ -19,11 +19,15 @@
 package org.apache.jena.sparql.resultset;
 
 import java.io.ByteArrayInputStream;
+import java.util.Arrays;
 
 import org.junit.Assert;
 import org.apache.jena.atlas.lib.StrUtils;
 import org.apache.jena.query.ResultSet ;
 import org.apache.jena.query.ResultSetFactory ;
+import org.apache.jena.query.ResultSetFormatter ;
+import org.apache.jena.riot.ResultSetMgr ;
+import org.apache.jena.riot.resultset.ResultSetLang ;
 import org.apache.jena.sparql.ARQException ;
 import org.apache.jena.sparql.resultset.CSVInput ;
 import org.apache.jena.sparql.resultset.ResultSetException ;
@@ -366,6 +370,40 @@ public class TestResultSetFormat2 {
         parseJSON(input);
     }
 
+    @Test
+    public void resultset_json_05() {
+        // Results before the head.
+        String input = StrUtils.strjoinNL("{ \"results\": { \"bindings\": [ { \"s\": { \"type\": \"literal\", \"value\": \"abc\" } } ] },",
+                                          "  \"head\": { \"vars\": [ \"s\", \"o\" ] } }");
+        ResultSet rs = ResultSetFactory.fromJSON(new ByteArrayInputStream(StrUtils.asUTF8bytes(input)));
+        Assert.assertEquals(Arrays.asList("s", "o"), rs.getResultVars());
+        Assert.assertEquals(1, ResultSetFormatter.consume(rs));
+    }
+
+    @Test
+    public void resultset_json_06() {
+        // Rows are read as needed: the first row is available before the error later in the input.
+        String input = StrUtils.strjoinNL("{ \"head\": { \"vars\": [ \"s\" ] },",
+                                          "  \"results\": { \"bindings\": [",
+                                          "    { \"s\": { \"type\": \"uri\", \"value\": \"http://example/s\" } } ,",
+                                          "    { \"s\": { \"type\": \"uri\" } }");
+        ResultSet rs = ResultSetFactory.fromJSON(new ByteArrayInputStream(StrUtils.asUTF8bytes(input)));
+        Assert.assertTrue(rs.hasNext());
+        Assert.assertEquals("http://example/s", rs.next().getResource("s").getURI());
+        try {
+            rs.hasNext();
+            Assert.fail("Expected a parse error");
+        } catch (ResultSetException ex) {}
+    }
+
+    @Test
+    public void resultset_json_07() {
+        // Boolean before the head; other keys ignored.
+        String input = "{ \"boolean\" : true , \"other\": [ 1, { \"a\": null } ], \"head\" : {} }";
+        boolean b = ResultSetMgr.readBoolean(new ByteArrayInputStream(StrUtils.asUTF8bytes(input)), ResultSetLang.SPARQLResultSetJSON);
+        Assert.assertTrue(b);
+    }
+
     private void parseTSV(String x) {
         byte[] b = StrUtils.asUTF8bytes(x);
         ByteArrayInputStream in = new ByteArrayInputStream(b);
@@ -30,6 +30,7 @@ import org.junit.runners.Suite.SuiteClasses ;
     TestList.class ,
     TestDateTimeUtils.class ,
     TestFmtUtils.class,
+    TestIsoCanonical.class,
     TS_DyadicDatasetGraphs.class,
     TS_DatasetCollectors.class
 })
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.util;
+
+import java.io.ByteArrayOutputStream ;
+import java.nio.charset.StandardCharsets ;
+import java.util.* ;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.NodeFactory ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.riot.Lang ;
+import org.apache.jena.riot.RDFParser ;
+import org.apache.jena.sparql.core.DatasetGraph ;
+import org.apache.jena.sparql.core.DatasetGraphFactory ;
+import org.apache.jena.sparql.core.Quad ;
+import org.apache.jena.sparql.graph.GraphFactory ;
+import org.apache.jena.sparql.sse.SSE ;
+import org.junit.Test ;
+
+public class TestIsoCanonical extends BaseTest
+{
+    private static Node p = NodeFactory.createURI("http://example/p") ;
+    private static Node q = NodeFactory.createURI("http://example/q") ;
+
+    /** Same triples, new blank nodes, different order. */
+    private static Graph relabel(Graph graph, long seed) {
+        Map<Node, Node> map = new HashMap<>() ;
+        List<Triple> triples = graph.find().toList() ;
+        Collections.shuffle(triples, new Random(seed)) ;
+        Graph graph2 = GraphFactory.createGraphMem() ;
+        for ( Triple t : triples )
+            graph2.add(Triple.create(relabel(map, t.getSubject()), relabel(map, t.getPredicate()), relabel(map, t.getObject()))) ;
+        return graph2 ;
+    }
+
+    private static Node relabel(Map<Node, Node> map, Node n) {
+        if ( ! n.isBlank() )
+            return n ;
+        return map.computeIfAbsent(n, x->NodeFactory.createBlankNode()) ;
+    }
+
+    private static void testIso(Graph graph1, Graph graph2, boolean expected) {
+        assertEquals(expected, graph1.isIsomorphicWith(graph2)) ;
+        assertEquals(expected, IsoCanonical.isomorphic(graph1, graph2)) ;
+        assertEquals(expected, IsoCanonical.hash(graph1).equals(IsoCanonical.hash(graph2))) ;
+        assertEquals(expected, IsoCanonical.canonicalNTriples(graph1).equals(IsoCanonical.canonicalNTriples(graph2))) ;
+    }
+
+    private static Graph ring(int n, Graph graph) {
+        Node[] nodes = new Node[n] ;
+        for ( int i = 0 ; i < n ; i++ )
+            nodes[i] = NodeFactory.createBlankNode() ;
+        for ( int i = 0 ; i < n ; i++ )
+            graph.add(Triple.create(nodes[i], p, nodes[(i+1)%n])) ;
+        return graph ;
+    }
+
+    @Test public void iso_01() {
+        Graph graph = SSE.parseGraph("(graph (_:a :p _:b) (_:b :p 'x') (_:b :q _:c) (_:c :p _:a) (:s :p _:a) (:s :p 1))") ;
+        testIso(graph, relabel(graph, 1), true) ;
+    }
+
+    @Test public void iso_02() {
+        Graph graph1 = SSE.parseGraph("(graph (_:a :p _:b) (_:b :p 'x'))") ;
+        Graph graph2 = SSE.parseGraph("(graph (_:a :p _:b) (_:a :p 'x'))") ;
+        testIso(graph1, graph2, false) ;
+    }
+
+    @Test public void iso_03() {
+        // No blank nodes.
+        Graph graph1 = SSE.parseGraph("(graph (:s :p 'x') (:s :p 'y'))") ;
+        Graph graph2 = SSE.parseGraph("(graph (:s :p 'y') (:s :p 'x'))") ;
+        Graph graph3 = SSE.parseGraph("(graph (:s :p 'y') (:s :p 'z'))") ;
+        testIso(graph1, graph2, true) ;
+        testIso(graph1, graph3, false) ;
+        testIso(GraphFactory.createGraphMem(), GraphFactory.createGraphMem(), true) ;
+    }
+
+    @Test public void iso_04() {
+        // Colour refinement does not tell these apart : one ring of 6, two rings of 3.
+        Graph graph1 = ring(6, GraphFactory.createGraphMem()) ;
+        Graph graph2 = ring(3, ring(3, GraphFactory.createGraphMem())) ;
+        testIso(graph1, graph2, false) ;
+        testIso(graph1, relabel(graph1, 2), true) ;
+        testIso(graph2, relabel(graph2, 3), true) ;
+    }
+
+    @Test public void iso_05() {
+        // Many identical blank nodes.
+        Graph graph = GraphFactory.createGraphMem() ;
+        for ( int i = 0 ; i < 2000 ; i++ ) {
+            Node b = NodeFactory.createBlankNode() ;
+            graph.add(Triple.create(b, p, NodeFactory.createLiteral("x"))) ;
+            graph.add(Triple.create(b, q, NodeFactory.createLiteral("y"))) ;
+        }
+        Graph graph2 = relabel(graph, 4) ;
+        assertTrue(IsoCanonical.isomorphic(graph, graph2)) ;
+        assertEquals(IsoCanonical.hash(graph), IsoCanonical.hash(graph2)) ;
+    }
+
+    @Test public void iso_06() {
+        // Symmetric, needing search : a ring with spokes to blank nodes.
+        Graph graph = ring(12, GraphFactory.createGraphMem()) ;
+        for ( Triple t : graph.find().toList() ) {
+            Node b = NodeFactory.createBlankNode() ;
+            graph.add(Triple.create(t.getSubject(), q, b)) ;
+            graph.add(Triple.create(b, q, b)) ;
+        }
+        testIso(graph, relabel(graph, 5), true) ;
+        Graph graph2 = relabel(graph, 6) ;
+        graph2.add(Triple.create(NodeFactory.createBlankNode(), p, NodeFactory.createBlankNode())) ;
+        graph.add(Triple.create(NodeFactory.createBlankNode(), q, NodeFactory.createBlankNode())) ;
+        testIso(graph, graph2, false) ;
+    }
+
+    @Test public void iso_07() {
+        // Random graphs, with relabelling, and with a change.
+        Random random = new Random(1234) ;
+        for ( int i = 0 ; i < 50 ; i++ ) {
+            int N = 2+random.nextInt(20) ;
+            Node[] nodes = new Node[N] ;
+            for ( int j = 0 ; j < N ; j++ )
+                nodes[j] = random.nextInt(4) == 0 ? NodeFactory.createURI("http://example/n"+j) : NodeFactory.createBlankNode() ;
+            Graph graph = GraphFactory.createGraphMem() ;
+            int T = random.nextInt(40) ;
+            for ( int j = 0 ; j < T ; j++ )
+                graph.add(Triple.create(nodes[random.nextInt(N)], random.nextBoolean() ? p : q, nodes[random.nextInt(N)])) ;
+            Graph graph2 = relabel(graph, i) ;
+            testIso(graph, graph2, true) ;
+            List<Triple> triples = graph2.find().toList() ;
+            if ( triples.isEmpty() )
+                continue ;
+            Triple t = triples.get(random.nextInt(triples.size())) ;
+            graph2.delete(t) ;
+            graph2.add(Triple.create(t.getSubject(), t.getPredicate().equals(p) ? q : p, t.getObject())) ;
+            testIso(graph, graph2, graph.isIsomorphicWith(graph2)) ;
+        }
+    }
+
+    private static Graph star(int n, Graph graph) {
+        Node hub = NodeFactory.createBlankNode() ;
+        for ( int i = 0 ; i < n ; i++ ) {
+            Node leaf = NodeFactory.createBlankNode() ;
+            graph.add(Triple.create(hub, p, leaf)) ;
+            if ( i % 3 == 0 )
+                graph.add(Triple.create(leaf, q, NodeFactory.createLiteral("x"))) ;
+        }
+        return graph ;
+    }
+
+    @Test(timeout=20000)
+    public void iso_star_01() {
+        Graph graph = star(5000, GraphFactory.createGraphMem()) ;
+        Graph graph2 = relabel(graph, 3) ;
+        assertTrue(IsoCanonical.isomorphic(graph, graph2)) ;
+        assertEquals(IsoCanonical.hash(graph), IsoCanonical.hash(graph2)) ;
+        Graph graph3 = relabel(graph, 4) ;
+        Triple t = graph3.find(Node.ANY, q, Node.ANY).next() ;
+        graph3.delete(t) ;
+        graph3.add(Triple.create(t.getSubject(), q, NodeFactory.createLiteral("y"))) ;
+        assertFalse(IsoCanonical.isomorphic(graph, graph3)) ;
+    }
+
+    @Test public void iso_star_02() {
+        // Stars, and leaves joined to each other : not twins.
+        Graph graph = star(20, GraphFactory.createGraphMem()) ;
+        ring(6, graph) ;
+        graph.add(SSE.parseTriple("(_:x :p _:y)")) ;
+        graph.add(SSE.parseTriple("(_:y :p _:x)")) ;
+        testIso(graph, relabel(graph, 5), true) ;
+        Graph graph2 = star(20, GraphFactory.createGraphMem()) ;
+        ring(6, graph2) ;
+        graph2.add(SSE.parseTriple("(_:x :p _:y)")) ;
+        graph2.add(SSE.parseTriple("(_:y :p _:y)")) ;
+        testIso(graph, graph2, false) ;
+    }
+
+    @Test public void canonical_01() {
+        Graph graph = SSE.parseGraph("(graph (_:a :p _:b) (_:b :p 'x'@en) (:s :p _:a) (:s :q 'a\\nb'))") ;
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        IsoCanonical.write(out, graph) ;
+        String x = new String(out.toByteArray(), StandardCharsets.UTF_8) ;
+        Graph graph2 = GraphFactory.createGraphMem() ;
+        RDFParser.create().fromString(x).lang(Lang.NTRIPLES).parse(graph2) ;
+        assertTrue(x, graph.isIsomorphicWith(graph2)) ;
+        ByteArrayOutputStream out2 = new ByteArrayOutputStream() ;
+        IsoCanonical.write(out2, relabel(graph, 7)) ;
+        assertEquals(x, new String(out2.toByteArray(), StandardCharsets.UTF_8)) ;
+    }
+
+    @Test public void dataset_01() {
+        DatasetGraph dsg1 = SSE.parseDatasetGraph("(dataset (graph (_:a :p _:b)) (graph :g (_:b :p _:c)) (graph _:c (:s :p :o)))") ;
+        DatasetGraph dsg2 = SSE.parseDatasetGraph("(dataset (graph (_:x :p _:y)) (graph :g (_:y :p _:z)) (graph _:z (:s :p :o)))") ;
+        DatasetGraph dsg3 = SSE.parseDatasetGraph("(dataset (graph (_:x :p _:y)) (graph :g (_:y :p _:z)) (graph _:w (:s :p :o)))") ;
+        assertTrue(IsoCanonical.isomorphic(dsg1, dsg2)) ;
+        assertEquals(IsoCanonical.hash(dsg1), IsoCanonical.hash(dsg2)) ;
+        assertFalse(IsoCanonical.isomorphic(dsg1, dsg3)) ;
+        assertEquals(IsoCanonical.canonicalNQuads(dsg1), IsoCanonical.canonicalNQuads(dsg2)) ;
+
+        DatasetGraph dsg4 = DatasetGraphFactory.create() ;
+        RDFParser.create().fromString(String.join("\n", IsoCanonical.canonicalNQuads(dsg1))).lang(Lang.NQUADS).parse(dsg4) ;
+        assertTrue(IsoCanonical.isomorphic(dsg1, dsg4)) ;
+        assertTrue(dsg4.contains(Quad.defaultGraphIRI, Node.ANY, Node.ANY, Node.ANY)) ;
+    }
+}
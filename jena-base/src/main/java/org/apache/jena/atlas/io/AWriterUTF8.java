@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.atlas.io ;
+
+import java.io.IOException ;
+import java.io.OutputStream ;
+
+/**
+ * An {@link AWriter} that encodes characters as UTF-8 directly into a byte
+ * buffer, and writes the buffer to an {@code OutputStream} in large blocks.
+ * <p>
+ * Unlike {@link OutStreamUTF8}, this is standard UTF-8: surrogate pairs are
+ * encoded as one 4 byte sequence, NUL is a single byte and an unpaired
+ * surrogate is written as '?'. A surrogate pair may be printed as two separate
+ * characters. Pre-encoded bytes can be written with
+ * {@link #write(byte[])}.
+ * <p>
+ * There is no synchronization. This class is not thread safe.
+ */
+public final class AWriterUTF8 extends AWriterBase {
+    private static final int SIZE = 64 * 1024 ;
+
+    private final OutputStream out ;
+    private final byte[]       buffer ;
+    private int                idx = 0 ;
+    // Pending high surrogate of a pair.
+    private char               highSurrogate = 0 ;
+
+    public AWriterUTF8(OutputStream out) {
+        this(out, SIZE) ;
+    }
+
+    public AWriterUTF8(OutputStream out, int size) {
+        this.out = out ;
+        // Room for one whole encoded character.
+        this.buffer = new byte[Math.max(size, 8)] ;
+    }
+
+    /** Write bytes, which must be UTF-8 encoded text. */
+    public void write(byte[] bytes) {
+        write(bytes, 0, bytes.length) ;
+    }
+
+    /** Write bytes, which must be UTF-8 encoded text. */
+    public void write(byte[] bytes, int off, int len) {
+        unpaired() ;
+        if ( len > buffer.length - idx ) {
+            flushBuffer() ;
+            if ( len > buffer.length ) {
+                // Too big : write directly.
+                try { out.write(bytes, off, len) ; }
+                catch (IOException ex) { IO.exception(ex) ; }
+                return ;
+            }
+        }
+        System.arraycopy(bytes, off, buffer, idx, len) ;
+        idx += len ;
+    }
+
+    /** Write a single byte, which must be an ASCII character. */
+    public void writeASCII(int b) {
+        unpaired() ;
+        if ( idx == buffer.length )
+            flushBuffer() ;
+        buffer[idx++] = (byte)b ;
+    }
+
+    @Override
+    public void print(char ch) {
+        if ( highSurrogate != 0 ) {
+            char high = highSurrogate ;
+            highSurrogate = 0 ;
+            if ( Character.isLowSurrogate(ch) ) {
+                print(Character.toCodePoint(high, ch)) ;
+                return ;
+            }
+            writeASCII('?') ;
+        }
+        if ( Character.isHighSurrogate(ch) ) {
+            // Wait for the low surrogate.
+            highSurrogate = ch ;
+            return ;
+        }
+        if ( buffer.length - idx < 3 )
+            flushBuffer() ;
+        encode(ch) ;
+    }
+
+    @Override
+    public void print(char[] cbuf) {
+        for ( char ch : cbuf )
+            print(ch) ;
+    }
+
+    @Override
+    public void print(String string) {
+        print(string, 0, string.length()) ;
+    }
+
+    /** Print part of a string, from {@code start} (inclusive) to {@code end} (exclusive). */
+    public void print(CharSequence string, int start, int end) {
+        for ( int i = start ; i < end ; i++ ) {
+            char ch = string.charAt(i) ;
+            if ( ch < 0x80 && highSurrogate == 0 ) {
+                if ( idx == buffer.length )
+                    flushBuffer() ;
+                buffer[idx++] = (byte)ch ;
+                continue ;
+            }
+            print(ch) ;
+        }
+    }
+
+    // A high surrogate with no low surrogate following.
+    private void unpaired() {
+        if ( highSurrogate != 0 ) {
+            highSurrogate = 0 ;
+            writeASCII('?') ;
+        }
+    }
+
+    // A code point outside the BMP : 4 bytes.
+    private void print(int codePoint) {
+        if ( buffer.length - idx < 4 )
+            flushBuffer() ;
+        buffer[idx++] = (byte)(0xF0 | (codePoint >> 18)) ;
+        buffer[idx++] = (byte)(0x80 | ((codePoint >> 12) & 0x3F)) ;
+        buffer[idx++] = (byte)(0x80 | ((codePoint >> 6) & 0x3F)) ;
+        buffer[idx++] = (byte)(0x80 | (codePoint & 0x3F)) ;
+    }
+
+    // Encode one char, not a high surrogate; there is space for 3 bytes.
+    private void encode(char ch) {
+        if ( ch < 0x80 ) {
+            buffer[idx++] = (byte)ch ;
+        } else if ( ch < 0x800 ) {
+            buffer[idx++] = (byte)(0xC0 | (ch >> 6)) ;
+            buffer[idx++] = (byte)(0x80 | (ch & 0x3F)) ;
+        } else if ( Character.isSurrogate(ch) ) {
+            // Unpaired low surrogate.
+            buffer[idx++] = (byte)'?' ;
+        } else {
+            buffer[idx++] = (byte)(0xE0 | (ch >> 12)) ;
+            buffer[idx++] = (byte)(0x80 | ((ch >> 6) & 0x3F)) ;
+            buffer[idx++] = (byte)(0x80 | (ch & 0x3F)) ;
+        }
+    }
+
+    @Override
+    public void printf(String fmt, Object... args) {
+        print(String.format(fmt, args)) ;
+    }
+
+    @Override
+    public void println(String string) {
+        print(string) ;
+        println() ;
+    }
+
+    @Override
+    public void println() {
+        writeASCII('\n') ;
+    }
+
+    private void flushBuffer() {
+        if ( idx > 0 ) {
+            try { out.write(buffer, 0, idx) ; }
+            catch (IOException ex) { IO.exception(ex) ; }
+            idx = 0 ;
+        }
+    }
+
+    @Override
+    public void flush() {
+        unpaired() ;
+        flushBuffer() ;
+        IO.flush(out) ;
+    }
+
+    @Override
+    public void close() {
+        unpaired() ;
+        flushBuffer() ;
+        IO.close(out) ;
+    }
+}
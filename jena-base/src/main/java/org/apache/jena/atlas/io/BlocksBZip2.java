@@ -0,0 +1,356 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.atlas.io ;
+
+import java.io.* ;
+import java.util.Arrays ;
+import java.util.concurrent.CompletableFuture ;
+import java.util.concurrent.ExecutionException ;
+import java.util.concurrent.ExecutorService ;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream ;
+
+/**
+ * The blocks of a bzip2 stream.
+ * <p>
+ * The compressed blocks of a bzip2 stream are independent. Each starts with
+ * a 48 bit magic number, which is not aligned to a byte, and the stream ends
+ * with another magic number and the CRC of the whole stream. The input is
+ * scanned for these numbers, and each block is copied into a stream of its
+ * own ("BZh", the block, the end marker, the CRC of the single block) which
+ * is decompressed by {@link BZip2CompressorInputStream} on the executor. Each
+ * block still has its own CRC check. Concatenated streams, as written by
+ * parallel bzip2 compressors, are all read.
+ * <p>
+ * The magic numbers can occur by chance inside compressed data. A block that
+ * then fails to decompress is tried again joined with the block after it.
+ */
+/*package*/ class BlocksBZip2 implements InputStreamAsync.BlockSource
+{
+    private static final long BLOCK_MAGIC = 0x314159265359L ;
+    private static final long EOS_MAGIC   = 0x177245385090L ;
+    private static final long MASK48      = (1L << 48) - 1 ;
+    private static final byte[] EMPTY     = new byte[0] ;
+
+    /** A compressed block, as the bytes that contain it, and where it is in those bytes. */
+    private static class Segment {
+        final byte[] data ;
+        final int startBit ;
+        final long endBit ;
+        final int level ;
+        final int crc ;
+        final CompletableFuture<Segment> successor = new CompletableFuture<>() ;
+        // Decompressed as part of the segment before.
+        boolean joined = false ;
+
+        Segment(byte[] data, int startBit, long endBit, int level) {
+            this.data = data ;
+            this.startBit = startBit ;
+            this.endBit = endBit ;
+            this.level = level ;
+            // After the magic number.
+            this.crc = (int)readBits(data, startBit + 48, 32) ;
+        }
+    }
+
+    private final InputStream input ;
+    private final byte[] chunk = new byte[64 * 1024] ;
+    private int chunkIdx = 0 ;
+    private int chunkLen = 0 ;
+    private boolean eof = false ;
+
+    // Scanner.
+    private long bits = 0 ;         // The last 64 bits read.
+    private long bitPos = 0 ;       // Number of bits read.
+    private int level = -1 ;        // Block size of the current stream, 1 to 9.
+    private long headerAt = 0 ;     // Where a stream header ("BZh1" to "BZh9") may be.
+
+    // The segment being collected, from a block magic number to the next one.
+    private byte[] seg = new byte[1024 * 1024] ;
+    private int segLen = 0 ;
+    private long segByte0 = 0 ;     // Input offset of seg[0].
+    private long segStart = -1 ;    // Bit offset of the block magic number, or -1 for none.
+    private long segEnd = -1 ;      // Bit offset of the end of stream marker, or -1.
+    private int segLevel = -1 ;
+    private Segment finished = null ;
+    private Segment previous = null ;
+
+    BlocksBZip2(InputStream in) {
+        this.input = new BufferedInputStream(in, 128 * 1024) ;
+    }
+
+    @Override
+    public InputStreamAsync.Block next(ExecutorService executor) throws IOException {
+        try {
+            return next$(executor) ;
+        } catch (IOException | RuntimeException ex) {
+            noSuccessor() ;
+            throw ex ;
+        }
+    }
+
+    private InputStreamAsync.Block next$(ExecutorService executor) throws IOException {
+        while ( finished == null ) {
+            if ( chunkIdx >= chunkLen ) {
+                if ( eof || ! fill() )
+                    return atEnd(executor) ;
+            }
+            scan(chunk[chunkIdx++] & 0xFF) ;
+        }
+        Segment segment = finished ;
+        finished = null ;
+        if ( previous != null )
+            previous.successor.complete(segment) ;
+        previous = segment ;
+        return block(executor, segment) ;
+    }
+
+    private boolean fill() throws IOException {
+        int x = input.read(chunk) ;
+        if ( x < 0 ) {
+            eof = true ;
+            return false ;
+        }
+        chunkIdx = 0 ;
+        chunkLen = x ;
+        return true ;
+    }
+
+    private InputStreamAsync.Block atEnd(ExecutorService executor) throws IOException {
+        if ( level < 0 )
+            throw new IOException("Stream is not in the BZip2 format") ;
+        if ( segStart >= 0 ) {
+            if ( segEnd < 0 )
+                throw new EOFException("Unexpected end of bzip2 stream") ;
+            // Last block.
+            finish(Long.MAX_VALUE) ;
+            segStart = -1 ;
+            return next$(executor) ;
+        }
+        noSuccessor() ;
+        return null ;
+    }
+
+    private void noSuccessor() {
+        if ( previous != null ) {
+            previous.successor.complete(null) ;
+            previous = null ;
+        }
+    }
+
+    private void scan(int b) throws IOException {
+        append(b) ;
+        bits = (bits << 8) | b ;
+        bitPos += 8 ;
+        if ( bitPos == headerAt + 32 )
+            header() ;
+        if ( bitPos < 48 )
+            return ;
+        // Each bit position at which a magic number may end.
+        for ( int k = 7 ; k >= 0 ; k-- ) {
+            long v = (bits >>> k) & MASK48 ;
+            if ( v == BLOCK_MAGIC )
+                blockMagic(bitPos - k - 48) ;
+            else if ( v == EOS_MAGIC )
+                endOfStream(bitPos - k - 48) ;
+        }
+    }
+
+    private void header() throws IOException {
+        int h = (int)bits ;
+        int digit = h & 0xFF ;
+        if ( (h >>> 8) == ('B' << 16 | 'Z' << 8 | 'h') && digit >= '1' && digit <= '9' )
+            level = digit - '0' ;
+        else if ( level < 0 )
+            throw new IOException("Stream is not in the BZip2 format") ;
+    }
+
+    private void blockMagic(long start) {
+        if ( level < 0 )
+            return ;
+        if ( segStart >= 0 ) {
+            if ( start < segStart + 48 )
+                return ;
+            finish(start) ;
+        }
+        // The new segment starts in the byte containing the magic number.
+        int from = (int)((start >>> 3) - segByte0) ;
+        byte[] seg2 = new byte[Math.max(seg.length, 1024)] ;
+        System.arraycopy(seg, from, seg2, 0, segLen - from) ;
+        seg = seg2 ;
+        segLen = segLen - from ;
+        segByte0 = start >>> 3 ;
+        segStart = start ;
+        segEnd = -1 ;
+        segLevel = level ;
+    }
+
+    private void endOfStream(long start) {
+        if ( segStart >= 0 && start >= segStart + 48 )
+            segEnd = start ;
+        // End marker, CRC, then padding to a byte.
+        headerAt = ((start + 48 + 32 + 7) >>> 3) << 3 ;
+    }
+
+    // The current segment is complete. Its bytes run up to the byte containing
+    // nextStart, so that it can be joined to the segment after it.
+    private void finish(long nextStart) {
+        long end = ( segEnd >= 0 ) ? segEnd : nextStart ;
+        int len = ( nextStart == Long.MAX_VALUE ) ? segLen : (int)((nextStart >>> 3) - segByte0 + 1) ;
+        finished = new Segment(Arrays.copyOf(seg, len), (int)(segStart - 8 * segByte0), end - 8 * segByte0, segLevel) ;
+    }
+
+    private void append(int b) {
+        if ( segStart < 0 && segLen >= 64 ) {
+            // No segment : keep only the recent bytes.
+            System.arraycopy(seg, segLen - 16, seg, 0, 16) ;
+            segByte0 += segLen - 16 ;
+            segLen = 16 ;
+        }
+        if ( segLen == seg.length )
+            seg = Arrays.copyOf(seg, 2 * seg.length) ;
+        seg[segLen++] = (byte)b ;
+    }
+
+    private static InputStreamAsync.Block block(ExecutorService executor, Segment segment) {
+        InputStreamAsync.Block decoded = InputStreamAsync.submit(executor, () -> decode(segment, segment.crc)) ;
+        return () -> {
+            if ( segment.joined )
+                return EMPTY ;
+            try {
+                return decoded.bytes() ;
+            } catch (IOException ex) {
+                Segment next ;
+                try {
+                    next = segment.successor.get() ;
+                } catch (ExecutionException ex2) {
+                    throw ex ;
+                }
+                if ( next == null )
+                    throw ex ;
+                // A false magic number inside the block : one block.
+                // A false end of stream inside the block : two blocks.
+                Segment joined = join(segment, next) ;
+                int[] crcs = { segment.crc, Integer.rotateLeft(segment.crc, 1) ^ next.crc } ;
+                for ( int crc : crcs ) {
+                    try {
+                        byte[] bytes = decode(joined, crc) ;
+                        next.joined = true ;
+                        return bytes ;
+                    } catch (IOException ex2) {}
+                }
+                throw ex ;
+            }
+        } ;
+    }
+
+    // The last byte of seg1 is the first byte of seg2.
+    private static Segment join(Segment seg1, Segment seg2) {
+        int len1 = seg1.data.length - 1 ;
+        byte[] data = Arrays.copyOf(seg1.data, len1 + seg2.data.length) ;
+        System.arraycopy(seg2.data, 0, data, len1, seg2.data.length) ;
+        return new Segment(data, seg1.startBit, 8L * len1 + seg2.endBit, seg1.level) ;
+    }
+
+    /** Decompress a segment as a stream of its own. */
+    private static byte[] decode(Segment segment, int crc) throws IOException {
+        BitWriter w = new BitWriter(segment.data.length + 16) ;
+        w.write(8, 'B') ;
+        w.write(8, 'Z') ;
+        w.write(8, 'h') ;
+        w.write(8, '0' + segment.level) ;
+        w.copy(segment.data, segment.startBit, segment.endBit) ;
+        w.write(24, EOS_MAGIC >>> 24) ;
+        w.write(24, EOS_MAGIC) ;
+        w.write(32, crc) ;
+        byte[] bytes = w.finish() ;
+        try ( InputStream in = new BZip2CompressorInputStream(new ByteArrayInputStream(bytes)) ) {
+            byte[] output = new byte[segment.level * 100_000 + 1024] ;
+            int n = 0 ;
+            for (;;) {
+                if ( n == output.length )
+                    output = Arrays.copyOf(output, 2 * output.length) ;
+                int x = in.read(output, n, output.length - n) ;
+                if ( x < 0 )
+                    break ;
+                n += x ;
+            }
+            return ( n == output.length ) ? output : Arrays.copyOf(output, n) ;
+        } catch (RuntimeException ex) {
+            // Bad data can fail inside the decompressor.
+            throw new IOException("Bad bzip2 block", ex) ;
+        }
+    }
+
+    private static long readBits(byte[] data, long posn, int n) {
+        long v = 0 ;
+        for ( int i = 0 ; i < n ; i++ )
+            v = (v << 1) | bit(data, posn + i) ;
+        return v ;
+    }
+
+    private static int bit(byte[] data, long posn) {
+        return (data[(int)(posn >>> 3)] >> (7 - (int)(posn & 7))) & 1 ;
+    }
+
+    private static class BitWriter {
+        private byte[] buffer ;
+        private int len = 0 ;
+        private long acc = 0 ;
+        private int n = 0 ;
+
+        BitWriter(int size) {
+            buffer = new byte[size] ;
+        }
+
+        // Up to 32 bits.
+        void write(int nBits, long value) {
+            acc = (acc << nBits) | (value & ((1L << nBits) - 1)) ;
+            n += nBits ;
+            while ( n >= 8 ) {
+                if ( len == buffer.length )
+                    buffer = Arrays.copyOf(buffer, 2 * buffer.length) ;
+                buffer[len++] = (byte)(acc >>> (n - 8)) ;
+                n -= 8 ;
+            }
+        }
+
+        void copy(byte[] data, long from, long to) {
+            long p = from ;
+            for ( ; p < to && (p & 7) != 0 ; p++ )
+                write(1, bit(data, p)) ;
+            for ( ; p + 8 <= to ; p += 8 )
+                write(8, data[(int)(p >>> 3)]) ;
+            for ( ; p < to ; p++ )
+                write(1, bit(data, p)) ;
+        }
+
+        byte[] finish() {
+            if ( n > 0 )
+                write(8 - n, 0) ;
+            return Arrays.copyOf(buffer, len) ;
+        }
+    }
+
+    @Override
+    public void close() {
+        noSuccessor() ;
+        IO.close(input) ;
+    }
+}
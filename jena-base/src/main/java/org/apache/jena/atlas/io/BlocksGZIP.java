@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.atlas.io ;
+
+import java.io.* ;
+import java.util.ArrayList ;
+import java.util.List ;
+import java.util.concurrent.ExecutorService ;
+import java.util.zip.* ;
+
+/**
+ * The blocks of a gzip stream.
+ * <p>
+ * A BGZF file ("bgzip", RFC 1952 with the block size in an extra header field)
+ * is a series of gzip members of at most 64K each. The size in the header
+ * means the members can be found without decompressing them, so groups of
+ * members are decompressed in parallel.
+ * <p>
+ * Other gzip data has no such size, and the end of a member is only found by
+ * decompressing it. From the first member that is not BGZF onwards, the stream
+ * is decompressed by a {@link GZIPInputStream} on the reader thread.
+ */
+/*package*/ class BlocksGZIP implements InputStreamAsync.BlockSource
+{
+    // Decompressed size for one task.
+    private static final int GROUP_SIZE = 1024 * 1024 ;
+    private static final int BGZF_MAX = 64 * 1024 ;
+
+    private final DataInputStream input ;
+    private InputStream sequential = null ;
+    private boolean started = false ;
+
+    BlocksGZIP(InputStream in) {
+        this.input = new DataInputStream(new BufferedInputStream(in, 128 * 1024)) ;
+    }
+
+    @Override
+    public InputStreamAsync.Block next(ExecutorService executor) throws IOException {
+        if ( sequential != null ) {
+            byte[] bytes = InputStreamAsync.readBlock(sequential) ;
+            return ( bytes == null ) ? null : InputStreamAsync.block(bytes) ;
+        }
+        List<byte[]> members = new ArrayList<>() ;
+        int size = 0 ;
+        while ( size < GROUP_SIZE ) {
+            byte[] member = readMember() ;
+            if ( member == null )
+                break ;
+            members.add(member) ;
+            size += isize(member) ;
+        }
+        if ( members.isEmpty() )
+            return ( sequential == null ) ? null : next(executor) ;
+        int total = size ;
+        return InputStreamAsync.submit(executor, () -> inflate(members, total)) ;
+    }
+
+    /**
+     * Read a BGZF member. Returns null at the end of the input or, for a member
+     * that is not BGZF, after switching to sequential decompression.
+     */
+    private byte[] readMember() throws IOException {
+        if ( sequential != null )
+            return null ;
+        ByteArrayOutputStream header = new ByteArrayOutputStream(32) ;
+        int bsize = readHeader(header) ;
+        boolean first = ! started ;
+        started = true ;
+        if ( bsize < 0 ) {
+            // An empty input is an error, as for GZIPInputStream.
+            if ( header.size() > 0 || first ) {
+                // Not BGZF : decompress as gzip from here on.
+                InputStream rest = new SequenceInputStream(new ByteArrayInputStream(header.toByteArray()), input) ;
+                sequential = new GZIPInputStream(rest, 64 * 1024) ;
+            }
+            return null ;
+        }
+        int hlen = header.size() ;
+        if ( bsize < hlen + 8 )
+            throw new ZipException("Bad BGZF block size") ;
+        byte[] member = new byte[bsize] ;
+        System.arraycopy(header.toByteArray(), 0, member, 0, hlen) ;
+        try {
+            input.readFully(member, hlen, bsize - hlen) ;
+        } catch (EOFException ex) {
+            throw new EOFException("Unexpected end of gzip input stream") ;
+        }
+        if ( isize(member) > BGZF_MAX )
+            throw new ZipException("Bad BGZF uncompressed size") ;
+        return member ;
+    }
+
+    /**
+     * Read a member header into {@code header}, returning the BGZF block size,
+     * or -1 if this is not a BGZF header or at the end of the input.
+     */
+    private int readHeader(ByteArrayOutputStream header) throws IOException {
+        // ID1 ID2 CM FLG MTIME(4) XFL OS XLEN(2)
+        for ( int i = 0 ; i < 12 ; i++ ) {
+            int b = input.read() ;
+            if ( b < 0 )
+                return -1 ;
+            header.write(b) ;
+        }
+        byte[] h = header.toByteArray() ;
+        // FLG is exactly FEXTRA.
+        if ( (h[0] & 0xFF) != 0x1F || (h[1] & 0xFF) != 0x8B || h[2] != 8 || h[3] != 4 )
+            return -1 ;
+        int xlen = u16(h, 10) ;
+        byte[] extra = new byte[xlen] ;
+        int n = 0 ;
+        while ( n < xlen ) {
+            int x = input.read(extra, n, xlen - n) ;
+            if ( x < 0 )
+                break ;
+            n += x ;
+        }
+        header.write(extra, 0, n) ;
+        if ( n < xlen )
+            return -1 ;
+        // Subfields : SI1 SI2 SLEN(2) data
+        for ( int i = 0 ; i + 4 <= xlen ; ) {
+            int slen = u16(extra, i + 2) ;
+            if ( extra[i] == 'B' && extra[i + 1] == 'C' && slen == 2 && i + 6 <= xlen )
+                return u16(extra, i + 4) + 1 ;
+            i += 4 + slen ;
+        }
+        return -1 ;
+    }
+
+    private static int u16(byte[] bytes, int i) {
+        return (bytes[i] & 0xFF) | (bytes[i + 1] & 0xFF) << 8 ;
+    }
+
+    private static int u32(byte[] bytes, int i) {
+        return u16(bytes, i) | u16(bytes, i + 2) << 16 ;
+    }
+
+    // Uncompressed size, from the trailer.
+    private static int isize(byte[] member) {
+        return u32(member, member.length - 4) ;
+    }
+
+    private static byte[] inflate(List<byte[]> members, int size) throws IOException {
+        byte[] output = new byte[size] ;
+        int posn = 0 ;
+        Inflater inflater = new Inflater(true) ;
+        CRC32 crc = new CRC32() ;
+        try {
+            for ( byte[] member : members ) {
+                int hlen = 12 + u16(member, 10) ;
+                int isize = isize(member) ;
+                inflater.reset() ;
+                inflater.setInput(member, hlen, member.length - hlen - 8) ;
+                int n = 0 ;
+                try {
+                    while ( n < isize && ! inflater.finished() ) {
+                        int x = inflater.inflate(output, posn + n, isize - n) ;
+                        if ( x == 0 && ( inflater.needsInput() || inflater.needsDictionary() ) )
+                            break ;
+                        n += x ;
+                    }
+                    // Reach the end of the deflate data; there must be no more output.
+                    if ( ! inflater.finished() && inflater.inflate(new byte[1]) > 0 )
+                        throw new ZipException("Corrupt GZIP trailer") ;
+                } catch (DataFormatException ex) {
+                    throw new ZipException(ex.getMessage()) ;
+                }
+                if ( ! inflater.finished() || n != isize )
+                    throw new ZipException("Corrupt GZIP trailer") ;
+                crc.reset() ;
+                crc.update(output, posn, n) ;
+                if ( (int)crc.getValue() != u32(member, member.length - 8) )
+                    throw new ZipException("Corrupt GZIP trailer") ;
+                posn += n ;
+            }
+        } finally {
+            inflater.end() ;
+        }
+        return output ;
+    }
+
+    @Override
+    public void close() {
+        IO.close(input) ;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.atlas.io ;
+
+import static org.apache.jena.atlas.io.IO.EOF ;
+
+import java.io.IOException ;
+import java.io.InputStream ;
+import java.nio.charset.MalformedInputException ;
+import java.nio.charset.StandardCharsets ;
+
+/**
+ * A {@link CharStream} that decodes UTF-8 directly from a large byte buffer.
+ * <p>
+ * An ASCII character is one test on the byte. Characters outside the BMP are
+ * returned as a surrogate pair. Bad UTF-8 is an exception with a
+ * {@link MalformedInputException} as the cause.
+ * <p>
+ * A run of ASCII characters can be read as a string, made once from the
+ * bytes - see {@link PeekReader#readASCII}.
+ */
+public final class CharStreamUTF8 extends CharStreamReader
+{
+    /*package*/ static final int DFT_SIZE = 128 * 1024 ;
+
+    private final InputStream input ;
+    private byte[] buffer ;
+    private int idx = 0 ;
+    private int limit = 0 ;
+    private boolean eof = false ;
+    // Second half of a surrogate pair.
+    private char lowSurrogate = 0 ;
+
+    public CharStreamUTF8(InputStream in) {
+        this(in, DFT_SIZE) ;
+    }
+
+    public CharStreamUTF8(InputStream in, int size) {
+        this.input = in ;
+        this.buffer = new byte[Math.max(size, 8)] ;
+    }
+
+    @Override
+    public int advance() {
+        if ( lowSurrogate != 0 ) {
+            char ch = lowSurrogate ;
+            lowSurrogate = 0 ;
+            return ch ;
+        }
+        if ( idx >= limit && ! fill(idx) )
+            return EOF ;
+        int b = buffer[idx] ;
+        if ( b >= 0 ) {
+            idx++ ;
+            return b ;
+        }
+        return decode(b & 0xFF) ;
+    }
+
+    /*
+     * Unicode                                  Byte1       Byte2       Byte3       Byte4
+     * U+0000–U+007F    0 to 127                0xxxxxxx
+     * U+0080–U+07FF    128 to 2,047            110yyyxx    10xxxxxx
+     * U+0800–U+FFFF    2,048 to 65,535         1110yyyy    10yyyyxx    10xxxxxx
+     * U+10000–U+10FFFF 65,536 to 1,114,111     11110zzz    10zzyyyy    10yyyyxx    10xxxxxx
+     *
+     * Overlong encodings, surrogates and code points above U+10FFFF are errors (RFC 3629).
+     */
+    private int decode(int b) {
+        int len ;
+        int cp ;
+        int min ;
+        if ( b >= 0xC2 && b <= 0xDF ) {
+            len = 2 ; cp = b & 0x1F ; min = 0x80 ;
+        } else if ( b >= 0xE0 && b <= 0xEF ) {
+            len = 3 ; cp = b & 0x0F ; min = 0x800 ;
+        } else if ( b >= 0xF0 && b <= 0xF4 ) {
+            len = 4 ; cp = b & 0x07 ; min = 0x10000 ;
+        } else {
+            malformed(1) ;
+            return EOF ;
+        }
+
+        while ( limit - idx < len ) {
+            if ( ! fill(idx) ) {
+                // Truncated at the end of the input.
+                malformed(limit - idx) ;
+                return EOF ;
+            }
+        }
+
+        for ( int i = 1 ; i < len ; i++ ) {
+            int b2 = buffer[idx + i] ;
+            if ( (b2 & 0xC0) != 0x80 ) {
+                malformed(i) ;
+                return EOF ;
+            }
+            cp = (cp << 6) | (b2 & 0x3F) ;
+        }
+        if ( cp < min || cp > Character.MAX_CODE_POINT || ( cp >= 0xD800 && cp <= 0xDFFF ) ) {
+            malformed(len) ;
+            return EOF ;
+        }
+        idx += len ;
+        if ( cp >= Character.MIN_SUPPLEMENTARY_CODE_POINT ) {
+            lowSurrogate = Character.lowSurrogate(cp) ;
+            return Character.highSurrogate(cp) ;
+        }
+        return cp ;
+    }
+
+    /**
+     * Read the ASCII characters, starting with the last character returned by
+     * {@link #advance}, for as long as {@code chars[ch]} is true. That last
+     * character must have been an ASCII character.
+     */
+    /*package*/ String readASCII(boolean[] chars) {
+        int start = idx - 1 ;
+        int i = idx ;
+        for (;;) {
+            final byte[] bytes = buffer ;
+            final int end = limit ;
+            while ( i < end ) {
+                int b = bytes[i] ;
+                if ( b < 0 || ! chars[b] )
+                    break ;
+                i++ ;
+            }
+            if ( i < end )
+                break ;
+            // End of the buffer : keep the run so far and read more.
+            idx = i ;
+            boolean more = fill(start) ;
+            i = idx ;
+            start = 0 ;
+            if ( ! more )
+                break ;
+        }
+        String string = new String(buffer, start, i - start, StandardCharsets.ISO_8859_1) ;
+        idx = i ;
+        return string ;
+    }
+
+    // Move the bytes from start onwards to the front of the buffer, growing the
+    // buffer if it is full, then read more bytes. Returns false at end of file.
+    private boolean fill(int start) {
+        int n = limit - start ;
+        if ( start > 0 )
+            System.arraycopy(buffer, start, buffer, 0, n) ;
+        else if ( n == buffer.length ) {
+            byte[] buffer2 = new byte[2 * buffer.length] ;
+            System.arraycopy(buffer, 0, buffer2, 0, n) ;
+            buffer = buffer2 ;
+        }
+        idx -= start ;
+        limit = n ;
+        if ( eof )
+            return false ;
+        try {
+            int x = input.read(buffer, limit, buffer.length - limit) ;
+            if ( x < 0 ) {
+                eof = true ;
+                return false ;
+            }
+            limit += x ;
+            return true ;
+        } catch (IOException ex) {
+            IO.exception(ex) ;
+            return false ;
+        }
+    }
+
+    private void malformed(int length) {
+        IO.exception(new MalformedInputException(length)) ;
+    }
+
+    @Override
+    public void closeStream() {
+        IO.close(input) ;
+    }
+}
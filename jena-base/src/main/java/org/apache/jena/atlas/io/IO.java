@@ -78,6 +78,19 @@ public class IO
      * @throws IOException
      */
     static public InputStream openFileEx(String filename) throws IOException, FileNotFoundException {
+        return openFile$(filename, false) ;
+    }
+
+    /** Open an input stream to a file as {@link #openFileEx} does, except that
+     * ".gz" and ".bz2" files are decompressed by other threads, and in parallel
+     * for bzip2 and BGZF files (see {@link InputStreamAsync}).
+     * The stream must be closed to release those threads.
+     */
+    static public InputStream openFileExAsync(String filename) throws IOException, FileNotFoundException {
+        return openFile$(filename, true) ;
+    }
+
+    private static InputStream openFile$(String filename, boolean async) throws IOException, FileNotFoundException {
         if ( filename == null || filename.equals("-") )
             return System.in ;
         if ( filename.startsWith("file:") )
@@ -87,6 +100,12 @@ public class IO
         }
         InputStream in = new FileInputStream(filename) ;
         String ext = FilenameUtils.getExtension(filename);
+        if ( async ) {
+            switch ( ext ) {
+                case "gz":      return InputStreamAsync.gzip(in, InputStreamAsync.dftThreads()) ;
+                case "bz2":     return InputStreamAsync.bzip2(in, InputStreamAsync.dftThreads()) ;
+            }
+        }
         switch ( ext ) {
             case "":        return in;
             case "gz":      return new GZIPInputStream(in) ;
@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.atlas.io ;
+
+import java.io.IOException ;
+import java.io.InputStream ;
+import java.io.InterruptedIOException ;
+import java.util.concurrent.* ;
+
+import org.apache.jena.atlas.RuntimeIOException ;
+
+/**
+ * An {@code InputStream} whose bytes are produced by other threads: one thread
+ * reads the underlying input and splits it into blocks, and the blocks are
+ * turned into bytes, in parallel where the format allows, then returned in
+ * order. Used to take decompression off the thread that is parsing.
+ * <ul>
+ * <li>{@link #readAhead} : read ahead on another thread.
+ * <li>{@link #gzip} : gzip; BGZF ("bgzip") files are decompressed in parallel.
+ * <li>{@link #bzip2} : bzip2; the blocks of the file are decompressed in parallel.
+ * </ul>
+ * The number of blocks waiting to be read is limited. The stream must be
+ * closed to release the threads if it is not read to the end.
+ */
+public final class InputStreamAsync extends InputStream
+{
+    /** Produces the blocks of output, in order; called on the reader thread. */
+    /*package*/ interface BlockSource {
+        /** The next block of output, or null at the end. */
+        Block next(ExecutorService executor) throws IOException ;
+        void close() ;
+    }
+
+    /** A block of output, which may still be being worked on. */
+    /*package*/ interface Block {
+        /** The bytes; called on the thread reading the stream. */
+        byte[] bytes() throws IOException, InterruptedException ;
+    }
+
+    /*package*/ static Block block(byte[] bytes) {
+        return () -> bytes ;
+    }
+
+    /** A block made by a task on the executor. */
+    /*package*/ static Block submit(ExecutorService executor, Callable<byte[]> task) {
+        Future<byte[]> future = executor.submit(task) ;
+        return () -> {
+            try {
+                return future.get() ;
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause() ;
+                if ( cause instanceof IOException )
+                    throw (IOException)cause ;
+                if ( cause instanceof RuntimeException )
+                    throw (RuntimeException)cause ;
+                if ( cause instanceof Error )
+                    throw (Error)cause ;
+                throw new RuntimeIOException(cause) ;
+            }
+        } ;
+    }
+
+    /** Size of the blocks read from the input when it is not split by format. */
+    /*package*/ static final int BLOCK_SIZE = 1024 * 1024 ;
+
+    private static final Block END = block(null) ;
+
+    /** Read ahead from an input stream on another thread. */
+    public static InputStream readAhead(InputStream in) {
+        return new InputStreamAsync(new BlocksInputStream(in), 0) ;
+    }
+
+    /** Decompress a gzip stream, using up to {@code threads} threads for BGZF blocks. */
+    public static InputStream gzip(InputStream in, int threads) {
+        return new InputStreamAsync(new BlocksGZIP(in), Math.max(1, threads)) ;
+    }
+
+    /** Decompress a bzip2 stream, using up to {@code threads} threads. */
+    public static InputStream bzip2(InputStream in, int threads) {
+        return new InputStreamAsync(new BlocksBZip2(in), Math.max(1, threads)) ;
+    }
+
+    /** A number of threads for decompression : the number of processors, up to 8. */
+    public static int dftThreads() {
+        return Math.min(8, Runtime.getRuntime().availableProcessors()) ;
+    }
+
+    private final BlockSource source ;
+    private final ExecutorService executor ;
+    private final BlockingQueue<Block> queue ;
+    private final Thread reader ;
+    private volatile boolean closed = false ;
+
+    private byte[] block = null ;
+    private int idx = 0 ;
+    private boolean finished = false ;
+
+    private InputStreamAsync(BlockSource source, int threads) {
+        this.source = source ;
+        this.executor = ( threads > 0 ) ? Executors.newFixedThreadPool(threads, r -> daemon(r, "InputStreamAsync-worker")) : null ;
+        this.queue = new ArrayBlockingQueue<>(Math.max(2, 2 * threads)) ;
+        this.reader = daemon(this::readBlocks, "InputStreamAsync-reader") ;
+        this.reader.start() ;
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread thread = new Thread(r, name) ;
+        thread.setDaemon(true) ;
+        return thread ;
+    }
+
+    // The reader thread.
+    private void readBlocks() {
+        try {
+            for (;;) {
+                Block f ;
+                try {
+                    f = source.next(executor) ;
+                } catch (IOException | RuntimeException ex) {
+                    queue.put(() -> { throw ex ; }) ;
+                    return ;
+                }
+                if ( f == null ) {
+                    queue.put(END) ;
+                    return ;
+                }
+                queue.put(f) ;
+            }
+        } catch (InterruptedException ex) {
+            // Closed.
+        } finally {
+            source.close() ;
+        }
+    }
+
+    // Make sure there is a block with unread bytes. Returns false at the end.
+    private boolean fill() throws IOException {
+        while ( block == null || idx >= block.length ) {
+            if ( finished )
+                return false ;
+            if ( closed )
+                throw new IOException("Stream closed") ;
+            try {
+                block = queue.take().bytes() ;
+            } catch (InterruptedException ex) {
+                throw new InterruptedIOException() ;
+            } catch (IOException | RuntimeException ex) {
+                finished = true ;
+                stop() ;
+                throw ex ;
+            }
+            idx = 0 ;
+            if ( block == null ) {
+                finished = true ;
+                stop() ;
+                return false ;
+            }
+        }
+        return true ;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if ( ! fill() )
+            return -1 ;
+        return block[idx++] & 0xFF ;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if ( len == 0 )
+            return 0 ;
+        if ( ! fill() )
+            return -1 ;
+        int n = Math.min(len, block.length - idx) ;
+        System.arraycopy(block, idx, b, off, n) ;
+        idx += n ;
+        return n ;
+    }
+
+    @Override
+    public int available() {
+        return ( block == null ) ? 0 : block.length - idx ;
+    }
+
+    @Override
+    public void close() {
+        if ( closed )
+            return ;
+        closed = true ;
+        stop() ;
+        block = null ;
+    }
+
+    private void stop() {
+        reader.interrupt() ;
+        if ( executor != null )
+            executor.shutdownNow() ;
+    }
+
+    /** Blocks read from an input stream, as they are. */
+    private static class BlocksInputStream implements BlockSource {
+        private final InputStream input ;
+
+        BlocksInputStream(InputStream input) {
+            this.input = input ;
+        }
+
+        @Override
+        public Block next(ExecutorService executor) throws IOException {
+            byte[] bytes = readBlock(input) ;
+            return ( bytes == null ) ? null : block(bytes) ;
+        }
+
+        @Override
+        public void close() {
+            IO.close(input) ;
+        }
+    }
+
+    /** Read up to {@link #BLOCK_SIZE} bytes; null at the end of the input. */
+    /*package*/ static byte[] readBlock(InputStream input) throws IOException {
+        byte[] bytes = new byte[BLOCK_SIZE] ;
+        int n = 0 ;
+        while ( n < bytes.length ) {
+            int x = input.read(bytes, n, bytes.length - n) ;
+            if ( x < 0 )
+                break ;
+            n += x ;
+        }
+        if ( n == 0 )
+            return null ;
+        if ( n < bytes.length ) {
+            byte[] bytes2 = new byte[n] ;
+            System.arraycopy(bytes, 0, bytes2, 0, n) ;
+            bytes = bytes2 ;
+        }
+        return bytes ;
+    }
+}
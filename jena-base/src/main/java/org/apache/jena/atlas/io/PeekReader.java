@@ -40,6 +40,8 @@ public final class PeekReader extends Reader {
     // Using a Reader here seems to have zero cost or benefit but CharStream
     // allows fast String handling.
     private final CharStream source ;
+    // Set if the source is UTF-8 bytes.
+    private final CharStreamUTF8 sourceUTF8 ;
 
     private static final int PUSHBACK_SIZE = 10 ;
     static final byte        CHAR0         = (char)0 ;
@@ -77,17 +79,9 @@ public final class PeekReader extends Reader {
     public static PeekReader makeUTF8(InputStream in) {
         // This is the best route to make a PeekReader because it avoids
         // chances of wrong charset for a Reader say.
-        PeekReader pr ;
-        if ( true ) {
-            Reader r = IO.asUTF8(in) ;
-            // This adds reader-level buffering
-            pr = make(r) ;
-        } else {
-            // This is a bit slower - reason unknown.
-            InputStreamBuffered in2 = new InputStreamBuffered(in) ;
-            CharStream r = new InStreamUTF8(in2) ;
-            pr = new PeekReader(r) ;
-        }
+        // Decoding from bytes (rather than via a java.io.Reader) also
+        // allows runs of ASCII characters to be read in one step.
+        PeekReader pr = new PeekReader(new CharStreamUTF8(in)) ;
         // Skip BOM.
         int ch = pr.peekChar() ;
         if ( ch == Chars.BOM )
@@ -121,6 +115,7 @@ public final class PeekReader extends Reader {
 
     private PeekReader(CharStream stream) {
         this.source = stream ;
+        this.sourceUTF8 = ( stream instanceof CharStreamUTF8 ) ? (CharStreamUTF8)stream : null ;
         this.pushbackChars = new char[PUSHBACK_SIZE] ;
         this.idxPushback = -1 ;
 
@@ -161,6 +156,30 @@ public final class PeekReader extends Reader {
         return nextChar() ;
     }
 
+    /**
+     * Read a run of ASCII characters, starting with the peek character, for as
+     * long as {@code chars[ch]} is true. {@code chars} has 128 entries and must
+     * not include newline. Returns the empty string if the peek character is not
+     * in the run.
+     * <p>
+     * The string is made once, from the input bytes. This is only possible when
+     * the input is UTF-8 bytes (see {@link #makeUTF8}) and there are no pushed
+     * back characters; otherwise nothing is read and the return is null.
+     */
+    public final String readASCII(boolean[] chars) {
+        if ( sourceUTF8 == null || idxPushback >= 0 )
+            return null ;
+        int ch = peekChar() ;
+        if ( ch < 0 || ch >= chars.length || !chars[ch] )
+            return "" ;
+        String string = sourceUTF8.readASCII(chars) ;
+        int len = string.length() ;
+        posn += len ;
+        colNum += len ;
+        advanceAndSet() ;
+        return string ;
+    }
+
     /**
      * push back a character : does not alter underlying position, line or
      * column counts
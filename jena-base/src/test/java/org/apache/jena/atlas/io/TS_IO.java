@@ -28,14 +28,17 @@ import org.junit.runners.Suite ;
     , TestStreamUTF8.class
     , TestBlockUTF8.class
     , TestInputStreamBuffered.class
+    , TestInputStreamAsync.class
 
     // Peek readers.
     , TestPeekReaderSource.class
     , TestPeekReaderCharSequence.class
+    , TestPeekReaderUTF8.class
     , TestPeekInputStreamSource.class
 
     // Writers
     , TestBufferingWriter.class
+    , TestAWriterUTF8.class
     // Other
     , TestFilenameExtensions.class
     , TestPrintUtils.class
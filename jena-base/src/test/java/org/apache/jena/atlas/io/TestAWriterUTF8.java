@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.atlas.io ;
+
+import java.io.ByteArrayOutputStream ;
+import java.nio.charset.StandardCharsets ;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.junit.Test ;
+
+public class TestAWriterUTF8 extends BaseTest {
+    ByteArrayOutputStream bout = null ;
+    AWriterUTF8           w    = null ;
+
+    public void create(int size) {
+        bout = new ByteArrayOutputStream() ;
+        w = new AWriterUTF8(bout, size) ;
+    }
+
+    public byte[] bytes() {
+        w.flush() ;
+        return bout.toByteArray() ;
+    }
+
+    private void test(int size, String string) {
+        create(size) ;
+        w.print(string) ;
+        assertArrayEquals(string.getBytes(StandardCharsets.UTF_8), bytes()) ;
+    }
+
+    @Test public void awriter_utf8_01() { test(100, "") ; }
+    @Test public void awriter_utf8_02() { test(100, "abc") ; }
+    @Test public void awriter_utf8_03() { test(100, "Àéíÿ ∀ ☺☻♪♫ 孫子兵法") ; }
+    // Surrogate pairs.
+    @Test public void awriter_utf8_04() { test(100, "😀 x 𐐷") ; }
+    // Small buffer, more than one flush.
+    @Test public void awriter_utf8_05() { test(8, "abcdefghijklmnopqrstuvwxyz") ; }
+    @Test public void awriter_utf8_06() { test(8, "é孫😀é孫😀é孫😀") ; }
+    @Test public void awriter_utf8_07() { test(100, "\u0000\u007F\u0080߿ࠀ￿") ; }
+
+    @Test public void awriter_utf8_10() {
+        // Unpaired surrogates.
+        create(100) ;
+        w.print("a\uD83Db\uDE00") ;
+        w.print('\uD83D') ;
+        assertArrayEquals("a?b??".getBytes(StandardCharsets.UTF_8), bytes()) ;
+    }
+
+    @Test public void awriter_utf8_11() {
+        // Surrogate pair as two chars.
+        create(100) ;
+        w.print('\uD83D') ;
+        w.print('\uDE00') ;
+        assertArrayEquals("\uD83D\uDE00".getBytes(StandardCharsets.UTF_8), bytes()) ;
+    }
+
+    @Test public void awriter_utf8_12() {
+        create(10) ;
+        w.print('a') ;
+        w.write("bcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.UTF_8)) ;
+        w.print("é".toCharArray()) ;
+        w.print("XYZ", 1, 3) ;
+        w.println() ;
+        assertArrayEquals("abcdefghijklmnopqrstuvwxyzéYZ\n".getBytes(StandardCharsets.UTF_8), bytes()) ;
+    }
+}
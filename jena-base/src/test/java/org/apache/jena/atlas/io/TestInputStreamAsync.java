@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.atlas.io;
+
+import java.io.ByteArrayInputStream ;
+import java.io.ByteArrayOutputStream ;
+import java.io.IOException ;
+import java.io.InputStream ;
+import java.io.OutputStream ;
+import java.nio.charset.StandardCharsets ;
+import java.util.Arrays ;
+import java.util.zip.CRC32 ;
+import java.util.zip.Deflater ;
+import java.util.zip.GZIPOutputStream ;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream ;
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.junit.Test ;
+
+public class TestInputStreamAsync extends BaseTest
+{
+    private static byte[] data(int n)
+    {
+        StringBuilder sb = new StringBuilder() ;
+        for ( int i = 0 ; i < n ; i++ )
+            sb.append("<http://example/s").append(i).append("> <http://example/p> \"é ").append(i * 7919 % 1000).append("\" .\n") ;
+        return sb.toString().getBytes(StandardCharsets.UTF_8) ;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        byte[] b = new byte[1000] ;
+        for ( int n = in.read(b) ; n >= 0 ; n = in.read(b) )
+            out.write(b, 0, n) ;
+        in.close() ;
+        return out.toByteArray() ;
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        try ( OutputStream z = new GZIPOutputStream(out) ) {
+            z.write(data) ;
+        }
+        return out.toByteArray() ;
+    }
+
+    // bgzip format : gzip members of up to 64K, with the member size in the header.
+    private static byte[] bgzf(byte[] data) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        for ( int i = 0 ; i < data.length ; i += 65280 ) {
+            int len = Math.min(65280, data.length - i) ;
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true) ;
+            deflater.setInput(data, i, len) ;
+            deflater.finish() ;
+            byte[] buffer = new byte[70000] ;
+            int clen = deflater.deflate(buffer) ;
+            deflater.end() ;
+            int bsize = 18 + clen + 8 ;
+            CRC32 crc = new CRC32() ;
+            crc.update(data, i, len) ;
+            byte[] header = { 0x1F, (byte)0x8B, 8, 4, 0, 0, 0, 0, 0, (byte)0xFF, 6, 0, 'B', 'C', 2, 0,
+                              (byte)(bsize - 1), (byte)((bsize - 1) >> 8) } ;
+            out.write(header) ;
+            out.write(buffer, 0, clen) ;
+            int32(out, (int)crc.getValue()) ;
+            int32(out, len) ;
+        }
+        return out.toByteArray() ;
+    }
+
+    private static void int32(OutputStream out, int x) throws IOException
+    {
+        for ( int i = 0 ; i < 4 ; i++ )
+            out.write(x >> (8 * i)) ;
+    }
+
+    private static byte[] bzip2(byte[] data, int blockSize) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        try ( OutputStream z = new BZip2CompressorOutputStream(out, blockSize) ) {
+            z.write(data) ;
+        }
+        return out.toByteArray() ;
+    }
+
+    private static byte[] concat(byte[] a, byte[] b)
+    {
+        byte[] x = Arrays.copyOf(a, a.length + b.length) ;
+        System.arraycopy(b, 0, x, a.length, b.length) ;
+        return x ;
+    }
+
+    private static InputStream stream(byte[] bytes)
+    {
+        return new ByteArrayInputStream(bytes) ;
+    }
+
+    @Test public void async_01() throws IOException
+    {
+        byte[] data = data(100000) ;
+        assertArrayEquals(data, readAll(InputStreamAsync.readAhead(stream(data)))) ;
+        assertArrayEquals(new byte[0], readAll(InputStreamAsync.readAhead(stream(new byte[0])))) ;
+    }
+
+    @Test public void async_gzip_01() throws IOException
+    {
+        byte[] data = data(100000) ;
+        assertArrayEquals(data, readAll(InputStreamAsync.gzip(stream(gzip(data)), 2))) ;
+    }
+
+    @Test public void async_gzip_02() throws IOException
+    {
+        // Multi-member gzip.
+        byte[] data = data(1000) ;
+        byte[] gz = concat(gzip(data), gzip(data)) ;
+        assertArrayEquals(concat(data, data), readAll(InputStreamAsync.gzip(stream(gz), 2))) ;
+    }
+
+    @Test public void async_gzip_03() throws IOException
+    {
+        // BGZF
+        byte[] data = data(100000) ;
+        assertArrayEquals(data, readAll(InputStreamAsync.gzip(stream(bgzf(data)), 3))) ;
+    }
+
+    @Test public void async_gzip_04() throws IOException
+    {
+        // BGZF then plain gzip.
+        byte[] data = data(10000) ;
+        byte[] gz = concat(bgzf(data), gzip(data)) ;
+        assertArrayEquals(concat(data, data), readAll(InputStreamAsync.gzip(stream(gz), 2))) ;
+    }
+
+    @Test(expected=IOException.class)
+    public void async_gzip_bad_01() throws IOException
+    {
+        readAll(InputStreamAsync.gzip(stream(data(10)), 2)) ;
+    }
+
+    @Test(expected=IOException.class)
+    public void async_gzip_bad_02() throws IOException
+    {
+        byte[] gz = bgzf(data(10000)) ;
+        gz[gz.length / 2] ^= 0x10 ;
+        readAll(InputStreamAsync.gzip(stream(gz), 2)) ;
+    }
+
+    @Test public void async_bzip2_01() throws IOException
+    {
+        // Several blocks.
+        byte[] data = data(20000) ;
+        assertArrayEquals(data, readAll(InputStreamAsync.bzip2(stream(bzip2(data, 1)), 3))) ;
+    }
+
+    @Test public void async_bzip2_02() throws IOException
+    {
+        // Concatenated streams, different block sizes.
+        byte[] data = data(5000) ;
+        byte[] bz = concat(bzip2(data, 1), bzip2(data, 9)) ;
+        assertArrayEquals(concat(data, data), readAll(InputStreamAsync.bzip2(stream(bz), 2))) ;
+    }
+
+    @Test public void async_bzip2_03() throws IOException
+    {
+        assertArrayEquals(new byte[0], readAll(InputStreamAsync.bzip2(stream(bzip2(new byte[0], 9)), 2))) ;
+    }
+
+    @Test(expected=IOException.class)
+    public void async_bzip2_bad_01() throws IOException
+    {
+        readAll(InputStreamAsync.bzip2(stream(data(10)), 2)) ;
+    }
+
+    @Test(expected=IOException.class)
+    public void async_bzip2_bad_02() throws IOException
+    {
+        byte[] bz = bzip2(data(20000), 1) ;
+        bz[bz.length / 2] ^= 0x10 ;
+        readAll(InputStreamAsync.bzip2(stream(bz), 2)) ;
+    }
+
+    @Test(expected=IOException.class)
+    public void async_bzip2_bad_03() throws IOException
+    {
+        // Truncated
+        byte[] bz = bzip2(data(20000), 1) ;
+        readAll(InputStreamAsync.bzip2(stream(Arrays.copyOf(bz, bz.length / 2)), 2)) ;
+    }
+
+    @Test public void async_close_01() throws IOException
+    {
+        // Close before the end.
+        InputStream in = InputStreamAsync.bzip2(stream(bzip2(data(20000), 1)), 2) ;
+        assertEquals('<', in.read()) ;
+        in.close() ;
+    }
+}
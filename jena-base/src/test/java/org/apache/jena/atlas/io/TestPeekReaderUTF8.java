@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.atlas.io;
+
+import java.io.ByteArrayInputStream ;
+import java.nio.charset.MalformedInputException ;
+import java.nio.charset.StandardCharsets ;
+
+import org.apache.jena.atlas.AtlasException ;
+import org.junit.Test ;
+
+public class TestPeekReaderUTF8 extends AbstractTestPeekReader
+{
+    @Override
+    PeekReader make(String contents, int size)
+    {
+        return make(contents.getBytes(StandardCharsets.UTF_8), size) ;
+    }
+
+    private static PeekReader make(byte[] bytes, int size)
+    {
+        CharStream stream = new CharStreamUTF8(new ByteArrayInputStream(bytes), size) ;
+        return PeekReader.make(stream) ;
+    }
+
+    private static boolean[] letters = new boolean[128] ;
+    static {
+        for ( char ch = 'a' ; ch <= 'z' ; ch++ )
+            letters[ch] = true ;
+    }
+
+    private static String readAll(PeekReader r)
+    {
+        StringBuilder sb = new StringBuilder() ;
+        for ( int ch = r.readChar() ; ch != IO.EOF ; ch = r.readChar() )
+            sb.append((char)ch) ;
+        return sb.toString() ;
+    }
+
+    @Test public void utf8_01()
+    {
+        // Multi-byte characters across buffer boundaries.
+        String s = "aé孫😀b€ỹ😀😀xyz" ;
+        assertEquals(s, readAll(make(s, 8))) ;
+        assertEquals(s, readAll(make(s, 100))) ;
+    }
+
+    @Test public void utf8_02()
+    {
+        // Overlong, surrogate, truncated.
+        bad(new byte[] {'a', (byte)0xC0, (byte)0x80}) ;
+        bad(new byte[] {'a', (byte)0xED, (byte)0xA0, (byte)0x80}) ;
+        bad(new byte[] {'a', (byte)0xE2, (byte)0x82}) ;
+        bad(new byte[] {'a', (byte)0xE2, 'b', 'c'}) ;
+    }
+
+    private static void bad(byte[] bytes)
+    {
+        try {
+            readAll(make(bytes, 100)) ;
+            fail("Expected an exception") ;
+        } catch (AtlasException ex) {
+            assertEquals(MalformedInputException.class, ex.getCause().getClass()) ;
+        }
+    }
+
+    @Test public void readASCII_01()
+    {
+        PeekReader r = make("abc def", 100) ;
+        assertEquals("abc", r.readASCII(letters)) ;
+        assertEquals(' ', r.peekChar()) ;
+        assertEquals(4, r.getColNum()) ;
+        assertEquals(3, r.getPosition()) ;
+        assertEquals("", r.readASCII(letters)) ;
+        r.readChar() ;
+        assertEquals("def", r.readASCII(letters)) ;
+        assertTrue(r.eof()) ;
+    }
+
+    @Test public void readASCII_02()
+    {
+        // Run longer than the buffer; ends at a non-ASCII character.
+        PeekReader r = make("abcdefghijklmnopqrstuvwxyzé", 8) ;
+        assertEquals("abcdefghijklmnopqrstuvwxyz", r.readASCII(letters)) ;
+        assertEquals('é', r.readChar()) ;
+        assertTrue(r.eof()) ;
+    }
+
+    @Test public void readASCII_03()
+    {
+        // Pushback : fast path not available.
+        PeekReader r = make("abc", 100) ;
+        r.readChar() ;
+        r.pushbackChar('a') ;
+        assertNull(r.readASCII(letters)) ;
+        assertEquals("abc", readAll(r)) ;
+    }
+
+    @Test public void readASCII_04()
+    {
+        // Not UTF-8 bytes.
+        PeekReader r = PeekReader.readString("abc") ;
+        assertNull(r.readASCII(letters)) ;
+    }
+}
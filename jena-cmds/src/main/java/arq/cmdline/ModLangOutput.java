@@ -73,7 +73,7 @@ public class ModLangOutput extends ModBase
             Lang lang = RDFLanguages.nameToLang(langName) ;
             if ( lang == null )
                 throw new CmdException("Not recognized as an RDF language : '"+langName+"'") ;
-            streamOutput = StreamRDFWriter.defaultSerialization(lang) ;
+            streamOutput = streamSerialization(lang) ;
             if ( streamOutput == null ) {
                 System.err.println("Language '"+lang.getLabel()+"' not registered for streaming.") ;
                 printRegistered(System.err) ;
@@ -118,6 +118,22 @@ public class ModLangOutput extends ModBase
             streamOutput = RDFFormat.NQUADS ;
     }
 
+    /**
+     * The streaming format for a language: the default if there is one, else any
+     * streaming format registered for the language (for example, JSON-LD, where
+     * the default output is not streaming).
+     */
+    private static RDFFormat streamSerialization(Lang lang) {
+        RDFFormat fmt = StreamRDFWriter.defaultSerialization(lang) ;
+        if ( fmt != null )
+            return fmt ;
+        for ( RDFFormat f : StreamRDFWriter.registered() ) {
+            if ( f.getLang().equals(lang) )
+                return f ;
+        }
+        return null ;
+    }
+
     private static Set<Lang>  hiddenLanguages = new HashSet<>() ;
     static {
         hiddenLanguages.add(Lang.RDFNULL) ;
@@ -66,6 +66,7 @@ public class ARPOptions implements ARPErrorNumbers {
     }
     private boolean embedding = false;
     private int errorMode[] = defaultErrorMode.clone();
+    private long idBloomFilter = 0;
     
     // Note: This is the legacy setup for jena-core only.
     // When used normally, with RIOT, the IRIFcatory is 
@@ -202,6 +203,7 @@ public class ARPOptions implements ARPErrorNumbers {
     	ARPOptions rslt = new ARPOptions();
     	rslt.errorMode = errorMode.clone() ;
     	rslt.embedding = embedding;
+    	rslt.idBloomFilter = idBloomFilter;
     	return rslt;
     }
 
@@ -234,6 +236,35 @@ public class ARPOptions implements ARPErrorNumbers {
     		return errorMode[eCode];
     }
 
+    /**
+     * Sets how illegal reuse of rdf:ID ({@link ARPErrorNumbers#WARN_REDEFINITION_OF_ID})
+     * is checked in large files.
+     * Every rdf:ID is remembered, with its location, up to 10000 of them. After
+     * that, {@link ARPErrorNumbers#WARN_BIG_FILE} is reported, and
+     * by default there is no further checking.
+     * <p>
+     * With a positive value, checking continues with a Bloom filter sized for that
+     * number of rdf:IDs, which needs 10 bits per rdf:ID, and is at most 512M bytes.
+     * The Bloom filter may report reuse of an rdf:ID that has not been used
+     * before, for about 1% of the rdf:IDs when the expected number have been seen,
+     * and does not report the location of the previous use.
+     * @param expectedIDs The expected number of rdf:IDs, or 0 to switch off checking for large files.
+     * @return Previous setting.
+     */
+    public long setIDBloomFilter(long expectedIDs) {
+        long old = idBloomFilter;
+        idBloomFilter = Math.max(0, expectedIDs);
+        return old;
+    }
+
+    /**
+     * The expected number of rdf:IDs for checking reuse of rdf:ID in large files, or 0.
+     * @see #setIDBloomFilter
+     */
+    public long getIDBloomFilter() {
+        return idBloomFilter;
+    }
+
     /**
      * True if the embedding flag is set.
      * Indicates that the parser should look for rdf:RDF
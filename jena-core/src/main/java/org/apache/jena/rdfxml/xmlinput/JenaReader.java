@@ -434,7 +434,8 @@ public class JenaReader implements RDFReader, ARPErrorNumbers {
      * ERR_* (String/Integer) em_warning, em.error, em_ignore, em_error<br/>
      * IGN_* ditto<br/>
      * WARN_* ditto<br/>
-     * iri-rules (String), "Jena", "IRI", "strict", "lax"
+     * iri-rules (String), "Jena", "IRI", "strict", "lax"<br/>
+     * id-bloom-filter (Number/String) expected number of rdf:IDs, see {@link ARPOptions#setIDBloomFilter}
      */
     @SuppressWarnings("deprecation")
     static Object processArpOptions(ARPOptions options, String str, Object v,
@@ -549,6 +550,18 @@ public class JenaReader implements RDFReader, ARPErrorNumbers {
             return old ;
         }
         
+        if ( str.equals("ID-BLOOM-FILTER") )
+        {
+            try {
+                long n = ( v instanceof Number ) ? ((Number)v).longValue() : Long.parseLong(v.toString()) ;
+                return options.setIDBloomFilter(n) ;
+            } catch (NumberFormatException ex) {
+                eh.error(new IllegalArgumentException(
+                "Property \"ID-BLOOM-FILTER\" requires a number"));
+                return options.getIDBloomFilter() ;
+            }
+        }
+        
         eh.error(new UnknownPropertyException(str));
         return null;
     }
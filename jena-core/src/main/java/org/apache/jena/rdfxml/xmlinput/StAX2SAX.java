@@ -21,7 +21,7 @@ package org.apache.jena.rdfxml.xmlinput;
 import java.util.Iterator;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLEventReader;
-import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.events.Attribute;
@@ -48,7 +48,6 @@ import org.xml.sax.helpers.AttributesImpl;
 public class StAX2SAX {
     private final ContentHandler handler;
     private final LexicalHandler lhandler;
-    private final XMLInputFactory xef;
     
     /**
      * Primes a converter with a SAX handler.
@@ -62,13 +61,62 @@ public class StAX2SAX {
         this.lhandler = (handler instanceof LexicalHandler) ?
                 (LexicalHandler) handler :
                 NO_LEXICAL_HANDLER ;
-        this.xef = XMLInputFactory.newInstance();
     }
     
-    // I'd be happier doing stream reader, but we can only convert this way
+    /**
+     * Consumes all StAX events and passes them on to the content handler.
+     * <p>
+     * This works directly from the stream reader, without creating event objects;
+     * the {@link Attributes} passed to the content handler read from the stream reader.
+     */
     public void parse(XMLStreamReader xmlReader) throws XMLStreamException, SAXException {
         handler.setDocumentLocator(new LocatorConv(xmlReader));
-        parse(xef.createXMLEventReader(xmlReader));
+        Attributes attributes = new StreamAttributes(xmlReader);
+        for ( int event = xmlReader.getEventType() ; ; event = xmlReader.next() ) {
+            switch (event) {
+                case XMLStreamConstants.START_DOCUMENT:
+                    handler.startDocument();
+                    break;
+                case XMLStreamConstants.END_DOCUMENT:
+                    handler.endDocument();
+                    break;
+                case XMLStreamConstants.START_ELEMENT:
+                    for ( int i = 0 ; i < xmlReader.getNamespaceCount() ; i++ ) {
+                        String prefix = xmlReader.getNamespacePrefix(i);
+                        String uri = xmlReader.getNamespaceURI(i);
+                        if (uri != null)
+                            handler.startPrefixMapping(prefix == null ? "" : prefix, uri);
+                    }
+                    handler.startElement(nonNull(xmlReader.getNamespaceURI()), xmlReader.getLocalName(),
+                            qnameToS(xmlReader.getPrefix(), xmlReader.getLocalName()), attributes);
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    handler.endElement(nonNull(xmlReader.getNamespaceURI()), xmlReader.getLocalName(),
+                            qnameToS(xmlReader.getPrefix(), xmlReader.getLocalName()));
+                    for ( int i = 0 ; i < xmlReader.getNamespaceCount() ; i++ ) {
+                        String prefix = xmlReader.getNamespacePrefix(i);
+                        handler.endPrefixMapping(prefix == null ? "" : prefix);
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                    handler.characters(xmlReader.getTextCharacters(), xmlReader.getTextStart(), xmlReader.getTextLength());
+                    break;
+                case XMLStreamConstants.SPACE:
+                    handler.ignorableWhitespace(xmlReader.getTextCharacters(), xmlReader.getTextStart(), xmlReader.getTextLength());
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    handler.processingInstruction(xmlReader.getPITarget(), xmlReader.getPIData());
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    lhandler.comment(xmlReader.getTextCharacters(), xmlReader.getTextStart(), xmlReader.getTextLength());
+                    break;
+                default:
+                    break;
+            }
+            if (!xmlReader.hasNext())
+                return;
+        }
     }
     
     /**
@@ -164,8 +212,67 @@ public class StAX2SAX {
     }
 
     private String qnameToS(QName name) {
-        if (name.getPrefix().length() == 0) return name.getLocalPart();
-        else return name.getPrefix() + ":" + name.getLocalPart();
+        return qnameToS(name.getPrefix(), name.getLocalPart());
+    }
+
+    private static String qnameToS(String prefix, String localPart) {
+        if (prefix == null || prefix.length() == 0) return localPart;
+        else return prefix + ":" + localPart;
+    }
+
+    private static String nonNull(String s) {
+        return s == null ? "" : s;
+    }
+
+    /** The attributes of the current start element of a stream reader. */
+    static class StreamAttributes implements Attributes {
+        private final XMLStreamReader reader;
+
+        StreamAttributes(XMLStreamReader reader) { this.reader = reader; }
+
+        @Override
+        public int getLength() { return reader.getAttributeCount(); }
+        @Override
+        public String getURI(int index) { return inRange(index) ? nonNull(reader.getAttributeNamespace(index)) : null; }
+        @Override
+        public String getLocalName(int index) { return inRange(index) ? reader.getAttributeLocalName(index) : null; }
+        @Override
+        public String getQName(int index) {
+            return inRange(index) ? qnameToS(reader.getAttributePrefix(index), reader.getAttributeLocalName(index)) : null;
+        }
+        @Override
+        public String getType(int index) { return inRange(index) ? reader.getAttributeType(index) : null; }
+        @Override
+        public String getValue(int index) { return inRange(index) ? reader.getAttributeValue(index) : null; }
+
+        @Override
+        public int getIndex(String uri, String localName) {
+            for ( int i = 0 ; i < getLength() ; i++ ) {
+                if (getLocalName(i).equals(localName) && getURI(i).equals(uri))
+                    return i;
+            }
+            return -1;
+        }
+
+        @Override
+        public int getIndex(String qName) {
+            for ( int i = 0 ; i < getLength() ; i++ ) {
+                if (getQName(i).equals(qName))
+                    return i;
+            }
+            return -1;
+        }
+
+        @Override
+        public String getType(String uri, String localName) { return getType(getIndex(uri, localName)); }
+        @Override
+        public String getType(String qName) { return getType(getIndex(qName)); }
+        @Override
+        public String getValue(String uri, String localName) { return getValue(getIndex(uri, localName)); }
+        @Override
+        public String getValue(String qName) { return getValue(getIndex(qName)); }
+
+        private boolean inRange(int index) { return index >= 0 && index < getLength(); }
     }
     
     static class LocatorConv implements Locator {
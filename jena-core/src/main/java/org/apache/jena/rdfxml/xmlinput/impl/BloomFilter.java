@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.rdfxml.xmlinput.impl;
+
+/**
+ * A Bloom filter of (base, id) pairs, used to check for reuse of rdf:ID
+ * in inputs too large to keep every rdf:ID.
+ * It uses 10 bits and 7 hashes per expected entry, which gives about 1% false
+ * positives when the expected number of entries have been added.
+ */
+class BloomFilter {
+    private static final int BITS_PER_ENTRY = 10;
+    private static final int HASHES = 7;
+    // 512M bytes.
+    private static final long MAX_BITS = 1L << 32;
+
+    private final long bits[];
+    private final long mask;
+
+    BloomFilter(long expected) {
+        long n = 1024;
+        while (n < MAX_BITS && n < expected * BITS_PER_ENTRY)
+            n <<= 1;
+        bits = new long[(int)(n >>> 6)];
+        mask = n - 1;
+    }
+
+    /**
+     * Add an entry.
+     * @return true if the entry may have been added before; false if it definitely has not.
+     */
+    boolean add(String base, String id) {
+        long h = hash(hash(0xcbf29ce484222325L, base), id);
+        long h1 = mix(h);
+        long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+        boolean present = true;
+        for (int i = 0; i < HASHES; i++) {
+            long b = (h1 + i * h2) & mask;
+            int idx = (int)(b >>> 6);
+            long bit = 1L << b;
+            if ((bits[idx] & bit) == 0) {
+                present = false;
+                bits[idx] |= bit;
+            }
+        }
+        return present;
+    }
+
+    // FNV-1a
+    private static long hash(long h, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        // Separator
+        h ^= 0xFFFF;
+        return h * 0x100000001b3L;
+    }
+
+    // Finalizer from MurmurHash3
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+}
@@ -31,6 +31,12 @@ public class CharacterModel {
 	 * @param str The string to be tested.
 	 */
 	static public boolean isNormalFormC(String str) {
+	    // Characters before U+0300 are unchanged by, and do not combine in, NFC.
+	    int i = 0;
+	    while (i < str.length() && str.charAt(i) < 0x300)
+	        i++;
+	    if (i == str.length())
+	        return true;
 	    try {
 	   return SWITCH_OFF || Normalizer.isNormalized(str,Normalizer.Form.NFC);
 	    }
@@ -73,12 +73,29 @@ public class ParserSupport implements ARPErrorNumbers, Names {
 				idsUsedForBase.put(str, arp.location());
 				arp.idsUsedCount++;
 				if (arp.idsUsedCount > 10000) {
+					long expected = arp.getOptions().getIDBloomFilter();
+					if (expected > 0) {
+						BloomFilter filter = new BloomFilter(expected);
+						arp.idsUsed.forEach((base, ids) ->
+							ids.keySet().forEach(id -> filter.add(base.toString(), id)));
+						arp.idsBloomFilter = filter;
+					}
 					arp.idsUsed = null;
-				arp.warning(taintMe,
-						WARN_BIG_FILE,
-						"Input is large. Switching off checking for illegal reuse of rdf:ID's.");
+					if (expected > 0)
+						arp.warning(taintMe,
+							WARN_BIG_FILE,
+							"Input is large. Checking for illegal reuse of rdf:ID's with a Bloom filter; some reuse may be reported wrongly.");
+					else
+						arp.warning(taintMe,
+							WARN_BIG_FILE,
+							"Input is large. Switching off checking for illegal reuse of rdf:ID's.");
 				}
 			}
+		} else if (arp.idsBloomFilter != null) {
+			if (arp.idsBloomFilter.add(ctxt.uri.toString(), str))
+				arp.warning(taintMe,
+					WARN_REDEFINITION_OF_ID,
+					"Probable redefinition of ID: " + str);
 		}
 
 		checkID_XMLName(taintMe,str);
@@ -174,11 +174,18 @@ public class URIReference extends TaintImpl implements AResourceInternal, ARPErr
 
     public static URIReference fromQName(Frame f, String ns, String local)
             throws SAXParseException {
+        // The same QNames are used again and again; only check them once.
+        String checked = f.arp.checkedQName(ns, local);
+        if (checked != null)
+            return new URIReference(checked);
+        int warnings = f.arp.warningCount();
         URIReference rslt = new URIReference(ns + local);
         f.checkEncoding(rslt,local);
         // TODO: not for 2.3 move some of the check upwards ...
-        IRI iri = f.arp.iriFactory().create(ns+local);
+        IRI iri = f.arp.iriFactory().create(rslt.uri);
         AbsXMLContext.checkURI(f.arp,rslt,iri);
+        if (!rslt.isTainted() && f.arp.warningCount() == warnings)
+            f.arp.addCheckedQName(ns, local, rslt.uri);
         return rslt;
     }
 
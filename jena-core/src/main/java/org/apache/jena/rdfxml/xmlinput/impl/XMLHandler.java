@@ -51,6 +51,17 @@ public class XMLHandler extends LexicalHandlerImpl implements ARPErrorNumbers,
 
     protected Map<IRI, Map<String,ARPLocation>> idsUsed = new HashMap<>();
     protected int idsUsedCount = 0;
+    // After idsUsed is switched off for a large input, if requested by ARPOptions.setIDBloomFilter.
+    BloomFilter idsBloomFilter = null;
+
+    // QNames of elements that have been checked without any warnings:
+    // namespace -> local name -> URI.
+    // Cleared when it grows beyond QNAMES_LIMIT. 
+    private Map<String, Map<String, String>> checkedQNames = new HashMap<>();
+    private int checkedQNamesCount = 0;
+    private static final int QNAMES_LIMIT = 10000;
+    // Number of warnings and errors reported.
+    private int warningCount = 0;
 
     public XMLHandler() {}
     
@@ -183,6 +194,8 @@ public class XMLHandler extends LexicalHandlerImpl implements ARPErrorNumbers,
     }
 
     void warning(Taint taintMe, int id, SAXParseException e) throws SAXParseException {
+        if (options.getErrorMode(id) != EM_IGNORE)
+            warningCount++;
         try {
             switch (options.getErrorMode(id)) {
             case EM_IGNORE:
@@ -371,6 +384,9 @@ public class XMLHandler extends LexicalHandlerImpl implements ARPErrorNumbers,
 
     public void initParse(String base, String lang) throws SAXParseException {
         nodeIdUserData = new HashMap<>();
+        checkedQNames = new HashMap<>();
+        checkedQNamesCount = 0;
+        idsBloomFilter = null;
         idsUsed = 
         	ignoring(WARN_REDEFINITION_OF_ID)?
         			null:
@@ -397,6 +413,29 @@ public class XMLHandler extends LexicalHandlerImpl implements ARPErrorNumbers,
         // endRDF();
         endBnodeScope();
         idsUsed = null;
+        idsBloomFilter = null;
+        checkedQNames.clear();
+    }
+
+    int warningCount() {
+        return warningCount;
+    }
+
+    /** The URI for a QName that has already been checked without warnings, or null. */
+    String checkedQName(String ns, String local) {
+        Map<String, String> m = checkedQNames.get(ns);
+        return m == null ? null : m.get(local);
+    }
+
+    void addCheckedQName(String ns, String local, String uri) {
+        if (encodingProblems)
+            // Checks depend on more than the QName.
+            return;
+        if (++checkedQNamesCount > QNAMES_LIMIT) {
+            checkedQNames.clear();
+            checkedQNamesCount = 1;
+        }
+        checkedQNames.computeIfAbsent(ns, k -> new HashMap<>()).put(local, uri);
     }
 
     void endBnodeScope() {
@@ -543,6 +543,59 @@ public class MoreTests extends TestCase implements RDFErrorHandler,
         checkExpected() ;
     }
     
+    static String RDF_QNAMES = "<?xml version=\"1.0\" ?>\n" +
+    "<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\" xmlns:eg=\"http://example/\" xmlns:rel=\"rel/\">\n" +
+    " <rdf:Description rdf:about=\"http://example/s\">\n" +
+    "  <eg:p>1</eg:p>\n" +
+    "  <rel:p>2</rel:p>\n" +
+    "  <eg:p>3</eg:p>\n" +
+    "  <rel:p>4</rel:p>\n" +
+    " </rdf:Description>\n" +
+    "</rdf:RDF>\n";
+
+    public void testRepeatedQNameWarnings() {
+        // QNames that are checked once are not checked again, but warnings are repeated.
+        Model model = ModelFactory.createDefaultModel() ;
+        RDFReader r =  model.getReader("RDF/XML") ;
+        r.setErrorHandler(this);
+        expected = new int[] { WARN_RELATIVE_NAMESPACE_URI_DEPRECATED, WARN_RELATIVE_URI, WARN_RELATIVE_URI };
+        r.read(model, new StringReader(RDF_QNAMES), "http://example/") ;
+        checkExpected() ;
+        assertEquals(4, model.size());
+    }
+
+    static String manyIDs(int n) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\" xmlns:eg=\"http://example/\">\n");
+        for (int i = 0; i < n; i++)
+            sb.append("<rdf:Description rdf:ID=\"id").append(i).append("\" eg:p=\"x\"/>\n");
+        // Reuse one from the first 10000, one after.
+        sb.append("<rdf:Description rdf:ID=\"id5\" eg:p=\"y\"/>\n");
+        sb.append("<rdf:Description rdf:ID=\"id").append(n - 1).append("\" eg:p=\"y\"/>\n");
+        sb.append("</rdf:RDF>\n");
+        return sb.toString();
+    }
+
+    public void testLargeFileIDs() {
+        Model model = ModelFactory.createDefaultModel() ;
+        RDFReader r =  model.getReader("RDF/XML") ;
+        r.setErrorHandler(this);
+        expected = new int[] { WARN_BIG_FILE };
+        r.read(model, new StringReader(manyIDs(10100)), "http://example/") ;
+        checkExpected() ;
+    }
+
+    public void testLargeFileIDsBloomFilter() {
+        Model model = ModelFactory.createDefaultModel() ;
+        RDFReader r =  model.getReader("RDF/XML") ;
+        r.setErrorHandler(this);
+        r.setProperty("id-bloom-filter", 100000);
+        expected = new int[] { WARN_BIG_FILE, WARN_REDEFINITION_OF_ID, WARN_REDEFINITION_OF_ID };
+        r.read(model, new StringReader(manyIDs(10100)), "http://example/") ;
+        checkExpected() ;
+        assertEquals(10102, model.size());
+    }
+
     public void testNTripleEscaping() {
     	String data[][] = {
     			{ "foo", "foo" },
@@ -33,6 +33,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
 
 /**
  * Derived from {@link SAX2RDFTest}
@@ -1128,20 +1129,25 @@ public class StAX2ModelTest extends TestCase {
 
     static private void addTests(TestSuite s, String dir, String base, String file) {
         
-        TestCase tc = new StAX2ModelTest(dir, base, file);
+        TestCase tc = new StAX2ModelTest(dir, base, file, false);
         tc.setName("StAX " + tc.getName());
         s.addTest(tc);
+        tc = new StAX2ModelTest(dir, base, file, true);
+        tc.setName("StAX stream " + tc.getName());
+        s.addTest(tc);
 
 
     }
     final String base;
     final private String file;
+    final private boolean streamReader;
     final static XMLInputFactory inputFactory = XMLInputFactory.newInstance();
 
-    StAX2ModelTest(String dir, String base0, String file) {
+    StAX2ModelTest(String dir, String base0, String file, boolean streamReader) {
         super(file);
         this.base = base0 + file;
         this.file = "testing/" + dir + file;
+        this.streamReader = streamReader;
     }
 
     private boolean errorHanderFlag;
@@ -1171,8 +1177,13 @@ public class StAX2ModelTest extends TestCase {
         } catch (Exception e) { return; }
 
         in = new FileInputStream(file);
-        XMLEventReader eventStream = inputFactory.createXMLEventReader(base, in);
-        StAX2Model.read(eventStream, got, base);
+        if (streamReader) {
+            XMLStreamReader xmlStream = inputFactory.createXMLStreamReader(base, in);
+            StAX2Model.read(xmlStream, got, base);
+        } else {
+            XMLEventReader eventStream = inputFactory.createXMLEventReader(base, in);
+            StAX2Model.read(eventStream, got, base);
+        }
         in.close();
         
         boolean result = expected.isIsomorphicWith(got);
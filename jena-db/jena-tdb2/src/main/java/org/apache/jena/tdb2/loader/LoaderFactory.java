@@ -41,6 +41,9 @@ import org.apache.jena.tdb2.loader.sequential.LoaderSequential;
  *   send data ... either stream() or load(files) or a mixture.    
  *   loader.finishBulk();
  * </pre>
+ * Only the basic loader can be used while a
+ * {@link org.apache.jena.tdb2.sys.ChangesLogTDB changes log} is attached; the other
+ * loaders write the indexes directly and throw {@link BulkLoaderException} in {@code startBulk}.
  */  
 public class LoaderFactory {
     
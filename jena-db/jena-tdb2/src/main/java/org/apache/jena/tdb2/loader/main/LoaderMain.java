@@ -31,12 +31,14 @@ import org.apache.jena.query.TxnType;
 import org.apache.jena.riot.lang.StreamRDFCounting;
 import org.apache.jena.riot.system.StreamRDF;
 import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.tdb2.loader.BulkLoaderException;
 import org.apache.jena.tdb2.loader.DataLoader;
 import org.apache.jena.tdb2.loader.base.*;
 import org.apache.jena.tdb2.store.DatasetGraphTDB;
 import org.apache.jena.tdb2.store.DatasetPrefixesTDB;
 import org.apache.jena.tdb2.store.NodeId;
 import org.apache.jena.tdb2.store.tupletable.TupleIndex;
+import org.apache.jena.tdb2.sys.ChangesLogTDB;
 import org.apache.jena.tdb2.sys.TDBInternal;
 
 /**
@@ -222,6 +224,8 @@ public class LoaderMain extends LoaderBase implements DataLoader {
 
     @Override
     public void startBulk() {
+        if ( ChangesLogTDB.isAttached(dsgtdb) )
+            throw new BulkLoaderException("A changes log is attached: bulk loading would not be logged (use the basic loader)");
         // Lock everyone else out while we multithread.
         dsgtdb.getTxnSystem().getTxnMgr().startExclusiveMode();
         super.startBulk();
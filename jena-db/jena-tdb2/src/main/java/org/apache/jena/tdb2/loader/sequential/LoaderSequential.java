@@ -32,6 +32,7 @@ import org.apache.jena.tdb2.loader.base.MonitorOutput;
 import org.apache.jena.tdb2.loader.base.ProgressMonitor;
 import org.apache.jena.tdb2.loader.base.ProgressMonitorOutput;
 import org.apache.jena.tdb2.store.DatasetGraphTDB;
+import org.apache.jena.tdb2.sys.ChangesLogTDB;
 import org.apache.jena.tdb2.sys.TDBInternal;
 
 /** Bulk loader. Algorithm: Parser to primary indexes, then builds secondary indexes one at a time. */ 
@@ -78,6 +79,8 @@ public class LoaderSequential extends LoaderBase {
     
     @Override
     public void startBulk() {
+        if ( ChangesLogTDB.isAttached(dsgtdb) )
+            throw new BulkLoaderException("A changes log is attached: bulk loading would not be logged (use the basic loader)");
         //Not in a transaction.
         //dsgtdb.getTxnSystem().getTxnMgr().startExclusiveMode();
         super.startBulk();
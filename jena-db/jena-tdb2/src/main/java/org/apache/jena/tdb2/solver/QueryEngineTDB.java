@@ -25,7 +25,6 @@ import org.apache.jena.sparql.algebra.Op ;
 import org.apache.jena.sparql.core.DatasetDescription ;
 import org.apache.jena.sparql.core.DatasetGraph ;
 import org.apache.jena.sparql.core.DynamicDatasets ;
-import org.apache.jena.sparql.core.Substitute ;
 import org.apache.jena.sparql.engine.Plan ;
 import org.apache.jena.sparql.engine.QueryEngineFactory ;
 import org.apache.jena.sparql.engine.QueryEngineRegistry ;
@@ -79,7 +78,8 @@ public class QueryEngineTDB extends QueryEngineMain
     @Override
     protected Op modifyOp(Op op)
     {
-        op = Substitute.substitute(op, getStartBinding()) ;
+        // Any start binding has already been substituted by QueryEngineBase.createPlan,
+        // or is substituted after optimization when plans are cached.
         // Optimize (high-level)
         op = super.modifyOp(op) ;
 
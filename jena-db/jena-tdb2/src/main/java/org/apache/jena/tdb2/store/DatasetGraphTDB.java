@@ -324,6 +324,12 @@ public class DatasetGraphTDB extends DatasetGraphTriplesQuads
     @Override
     public void clear() {
         checkNotClosed() ; 
+        if ( monitor != null ) {
+            // Delete by quads so the deletes are seen by the monitor.
+            deleteAny(Quad.defaultGraphIRI, Node.ANY, Node.ANY, Node.ANY) ;
+            deleteAny(Node.ANY, Node.ANY, Node.ANY, Node.ANY) ;
+            return ;
+        }
         // Leave the node table alone.
         getTripleTable().clearTriples() ;
         getQuadTable().clearQuads() ;
@@ -511,6 +517,10 @@ public class DatasetGraphTDB extends DatasetGraphTriplesQuads
         txnMonitor = changes ;
     }
 
+    public TransactionalMonitor getTransactionalMonitor() {
+        return txnMonitor ;
+    }
+
     public void removeTransactionalMonitor(TransactionalMonitor changes) {
         if ( txnMonitor != changes )
             throw new InternalErrorException() ;
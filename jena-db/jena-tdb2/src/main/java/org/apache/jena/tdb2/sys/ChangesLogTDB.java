@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.sys;
+
+import java.io.OutputStream;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.jena.dboe.transaction.TransactionalMonitor;
+import org.apache.jena.query.TxnType;
+import org.apache.jena.sparql.core.DatasetChangesLog;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.PatchLog;
+import org.apache.jena.tdb2.TDBException;
+import org.apache.jena.tdb2.store.DatasetGraphTDB;
+
+/**
+ * Write the changes of each committed transaction on a TDB2 database to a
+ * {@link DatasetChangesLog}. Apply the log to another dataset with {@link PatchLog#apply}.
+ * <p>
+ * A patch is written before the commit of the transaction starts, and the commit does
+ * not go ahead if the patch can not be written. When the commit is durable, a commit
+ * record follows the patch ; if the commit fails, an abort record follows it instead.
+ * Patches are written in commit order. The changes of a transaction are held in memory
+ * until it commits or aborts.
+ * <p>
+ * If the process stops after writing a patch and before writing its commit or abort
+ * record, the patch is in doubt: applying the log stops with an error at that patch,
+ * rather than letting a replica differ from the database without notice.
+ * <p>
+ * Only changes made through the dataset, in transactions, are logged. The bulk
+ * loaders other than the {@link org.apache.jena.tdb2.loader.LoaderFactory#basicLoader basic loader}
+ * write the indexes directly, so they refuse to run while a log is attached: a load
+ * that is missing from the log would make replicas diverge.
+ * <p>
+ * {@link DatabaseOps#compact Compaction} replaces the storage so the log must be
+ * attached again afterwards.
+ */
+public class ChangesLogTDB {
+
+    /** Log committed changes to the {@code OutputStream}. */
+    public static DatasetChangesLog attach(DatasetGraph dsg, OutputStream out) {
+        DatasetChangesLog log = new DatasetChangesLog(out);
+        attach(dsg, log);
+        return log;
+    }
+
+    /** Log committed changes to a {@link DatasetChangesLog}. */
+    public static void attach(DatasetGraph dsg, DatasetChangesLog log) {
+        DatasetGraphTDB dsgtdb = TDBInternal.getDatasetGraphTDB(dsg);
+        if ( dsgtdb == null )
+            throw new TDBException("Not a TDB2 database");
+        dsgtdb.setMonitor(log);
+        dsgtdb.setTransactionalMonitor(new LogMonitor(log));
+    }
+
+    /** Stop logging changes. This does not close the log. */
+    public static void detach(DatasetGraph dsg) {
+        DatasetGraphTDB dsgtdb = TDBInternal.getDatasetGraphTDB(dsg);
+        if ( dsgtdb == null )
+            throw new TDBException("Not a TDB2 database");
+        dsgtdb.setMonitor(null);
+        dsgtdb.setTransactionalMonitor(null);
+    }
+
+    /** Whether a log is attached to the database. */
+    public static boolean isAttached(DatasetGraph dsg) {
+        DatasetGraphTDB dsgtdb = TDBInternal.getDatasetGraphTDB(dsg);
+        return dsgtdb != null && dsgtdb.getTransactionalMonitor() instanceof LogMonitor;
+    }
+
+    private static class LogMonitor implements TransactionalMonitor {
+        private final DatasetChangesLog log;
+        // Held from the start of a commit until the commit record is written, so
+        // that another writer, which can start as soon as the commit finishes, is
+        // logged after this one.
+        private final ReentrantLock commitLock = new ReentrantLock();
+
+        LogMonitor(DatasetChangesLog log) {
+            this.log = log;
+        }
+
+        @Override
+        public void finishBegin(TxnType txnType) {
+            log.start();
+        }
+
+        @Override
+        public void startCommit() {
+            commitLock.lock();
+            // Unlocked by finishEnd if this fails.
+            log.prepare();
+        }
+
+        @Override
+        public void finishCommit() {
+            try {
+                log.commit();
+            } finally {
+                commitLock.unlock();
+            }
+        }
+
+        @Override
+        public void startAbort() {
+            log.abort();
+        }
+
+        @Override
+        public void finishEnd() {
+            // A commit that failed : the patch, if written, is followed by an abort record.
+            if ( commitLock.isHeldByCurrentThread() ) {
+                try {
+                    log.abort();
+                } finally {
+                    commitLock.unlock();
+                }
+            }
+            log.reset();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.sys;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.jena.atlas.RuntimeIOException;
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.query.TxnType;
+import org.apache.jena.sparql.core.DatasetChangesLog;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.core.PatchLog;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.DatabaseMgr;
+import org.apache.jena.tdb2.loader.BulkLoaderException;
+import org.apache.jena.tdb2.loader.DataLoader;
+import org.apache.jena.tdb2.loader.LoaderFactory;
+import org.apache.jena.tdb2.loader.base.LoaderOps;
+import org.junit.Test;
+
+public class TestChangesLogTDB
+{
+    static Quad quad1 = SSE.parseQuad("(_ <s> <p> 1)");
+    static Quad quad2 = SSE.parseQuad("(<g> _:a <p> 2)");
+    static Quad quad3 = SSE.parseQuad("(<g> <s> <q> 'abc'@en)");
+    static Quad quad4 = SSE.parseQuad("(<g2> <s> <q> 4)");
+
+    private static Set<Quad> quads(DatasetGraph dsg) {
+        Set<Quad> x = new HashSet<>();
+        Txn.executeRead(dsg, ()->dsg.find().forEachRemaining(q->x.add(q)));
+        return x;
+    }
+
+    private static void testReplay(DatasetGraph dsg, ByteArrayOutputStream out, long lastSequence) {
+        DatasetGraph dsg1 = DatasetGraphFactory.createTxnMem();
+        assertEquals(lastSequence, PatchLog.apply(new ByteArrayInputStream(out.toByteArray()), dsg1));
+        assertEquals(quads(dsg), quads(dsg1));
+        DatasetGraph dsg2 = DatabaseMgr.createDatasetGraph();
+        assertEquals(lastSequence, PatchLog.apply(new ByteArrayInputStream(out.toByteArray()), dsg2));
+        assertEquals(quads(dsg), quads(dsg2));
+    }
+
+    @Test public void changes_log_1() {
+        DatasetGraph dsg = DatabaseMgr.createDatasetGraph();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DatasetChangesLog log = ChangesLogTDB.attach(dsg, out);
+        Txn.executeWrite(dsg, ()->{
+            dsg.add(quad1);
+            dsg.add(quad2);
+            dsg.add(quad3);
+        });
+        Txn.executeRead(dsg, ()->dsg.find().forEachRemaining(q->{}));
+        Txn.executeWrite(dsg, ()->{
+            dsg.delete(quad3);
+            dsg.add(quad4);
+        });
+        assertEquals(2, log.getSequence());
+        testReplay(dsg, out, 2);
+    }
+
+    @Test public void changes_log_2() {
+        // Abort, and no change.
+        DatasetGraph dsg = DatabaseMgr.createDatasetGraph();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DatasetChangesLog log = ChangesLogTDB.attach(dsg, out);
+        Txn.executeWrite(dsg, ()->dsg.add(quad1));
+        dsg.begin(ReadWrite.WRITE);
+        dsg.add(quad2);
+        dsg.abort();
+        dsg.end();
+        Txn.executeWrite(dsg, ()->{});
+        Txn.executeWrite(dsg, ()->{
+            dsg.add(quad3);
+            dsg.delete(quad3);
+        });
+        assertEquals(2, log.getSequence());
+        testReplay(dsg, out, 2);
+        assertFalse(Txn.calculateRead(dsg, ()->dsg.contains(quad2)));
+    }
+
+    @Test public void changes_log_3() {
+        // Promotion, deleteAny.
+        DatasetGraph dsg = DatabaseMgr.createDatasetGraph();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ChangesLogTDB.attach(dsg, out);
+        Txn.executeWrite(dsg, ()->{
+            dsg.add(quad1);
+            dsg.add(quad2);
+            dsg.add(quad3);
+            dsg.add(quad4);
+        });
+        dsg.begin(TxnType.READ_PROMOTE);
+        dsg.deleteAny(quad2.getGraph(), Node.ANY, Node.ANY, Node.ANY);
+        dsg.commit();
+        dsg.end();
+        assertEquals(2, quads(dsg).size());
+        testReplay(dsg, out, 2);
+    }
+
+    @Test public void changes_log_5() {
+        // Clear.
+        DatasetGraph dsg = DatabaseMgr.createDatasetGraph();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DatasetChangesLog log = ChangesLogTDB.attach(dsg, out);
+        Txn.executeWrite(dsg, ()->{
+            dsg.add(quad1);
+            dsg.add(quad2);
+            dsg.add(quad3);
+        });
+        Txn.executeWrite(dsg, ()->dsg.clear());
+        assertEquals(2, log.getSequence());
+        assertTrue(quads(dsg).isEmpty());
+        DatasetGraph dsg1 = DatasetGraphFactory.createTxnMem();
+        Txn.executeWrite(dsg1, ()->dsg1.add(quad4));
+        PatchLog.apply(new ByteArrayInputStream(out.toByteArray()), dsg1);
+        assertEquals(1, quads(dsg1).size());
+    }
+
+    @Test public void changes_log_4() {
+        // Detach.
+        DatasetGraph dsg = DatabaseMgr.createDatasetGraph();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DatasetChangesLog log = ChangesLogTDB.attach(dsg, out);
+        Txn.executeWrite(dsg, ()->dsg.add(quad1));
+        ChangesLogTDB.detach(dsg);
+        Txn.executeWrite(dsg, ()->dsg.add(quad2));
+        assertEquals(1, log.getSequence());
+        DatasetGraph dsg1 = DatasetGraphFactory.createTxnMem();
+        PatchLog.apply(new ByteArrayInputStream(out.toByteArray()), dsg1);
+        assertTrue(Txn.calculateRead(dsg1, ()->dsg1.contains(quad1)));
+        assertFalse(Txn.calculateRead(dsg1, ()->dsg1.contains(quad2)));
+    }
+
+    @Test(expected=BulkLoaderException.class)
+    public void changes_log_6() {
+        // Bulk loading writes the indexes directly : refused while a log is attached.
+        DatasetGraph dsg = DatabaseMgr.createDatasetGraph();
+        ChangesLogTDB.attach(dsg, new ByteArrayOutputStream());
+        DataLoader loader = LoaderFactory.phasedLoader(dsg, LoaderOps.nullOutput());
+        loader.startBulk();
+    }
+
+    @Test(expected=BulkLoaderException.class)
+    public void changes_log_7() {
+        DatasetGraph dsg = DatabaseMgr.createDatasetGraph();
+        ChangesLogTDB.attach(dsg, new ByteArrayOutputStream());
+        DataLoader loader = LoaderFactory.sequentialLoader(dsg, LoaderOps.nullOutput());
+        loader.startBulk();
+    }
+
+    @Test public void changes_log_8() {
+        // The basic loader adds through the dataset, and is logged.
+        DatasetGraph dsg = DatabaseMgr.createDatasetGraph();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DatasetChangesLog log = ChangesLogTDB.attach(dsg, out);
+        assertTrue(ChangesLogTDB.isAttached(dsg));
+        DataLoader loader = LoaderFactory.basicLoader(dsg, LoaderOps.nullOutput());
+        loader.startBulk();
+        loader.stream().quad(quad1);
+        loader.stream().quad(quad2);
+        loader.finishBulk();
+        assertEquals(1, log.getSequence());
+        testReplay(dsg, out, 1);
+        ChangesLogTDB.detach(dsg);
+        assertFalse(ChangesLogTDB.isAttached(dsg));
+    }
+
+    @Test public void changes_log_9() {
+        // The patch can not be written : the transaction does not commit.
+        boolean[] failing = { true };
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override public void flush() throws IOException {
+                if ( failing[0] )
+                    throw new IOException("Flush");
+            }
+        };
+        DatasetGraph dsg = DatabaseMgr.createDatasetGraph();
+        DatasetChangesLog log = ChangesLogTDB.attach(dsg, out);
+        try {
+            Txn.executeWrite(dsg, ()->dsg.add(quad1));
+            fail("No exception");
+        } catch (RuntimeIOException ex) {}
+        assertFalse(Txn.calculateRead(dsg, ()->dsg.contains(quad1)));
+        assertEquals(0, log.getSequence());
+        // And the database can still be written, and logged.
+        failing[0] = false;
+        out.reset();
+        Txn.executeWrite(dsg, ()->dsg.add(quad2));
+        assertEquals(1, log.getSequence());
+        testReplay(dsg, out, 1);
+    }
+}
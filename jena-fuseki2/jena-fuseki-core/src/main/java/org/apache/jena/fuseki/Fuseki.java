@@ -45,6 +45,7 @@ import org.apache.jena.sparql.SystemARQ ;
 import org.apache.jena.sparql.mgt.SystemInfo ;
 import org.apache.jena.sparql.util.Context ;
 import org.apache.jena.sparql.util.MappingRegistry ;
+import org.apache.jena.sparql.util.Symbol ;
 import org.apache.jena.sys.JenaSystem ;
 import org.apache.jena.tdb.TDB ;
 import org.apache.jena.tdb.transaction.TransactionManager ;
@@ -68,6 +69,20 @@ public class Fuseki {
      */
     static public String    FusekiSymbolIRI              = "http://jena.apache.org/fuseki#" ;
 
+    /**
+     * Context setting, for the server or a dataset: whether a query request may ask
+     * for its execution statistics with {@code exec-stats=true}. Such a request runs
+     * the query to completion, holding all the results in memory, before the
+     * response starts. Default: false.
+     */
+    static public final Symbol  allowExecStats               = Symbol.create(FusekiSymbolIRI+"allowExecStats") ;
+
+    /**
+     * Maximum length of the execution statistics in a response header. Longer
+     * statistics are logged instead, and the header gives the request id.
+     */
+    static public final int     maxExecStatsHeader           = 4*1024 ;
+
     /** Default location of the pages for the Fuseki UI  */
     static public String    PagesStatic                  = "pages" ;
 
@@ -31,6 +31,7 @@ import javax.servlet.http.HttpServletRequest ;
 import javax.servlet.http.HttpServletResponse ;
 
 import org.apache.jena.atlas.web.AcceptList ;
+import org.apache.jena.atlas.web.MediaRange ;
 import org.apache.jena.atlas.web.MediaType ;
 import org.apache.jena.fuseki.DEF ;
 import org.apache.jena.fuseki.FusekiException ;
@@ -41,7 +42,9 @@ import org.apache.jena.query.ResultSetFormatter ;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.WebContent ;
 import org.apache.jena.riot.resultset.ResultSetWriterRegistry;
+import org.apache.jena.riot.resultset.rw.ResultSetWriterThrift;
 import org.apache.jena.riot.resultset.rw.ResultsWriter;
+import org.apache.jena.riot.web.HttpNames;
 import org.apache.jena.sparql.core.Prologue ;
 import org.apache.jena.sparql.resultset.XMLOutput;
 import org.apache.jena.sparql.util.Context;
@@ -170,12 +173,23 @@ public class ResponseResultSet
             if ( booleanResult != null )
                 ServletOps.errorBadRequest("Can't write a boolean result in thrift") ;
             charset = null;
+            if ( acceptsRepeatTerms(request) )
+                cxt.set(ResultSetWriterThrift.repeatTerms, true);
         }
         
         //Finally, the general case
         generalOutput(action, lang, contentType, charset, cxt, jsonCallback, resultSet, booleanResult) ;
     }
 
+    // Whether the client asked for RDF Thrift results with REPEAT terms.
+    private static boolean acceptsRepeatTerms(HttpServletRequest request) {
+        String accept = request.getHeader(HttpNames.hAccept) ;
+        if ( accept == null )
+            return false ;
+        MediaRange range = new AcceptList(accept).match(MediaType.create(contentTypeResultsThrift)) ;
+        return range != null && "true".equalsIgnoreCase(range.getParameter(paramRepeatTerms)) ;
+    }
+
     private static void textOutput(HttpAction action, String contentType, ResultSet resultSet, Prologue qPrologue, Boolean booleanResult) {
         // Text is not streaming.
         OutputContent proc = (ServletOutputStream out) -> { 
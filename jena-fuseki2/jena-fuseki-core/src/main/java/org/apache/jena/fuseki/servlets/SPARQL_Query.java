@@ -36,6 +36,7 @@ import javax.servlet.http.HttpServletResponse ;
 
 import org.apache.jena.atlas.io.IO ;
 import org.apache.jena.atlas.io.IndentedLineBuffer ;
+import org.apache.jena.atlas.json.JSON ;
 import org.apache.jena.atlas.json.JsonObject;
 import org.apache.jena.atlas.lib.Pair;
 import org.apache.jena.atlas.web.ContentType ;
@@ -48,7 +49,9 @@ import org.apache.jena.riot.web.HttpOp ;
 import org.apache.jena.sparql.core.DatasetGraph;
 import org.apache.jena.sparql.core.Prologue ;
 import org.apache.jena.sparql.engine.EngineLib;
+import org.apache.jena.sparql.mgt.ExecStats ;
 import org.apache.jena.sparql.resultset.SPARQLResult ;
+import org.apache.jena.sparql.util.Context ;
 import org.apache.jena.web.HttpSC ;
 
 /**
@@ -287,9 +290,24 @@ public abstract class SPARQL_Query extends SPARQL_Protocol
                 q = query;
             
             try ( QueryExecution qExec = createQueryExecution(action, q, dataset) ; ) {
+                boolean statsRequested = execStatsRequested(action) ;
+                if ( statsRequested )
+                    qExec.getContext().set(ARQ.collectExecStats, true) ;
                 SPARQLResult result = executeQuery(action, qExec, query, queryStringLog) ;
+                if ( statsRequested ) {
+                    // Run the query to the end so the statistics are complete
+                    // before the response, and its headers, are started.
+                    result = materialize(result) ;
+                    ExecStats execStats = ExecStats.get(qExec.getContext()) ;
+                    if ( execStats != null )
+                        action.response.setHeader(hExecStats, execStatsHeader(action, execStats)) ;
+                }
                 // Deals with exceptions itself.
                 sendResults(action, result, query.getPrologue()) ;
+                // Per-operator statistics, if enabled by the context.
+                ExecStats execStats = ExecStats.get(qExec.getContext()) ;
+                if ( execStats != null )
+                    action.log.info(format("[%d] Execution statistics = \n%s", action.id, execStats)) ;
             }
         }
         catch (QueryParseException ex) {
@@ -378,6 +396,56 @@ public abstract class SPARQL_Query extends SPARQL_Protocol
         return null ;
     }
 
+    /** Whether the request asks for execution statistics, and they are allowed. */
+    private static boolean execStatsRequested(HttpAction action) {
+        String x = action.request.getParameter(paramExecStats) ;
+        if ( x == null || ! x.equalsIgnoreCase("true") )
+            return false ;
+        Context context = action.getContext() ;
+        return context != null && context.isTrue(Fuseki.allowExecStats) ;
+    }
+
+    /**
+     * The statistics as flat JSON for the response header or, if too long for
+     * a header, a pointer to the statistics in the log.
+     */
+    private static String execStatsHeader(HttpAction action, ExecStats execStats) {
+        String str = asciiJson(execStats.asJson()) ;
+        if ( str.length() <= Fuseki.maxExecStatsHeader )
+            return str ;
+        JsonObject obj = new JsonObject() ;
+        obj.put("request", action.id) ;
+        obj.put("truncated", true) ;
+        return asciiJson(obj) ;
+    }
+
+    /** Complete the execution of the query. */
+    private static SPARQLResult materialize(SPARQLResult result) {
+        if ( result.isResultSet() )
+            return new SPARQLResult(ResultSetFactory.copyResults(result.getResultSet())) ;
+        if ( result.isJson() ) {
+            List<JsonObject> items = new ArrayList<>() ;
+            result.getJsonItems().forEachRemaining(items::add) ;
+            return new SPARQLResult(items.iterator()) ;
+        }
+        // Other results are complete when the query has been executed.
+        return result ;
+    }
+
+    /** Flat JSON, with non-ASCII characters escaped, for use in an HTTP header. */
+    private static String asciiJson(JsonObject obj) {
+        String str = JSON.toStringFlat(obj) ;
+        StringBuilder sb = new StringBuilder(str.length()) ;
+        for ( int i = 0 ; i < str.length() ; i++ ) {
+            char ch = str.charAt(i) ;
+            if ( ch < 0x20 || ch > 0x7E )
+                sb.append(String.format("\\u%04X", (int)ch)) ;
+            else
+                sb.append(ch) ;
+        }
+        return sb.toString() ;
+    }
+
     private void setAnyProtocolTimeouts(QueryExecution qExec, HttpAction action) {
         // The timeout string in the protocol is in seconds, not milliseconds.
         String desiredTimeoutStr = null;
@@ -460,7 +528,8 @@ public abstract class SPARQL_Query extends SPARQL_Protocol
 
     /** The parameters Fuseki also provides */
     private static Collection<String> fusekiParams_ = Arrays.asList(paramQueryRef, paramStyleSheet, paramAccept, paramOutput1,
-                                                                    paramOutput2, paramCallback, paramForceAccept, paramTimeout) ;
+                                                                    paramOutput2, paramCallback, paramForceAccept, paramTimeout,
+                                                                    paramExecStats) ;
 
     protected Collection<String> fusekiParams() { return fusekiParams_; }
 }
@@ -33,6 +33,7 @@ import org.junit.runners.Suite.SuiteClasses ;
   , TestFusekiTestAuth.class
   , TestFusekiCustomOperation.class
   , TestFusekiMainCmd.class
+  , TestServiceExecution.class
 })
 public class TS_FusekiMain {
     @BeforeClass public static void setupForFusekiServer() {
@@ -27,28 +27,47 @@ import static org.junit.Assert.assertTrue ;
 import java.io.OutputStream ;
 import java.util.function.Consumer ;
 
+import org.apache.http.Header ;
 import org.apache.http.HttpEntity ;
+import org.apache.http.HttpHost ;
+import org.apache.http.client.HttpClient ;
+import org.apache.http.client.methods.CloseableHttpResponse ;
+import org.apache.http.client.methods.HttpGet ;
+import org.apache.http.conn.routing.HttpRoute ;
 import org.apache.http.entity.ContentProducer ;
 import org.apache.http.entity.EntityTemplate ;
+import org.apache.http.impl.client.CloseableHttpClient ;
+import org.apache.http.impl.client.HttpClients ;
+import org.apache.http.pool.PoolStats ;
+import org.apache.http.util.EntityUtils ;
+import org.apache.jena.atlas.io.IO ;
+import org.apache.jena.atlas.json.JSON ;
+import org.apache.jena.atlas.json.JsonObject ;
+import org.apache.jena.atlas.lib.IRILib ;
 import org.apache.jena.atlas.web.ContentType ;
 import org.apache.jena.atlas.web.HttpException ;
 import org.apache.jena.atlas.web.TypedInputStream ;
 import org.apache.jena.atlas.web.WebLib;
+import org.apache.jena.fuseki.Fuseki ;
 import org.apache.jena.fuseki.server.DataAccessPointRegistry ;
 import org.apache.jena.fuseki.server.DataService ;
 import org.apache.jena.fuseki.server.Operation ;
 import org.apache.jena.graph.Graph ;
 import org.apache.jena.query.QueryExecution;
 import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.query.QuerySolution;
 import org.apache.jena.query.ResultSet;
 import org.apache.jena.query.ResultSetFormatter;
 import org.apache.jena.riot.RDFDataMgr ;
 import org.apache.jena.riot.RDFFormat ;
 import org.apache.jena.riot.RDFLanguages ;
+import org.apache.jena.riot.WebContent ;
+import org.apache.jena.riot.web.HttpNames ;
 import org.apache.jena.riot.web.HttpOp ;
 import org.apache.jena.sparql.core.DatasetGraph ;
 import org.apache.jena.sparql.core.DatasetGraphFactory ;
 import org.apache.jena.sparql.core.Quad ;
+import org.apache.jena.sparql.engine.http.QueryEngineHTTP ;
 import org.apache.jena.sparql.graph.GraphFactory ;
 import org.apache.jena.sparql.sse.SSE ;
 import org.apache.jena.system.Txn ;
@@ -306,6 +325,134 @@ public class TestEmbeddedFuseki {
         } finally { server.stop() ; } 
     }
 
+    @Test public void embedded_22() {
+        // Connections of the default HttpClient are returned to the pool after use.
+        DatasetGraph dsg = dataset() ;
+        int port = WebLib.choosePort() ;
+        FusekiServer server = FusekiServer.create()
+            .port(port)
+            .add("/ds", dsg)
+            .build() ;
+        server.start() ;
+        HttpClient hc = HttpOp.getDefaultHttpClient() ;
+        HttpOp.setDefaultHttpClient(HttpOp.initialDefaultHttpClient) ;
+        try {
+            for ( int i = 0 ; i < 10 ; i++ )
+                query("http://localhost:"+port+"/ds/query", "SELECT * { ?s ?p ?o }", qExec->ResultSetFormatter.consume(qExec.execSelect())) ;
+            HttpRoute route = new HttpRoute(new HttpHost("localhost", port)) ;
+            PoolStats stats = HttpOp.getDefaultConnectionManager().getStats(route) ;
+            assertEquals(0, stats.getLeased()) ;
+        } finally {
+            HttpOp.setDefaultHttpClient(hc) ;
+            server.stop() ;
+        }
+    }
+    
+    @Test public void embedded_23() {
+        // SELECT results are RDF Thrift, with repeated terms, between Jena and Fuseki.
+        DatasetGraph dsg = dataset() ;
+        Txn.executeWrite(dsg, ()->{
+            for ( int i = 0 ; i < 5 ; i++ )
+                dsg.add(SSE.parseQuad("(_ <http://example/s> <http://example/p> "+i+")")) ;
+        }) ;
+        int port = WebLib.choosePort() ;
+        FusekiServer server = FusekiServer.create()
+            .port(port)
+            .add("/ds", dsg)
+            .build() ;
+        server.start() ;
+        try {
+            String URL = "http://localhost:"+port+"/ds/query" ;
+            try ( QueryEngineHTTP qExec = (QueryEngineHTTP)QueryExecutionFactory.sparqlService(URL, "SELECT * { ?s ?p ?o } ORDER BY ?o") ) {
+                ResultSet rs = qExec.execSelect() ;
+                assertEquals(WebContent.contentTypeResultsThrift, qExec.getHttpResponseContentType()) ;
+                int count = 0 ;
+                for ( ; rs.hasNext() ; count++ ) {
+                    QuerySolution row = rs.next() ;
+                    assertEquals("http://example/s", row.getResource("s").getURI()) ;
+                    assertEquals(count, row.getLiteral("o").getInt()) ;
+                }
+                assertEquals(5, count) ;
+            }
+            query(URL, "ASK { ?s ?p 4 }", qExec->assertTrue(qExec.execAsk())) ;
+            // Only when asked for are terms sent once for a run of rows.
+            String queryURL = URL+"?query="+IRILib.encodeUriComponent("SELECT ?s ?p { ?s ?p ?o }") ;
+            byte[] plain = readAll(queryURL, WebContent.contentTypeResultsThrift) ;
+            byte[] repeat = readAll(queryURL, WebContent.contentTypeResultsThriftRepeat) ;
+            assertTrue(repeat.length < plain.length) ;
+        } finally { server.stop() ; }
+    }
+    
+    @Test public void embedded_24() throws Exception {
+        // Execution statistics, when asked for and allowed, in a response header.
+        DatasetGraph dsg = dataset() ;
+        Txn.executeWrite(dsg, ()->{
+            for ( int i = 0 ; i < 5 ; i++ )
+                dsg.add(SSE.parseQuad("(_ <http://example/s> <http://example/p> "+i+")")) ;
+        }) ;
+        int port = WebLib.choosePort() ;
+        FusekiServer server = FusekiServer.create()
+            .port(port)
+            .add("/ds", dsg)
+            .build() ;
+        server.start() ;
+        try ( CloseableHttpClient client = HttpClients.createDefault() ) {
+            String queryURL = "http://localhost:"+port+"/ds/query?query="+IRILib.encodeUriComponent("SELECT * { ?s ?p ?o }") ;
+            // Not allowed by default.
+            try ( CloseableHttpResponse response = client.execute(new HttpGet(queryURL+"&exec-stats=true")) ) {
+                assertEquals(HttpSC.OK_200, response.getStatusLine().getStatusCode()) ;
+                assertNull(response.getFirstHeader(HttpNames.hExecStats)) ;
+                EntityUtils.consume(response.getEntity()) ;
+            }
+            dsg.getContext().set(Fuseki.allowExecStats, true) ;
+            try ( CloseableHttpResponse response = client.execute(new HttpGet(queryURL+"&exec-stats=true")) ) {
+                assertEquals(HttpSC.OK_200, response.getStatusLine().getStatusCode()) ;
+                Header header = response.getFirstHeader(HttpNames.hExecStats) ;
+                assertNotNull(header) ;
+                JsonObject obj = JSON.parse(header.getValue()) ;
+                assertEquals(5, obj.get("rows").getAsNumber().value().intValue()) ;
+                EntityUtils.consume(response.getEntity()) ;
+            }
+            try ( CloseableHttpResponse response = client.execute(new HttpGet(queryURL)) ) {
+                assertNull(response.getFirstHeader(HttpNames.hExecStats)) ;
+                EntityUtils.consume(response.getEntity()) ;
+            }
+        } finally { server.stop() ; }
+    }
+
+    @Test public void embedded_25() throws Exception {
+        // Execution statistics too long for a header.
+        DatasetGraph dsg = dataset() ;
+        dsg.getContext().set(Fuseki.allowExecStats, true) ;
+        int port = WebLib.choosePort() ;
+        FusekiServer server = FusekiServer.create()
+            .port(port)
+            .add("/ds", dsg)
+            .build() ;
+        server.start() ;
+        StringBuilder sb = new StringBuilder("SELECT * { { ?s <http://example/p0> ?o }") ;
+        for ( int i = 1 ; i < 200 ; i++ )
+            sb.append(" UNION { ?s <http://example/p"+i+"> ?o }") ;
+        sb.append(" }") ;
+        try ( CloseableHttpClient client = HttpClients.createDefault() ) {
+            String queryURL = "http://localhost:"+port+"/ds/query?query="+IRILib.encodeUriComponent(sb.toString()) ;
+            try ( CloseableHttpResponse response = client.execute(new HttpGet(queryURL+"&exec-stats=true")) ) {
+                assertEquals(HttpSC.OK_200, response.getStatusLine().getStatusCode()) ;
+                Header header = response.getFirstHeader(HttpNames.hExecStats) ;
+                assertNotNull(header) ;
+                assertTrue(header.getValue().length() <= Fuseki.maxExecStatsHeader) ;
+                JsonObject obj = JSON.parse(header.getValue()) ;
+                assertTrue(obj.get("truncated").getAsBoolean().value()) ;
+                EntityUtils.consume(response.getEntity()) ;
+            }
+        } finally { server.stop() ; }
+    }
+
+    private static byte[] readAll(String url, String acceptHeader) {
+        try ( TypedInputStream in = HttpOp.execHttpGet(url, acceptHeader) ) {
+            return IO.readWholeFile(in) ;
+        }
+    }
     
     /** Create an HttpEntity for the graph */  
     protected static HttpEntity graphToHttpEntity(final Graph graph) {
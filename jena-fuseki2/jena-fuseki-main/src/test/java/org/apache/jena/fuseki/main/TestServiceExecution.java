@@ -0,0 +1,445 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.fuseki.main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+
+import org.apache.jena.atlas.lib.StrUtils;
+import org.apache.jena.atlas.web.WebLib;
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.*;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.shared.PrefixMapping;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.engine.http.Service;
+import org.apache.jena.sparql.engine.http.ServiceCache;
+import org.apache.jena.sparql.engine.http.ServiceStats;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.sparql.util.Context;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** SERVICE execution against an embedded server. */
+public class TestServiceExecution {
+    private static FusekiServer server;
+    private static String serviceURL;
+    private static String voidURL;
+    private static String PREFIX = "PREFIX : <http://example/> ";
+    private static PrefixMapping PREFIXES = PrefixMapping.Factory.create().setNsPrefix("", "http://example/");
+
+    // Remote data
+    private static DatasetGraph remote = SSE.parseDatasetGraph(
+        "(dataset (graph (:s1 :q 1) (:s1 :q 2) (:s2 :q 3) (:s3 :q 4) (:s4 :r :s1)))");
+
+    // Remote VoID description
+    private static DatasetGraph remoteVoID = SSE.parseDatasetGraph(StrUtils.strjoinNL(
+        "(dataset (graph (:d <http://rdfs.org/ns/void#triples> 100)",
+        "                (:d <http://rdfs.org/ns/void#propertyPartition> _:pp)",
+        "                (_:pp <http://rdfs.org/ns/void#property> :q)",
+        "                (_:pp <http://rdfs.org/ns/void#triples> 40)",
+        "                (_:pp <http://rdfs.org/ns/void#distinctSubjects> 10) ))"));
+
+    // Local data
+    private static Dataset local = DatasetFactory.wrap(SSE.parseDatasetGraph(
+        "(dataset (graph (:x :p :s1) (:x :p :s2) (:y :p :s3) (:y :p :s5) (:z :p :s1) (:z :p _:b)))"));
+
+    @BeforeClass public static void beforeClass() {
+        int port = WebLib.choosePort();
+        server = FusekiServer.create().port(port).add("/ds", remote).add("/void", remoteVoID).build();
+        server.start();
+        serviceURL = "http://localhost:"+port+"/ds/query";
+        voidURL = "http://localhost:"+port+"/void/query";
+    }
+
+    @AfterClass public static void afterClass() {
+        server.stop();
+    }
+
+    @Test public void service_01() {
+        test("SELECT * { ?x :p ?s SERVICE <"+serviceURL+"> { ?s :q ?v } }", 3);
+    }
+
+    @Test public void service_02() {
+        // Not certain to be bound remotely - executed by substitution.
+        test("SELECT * { ?x :p ?s SERVICE <"+serviceURL+"> { OPTIONAL { ?s :q ?v } } }", 3);
+    }
+
+    @Test public void service_03() {
+        test("SELECT * { ?x :p ?s OPTIONAL { SERVICE <"+serviceURL+"> { ?s :q ?v } } }", 3);
+    }
+
+    @Test public void service_04() {
+        test("SELECT * { ?x :p ?s SERVICE <"+serviceURL+"> { ?s :q ?v FILTER(?v > 1) } }", 3);
+    }
+
+    @Test public void service_05() {
+        test("SELECT * { ?x :p ?s SERVICE <"+serviceURL+"> { ?t :r ?s } }", 3);
+    }
+
+    @Test public void service_06() {
+        test("SELECT * { ?x :p ?s SERVICE SILENT <http://localhost:1/nowhere> { ?s :q ?v } }", 3);
+    }
+
+    @Test public void service_batch_01() {
+        String qs = "SELECT * { ?x :p ?s SERVICE <"+serviceURL+"> { ?s :q ?v } }";
+        long before = requests();
+        ResultSetRewindable rs1 = exec(qs, 1);
+        assertEquals(6, requests()-before);
+        before = requests();
+        ResultSetRewindable rs2 = exec(qs, 100);
+        // One request for the batch, one for the binding with a blank node.
+        assertEquals(2, requests()-before);
+        assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+    }
+
+    @Test public void service_batch_02() {
+        // LIMIT applies to each binding : executed by substitution.
+        String qs = "SELECT * { ?x :p ?s SERVICE <"+serviceURL+"> { SELECT ?s ?v { ?s :q ?v } LIMIT 1 } }";
+        ResultSetRewindable rs1 = exec(qs, 1);
+        long before = requests();
+        ResultSetRewindable rs2 = exec(qs, 100);
+        assertEquals(6, requests()-before);
+        assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+    }
+
+    @Test public void service_batch_03() {
+        // Aggregate : executed by substitution.
+        String qs = "SELECT * { ?x :p ?s SERVICE <"+serviceURL+"> { SELECT ?s (COUNT(*) AS ?c) { ?s :q ?v } GROUP BY ?s } }";
+        ResultSetRewindable rs1 = exec(qs, 1);
+        long before = requests();
+        ResultSetRewindable rs2 = exec(qs, 100);
+        assertEquals(6, requests()-before);
+        assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+    }
+
+    @Test public void service_batch_04() {
+        // No variables in common : executed once.
+        String qs = "SELECT * { ?x :p ?s SERVICE <"+serviceURL+"> { ?a :r ?b } }";
+        ResultSetRewindable rs1 = exec(qs, 1);
+        long before = requests();
+        ResultSetRewindable rs2 = exec(qs, 100);
+        assertEquals(1, requests()-before);
+        assertEquals(6, rs2.size());
+        assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+    }
+
+    @Test public void service_batch_05() {
+        // Endpoint from the input : executed by substitution, one endpoint per request.
+        String qs = "SELECT * { VALUES ?ep { <"+serviceURL+"> <"+voidURL+"> } ?x :p ?s SERVICE ?ep { ?a :r ?b } }";
+        ResultSetRewindable rs1 = exec(qs, 1);
+        long before = requests();
+        ResultSetRewindable rs2 = exec(qs, 100);
+        assertEquals(6, requests()-before);
+        assertEquals(6, rs2.size());
+        assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+    }
+
+    @Test public void service_concurrent_01() {
+        String qs = "SELECT * { ?x :p ?s SERVICE <"+serviceURL+"> { ?s :q ?v } }";
+        ResultSetRewindable rs1 = exec(qs, 1);
+        ResultSetRewindable rs2 = exec(qs, 1, 4, true);
+        assertTrue(ResultSetCompare.equalsByTermAndOrder(rs1, rs2));
+    }
+
+    @Test public void service_concurrent_02() {
+        String qs = "SELECT * { ?x :p ?s SERVICE <"+serviceURL+"> { ?s :q ?v } }";
+        ResultSetRewindable rs1 = exec(qs, 1);
+        ResultSetRewindable rs2 = exec(qs, 2, 3, false);
+        assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+    }
+
+    @Test public void service_concurrent_03() {
+        String qs = "SELECT * { ?x :p ?s SERVICE <"+serviceURL+"> { ?t :r ?s } }";
+        ResultSetRewindable rs1 = exec(qs, 1);
+        ResultSetRewindable rs2 = exec(qs, 1, 10, false);
+        assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+    }
+
+    @Test public void service_concurrent_04() {
+        String qs = "SELECT * { ?x :p ?s SERVICE SILENT <http://localhost:1/nowhere> { ?s :q ?v } }";
+        ResultSetRewindable rs1 = exec(qs, 1);
+        ResultSetRewindable rs2 = exec(qs, 2, 2, false);
+        assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+    }
+
+    @Test(timeout=10000, expected=QueryCancelledException.class)
+    public void service_concurrent_05() throws IOException {
+        // Timeout while waiting for slow requests.
+        HttpRequestInterceptor slow = (request, httpContext) -> {
+            try { Thread.sleep(5000); }
+            catch (InterruptedException ex) { throw new InterruptedIOException(); }
+        };
+        String qs = "SELECT * { ?x :p ?s SERVICE <"+serviceURL+"> { ?s :q ?v } }";
+        try ( CloseableHttpClient client = HttpClients.custom().addInterceptorFirst(slow).build() ) {
+            Query query = QueryFactory.create(PREFIX+qs);
+            try ( QueryExecution qExec = QueryExecutionFactory.create(query, local) ) {
+                Context cxt = qExec.getContext();
+                cxt.set(Service.serviceBatchSize, 1);
+                cxt.set(Service.serviceConcurrency, 2);
+                cxt.set(Service.serviceOrdered, false);
+                cxt.set(Service.queryClient, client);
+                qExec.setTimeout(200);
+                ResultSetFormatter.consume(qExec.execSelect());
+            }
+        }
+    }
+
+    @Test public void service_cache_01() {
+        ServiceCache cache = new ServiceCache(10, 60*1000);
+        String qs = "SELECT * { ?x :p ?s SERVICE <"+serviceURL+"> { ?s :q ?v } }";
+        ResultSetRewindable rs1 = exec(qs, 100);
+        long before = requests();
+        ResultSetRewindable rs2 = exec(qs, 100, cache);
+        assertEquals(2, requests()-before);
+        before = requests();
+        ResultSetRewindable rs3 = exec(qs, 100, cache);
+        assertEquals(0, requests()-before);
+        assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+        assertTrue(ResultSetCompare.equalsByTerm(rs1, rs3));
+    }
+
+    @Test public void service_cache_02() {
+        // Same pattern, different variable names.
+        ServiceCache cache = new ServiceCache(10, 60*1000);
+        String qs1 = "SELECT * { SERVICE <"+serviceURL+"> { ?s :q ?v } }";
+        String qs2 = "SELECT * { SERVICE <"+serviceURL+"> { ?a :q ?b } }";
+        ResultSetRewindable rs1 = exec(qs1, 1, cache);
+        long before = requests();
+        ResultSetRewindable rs2 = exec(qs2, 1, cache);
+        assertEquals(0, requests()-before);
+        assertEquals(rs1.size(), rs2.size());
+        assertEquals(1, cache.size());
+        assertEquals(rs2.getResultVars().size(), 2);
+        assertTrue(rs2.getResultVars().contains("a"));
+    }
+
+    @Test public void service_cache_03() throws InterruptedException {
+        ServiceCache cache = new ServiceCache(10, 10);
+        String qs = "SELECT * { SERVICE <"+serviceURL+"> { ?s :q ?v } }";
+        exec(qs, 1, cache);
+        Thread.sleep(50);
+        long before = requests();
+        exec(qs, 1, cache);
+        assertEquals(1, requests()-before);
+    }
+
+    @Test public void service_cache_04() throws IOException {
+        Path dir = Files.createTempDirectory("service-cache");
+        try {
+            String qs = "SELECT * { SERVICE <"+serviceURL+"> { ?s :q ?v } }";
+            ServiceCache cache1 = new ServiceCache(10, 60*1000, ServiceCache.DftMaxEntryBytes, dir);
+            ResultSetRewindable rs1 = exec(qs, 1, cache1);
+            // A new cache, same directory.
+            ServiceCache cache2 = new ServiceCache(10, 60*1000, ServiceCache.DftMaxEntryBytes, dir);
+            long before = requests();
+            ResultSetRewindable rs2 = exec(qs, 1, cache2);
+            assertEquals(0, requests()-before);
+            assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+            cache2.clear();
+        } finally {
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test public void service_cache_05() {
+        // Too large to cache.
+        ServiceCache cache = new ServiceCache(10, 60*1000, 10, null);
+        String qs = "SELECT * { SERVICE <"+serviceURL+"> { ?s :q ?v } }";
+        exec(qs, 1, cache);
+        assertEquals(0, cache.size());
+    }
+
+    @Test public void service_cache_06() {
+        // Settings for the endpoint are part of the key.
+        ServiceCache cache = new ServiceCache(10, 60*1000);
+        String qs = "SELECT * { SERVICE <"+serviceURL+"> { ?s :q ?v } }";
+        exec(qs, 1, cache);
+        Context serviceContext = new Context();
+        serviceContext.set(Service.queryTimeout, "5000,10000");
+        long before = requests();
+        exec(qs, cache, cxt->cxt.set(Service.serviceContext, Collections.singletonMap(serviceURL, serviceContext)));
+        assertEquals(1, requests()-before);
+        assertEquals(2, cache.size());
+    }
+
+    @Test public void service_cache_07() throws IOException {
+        // Requests with their own HTTP client are not cached.
+        ServiceCache cache = new ServiceCache(10, 60*1000);
+        String qs = "SELECT * { SERVICE <"+serviceURL+"> { ?s :q ?v } }";
+        try ( CloseableHttpClient client = HttpClients.createDefault() ) {
+            exec(qs, cache, cxt->cxt.set(Service.queryClient, client));
+            long before = requests();
+            exec(qs, cache, cxt->cxt.set(Service.queryClient, client));
+            assertEquals(1, requests()-before);
+        }
+        assertEquals(0, cache.size());
+    }
+
+    @Test public void service_cache_08() throws IOException, InterruptedException {
+        // Expired files are removed.
+        Path dir = Files.createTempDirectory("service-cache");
+        try {
+            String qs = "SELECT * { SERVICE <"+serviceURL+"> { ?s :q ?v } }";
+            exec(qs, 1, new ServiceCache(10, 10, ServiceCache.DftMaxEntryBytes, dir));
+            assertEquals(1, dir.toFile().list().length);
+            Thread.sleep(50);
+            new ServiceCache(10, 10, ServiceCache.DftMaxEntryBytes, dir);
+            assertEquals(0, dir.toFile().list().length);
+        } finally {
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test public void service_federation_01() {
+        ServiceStats stats = new ServiceStats(ServiceStats.DftTimeToLive, ServiceStats.DftProbeTimeout);
+        String qs = "SELECT * { ?x :p ?s SERVICE <"+serviceURL+"> { ?s :q ?v } }";
+        // Same results as all the data in one place.
+        ResultSetRewindable rs1 = execAll("SELECT * { ?x :p ?s . ?s :q ?v }");
+        ResultSetRewindable rs2 = execFederation(qs, stats);
+        assertEquals(6, rs2.size());
+        assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+        // Counted by the planner.
+        ServiceStats.PredicateStats pStats = stats.predicate(serviceURL, SSE.parseNode(":q", PREFIXES));
+        assertEquals(4, pStats.triples);
+        assertEquals(3, pStats.distinctSubjects);
+    }
+
+    @Test public void service_federation_02() {
+        ServiceStats stats = new ServiceStats(ServiceStats.DftTimeToLive, ServiceStats.DftProbeTimeout);
+        String qs = "SELECT * { ?x :p ?s SERVICE <"+serviceURL+"> { ?t :r ?s . ?s :q ?v } }";
+        ResultSetRewindable rs1 = execAll("SELECT * { ?x :p ?s . ?t :r ?s . ?s :q ?v }");
+        ResultSetRewindable rs2 = execFederation(qs, stats);
+        assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+    }
+
+    @Test public void service_federation_03() {
+        // Statistics from the VoID description.
+        ServiceStats stats = new ServiceStats(ServiceStats.DftTimeToLive, ServiceStats.DftProbeTimeout);
+        Node q = SSE.parseNode(":q", PREFIXES);
+        Node r = SSE.parseNode(":r", PREFIXES);
+        assertEquals(40, stats.predicate(voidURL, q).triples);
+        assertEquals(10, stats.predicate(voidURL, q).distinctSubjects);
+        // Not in the description.
+        assertEquals(0, stats.predicate(voidURL, r).triples);
+        assertEquals(100, stats.triples(voidURL));
+    }
+
+    @Test public void service_federation_04() throws IOException {
+        // Failures are not asked for again straight away ; the client in the context is used.
+        ServiceStats stats = new ServiceStats(ServiceStats.DftTimeToLive, ServiceStats.DftProbeTimeout);
+        String url = serviceURL.replace("/ds", "/nosuch");
+        Node q = SSE.parseNode(":q", PREFIXES);
+        AtomicInteger count = new AtomicInteger(0);
+        HttpRequestInterceptor counter = (request, httpContext) -> count.incrementAndGet();
+        try ( CloseableHttpClient client = HttpClients.custom().addInterceptorFirst(counter).build() ) {
+            Context cxt = new Context();
+            cxt.set(Service.queryClient, client);
+            assertEquals(ServiceStats.Unknown, stats.triples(url, cxt));
+            // VoID and the count.
+            assertEquals(2, count.get());
+            assertEquals(ServiceStats.Unknown, stats.triples(url, cxt));
+            assertEquals(ServiceStats.Unknown, stats.predicate(url, q, cxt).triples);
+            assertEquals(3, count.get());
+            assertEquals(ServiceStats.Unknown, stats.predicate(url, q, cxt).triples);
+            assertEquals(3, count.get());
+        }
+    }
+
+    private static long requests() {
+        return server.getDataAccessPointRegistry().get("/ds").getDataService().getRequests();
+    }
+
+    private static void test(String queryString, int batchSize) {
+        ResultSetRewindable rs1 = exec(queryString, 1);
+        ResultSetRewindable rs2 = exec(queryString, batchSize);
+        assertEquals(rs1.size(), rs2.size());
+        assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2));
+    }
+
+    private static ResultSetRewindable exec(String queryString, int batchSize) {
+        return exec(queryString, batchSize, 1, true);
+    }
+
+    private static ResultSetRewindable execAll(String queryString) {
+        Model model = ModelFactory.createDefaultModel();
+        model.add(local.getDefaultModel());
+        model.add(ModelFactory.createModelForGraph(remote.getDefaultGraph()));
+        try ( QueryExecution qExec = QueryExecutionFactory.create(PREFIX+queryString, model) ) {
+            return ResultSetFactory.copyResults(qExec.execSelect());
+        }
+    }
+
+    private static ResultSetRewindable execFederation(String queryString, ServiceStats stats) {
+        Query query = QueryFactory.create(PREFIX+queryString);
+        try ( QueryExecution qExec = QueryExecutionFactory.create(query, local) ) {
+            Context cxt = qExec.getContext();
+            cxt.set(ARQ.optServiceFederation, true);
+            cxt.set(Service.serviceStats, stats);
+            return ResultSetFactory.copyResults(qExec.execSelect());
+        }
+    }
+
+    private static ResultSetRewindable exec(String queryString, int batchSize, ServiceCache cache) {
+        Query query = QueryFactory.create(PREFIX+queryString);
+        try ( QueryExecution qExec = QueryExecutionFactory.create(query, local) ) {
+            Context cxt = qExec.getContext();
+            cxt.set(Service.serviceBatchSize, batchSize);
+            cxt.set(Service.serviceCache, cache);
+            return ResultSetFactory.copyResults(qExec.execSelect());
+        }
+    }
+
+    private static ResultSetRewindable exec(String queryString, ServiceCache cache, Consumer<Context> settings) {
+        Query query = QueryFactory.create(PREFIX+queryString);
+        try ( QueryExecution qExec = QueryExecutionFactory.create(query, local) ) {
+            Context cxt = qExec.getContext();
+            cxt.set(Service.serviceCache, cache);
+            settings.accept(cxt);
+            return ResultSetFactory.copyResults(qExec.execSelect());
+        }
+    }
+
+    private static ResultSetRewindable exec(String queryString, int batchSize, int concurrency, boolean ordered) {
+        Query query = QueryFactory.create(PREFIX+queryString);
+        try ( QueryExecution qExec = QueryExecutionFactory.create(query, local) ) {
+            Context cxt = qExec.getContext();
+            cxt.set(Service.serviceBatchSize, batchSize);
+            cxt.set(Service.serviceConcurrency, concurrency);
+            cxt.set(Service.serviceEndpointConcurrency, 2);
+            cxt.set(Service.serviceOrdered, ordered);
+            return ResultSetFactory.copyResults(qExec.execSelect());
+        }
+    }
+}
@@ -51,6 +51,9 @@ public class Parser implements IRIComponents, ViolationCodes {
 
     static boolean DEBUG = false;
 
+    /** Skip the component lexers for plain components (testing). */
+    static boolean fastPath = true;
+
     static final int fields[] = { SCHEME, USER, HOST, PORT, PATH, QUERY,
             FRAGMENT, AUTHORITY, PATHQUERY };
 
@@ -105,7 +108,9 @@ public class Parser implements IRIComponents, ViolationCodes {
                 if ((range!=PATH && range != HOST)|| start(range)!=end(range) ) {
                     found |= 1<<range;   
                 }
-                lex[i].analyse(this, range);
+                // The lexers find nothing to report in a plain component.
+                if (!fastPath || !plain(range))
+                    lex[i].analyse(this, range);
                 iri.scheme.analyse(this, range);
                 if (range==PORT) {
                     try {
@@ -157,6 +162,126 @@ public class Parser implements IRIComponents, ViolationCodes {
 
     }
 
+    // ---- Fast path.
+    // A component made only of characters, in a shape, for which the
+    // component lexer records no violations. This is conservative -
+    // anything else is passed to the lexer. It covers the common
+    // "http://host/path?query#fragment" and "urn:..." IRIs.
+
+    // unreserved, sub-delims, ':' and '@'. No '%'.
+    private static final boolean[] pchar = new boolean[128];
+    static {
+        for (char ch = 'a'; ch <= 'z'; ch++)
+            pchar[ch] = true;
+        for (char ch = 'A'; ch <= 'Z'; ch++)
+            pchar[ch] = true;
+        for (char ch = '0'; ch <= '9'; ch++)
+            pchar[ch] = true;
+        for (char ch : "-._~!$&'()*+,;=:@".toCharArray())
+            pchar[ch] = true;
+    }
+
+    private boolean plain(int range) {
+        int start = start(range);
+        int end = end(range);
+        switch (range) {
+            case SCHEME:   return plainScheme(uri, start, end);
+            case HOST:     return plainHost(uri, start, end);
+            case PORT:     return plainPort(uri, start, end);
+            case PATH:     return plainPath(uri, start, end);
+            case QUERY:
+            case FRAGMENT: return plainQueryOrFragment(uri, start, end);
+            default:       return false;
+        }
+    }
+
+    // [a-z][a-z0-9+.]*
+    static boolean plainScheme(String s, int start, int end) {
+        if (start == end || !lowerAlpha(s.charAt(start)))
+            return false;
+        for (int i = start + 1; i < end; i++) {
+            char ch = s.charAt(i);
+            if (!lowerAlpha(ch) && !digit(ch) && ch != '+' && ch != '.')
+                return false;
+        }
+        return true;
+    }
+
+    // DNS name : lowercase labels of letters and digits, at most 63 characters,
+    // and the last label starts with a letter. A label may have dashes
+    // between pieces of at least two characters ("ab-cd", not "a-bc").
+    static boolean plainHost(String s, int start, int end) {
+        if (start == end)
+            return false;
+        int labelStart = start;
+        int pieceStart = start;
+        for (int i = start; i <= end; i++) {
+            char ch = (i == end) ? '.' : s.charAt(i);
+            if (ch == '.') {
+                int len = i - labelStart;
+                if (len == 0 || len > 63)
+                    return false;
+                if (pieceStart != labelStart && i - pieceStart < 2)
+                    return false;
+                if (i == end && !lowerAlpha(s.charAt(labelStart)))
+                    return false;
+                labelStart = i + 1;
+                pieceStart = i + 1;
+            } else if (ch == '-') {
+                if (i - pieceStart < 2)
+                    return false;
+                pieceStart = i + 1;
+            } else if (!lowerAlpha(ch) && !digit(ch))
+                return false;
+        }
+        return true;
+    }
+
+    // [1-9][0-9]*
+    static boolean plainPort(String s, int start, int end) {
+        if (start == end || s.charAt(start) == '0')
+            return false;
+        for (int i = start; i < end; i++) {
+            if (!digit(s.charAt(i)))
+                return false;
+        }
+        return true;
+    }
+
+    // pchar and '/', no "." or ".." segments.
+    static boolean plainPath(String s, int start, int end) {
+        int segStart = start;
+        for (int i = start; i <= end; i++) {
+            char ch = (i == end) ? '/' : s.charAt(i);
+            if (ch == '/') {
+                int len = i - segStart;
+                if ((len == 1 || len == 2) && s.charAt(segStart) == '.' && s.charAt(i - 1) == '.')
+                    return false;
+                segStart = i + 1;
+            } else if (ch >= 128 || !pchar[ch])
+                return false;
+        }
+        return true;
+    }
+
+    // pchar, '/' and '?'.
+    static boolean plainQueryOrFragment(String s, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char ch = s.charAt(i);
+            if (ch != '/' && ch != '?' && (ch >= 128 || !pchar[ch]))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean lowerAlpha(char ch) {
+        return ch >= 'a' && ch <= 'z';
+    }
+
+    private static boolean digit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
     static private Lexer[] nextLexer() {
         Lexer lex[] = lexers[nextLexer];
         nextLexer = (nextLexer + 1) % lexers.length;
@@ -20,6 +20,7 @@ package org.apache.jena.iri;
 
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
+import org.apache.jena.iri.impl.TestParserFastPath;
 
 public class TS_IRI extends TestCase{
     
@@ -32,6 +33,7 @@ public class TS_IRI extends TestCase{
         rslt.addTest(MoreTests.suite());
         rslt.addTest(Additional.suite());
         rslt.addTest(TestIRIFactory.suite());
+        rslt.addTest(TestParserFastPath.suite());
         
         return rslt;
     }
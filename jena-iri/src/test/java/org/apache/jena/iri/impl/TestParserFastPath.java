@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.iri.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import junit.framework.JUnit4TestAdapter;
+import org.apache.jena.iri.IRIFactory;
+import org.junit.Test;
+
+/** The fast path for plain components finds the same violations as the lexers. */
+public class TestParserFastPath {
+    static public junit.framework.Test suite() {
+        return new JUnit4TestAdapter(TestParserFastPath.class);
+    }
+
+    private static IRIFactory factory = IRIFactory.iriImplementation();
+
+    private static String[] schemes = { "http", "https", "HTTP", "urn", "x-y", "a+b.c", "1a", "file", "" };
+    private static String[] authorities = { null, "", "example.org", "Example.org", "example.org.", "a-b.example",
+        "a--b.example", "xn--abc.org", "-a.example", "a-.example", "127.0.0.1", "999.0.0.1", "host.1com",
+        "localhost", "a_b.example", "user@example.org", "user:pw@example.org", "example.org:80",
+        "example.org:3030", "example.org:0", "example.org:08", "example.org:", "[::1]", "é.example",
+        "x23456789012345678901234567890123456789012345678901234567890123.org",
+        "x234567890123456789012345678901234567890123456789012345678901234.org" };
+    private static String[] paths = { "", "/", "/a/b", "/a/./b", "/a/../b", "/a/.", "/a/..", "/.well-known/x",
+        "/a..b/c.", "/a//b", "/%20", "/%2f", "/a b", "/a~b!$&'()*+,;=:@", "/é", "a/b", "../a", "./a", "/<>", "/\\" };
+    private static String[] queries = { null, "", "q=1", "a=b&c=d/e?f", "%41", "a b", "é" };
+    private static String[] fragments = { null, "", "frag", "a/b?c", "%zz", "a#b", "é" };
+
+    @Test
+    public void fastPath_equivalent() {
+        int count = 0;
+        for ( String scheme : schemes )
+            for ( String auth : authorities )
+                for ( String path : paths )
+                    for ( String query : queries )
+                        for ( String frag : fragments ) {
+                            StringBuilder sb = new StringBuilder();
+                            if ( !scheme.isEmpty() )
+                                sb.append(scheme).append(':');
+                            if ( auth != null )
+                                sb.append("//").append(auth);
+                            sb.append(path);
+                            if ( query != null )
+                                sb.append('?').append(query);
+                            if ( frag != null )
+                                sb.append('#').append(frag);
+                            check(sb.toString());
+                            count++;
+                        }
+        assertTrue(count > 10000);
+    }
+
+    @Test
+    public void fastPath_plain() {
+        assertTrue(Parser.plainHost("example.org", 0, 11));
+        assertFalse(Parser.plainHost("Example.org", 0, 11));
+        assertFalse(Parser.plainHost("127.0.0.1", 0, 9));
+        assertTrue(Parser.plainPath("/a/b", 0, 4));
+        assertFalse(Parser.plainPath("/a/../b", 0, 7));
+        assertTrue(Parser.plainScheme("http", 0, 4));
+        assertFalse(Parser.plainScheme("HTTP", 0, 4));
+        assertTrue(Parser.plainPort("8080", 0, 4));
+        assertFalse(Parser.plainPort("080", 0, 3));
+    }
+
+    private static void check(String string) {
+        long fast = errors(string, true);
+        long full = errors(string, false);
+        assertEquals(string, full, fast);
+    }
+
+    private static long errors(String string, boolean fastPath) {
+        boolean b = Parser.fastPath;
+        try {
+            Parser.fastPath = fastPath;
+            return ((AbsIRIImpl)factory.create(string)).allErrors;
+        } finally {
+            Parser.fastPath = b;
+        }
+    }
+}
@@ -23,8 +23,8 @@ import org.apache.http.auth.Credentials;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.HttpClient;
 import org.apache.http.impl.client.BasicCredentialsProvider;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.jena.query.Dataset;
+import org.apache.jena.riot.web.HttpOp;
 import org.apache.jena.sys.JenaSystem;
 
 public class RDFConnectionFactory {
@@ -100,7 +100,7 @@ public class RDFConnectionFactory {
         BasicCredentialsProvider credsProvider = new BasicCredentialsProvider();
         Credentials credentials = new UsernamePasswordCredentials(user, password);
         credsProvider.setCredentials(AuthScope.ANY, credentials);
-        HttpClient client = HttpClients.custom().setDefaultCredentialsProvider(credsProvider).build();
+        HttpClient client = HttpOp.createPoolingHttpClientBuilder().setDefaultCredentialsProvider(credsProvider).build();
         return RDFConnectionRemote.create()
             .destination(URL)
             .httpClient(client)
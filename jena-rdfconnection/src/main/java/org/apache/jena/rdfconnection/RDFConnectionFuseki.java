@@ -22,6 +22,7 @@ import org.apache.http.client.HttpClient;
 import org.apache.http.protocol.HttpContext;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFFormat;
+import org.apache.jena.riot.WebContent;
 import org.apache.jena.riot.resultset.ResultSetLang;
 import org.apache.jena.sparql.core.Transactional;
 
@@ -56,7 +57,7 @@ public class RDFConnectionFuseki extends RDFConnectionRemote {
     private static RDFConnectionRemoteBuilder setupForFuseki(RDFConnectionRemoteBuilder builder) {
         String ctRDFThrift = Lang.RDFTHRIFT.getContentType().getContentType();
         String acceptHeaderSPARQL = String.join("," 
-                            , ResultSetLang.SPARQLResultSetThrift.getHeaderString()
+                            , WebContent.contentTypeResultsThriftRepeat
                             , ResultSetLang.SPARQLResultSetJSON.getHeaderString()+";q=0.9"
                             , Lang.RDFTHRIFT.getHeaderString());
         return 
@@ -65,7 +66,7 @@ public class RDFConnectionFuseki extends RDFConnectionRemote {
                 .triplesFormat(RDFFormat.RDF_THRIFT)
                 .acceptHeaderGraph(ctRDFThrift)
                 .acceptHeaderDataset(ctRDFThrift)
-                .acceptHeaderSelectQuery(ResultSetLang.SPARQLResultSetThrift.getHeaderString())
+                .acceptHeaderSelectQuery(WebContent.contentTypeResultsThriftRepeat)
                 .acceptHeaderAskQuery(ResultSetLang.SPARQLResultSetJSON.getHeaderString())
                 .acceptHeaderQuery(acceptHeaderSPARQL)
                 .parseCheckSPARQL(false)
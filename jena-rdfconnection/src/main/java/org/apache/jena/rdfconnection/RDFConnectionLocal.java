@@ -74,6 +74,24 @@ public class RDFConnectionLocal implements RDFConnection {
         return QueryExecutionFactory.create(query, dataset);
     }
 
+    /**
+     * Prepare a query for repeated execution with different parameter values.
+     * The query is optimized once for this connection's dataset.
+     * @see PreparedQuery
+     */
+    public PreparedQuery prepare(Query query) {
+        checkOpen();
+        return PreparedQuery.prepare(query, dataset);
+    }
+
+    /**
+     * Prepare a query for repeated execution with different parameter values.
+     * @see PreparedQuery
+     */
+    public PreparedQuery prepare(String queryString) {
+        return prepare(QueryFactory.create(queryString));
+    }
+
     @Override
     public void update(UpdateRequest update) {
         checkOpen();